@@ -17,9 +17,12 @@ public class CommandOptionsImpl extends ManifestOptionsImpl implements CommandOp
 	private final static boolean defIsSaveFilesBeforeBundleOperation = false;
 	private final static boolean defIsSaveSnapshotBeforeBundleOperation = false;
 	private final static boolean defIsTimeOut = false;
+	private final static boolean defIsParallelActivation = false;
+	private final static boolean defIsFastStart = false;
 	private final static boolean defIsManualTerminate = true;
 	private final static boolean defIsDeactivateOnTerminate = true;
 	private final static int defTimeOut = 5;
+	private final static int defBuildQuietPeriod = 0;
 	
 	public CommandOptionsImpl() {
 	}
@@ -88,6 +91,51 @@ public class CommandOptionsImpl extends ManifestOptionsImpl implements CommandOp
 		getPrefs().putBoolean(IS_TIMEOUT, timeOut);
 	}
 
+	@Override
+	public boolean isParallelActivation() {
+		return getPrefs().getBoolean(IS_PARALLEL_ACTIVATION, getDefaultIsParallelActivation());
+	}
+
+	@Override
+	public boolean getDefaultIsParallelActivation() {
+		return defIsParallelActivation;
+	}
+
+	@Override
+	public void setIsParallelActivation(boolean parallel) {
+		getPrefs().putBoolean(IS_PARALLEL_ACTIVATION, parallel);
+	}
+
+	@Override
+	public int getBuildQuietPeriod() {
+		return getPrefs().getInt(BUILD_QUIET_PERIOD, getDefaultBuildQuietPeriod());
+	}
+
+	@Override
+	public int getDefaultBuildQuietPeriod() {
+		return defBuildQuietPeriod;
+	}
+
+	@Override
+	public void setBuildQuietPeriod(int msec) {
+		getPrefs().putInt(BUILD_QUIET_PERIOD, msec);
+	}
+
+	@Override
+	public boolean isFastStart() {
+		return getPrefs().getBoolean(IS_FAST_START, getDefaultIsFastStart());
+	}
+
+	@Override
+	public boolean getDefaultIsFastStart() {
+		return defIsFastStart;
+	}
+
+	@Override
+	public void setIsFastStart(boolean fastStart) {
+		getPrefs().putBoolean(IS_FAST_START, fastStart);
+	}
+
 	@Override
 	public boolean isDeactivateOnExit() {
 		return getPrefs().getBoolean(IS_DEACTIVATE_ON_EXIT, getDefaultIsDeactivateOnExit());
@@ -13,6 +13,9 @@ public interface CommandOptions extends ManifestOptions {
 	public static final String TIMEOUT_SECONDS = "timeoutSeconds";
 	public static final String DEFAULT_TIMEOUT_SECONDS = "defaultTimeoutSeconds";
 	public static final String IS_TIMEOUT = "isTimeout";
+	public static final String IS_PARALLEL_ACTIVATION = "isParallelActivation";
+	public static final String IS_FAST_START = "isFastStart";
+	public static final String BUILD_QUIET_PERIOD = "buildQuietPeriod";
 	public static final String IS_MANUAL_TERMINATE = "isManualTerminate";
 	public static final String IS_DEACTIVATE_ON_TERMINATE = "isDeactivateOnTerminate";
 	public static final String IS_REFRESH_ON_UPDATE = "isRefreshOnUpdate";
@@ -185,6 +188,80 @@ public interface CommandOptions extends ManifestOptions {
 	 */
 	public void setIsTimeOut(boolean timeOut);
 
+	/**
+	 * Check whether independent bundles should be started and stopped in parallel. Bundles are
+	 * grouped in dependency waves where providers are started before requirers and requirers are
+	 * stopped before providers. The bundles in each wave are started or stopped concurrently.
+	 * 
+	 * @return true if bundles are started and stopped in parallel and false if they are started and
+	 * stopped one at a time
+	 */
+	public boolean isParallelActivation();
+
+	/**
+	 * Get the default for starting and stopping bundles in parallel
+	 * 
+	 * @return true if the default is to start and stop bundles in parallel and false if not
+	 */
+	public boolean getDefaultIsParallelActivation();
+
+	/**
+	 * Set whether independent bundles should be started and stopped in parallel
+	 * 
+	 * @param parallel true to start and stop bundles in parallel and false to start and stop bundles
+	 * one at a time
+	 */
+	public void setIsParallelActivation(boolean parallel);
+
+	/**
+	 * Check whether the start of activated bundles with an eager activation policy should be deferred
+	 * at start up. Bundles are installed and resolved at start up and bundles with a lazy activation
+	 * policy are activated on first class load. Bundles with an eager activation policy are started by
+	 * a background job with low priority after start up.
+	 * 
+	 * @return true if bundles with an eager activation policy are started after start up and false if
+	 * they are started at start up
+	 */
+	public boolean isFastStart();
+
+	/**
+	 * Get the default for deferring the start of bundles with an eager activation policy at start up
+	 * 
+	 * @return true if the default is to defer the start of bundles and false if not
+	 */
+	public boolean getDefaultIsFastStart();
+
+	/**
+	 * Set whether the start of bundles with an eager activation policy should be deferred at start up
+	 * 
+	 * @param fastStart true to start bundles after start up and false to start bundles at start up
+	 */
+	public void setIsFastStart(boolean fastStart);
+
+	/**
+	 * Get the time in milliseconds to wait for further builds before bundle jobs scheduled after a
+	 * build are run. Jobs of the same kind scheduled by builds within this period are merged into one
+	 * job.
+	 * 
+	 * @return quiet period in milliseconds. Zero to run bundle jobs immediately after each build
+	 */
+	public int getBuildQuietPeriod();
+
+	/**
+	 * Get the default quiet period in milliseconds to wait for further builds
+	 * 
+	 * @return default quiet period in milliseconds
+	 */
+	public int getDefaultBuildQuietPeriod();
+
+	/**
+	 * Set the time in milliseconds to wait for further builds before bundle jobs scheduled after a
+	 * build are run
+	 * 
+	 * @param msec quiet period in milliseconds. Zero to run bundle jobs immediately after each build
+	 */
+	public void setBuildQuietPeriod(int msec);
+
 	/**
 	 * Get thread timeout value in seconds for Start and Stop methods in bundles.
 	 * 
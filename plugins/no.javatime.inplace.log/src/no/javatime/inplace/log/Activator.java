@@ -92,6 +92,10 @@ public class Activator extends AbstractUIPlugin {
 	 * @see org.eclipse.ui.plugin.AbstractUIPlugin#stop(org.osgi.framework.BundleContext)
 	 */
 	public void stop(BundleContext context) throws Exception {
+		if (null != logWriter) {
+			// Write entries waiting to be written
+			logWriter.close();
+		}
 		bundleProjectTracker.close();
 		bundleProjectTracker = null;		
 		environmentInfoServiceTracker.close();
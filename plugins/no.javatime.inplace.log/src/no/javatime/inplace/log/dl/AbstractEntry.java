@@ -94,6 +94,19 @@ public abstract class AbstractEntry extends PlatformObject implements IWorkbench
 		this.parent = parent;
 	}
 
+	/**
+	 * Removes the specified child entry from the listing of children. The listing is
+	 * searched from the oldest child, which is the child most likely to be removed.
+	 * 
+	 * @param child the child to remove
+	 */
+	public void removeChild(AbstractEntry child) {
+		int index = children.lastIndexOf(child);
+		if (index >= 0) {
+			children.remove(index);
+		}
+	}
+
 	/**
 	 * removes all of the children specified in the given listing
 	 * 
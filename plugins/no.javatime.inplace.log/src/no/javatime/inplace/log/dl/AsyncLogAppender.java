@@ -0,0 +1,284 @@
+/*******************************************************************************
+ * Copyright (c) 2014 JavaTime project and others
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ * 	JavaTime project, Eirik Gronsund - initial implementation
+ *******************************************************************************/
+package no.javatime.inplace.log.dl;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+
+import no.javatime.inplace.log.impl.BundleLogEntryImpl;
+
+import org.eclipse.core.runtime.IStatus;
+
+/**
+ * Bounded buffer of log entries written to the log by a single writer thread. Threads logging
+ * entries only copy the entry to the buffer and return, while the writer thread keeps the log file
+ * open and writes the entries in batches.
+ * <p>
+ * The log is flushed when the number of written and not flushed entries reaches the flush size,
+ * when the oldest not flushed entry is older than the flush interval, when the buffer is closed and
+ * when requested by {@link #flush(long)}.
+ * <p>
+ * When the buffer is full an entry is handled according to the overflow policy of the buffer.
+ * Entries that can not be added because the buffer is closed or the logging thread is interrupted
+ * are rejected and should be written by the caller.
+ */
+class AsyncLogAppender implements Runnable {
+
+	/**
+	 * Handling of new entries when the buffer is full
+	 */
+	enum OverflowPolicy {
+		/** Wait until there is space in the buffer */
+		BLOCK,
+		/** Discard the oldest entry in the buffer */
+		DROP_OLDEST,
+		/** Discard new entries with severity {@code IStatus.OK} and wait for space for other entries */
+		DROP_DEBUG
+	}
+
+	private final LogWriter logWriter;
+	private final OverflowPolicy overflowPolicy;
+	private final int flushSize;
+	private final long flushInterval;
+
+	// Ring buffer of entries and the time they were logged
+	private final BundleLogEntryImpl[] entries;
+	private final long[] times;
+	private int head;
+	private int size;
+
+	private final ReentrantLock lock = new ReentrantLock();
+	private final Condition notEmpty = lock.newCondition();
+	private final Condition notFull = lock.newCondition();
+	private final Condition flushed = lock.newCondition();
+
+	// Number of entries added to the buffer
+	private long appendCount;
+	// Number of entries taken from or dropped from the buffer
+	private long consumeCount;
+	// Entries up to this number are written and flushed
+	private long flushCount;
+	// Flush requested up to this number of entries
+	private long flushTarget;
+	// Entries dropped since last reported
+	private long dropCount;
+	private boolean closed;
+	private Thread thread;
+
+	/**
+	 * Create a buffer writing entries to the specified log writer
+	 *
+	 * @param logWriter the log writer to write entries with
+	 * @param capacity maximum number of entries in the buffer
+	 * @param overflowPolicy handling of new entries when the buffer is full
+	 * @param flushSize number of written entries before the log is flushed
+	 * @param flushInterval maximum number of milliseconds from an entry is written until the log is
+	 * flushed
+	 */
+	AsyncLogAppender(LogWriter logWriter, int capacity, OverflowPolicy overflowPolicy, int flushSize,
+			long flushInterval) {
+		this.logWriter = logWriter;
+		this.overflowPolicy = overflowPolicy;
+		this.flushSize = flushSize;
+		this.flushInterval = TimeUnit.MILLISECONDS.toNanos(flushInterval);
+		entries = new BundleLogEntryImpl[capacity];
+		times = new long[capacity];
+	}
+
+	/**
+	 * Start the writer thread
+	 */
+	void start() {
+		thread = new Thread(this, "Bundle Log Writer"); //$NON-NLS-1$
+		thread.setDaemon(true);
+		thread.start();
+	}
+
+	/**
+	 * Add the specified entry to the buffer
+	 *
+	 * @param entry the log entry to add
+	 * @return true if the entry is added or dropped according to the overflow policy and false if the
+	 * entry is rejected
+	 */
+	boolean append(BundleLogEntryImpl entry) {
+
+		long time = System.currentTimeMillis();
+		lock.lock();
+		try {
+			while (!closed && size == entries.length) {
+				if (overflowPolicy == OverflowPolicy.DROP_OLDEST) {
+					entries[head] = null;
+					head = (head + 1) % entries.length;
+					size--;
+					consumeCount++;
+					dropCount++;
+				} else if (overflowPolicy == OverflowPolicy.DROP_DEBUG
+						&& entry.getSeverity() == IStatus.OK) {
+					dropCount++;
+					return true;
+				} else {
+					notFull.await();
+				}
+			}
+			if (closed) {
+				return false;
+			}
+			int tail = (head + size) % entries.length;
+			entries[tail] = entry;
+			times[tail] = time;
+			size++;
+			appendCount++;
+			notEmpty.signal();
+			return true;
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			return false;
+		} finally {
+			lock.unlock();
+		}
+	}
+
+	/**
+	 * Wait until all entries added before this call are written and flushed to the log
+	 *
+	 * @param timeout maximum number of milliseconds to wait
+	 * @return true if the entries were flushed and false if the wait timed out or was interrupted
+	 */
+	boolean flush(long timeout) {
+
+		long remaining = TimeUnit.MILLISECONDS.toNanos(timeout);
+		lock.lock();
+		try {
+			long target = appendCount;
+			if (target > flushTarget) {
+				flushTarget = target;
+				notEmpty.signal();
+			}
+			while (flushCount < target && null != thread && thread.isAlive()) {
+				if (remaining <= 0) {
+					return false;
+				}
+				remaining = flushed.awaitNanos(remaining);
+			}
+			return flushCount >= target;
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			return false;
+		} finally {
+			lock.unlock();
+		}
+	}
+
+	/**
+	 * Reject new entries and wait until the writer thread has written all entries in the buffer
+	 *
+	 * @param timeout maximum number of milliseconds to wait for the writer thread
+	 */
+	void close(long timeout) {
+
+		lock.lock();
+		try {
+			closed = true;
+			notEmpty.signalAll();
+			notFull.signalAll();
+		} finally {
+			lock.unlock();
+		}
+		if (null != thread) {
+			try {
+				thread.join(timeout);
+			} catch (InterruptedException e) {
+				Thread.currentThread().interrupt();
+			}
+		}
+	}
+
+	@Override
+	public void run() {
+
+		BundleLogEntryImpl[] batch = new BundleLogEntryImpl[entries.length];
+		long[] batchTimes = new long[entries.length];
+		int unflushed = 0;
+		long firstUnflushed = 0;
+		boolean stop = false;
+		while (!stop) {
+			int count = 0;
+			long consumed;
+			long dropped;
+			boolean isFlushRequested;
+			lock.lock();
+			try {
+				while (size == 0 && !closed && flushTarget <= flushCount) {
+					if (unflushed == 0) {
+						notEmpty.await();
+					} else {
+						long remaining = flushInterval - (System.nanoTime() - firstUnflushed);
+						if (remaining <= 0) {
+							break;
+						}
+						notEmpty.awaitNanos(remaining);
+					}
+				}
+				while (size > 0) {
+					batch[count] = entries[head];
+					batchTimes[count++] = times[head];
+					entries[head] = null;
+					head = (head + 1) % entries.length;
+					size--;
+				}
+				if (count > 0) {
+					consumeCount += count;
+					notFull.signalAll();
+				}
+				consumed = consumeCount;
+				dropped = dropCount;
+				dropCount = 0;
+				isFlushRequested = flushTarget > flushCount;
+				stop = closed;
+			} catch (InterruptedException e) {
+				// Write what is left and terminate
+				closed = true;
+				notFull.signalAll();
+				continue;
+			} finally {
+				lock.unlock();
+			}
+			if (count > 0 || dropped > 0) {
+				if (unflushed == 0) {
+					firstUnflushed = System.nanoTime();
+				}
+				logWriter.write(batch, batchTimes, count, dropped);
+				// A report of dropped entries is written as one entry
+				unflushed += count > 0 ? count : 1;
+				for (int i = 0; i < count; i++) {
+					batch[i] = null;
+				}
+			}
+			if (unflushed > 0
+					&& (stop || isFlushRequested || unflushed >= flushSize || System.nanoTime()
+							- firstUnflushed >= flushInterval)) {
+				logWriter.flushWritten();
+				unflushed = 0;
+			}
+			if (unflushed == 0) {
+				lock.lock();
+				try {
+					flushCount = consumed;
+					flushed.signalAll();
+				} finally {
+					lock.unlock();
+				}
+			}
+		}
+	}
+}
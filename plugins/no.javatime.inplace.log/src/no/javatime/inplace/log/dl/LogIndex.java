@@ -0,0 +1,417 @@
+package no.javatime.inplace.log.dl;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+
+/**
+ * Sidecar index of a log file with the byte offset of each entry and session in the log. The index
+ * is maintained by the {@link LogWriter} as entries are appended to the log, and is used by the
+ * {@link LogReader} to read new entries since a known offset or a page of older entries without
+ * parsing the log from the beginning.
+ * <p>
+ * The index file is stored next to the log file and starts with a header holding a magic number and
+ * the format version. The header is followed by one fixed size record for each root entry and
+ * session header in the log in the order they were written. A record holds the offset of the
+ * {@code !ENTRY} or {@code !SESSION} line and the offset of the session the entry belongs to, or -1
+ * if there is no session header before the entry. The offset of a session record is equal to its
+ * session offset.
+ * <p>
+ * Records are only added after the log content they refer to is flushed. An index is not valid for
+ * a log if its last record does not refer to an entry or a session in the log, and readers should
+ * parse the log without the index in that case.
+ */
+public class LogIndex {
+
+	/** The extension appended to the name of the log file */
+	static final String INDEX_EXT = ".idx"; //$NON-NLS-1$
+	private static final int MAGIC = 0x4C4F4749;
+	private static final short VERSION = 1;
+	private static final int HEADER_SIZE = 6;
+	private static final int RECORD_SIZE = 16;
+	private static final int RECORD_BUFFER_SIZE = 64;
+
+	private static final byte[] ENTRY = "!ENTRY ".getBytes(StandardCharsets.US_ASCII); //$NON-NLS-1$
+	private static final byte[] SESSION = LogSession.SESSION.getBytes(StandardCharsets.US_ASCII);
+
+	private final File logFile;
+	private final File indexFile;
+	/** Number of records in the index */
+	private int size;
+	/** Offset of the last record in the index or -1 if the index is empty */
+	private long lastOffset = -1;
+	/** Offset of the session of the last record or -1 if there is no session */
+	private long sessionOffset = -1;
+	/** Records not yet written to the index file as pairs of entry and session offsets */
+	private long[] pending = new long[RECORD_BUFFER_SIZE * 2];
+	private int pendingCount;
+
+	private LogIndex(File logFile) {
+		this.logFile = logFile;
+		this.indexFile = getIndexFile(logFile);
+	}
+
+	/**
+	 * Load the index of the specified log file for reading. The number of records in the returned
+	 * index is the number of records when loaded. Load the index again to read records added later.
+	 *
+	 * @param logFile the log file
+	 * @return the index or null if the log has no index or the index is not valid for the log
+	 */
+	public static LogIndex load(File logFile) {
+		LogIndex index = new LogIndex(logFile);
+		return index.validate(logFile.length()) ? index : null;
+	}
+
+	/**
+	 * Open the index of the specified log file for writing. The index is created from the content of
+	 * the log if the log has no index or the index is not valid for the log.
+	 *
+	 * @param logFile the log file
+	 * @return the index ready to add records to
+	 */
+	static LogIndex open(File logFile) {
+		LogIndex index = new LogIndex(logFile);
+		long length = logFile.length();
+		if (!index.validate(length) || index.size == 0 && length > 0) {
+			index.rebuild();
+		}
+		return index;
+	}
+
+	/**
+	 * Delete the index of the specified log file
+	 *
+	 * @param logFile the log file
+	 */
+	public static void delete(File logFile) {
+		File file = getIndexFile(logFile);
+		if (file.exists()) {
+			file.delete();
+		}
+	}
+
+	/**
+	 * Move the index of a log file renamed to the specified file. Any existing index of the renamed
+	 * file is replaced.
+	 *
+	 * @param logFile the log file before it was renamed
+	 * @param renamedFile the log file after it was renamed
+	 */
+	static void move(File logFile, File renamedFile) {
+		delete(renamedFile);
+		File file = getIndexFile(logFile);
+		if (file.exists() && !file.renameTo(getIndexFile(renamedFile))) {
+			file.delete();
+		}
+	}
+
+	private static File getIndexFile(File logFile) {
+		return new File(logFile.getPath() + INDEX_EXT);
+	}
+
+	/**
+	 * The log file of this index
+	 *
+	 * @return the log file
+	 */
+	public File getLogFile() {
+		return logFile;
+	}
+
+	/**
+	 * Number of entry and session records in the index
+	 *
+	 * @return the number of records
+	 */
+	public int size() {
+		return size;
+	}
+
+	/**
+	 * The session of the last record in the index
+	 *
+	 * @return offset of the session header of the last record or -1 if the index is empty or there
+	 * is no session header before the last record
+	 */
+	public long getSessionOffset() {
+		return sessionOffset;
+	}
+
+	/**
+	 * Find the first record at or after the specified offset
+	 *
+	 * @param offset an offset in the log
+	 * @return the position of the first record with an offset equal to or greater than the specified
+	 * offset or the number of records if there is no such record
+	 * @throws IOException if failing to read the index
+	 */
+	public int search(long offset) throws IOException {
+		int low = 0;
+		int high = size;
+		RandomAccessFile raf = new RandomAccessFile(indexFile, "r"); //$NON-NLS-1$
+		try {
+			while (low < high) {
+				int mid = (low + high) >>> 1;
+				raf.seek(HEADER_SIZE + (long) mid * RECORD_SIZE);
+				if (raf.readLong() < offset) {
+					low = mid + 1;
+				} else {
+					high = mid;
+				}
+			}
+		} finally {
+			raf.close();
+		}
+		return low;
+	}
+
+	/**
+	 * Read a range of records from the index
+	 *
+	 * @param from position of the first record to read
+	 * @param to position after the last record to read
+	 * @return pairs of record offset and session offset in record order
+	 * @throws IOException if failing to read the index
+	 */
+	public long[] read(int from, int to) throws IOException {
+		if (from < 0 || to > size || from > to) {
+			throw new IndexOutOfBoundsException();
+		}
+		long[] records = new long[(to - from) * 2];
+		if (records.length == 0) {
+			return records;
+		}
+		RandomAccessFile raf = new RandomAccessFile(indexFile, "r"); //$NON-NLS-1$
+		try {
+			byte[] bytes = new byte[(to - from) * RECORD_SIZE];
+			raf.seek(HEADER_SIZE + (long) from * RECORD_SIZE);
+			raf.readFully(bytes);
+			ByteBuffer buffer = ByteBuffer.wrap(bytes);
+			for (int i = 0; i < records.length; i++) {
+				records[i] = buffer.getLong();
+			}
+		} finally {
+			raf.close();
+		}
+		return records;
+	}
+
+	/**
+	 * Add a session header written to the log at the specified offset
+	 *
+	 * @param offset offset of the {@code !SESSION} line in the log
+	 */
+	void addSession(long offset) {
+		sessionOffset = offset;
+		add(offset);
+	}
+
+	/**
+	 * Add a root entry written to the log at the specified offset
+	 *
+	 * @param offset offset of the {@code !ENTRY} line in the log
+	 */
+	void addEntry(long offset) {
+		add(offset);
+	}
+
+	private void add(long offset) {
+		// Records are not written before the log is flushed
+		if (pendingCount == pending.length) {
+			pending = Arrays.copyOf(pending, pending.length * 2);
+		}
+		pending[pendingCount++] = offset;
+		pending[pendingCount++] = sessionOffset;
+		lastOffset = offset;
+	}
+
+	/**
+	 * Check if the index is consistent with a log of the specified length. An index is not
+	 * consistent if the log has been truncated or replaced after the last record was added.
+	 *
+	 * @param length current length of the log file
+	 * @return true if the last record refers to an offset within the log
+	 */
+	boolean isConsistent(long length) {
+		return lastOffset < length;
+	}
+
+	/**
+	 * Write added records to the index file. The index file is deleted if writing fails.
+	 */
+	void flush() {
+		if (pendingCount == 0) {
+			return;
+		}
+		DataOutputStream out = null;
+		try {
+			boolean exists = indexFile.exists();
+			out = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(indexFile, exists)));
+			if (!exists) {
+				writeHeader(out);
+			}
+			for (int i = 0; i < pendingCount; i++) {
+				out.writeLong(pending[i]);
+			}
+			size += pendingCount / 2;
+			pendingCount = 0;
+			out.close();
+		} catch (IOException e) {
+			if (out != null) {
+				try {
+					out.close();
+				} catch (IOException e2) {
+					// index is deleted
+				}
+			}
+			reset();
+		}
+	}
+
+	/**
+	 * Remove all records from the index and delete the index file
+	 */
+	void reset() {
+		delete(logFile);
+		size = 0;
+		pendingCount = 0;
+		lastOffset = -1;
+		sessionOffset = -1;
+	}
+
+	/**
+	 * Read the header and the last record of the index file and check that the last record refers
+	 * to an entry or a session header in the log
+	 *
+	 * @param length the length of the log file
+	 * @return true if the index is valid for the log
+	 */
+	private boolean validate(long length) {
+		if (!indexFile.isFile()) {
+			return false;
+		}
+		try {
+			RandomAccessFile raf = new RandomAccessFile(indexFile, "r"); //$NON-NLS-1$
+			try {
+				long indexLength = raf.length();
+				if (indexLength < HEADER_SIZE || raf.readInt() != MAGIC || raf.readShort() != VERSION) {
+					return false;
+				}
+				size = (int) ((indexLength - HEADER_SIZE) / RECORD_SIZE);
+				if (size == 0) {
+					return true;
+				}
+				raf.seek(HEADER_SIZE + (long) (size - 1) * RECORD_SIZE);
+				lastOffset = raf.readLong();
+				sessionOffset = raf.readLong();
+			} finally {
+				raf.close();
+			}
+			return lastOffset < length && isRecord(lastOffset);
+		} catch (IOException e) {
+			return false;
+		}
+	}
+
+	/**
+	 * Check if the log has an entry or a session header at the specified offset
+	 */
+	private boolean isRecord(long offset) throws IOException {
+		RandomAccessFile raf = new RandomAccessFile(logFile, "r"); //$NON-NLS-1$
+		try {
+			byte[] tag = new byte[Math.max(ENTRY.length, SESSION.length)];
+			raf.seek(offset);
+			int len = raf.read(tag);
+			return startsWith(tag, len, ENTRY) || startsWith(tag, len, SESSION);
+		} finally {
+			raf.close();
+		}
+	}
+
+	/**
+	 * Create the index from the content of the log. The index is deleted if the log can not be read.
+	 */
+	private void rebuild() {
+		reset();
+		if (!logFile.isFile()) {
+			return;
+		}
+		byte[] tag = new byte[Math.max(ENTRY.length, SESSION.length)];
+		InputStream in = null;
+		try {
+			in = new BufferedInputStream(new FileInputStream(logFile));
+			long offset = 0;
+			int len = 0;
+			boolean lineStart = true;
+			long lineOffset = 0;
+			for (int c = in.read(); c != -1; c = in.read(), offset++) {
+				if (lineStart) {
+					lineOffset = offset;
+					len = 0;
+					lineStart = false;
+				}
+				if (len < tag.length) {
+					tag[len++] = (byte) c;
+					if (len == tag.length) {
+						addTag(tag, len, lineOffset);
+					}
+				}
+				if (c == '\n' || c == '\r') {
+					if (len < tag.length) {
+						addTag(tag, len, lineOffset);
+					}
+					lineStart = true;
+				}
+			}
+			if (!lineStart && len < tag.length) {
+				addTag(tag, len, lineOffset);
+			}
+			flush();
+		} catch (IOException e) {
+			reset();
+		} finally {
+			if (in != null) {
+				try {
+					in.close();
+				} catch (IOException e) {
+					// nothing to do
+				}
+			}
+		}
+	}
+
+	private void addTag(byte[] tag, int len, long offset) {
+		if (startsWith(tag, len, ENTRY)) {
+			addEntry(offset);
+		} else if (startsWith(tag, len, SESSION)) {
+			addSession(offset);
+		}
+	}
+
+	private static boolean startsWith(byte[] bytes, int len, byte[] prefix) {
+		if (len < prefix.length) {
+			return false;
+		}
+		for (int i = 0; i < prefix.length; i++) {
+			if (bytes[i] != prefix[i]) {
+				return false;
+			}
+		}
+		return true;
+	}
+
+	private static void writeHeader(DataOutputStream out) throws IOException {
+		out.writeInt(MAGIC);
+		out.writeShort(VERSION);
+	}
+}
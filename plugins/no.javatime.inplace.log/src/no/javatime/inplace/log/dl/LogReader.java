@@ -14,6 +14,7 @@
 package no.javatime.inplace.log.dl;
 
 import java.io.BufferedReader;
+import java.io.DataInputStream;
 import java.io.File;
 import java.io.FileNotFoundException;
 import java.io.IOException;
@@ -24,6 +25,7 @@ import java.text.ParseException;
 import java.util.ArrayList;
 import java.util.Date;
 import java.util.List;
+import java.util.Map;
 
 import no.javatime.inplace.log.impl.BundleLogEntryImpl;
 import no.javatime.inplace.log.view.LogView;
@@ -41,6 +43,8 @@ public class LogReader {
 	private static final int STACK_STATE = 50;
 	private static final int TEXT_STATE = 60;
 	private static final int UNKNOWN_STATE = 70;
+	/** Maximum number of index records read at a time when reading older entries */
+	private static final int PAGE_SIZE = 256;
 
 	public static LogSession parseLogFile(File file, List entries, IMemento memento) {
 		if (!file.exists())
@@ -50,18 +54,223 @@ public class LogReader {
 				&& memento.getInteger(LogView.P_LOG_LIMIT).intValue() == 0)
 			return null;
 
+		LogSession currentSession = null;
+		BufferedReader reader = null;
+		try {
+			reader = new BufferedReader(new InputStreamReader(new TailInputStream(file, MAX_FILE_LENGTH), "UTF-8")); //$NON-NLS-1$
+			currentSession = parse(reader, entries, memento, null);
+		} catch (FileNotFoundException e) { // do nothing
+		} catch (IOException e) { // do nothing
+		} finally {
+			try {
+				if (reader != null)
+					reader.close();
+			} catch (IOException e1) { // do nothing
+			}
+		}
+
+		return currentSession;
+	}
+
+	/**
+	 * Parses the root entries between two offsets of an indexed log file. Entries are assigned the
+	 * session they were logged in, and the same session instance is used for all entries of a
+	 * session read with the same session map.
+	 * 
+	 * @param index index of the log file
+	 * @param start offset of the first entry to read
+	 * @param end offset after the last entry to read
+	 * @param entries list to add the read entries to
+	 * @param memento filter and limit settings
+	 * @param sessions sessions by offset read from the log. Sessions not in the map are read and added
+	 * @return the session of the last entry or session header read or null if nothing was read
+	 * @throws IOException if failing to read the log or the index
+	 */
+	public static LogSession parseLogFile(LogIndex index, long start, long end, List entries, IMemento memento, Map sessions) throws IOException {
+		int from = index.search(start);
+		long[] records = index.read(from, index.search(end));
+		long segmentStart = -1;
+		long segmentSession = -1;
+		// Split the range at session headers. Session headers are read when the session is requested
+		for (int i = 0; i <= records.length; i += 2) {
+			boolean isEnd = i == records.length;
+			boolean isSession = !isEnd && records[i] == records[i + 1];
+			if (segmentStart >= 0 && (isEnd || isSession)) {
+				LogSession session = getSession(index, segmentSession, memento, sessions);
+				parseSegment(index.getLogFile(), segmentStart, isEnd ? end : records[i], entries, memento, session);
+				segmentStart = -1;
+			}
+			if (!isEnd && !isSession && segmentStart < 0) {
+				segmentStart = records[i];
+				segmentSession = records[i + 1];
+			}
+		}
+		if (records.length == 0) {
+			return null;
+		}
+		return getSession(index, records[records.length - 1], memento, sessions);
+	}
+
+	/**
+	 * Parses pages of root entries logged before the specified offset of an indexed log file until
+	 * the specified number of records are read, the entries between the two offsets are read or
+	 * {@link #MAX_FILE_LENGTH} bytes are read. At least one record is read if there are records
+	 * between the two offsets.
+	 * 
+	 * @param index index of the log file
+	 * @param before offset after the last entry to read
+	 * @param after offset of the oldest entry that may be read
+	 * @param count maximum number of entries to read
+	 * @param entries empty list to add the read entries to in the order they were logged
+	 * @param memento filter and limit settings
+	 * @param sessions sessions by offset read from the log. Sessions not in the map are read and added
+	 * @return offset of the oldest entry or session header read or the offset before the last entry
+	 * to read if nothing was read
+	 * @throws IOException if failing to read the log or the index
+	 */
+	public static long parseOlderEntries(LogIndex index, long before, long after, int count, List entries, IMemento memento, Map sessions) throws IOException {
+		int to = index.search(before);
+		int floor = Math.max(index.search(after), Math.min(index.search(before - MAX_FILE_LENGTH), to - 1));
+		long first = before;
+		while (to > floor && entries.size() < count) {
+			int from = Math.max(floor, to - Math.max(1, Math.min(count - entries.size(), PAGE_SIZE)));
+			long offset = index.read(from, from + 1)[0];
+			List page = new ArrayList();
+			parseLogFile(index, offset, first, page, memento, sessions);
+			entries.addAll(0, page);
+			first = offset;
+			to = from;
+		}
+		return first;
+	}
+
+	/**
+	 * Get the session starting at the specified offset of an indexed log file
+	 * 
+	 * @param index index of the log file
+	 * @param offset offset of the session header or -1 for entries logged without a session header
+	 * @param memento filter and limit settings
+	 * @param sessions sessions by offset read from the log. The session is read and added if not
+	 * in the map
+	 * @return the session. Never null.
+	 * @throws IOException if failing to read the log or the index
+	 */
+	public static LogSession getSession(LogIndex index, long offset, IMemento memento, Map sessions) throws IOException {
+		Long key = Long.valueOf(offset);
+		LogSession session = (LogSession) sessions.get(key);
+		if (session == null) {
+			if (offset >= 0) {
+				// The session header ends where the next entry or session starts
+				int position = index.search(offset);
+				long[] records = index.read(position, Math.min(position + 2, index.size()));
+				long end = records.length > 2 ? records[2] : index.getLogFile().length();
+				session = parseSegment(index.getLogFile(), offset, end, new ArrayList(), memento, null);
+			}
+			if (session == null) { // create fake session if there was no any
+				session = new LogSession();
+			}
+			sessions.put(key, session);
+		}
+		return session;
+	}
+
+	/**
+	 * Parses the entries of the structured log of a log file selected by a filter. The structured log
+	 * is scanned sequentially, and entries rejected by the filter are skipped without being created.
+	 * Entries are assigned the session they were logged in.
+	 * 
+	 * @param file the log file of the structured log
+	 * @param filter selects the entries to parse or null to parse all entries
+	 * @param entries list to add the parsed entries to
+	 * @param memento filter and limit settings or null to parse entries of all sessions without
+	 * limits
+	 * @return the most recent session or null if the log file has no structured log or nothing was
+	 * read
+	 * @see LogRecords
+	 */
+	public static LogSession parseRecords(File file, LogRecordFilter filter, List entries, IMemento memento) {
+		if (memento != null && memento.getString(LogView.P_USE_LIMIT).equals("true") //$NON-NLS-1$
+				&& memento.getInteger(LogView.P_LOG_LIMIT).intValue() == 0)
+			return null;
+
+		DataInputStream in = LogRecords.openInput(file);
+		if (in == null)
+			return null;
+
+		LogRecords.EntryHeader header = new LogRecords.EntryHeader();
+		LogSession session = null;
+		LogSession currentSession = null;
+		try {
+			for (int length = LogRecords.readLength(in); length >= 0; length = LogRecords.readLength(in)) {
+				byte type = in.readByte();
+				if (type == LogRecords.SESSION) {
+					session = LogRecords.readSession(in);
+					currentSession = updateCurrentSession(currentSession, session);
+					// if current session is most recent and not showing all sessions
+					if (memento != null && currentSession.equals(session)
+							&& !memento.getString(LogView.P_SHOW_ALL_SESSIONS).equals("true")) //$NON-NLS-1$
+						entries.clear();
+				} else if (type == LogRecords.ENTRY) {
+					LogRecords.readHeader(in, header);
+					if (filter != null && !filter.select(header.severity, header.bundleId, header.time)) {
+						LogRecords.skip(in, length - 1 - LogRecords.FIXED_SIZE);
+						continue;
+					}
+					if (session == null) { // create fake session if there was no any
+						session = new LogSession();
+						currentSession = updateCurrentSession(currentSession, session);
+					}
+					BundleLogEntryImpl entry = LogRecords.readEntry(in, header, session);
+					if (memento != null) {
+						addEntry(entry, entries, memento);
+					} else {
+						entries.add(entry);
+					}
+				} else {
+					LogRecords.skip(in, length - 1);
+				}
+			}
+		} catch (IOException e) { // keep the entries read before a truncated record
+		} finally {
+			LogRecords.close(in);
+		}
+		return currentSession;
+	}
+
+	/**
+	 * Parses the log between two offsets. Entries before any session header in the segment are
+	 * assigned the specified session.
+	 */
+	private static LogSession parseSegment(File file, long start, long end, List entries, IMemento memento, LogSession session) throws IOException {
+		BufferedReader reader = new BufferedReader(new InputStreamReader(new TailInputStream(file, start, end), "UTF-8")); //$NON-NLS-1$
+		try {
+			return parse(reader, entries, memento, session);
+		} finally {
+			reader.close();
+		}
+	}
+
+	/**
+	 * Parses log lines into entries and sessions
+	 * 
+	 * @param reader the log lines to parse
+	 * @param entries list to add the parsed entries to
+	 * @param memento filter and limit settings
+	 * @param initialSession session of entries before the first session header or null to create a
+	 * new session for such entries
+	 * @return the most recent session
+	 * @throws IOException if failing to read the log
+	 */
+	private static LogSession parse(BufferedReader reader, List entries, IMemento memento, LogSession initialSession) throws IOException {
 		ArrayList parents = new ArrayList();
 		BundleLogEntryImpl current = null;
-		LogSession session = null;
+		LogSession session = initialSession;
 		int writerState = UNKNOWN_STATE;
 		StringWriter swriter = null;
 		PrintWriter writer = null;
 		int state = UNKNOWN_STATE;
-		LogSession currentSession = null;
-		BufferedReader reader = null;
+		LogSession currentSession = initialSession;
 		try {
-
-			reader = new BufferedReader(new InputStreamReader(new TailInputStream(file, MAX_FILE_LENGTH), "UTF-8")); //$NON-NLS-1$
 			for (;;) {
 				String line0 = reader.readLine();
 				if (line0 == null)
@@ -170,14 +379,7 @@ public class LogReader {
 				writerState = UNKNOWN_STATE;
 				current.setStack(swriter.toString());
 			}
-		} catch (FileNotFoundException e) { // do nothing
-		} catch (IOException e) { // do nothing
 		} finally {
-			try {
-				if (reader != null)
-					reader.close();
-			} catch (IOException e1) { // do nothing
-			}
 			if (writer != null) {
 				setData(current, session, writerState, swriter);
 				writer.close();
@@ -0,0 +1,70 @@
+package no.javatime.inplace.log.dl;
+
+/**
+ * Selects entries of the structured log by severity, bundle and time range. The filter is applied
+ * to the fixed fields of an entry record before the rest of the record is decoded, and rejected
+ * entries are skipped without being created.
+ * <p>
+ * A new filter selects all entries.
+ */
+public class LogRecordFilter {
+
+	/** Severities selected as bits at the position of the severity value */
+	private int severities = -1;
+	private long bundleId = -1;
+	private long from = Long.MIN_VALUE;
+	private long to = Long.MAX_VALUE;
+
+	/**
+	 * Select entries with any of the specified severities
+	 *
+	 * @param severities the severities to select, for instance {@code IStatus.ERROR} and
+	 * {@code IStatus.WARNING}. No severities selects no entries.
+	 */
+	public void setSeverities(int... severities) {
+		this.severities = 0;
+		for (int i = 0; i < severities.length; i++) {
+			if (severities[i] >= 0 && severities[i] < Integer.SIZE) {
+				this.severities |= 1 << severities[i];
+			}
+		}
+	}
+
+	/**
+	 * Select entries logged for the specified bundle
+	 *
+	 * @param bundleId id of the bundle or -1 to select entries of all bundles
+	 */
+	public void setBundleId(long bundleId) {
+		this.bundleId = bundleId;
+	}
+
+	/**
+	 * Select entries logged within the specified time range
+	 *
+	 * @param from the start of the range in milliseconds, inclusive
+	 * @param to the end of the range in milliseconds, exclusive
+	 */
+	public void setTimeRange(long from, long to) {
+		this.from = from;
+		this.to = to;
+	}
+
+	/**
+	 * Check if an entry with the specified fields is selected
+	 *
+	 * @param severity severity of the entry
+	 * @param bundleId bundle id of the entry or -1 if not logged for a bundle
+	 * @param time the time in milliseconds the entry was logged
+	 * @return true if the entry is selected by this filter
+	 */
+	public boolean select(int severity, long bundleId, long time) {
+		if (severity < 0 || severity >= Integer.SIZE || (severities & 1 << severity) == 0) {
+			return false;
+		}
+		if (this.bundleId >= 0 && this.bundleId != bundleId) {
+			return false;
+		}
+		return time >= from && time < to;
+	}
+}
@@ -0,0 +1,436 @@
+package no.javatime.inplace.log.dl;
+
+import java.io.BufferedInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInput;
+import java.io.DataInputStream;
+import java.io.DataOutput;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.Date;
+
+import no.javatime.inplace.log.impl.BundleLogEntryImpl;
+import no.javatime.inplace.region.intface.BundleTransition.Transition;
+
+/**
+ * Structured log with the same sessions and entries as a text log file, stored as length prefixed
+ * binary records in a file next to the log file. The structured log is maintained by the
+ * {@link LogWriter} when enabled, and is read by {@link LogReader#parseRecords(File,
+ * LogRecordFilter, java.util.List, org.eclipse.ui.IMemento)}. Entries of the structured log may be
+ * exported to the text format by {@link LogWriter#exportRecords(File, LogRecordFilter, java.io.Writer)}
+ * when the structured log {@link #covers(File) covers} the text log.
+ * <p>
+ * The file starts with a header holding a magic number and the format version. The header is
+ * followed by one record for each session header and root entry in the order they were written. A
+ * record starts with the number of bytes in the rest of the record and the record type.
+ * <p>
+ * A session record holds the session time and the session data. An entry record starts with the
+ * fixed fields severity, time, bundle id, bundle transition, bundle state and status code, so
+ * entries may be filtered without decoding the rest of the record. The fixed fields are followed
+ * by the plug-in id, project name, message, stack and the number of sub entries, each sub entry
+ * encoded as an entry without the length and type.
+ * <p>
+ * Records are only added after the text log content they correspond to is flushed.
+ */
+public class LogRecords {
+
+	/** The extension appended to the name of the log file */
+	static final String RECORDS_EXT = ".rec"; //$NON-NLS-1$
+	private static final int MAGIC = 0x4C4F4752;
+	private static final short VERSION = 1;
+	static final byte SESSION = 1;
+	static final byte ENTRY = 2;
+	/** Number of bytes in the fixed fields of an entry */
+	static final int FIXED_SIZE = 30;
+	/** Encoded length of a null string */
+	private static final int NULL_STRING = -1;
+
+	private final File recordFile;
+	/** Records not yet written to the record file */
+	private final ByteArrayOutputStream pending = new ByteArrayOutputStream();
+	private final DataOutputStream pendingOut = new DataOutputStream(pending);
+	/** Encodes the body of a record */
+	private final ByteArrayOutputStream record = new ByteArrayOutputStream();
+	private final DataOutputStream recordOut = new DataOutputStream(record);
+
+	/**
+	 * Fixed fields of an entry record
+	 */
+	static final class EntryHeader {
+		int severity;
+		long time;
+		long bundleId;
+		short transition;
+		int bundleState;
+		int code;
+	}
+
+	private LogRecords(File logFile) {
+		this.recordFile = getRecordFile(logFile);
+	}
+
+	/**
+	 * Open the structured log of the specified log file for writing. An existing structured log of
+	 * another format version is deleted.
+	 *
+	 * @param logFile the log file
+	 * @return the structured log ready to add records to
+	 */
+	static LogRecords open(File logFile) {
+		LogRecords records = new LogRecords(logFile);
+		if (getRecordFile(logFile).isFile()) {
+			DataInputStream in = openInput(logFile);
+			if (in == null) {
+				delete(logFile);
+			} else {
+				close(in);
+			}
+		}
+		return records;
+	}
+
+	/**
+	 * Delete the structured log of the specified log file
+	 *
+	 * @param logFile the log file
+	 */
+	public static void delete(File logFile) {
+		File file = getRecordFile(logFile);
+		if (file.exists()) {
+			file.delete();
+		}
+	}
+
+	/**
+	 * Move the structured log of a log file renamed to the specified file. Any existing structured
+	 * log of the renamed file is replaced.
+	 *
+	 * @param logFile the log file before it was renamed
+	 * @param renamedFile the log file after it was renamed
+	 */
+	static void move(File logFile, File renamedFile) {
+		delete(renamedFile);
+		File file = getRecordFile(logFile);
+		if (file.exists() && !file.renameTo(getRecordFile(renamedFile))) {
+			file.delete();
+		}
+	}
+
+	/**
+	 * Check if the specified log file has a structured log
+	 *
+	 * @param logFile the log file
+	 * @return true if the structured log file exists
+	 */
+	public static boolean exists(File logFile) {
+		return getRecordFile(logFile).isFile();
+	}
+
+	/**
+	 * Check if the structured log of the specified log file has a record for each session header and
+	 * root entry in the log. Entries written to the log while the structured log is disabled are not
+	 * recorded, and the structured log does not cover the log after that.
+	 *
+	 * @param logFile the log file
+	 * @return true if the structured log has the same number of records as the valid index of the log
+	 */
+	public static boolean covers(File logFile) {
+		LogIndex index = LogIndex.load(logFile);
+		if (index == null) {
+			return false;
+		}
+		DataInputStream in = openInput(logFile);
+		if (in == null) {
+			return false;
+		}
+		int count = 0;
+		try {
+			for (int length = readLength(in); length >= 0; length = readLength(in)) {
+				skip(in, length);
+				count++;
+			}
+		} catch (IOException e) {
+			return false;
+		} finally {
+			close(in);
+		}
+		return count == index.size();
+	}
+
+	private static File getRecordFile(File logFile) {
+		return new File(logFile.getPath() + RECORDS_EXT);
+	}
+
+	/**
+	 * Add a session header written to the log
+	 *
+	 * @param time the session time in milliseconds
+	 * @param data the session data or null
+	 * @throws IOException if failing to encode the record
+	 */
+	void addSession(long time, String data) throws IOException {
+		record.reset();
+		recordOut.writeByte(SESSION);
+		recordOut.writeLong(time);
+		writeString(recordOut, data);
+		addRecord();
+	}
+
+	/**
+	 * Add a root entry and its sub entries written to the log
+	 *
+	 * @param entry the root entry
+	 * @param date the time the entry was logged
+	 * @throws IOException if failing to encode the record
+	 */
+	void addEntry(BundleLogEntryImpl entry, Date date) throws IOException {
+		record.reset();
+		recordOut.writeByte(ENTRY);
+		writeEntry(recordOut, entry, date);
+		addRecord();
+	}
+
+	private void addRecord() throws IOException {
+		recordOut.flush();
+		pendingOut.writeInt(record.size());
+		record.writeTo(pendingOut);
+	}
+
+	/**
+	 * Write added records to the record file. The record file is deleted if writing fails.
+	 */
+	void flush() {
+		if (pending.size() == 0) {
+			return;
+		}
+		OutputStream out = null;
+		try {
+			boolean exists = recordFile.isFile() && recordFile.length() > 0;
+			out = new FileOutputStream(recordFile, exists);
+			if (!exists) {
+				DataOutputStream header = new DataOutputStream(out);
+				header.writeInt(MAGIC);
+				header.writeShort(VERSION);
+				header.flush();
+			}
+			pendingOut.flush();
+			pending.writeTo(out);
+			pending.reset();
+			out.close();
+		} catch (IOException e) {
+			if (out != null) {
+				try {
+					out.close();
+				} catch (IOException e2) {
+					// records are deleted
+				}
+			}
+			reset();
+		}
+	}
+
+	/**
+	 * Remove all records not yet written and delete the record file
+	 */
+	void reset() {
+		pending.reset();
+		if (recordFile.exists()) {
+			recordFile.delete();
+		}
+	}
+
+	/**
+	 * Open the structured log of the specified log file for reading and read the header
+	 *
+	 * @param logFile the log file
+	 * @return input positioned at the first record or null if the log has no structured log or the
+	 * structured log is of another format
+	 */
+	static DataInputStream openInput(File logFile) {
+		File file = getRecordFile(logFile);
+		if (!file.isFile()) {
+			return null;
+		}
+		DataInputStream in = null;
+		try {
+			in = new DataInputStream(new BufferedInputStream(new FileInputStream(file)));
+			if (in.readInt() == MAGIC && in.readShort() == VERSION) {
+				return in;
+			}
+		} catch (IOException e) {
+			// not a structured log
+		}
+		close(in);
+		return null;
+	}
+
+	/**
+	 * Read the length of the next record
+	 *
+	 * @param in input positioned at the start of a record
+	 * @return number of bytes in the rest of the record or -1 if there are no more records
+	 * @throws IOException if failing to read the record length
+	 */
+	static int readLength(DataInputStream in) throws IOException {
+		int b1 = in.read();
+		if (b1 < 0) {
+			return -1;
+		}
+		int b2 = in.read();
+		int b3 = in.read();
+		int b4 = in.read();
+		if ((b2 | b3 | b4) < 0) {
+			// Truncated while written
+			return -1;
+		}
+		return (b1 << 24) | (b2 << 16) | (b3 << 8) | b4;
+	}
+
+	/**
+	 * Skip the specified number of bytes of a record
+	 *
+	 * @throws EOFException if the record is truncated
+	 */
+	static void skip(DataInput in, int length) throws IOException {
+		while (length > 0) {
+			int skipped = in.skipBytes(length);
+			if (skipped <= 0) {
+				throw new EOFException();
+			}
+			length -= skipped;
+		}
+	}
+
+	/**
+	 * Read the rest of a session record
+	 *
+	 * @param in input positioned after the record type
+	 * @return the session
+	 * @throws IOException if failing to read the record
+	 */
+	static LogSession readSession(DataInput in) throws IOException {
+		LogSession session = new LogSession();
+		session.setDate(new Date(in.readLong()));
+		session.setSessionData(readString(in));
+		return session;
+	}
+
+	/**
+	 * Read the fixed fields of an entry
+	 *
+	 * @param in input positioned at the fixed fields
+	 * @param header the fixed fields read
+	 * @throws IOException if failing to read the fields
+	 */
+	static void readHeader(DataInput in, EntryHeader header) throws IOException {
+		header.severity = in.readInt();
+		header.time = in.readLong();
+		header.bundleId = in.readLong();
+		header.transition = in.readShort();
+		header.bundleState = in.readInt();
+		header.code = in.readInt();
+	}
+
+	/**
+	 * Read the rest of an entry and its sub entries
+	 *
+	 * @param in input positioned after the fixed fields of the entry
+	 * @param header the fixed fields of the entry
+	 * @param session the session of the entry
+	 * @return the entry
+	 * @throws IOException if failing to read the entry
+	 */
+	static BundleLogEntryImpl readEntry(DataInput in, EntryHeader header, LogSession session)
+			throws IOException {
+		BundleLogEntryImpl entry = new BundleLogEntryImpl();
+		entry.setSession(session);
+		String pluginId = readString(in);
+		String projectName = readString(in);
+		Transition[] transitions = Transition.values();
+		Transition transition = header.transition >= 0 && header.transition < transitions.length
+				? transitions[header.transition]
+				: null;
+		entry.processRecord(pluginId, header.severity, header.code, header.bundleState, transition,
+				header.bundleId, projectName, new Date(header.time));
+		String message = readString(in);
+		entry.setMessage(message != null ? message : ""); //$NON-NLS-1$
+		entry.setStack(readString(in));
+		int children = in.readShort();
+		if (children > 0) {
+			// Added in reverse since a child is added before the existing children
+			BundleLogEntryImpl[] subEntries = new BundleLogEntryImpl[children];
+			for (int i = 0; i < children; i++) {
+				readHeader(in, header);
+				subEntries[i] = readEntry(in, header, session);
+			}
+			for (int i = children - 1; i >= 0; i--) {
+				entry.addChild(subEntries[i]);
+			}
+		}
+		return entry;
+	}
+
+	private static void writeEntry(DataOutput out, BundleLogEntryImpl entry, Date date)
+			throws IOException {
+		Transition transition = entry.getBundleTransition();
+		out.writeInt(entry.getSeverity());
+		out.writeLong(date.getTime());
+		out.writeLong(entry.getBundleId());
+		out.writeShort(transition != null ? transition.ordinal() : -1);
+		out.writeInt(entry.getBundleStateId());
+		out.writeInt(entry.getCode());
+		writeString(out, entry.getPluginId());
+		writeString(out, entry.getProjectName());
+		writeString(out, entry.getMessage());
+		writeString(out, entry.getStack());
+		Object[] children = entry.getChildren(entry);
+		int count = 0;
+		for (int i = 0; i < children.length; i++) {
+			if (children[i] instanceof BundleLogEntryImpl) {
+				count++;
+			}
+		}
+		out.writeShort(count);
+		for (int i = 0; i < children.length; i++) {
+			if (children[i] instanceof BundleLogEntryImpl) {
+				writeEntry(out, (BundleLogEntryImpl) children[i], date);
+			}
+		}
+	}
+
+	private static void writeString(DataOutput out, String value) throws IOException {
+		if (value == null) {
+			out.writeInt(NULL_STRING);
+			return;
+		}
+		byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+		out.writeInt(bytes.length);
+		out.write(bytes);
+	}
+
+	private static String readString(DataInput in) throws IOException {
+		int length = in.readInt();
+		if (length == NULL_STRING) {
+			return null;
+		}
+		byte[] bytes = new byte[length];
+		in.readFully(bytes);
+		return new String(bytes, StandardCharsets.UTF_8);
+	}
+
+	static void close(DataInputStream in) {
+		if (in != null) {
+			try {
+				in.close();
+			} catch (IOException e) {
+				// nothing to do
+			}
+		}
+	}
+}
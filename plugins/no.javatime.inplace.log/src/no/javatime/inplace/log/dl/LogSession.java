@@ -51,6 +51,10 @@ public class LogSession extends Group {
 		}
 	}
 
+	void setDate(Date date) {
+		this.date = date;
+	}
+
 	public String getSessionData() {
 		return sessionData;
 	}
@@ -14,12 +14,18 @@ import java.io.UnsupportedEncodingException;
 import java.io.Writer;
 import java.lang.reflect.InvocationTargetException;
 import java.security.AccessController;
+import java.util.ArrayList;
 import java.util.Calendar;
 import java.util.Date;
+import java.util.List;
 
 import no.javatime.inplace.log.Activator;
+import no.javatime.inplace.log.dl.AsyncLogAppender.OverflowPolicy;
 import no.javatime.inplace.log.impl.BundleLogEntryImpl;
+import no.javatime.inplace.log.msg.Messages;
+import no.javatime.inplace.region.status.BundleStatus;
 import no.javatime.inplace.region.status.IBundleStatus;
+import no.javatime.inplace.region.status.IBundleStatus.StatusCode;
 
 import org.eclipse.core.runtime.IStatus;
 import org.eclipse.equinox.log.ExtendedLogEntry;
@@ -28,6 +34,7 @@ import org.eclipse.equinox.log.SynchronousLogListener;
 import org.eclipse.osgi.framework.log.FrameworkLogEntry;
 import org.eclipse.osgi.framework.util.SecureAction;
 import org.eclipse.osgi.service.environment.EnvironmentInfo;
+import org.eclipse.osgi.util.NLS;
 import org.osgi.framework.Bundle;
 import org.osgi.framework.BundleException;
 import org.osgi.service.log.LogEntry;
@@ -79,6 +86,29 @@ public class LogWriter implements SynchronousLogListener, LogFilter {
 
 	/** The system property used to specify command line args should be omitted from the log */
 	private static final String PROP_LOG_INCLUDE_COMMAND_LINE = "eclipse.log.include.commandline"; //$NON-NLS-1$
+
+	//Constants for writing log entries asynchronously
+	/** The default number of log entries waiting to be written */
+	private static final int DEFAULT_ASYNC_CAPACITY = 1024;
+	/** The default number of written log entries before the log is flushed */
+	private static final int DEFAULT_ASYNC_FLUSH_SIZE = 64;
+	/** The default number of milliseconds before written log entries are flushed */
+	private static final int DEFAULT_ASYNC_FLUSH_INTERVAL = 200;
+	/** The number of milliseconds to wait for log entries to be written when flushing or closing */
+	private static final long ASYNC_WAIT_TIMEOUT = 5000;
+
+	/** The system property used to specify if log entries are written by a separate thread. Off by default */
+	private static final String PROP_LOG_ASYNC = "no.javatime.inplace.log.async"; //$NON-NLS-1$
+	/** The system property used to specify the number of log entries waiting to be written */
+	private static final String PROP_LOG_ASYNC_CAPACITY = "no.javatime.inplace.log.async.capacity"; //$NON-NLS-1$
+	/** The system property used to specify the policy for log entries when the capacity is reached */
+	private static final String PROP_LOG_ASYNC_OVERFLOW = "no.javatime.inplace.log.async.overflow"; //$NON-NLS-1$
+	/** The system property used to specify the number of written log entries before flushing */
+	private static final String PROP_LOG_ASYNC_FLUSH_SIZE = "no.javatime.inplace.log.async.flush.size"; //$NON-NLS-1$
+	/** The system property used to specify the number of milliseconds before flushing */
+	private static final String PROP_LOG_ASYNC_FLUSH_INTERVAL = "no.javatime.inplace.log.async.flush.interval"; //$NON-NLS-1$
+	/** Also write log entries as structured records next to the log file */
+	private static final String PROP_LOG_RECORDS = "no.javatime.inplace.log.records"; //$NON-NLS-1$
 	private static final SecureAction secureAction = AccessController.doPrivileged(SecureAction.createSecureAction());
 
 	/** Indicates if the console messages should be printed to the console (System.out) */
@@ -106,6 +136,23 @@ public class LogWriter implements SynchronousLogListener, LogFilter {
 	private int logLevel = FrameworkLogEntry.OK;
 	private boolean includeCommandLine = true;
 
+	boolean async = true;
+	int asyncCapacity = DEFAULT_ASYNC_CAPACITY;
+	OverflowPolicy overflowPolicy = OverflowPolicy.BLOCK;
+	int asyncFlushSize = DEFAULT_ASYNC_FLUSH_SIZE;
+	int asyncFlushInterval = DEFAULT_ASYNC_FLUSH_INTERVAL;
+	/** Writes log entries from a separate thread. Null when log entries are written synchronously */
+	private volatile AsyncLogAppender appender;
+
+	/** Offsets of entries and sessions in the log file. Null when not logging to a file */
+	private LogIndex index;
+	/** Byte offset in the log file of the next message written or -1 when not logging to a file */
+	private long filePosition = -1;
+	/** Write a structured log in addition to the log file */
+	private boolean structuredLog;
+	/** Structured records of sessions and entries in the log file. Null when not written */
+	private LogRecords logRecords;
+
 
 	public LogWriter(File outFile, String loggerName) {
 		this.outFile = outFile;
@@ -116,6 +163,7 @@ public class LogWriter implements SynchronousLogListener, LogFilter {
 		// TODO UI to switch on(of logging
 		// this.enabled = "true".equals(environmentInfo.getProperty(PROP_LOG_ENABLED));
 		readLogProperties();
+		startAppender();
 	}
 
 	public LogWriter(Writer writer, String loggerName) {
@@ -140,6 +188,7 @@ public class LogWriter implements SynchronousLogListener, LogFilter {
 		this.enabled = enabled;
 		this.environmentInfo = environmentInfo;
 		readLogProperties();
+		startAppender();
 	}
 
 	/**
@@ -196,18 +245,18 @@ public class LogWriter implements SynchronousLogListener, LogFilter {
 	 * Returns the session timestamp.  This is the time the platform was started
 	 * @return the session timestamp
 	 */
-	private String getSessionTimestamp() {
+	private long getSessionTimestamp() {
 		// Main should have set the session start-up timestamp so return that. 
 		// Return the "now" time if not available.
 		String ts = environmentInfo.getProperty("eclipse.startTime");
 		if (ts != null) {
 			try {
-				return getDate(new Date(Long.parseLong(ts)));
+				return Long.parseLong(ts);
 			} catch (NumberFormatException e) {
 				// fall through and use the timestamp from right now
 			}
 		}
-		return getDate(new Date());
+		return System.currentTimeMillis();
 	}
 
 	/**
@@ -215,48 +264,118 @@ public class LogWriter implements SynchronousLogListener, LogFilter {
 	 * @throws IOException if an error occurs writing to the log
 	 */
 	private void writeSession() throws IOException {
+		if (index != null && filePosition >= 0) {
+			index.addSession(filePosition);
+		}
+		long timestamp = getSessionTimestamp();
+		String data = getSessionData();
+		if (logRecords != null && filePosition >= 0) {
+			logRecords.addSession(timestamp, data);
+		}
+		writeSessionHeader(getDate(new Date(timestamp)), data);
+	}
+
+	/**
+	 * Writes the session header line followed by the session data
+	 * @param date the formatted session timestamp
+	 * @param data the session data or null
+	 * @throws IOException if an error occurs writing to the log
+	 */
+	private void writeSessionHeader(String date, String data) throws IOException {
 		write(SESSION);
 		writeSpace();
-		String date = getSessionTimestamp();
 		write(date);
 		writeSpace();
 		for (int i = SESSION.length() + date.length(); i < 78; i++) {
 			write("-"); //$NON-NLS-1$
 		}
 		writeln();
+		if (data != null && data.length() > 0) {
+			writeln(data);
+		}
+	}
+
+	/**
+	 * Returns the session data written after the session header line
+	 * @return lines with certain system and framework properties
+	 */
+	private String getSessionData() {
+		StringBuffer data = new StringBuffer();
 		// Write out certain values found in System.getProperties()
 		try {
 			String key = "eclipse.buildId"; //$NON-NLS-1$
 			String value = environmentInfo.getProperty(key);
-			writeln(key + "=" + value); //$NON-NLS-1$
+			data.append(key + "=" + value); //$NON-NLS-1$
 			key = "java.fullversion"; //$NON-NLS-1$
 			value = System.getProperty(key);
 			if (value == null) {
 				key = "java.version"; //$NON-NLS-1$
 				value = System.getProperty(key);
-				writeln(key + "=" + value); //$NON-NLS-1$
-			} else {
-				writeln(key + "=" + value); //$NON-NLS-1$
 			}
+			data.append(LINE_SEPARATOR).append(key + "=" + value); //$NON-NLS-1$
 		} catch (Exception e) {
 			// If we're not allowed to get the values of these properties
 			// then just skip over them.
 		}
 		String osgiVer = Activator.getContext().getProperty("org.osgi.framework.version");
 		if (null != osgiVer) {
-			writeln ("org.osgi.framework.version=" + osgiVer);
+			if (data.length() > 0) {
+				data.append(LINE_SEPARATOR);
+			}
+			data.append("org.osgi.framework.version=" + osgiVer);
+		}
+		return data.toString();
+	}
+
+	/**
+	 * Write log entries from a separate thread if enabled
+	 */
+	private void startAppender() {
+		if (async) {
+			appender = new AsyncLogAppender(this, asyncCapacity, overflowPolicy, asyncFlushSize, asyncFlushInterval);
+			appender.start();
+		}
+	}
+
+	/**
+	 * Wait until log entries logged before this call are written to the log. Log entries are always
+	 * written when returning if they are not written by a separate thread.
+	 * 
+	 * @return false if waiting for log entries to be written timed out. Otherwise true
+	 */
+	public boolean flush() {
+		AsyncLogAppender tmpAppender = appender;
+		if (tmpAppender != null) {
+			return tmpAppender.flush(ASYNC_WAIT_TIMEOUT);
 		}
+		return true;
 	}
 
 	public void close() {
-		try {
-			if (writer != null) {
-				Writer tmpWriter = writer;
-				writer = null;
-				tmpWriter.close();
+		// Stop writing from the separate thread before closing. Subsequent entries are written synchronously 
+		AsyncLogAppender tmpAppender = appender;
+		if (tmpAppender != null) {
+			appender = null;
+			tmpAppender.close(ASYNC_WAIT_TIMEOUT);
+		}
+		synchronized (this) {
+			try {
+				if (writer != null) {
+					Writer tmpWriter = writer;
+					writer = null;
+					tmpWriter.close();
+				}
+			} catch (IOException e) {
+				e.printStackTrace();
+			}
+			if (index != null) {
+				index.flush();
+				index = null;
+			}
+			if (logRecords != null) {
+				logRecords.flush();
+				logRecords = null;
 			}
-		} catch (IOException e) {
-			e.printStackTrace();
 		}
 	}
 
@@ -269,11 +388,25 @@ public class LogWriter implements SynchronousLogListener, LogFilter {
 			if (outFile != null) {
 				try {
 					writer = logForStream(secureAction.getFileOutputStream(outFile, true));
+					filePosition = secureAction.length(outFile);
+					// The log may have been deleted or replaced since last opened
+					if (index == null || !index.isConsistent(filePosition)) {
+						index = LogIndex.open(outFile);
+					}
+					if (structuredLog && logRecords == null) {
+						// Records of a deleted log are not valid for a new log
+						if (filePosition == 0) {
+							LogRecords.delete(outFile);
+						}
+						logRecords = LogRecords.open(outFile);
+					}
 				} catch (IOException e) {
 					writer = logForStream(System.err);
+					filePosition = -1;
 				}
 			} else {
 				writer = logForStream(System.err);
+				filePosition = -1;
 			}
 		}
 	}
@@ -292,28 +425,71 @@ public class LogWriter implements SynchronousLogListener, LogFilter {
 				}
 				writer = null;
 			}
+			if (index != null) {
+				index.flush();
+			}
+			if (logRecords != null) {
+				logRecords.flush();
+			}
+		}
+	}
+
+	/**
+	 * Discard the index when it is not known what is written to the log file. The index is created
+	 * from the content of the log file the next time the file is opened. The structured log is
+	 * discarded as well, since it can not be recreated from the log file.
+	 */
+	private void discardIndex() {
+		if (index != null) {
+			index.reset();
+			index = null;
+		}
+		if (logRecords != null) {
+			logRecords.reset();
+			logRecords = null;
 		}
+		filePosition = -1;
 	}
 // --- Begin writing TraceLogEntry --
 	
 	/**
 	 * Bypass the listener and use this to log directly to the log 
+	 * <p>
+	 * If log entries are written from a separate thread, the entry is added to the entries waiting to
+	 * be written and this method returns without waiting for the entry to be written.
 	 * 
 	 * @param traceLogEntry log entry for bundles
 	 */
-	public synchronized void log(BundleLogEntryImpl traceLogEntry) {
+	public void log(BundleLogEntryImpl traceLogEntry) {
 		if (traceLogEntry == null)
 			return;
 		if (!isLoggable(traceLogEntry.getSeverity()))
 			return;
+		AsyncLogAppender tmpAppender = appender;
+		if (tmpAppender != null && tmpAppender.append(traceLogEntry))
+			return;
+		logSync(traceLogEntry);
+	}
+
+	/**
+	 * Write the log entry to the log file and close the file
+	 * 
+	 * @param traceLogEntry log entry for bundles
+	 */
+	private synchronized void logSync(BundleLogEntryImpl traceLogEntry) {
+		Date date = new Date();
 		try {
-			checkLogFileSize();
+			if (isLogFileFull()) {
+				// The file may be held open by the writer of the separate thread
+				closeFile();
+				checkLogFileSize();
+			}
 			openFile();
 			if (newSession) {
 				writeSession();
 				newSession = false;
 			}
-			writeLog(0, traceLogEntry);
+			writeLog(0, traceLogEntry, date);
 			writer.flush();
 		} catch (Exception e) {
 			// any exceptions during logging should be caught 
@@ -321,9 +497,10 @@ public class LogWriter implements SynchronousLogListener, LogFilter {
 			e.printStackTrace(System.err);
 			System.err.println("Logging to the console instead.");//$NON-NLS-1$
 			//we failed to write, so dump log entry to console instead
+			discardIndex();
 			try {
 				writer = logForStream(System.err);
-				writeLog(0, traceLogEntry);
+				writeLog(0, traceLogEntry, date);
 				writer.flush();
 			} catch (Exception e2) {
 				System.err.println("An exception occurred while logging to the console:");//$NON-NLS-1$
@@ -334,17 +511,88 @@ public class LogWriter implements SynchronousLogListener, LogFilter {
 		}
 	}
 
+	/**
+	 * Write log entries taken from the entries waiting to be written without flushing and closing
+	 * the log file. The file is kept open until flushed by {@link #flushWritten()} and rotated.
+	 * 
+	 * @param entries log entries to write
+	 * @param times the time in milliseconds each of the log entries was logged
+	 * @param count number of log entries to write
+	 * @param dropped number of log entries not written due to the overflow policy
+	 */
+	synchronized void write(BundleLogEntryImpl[] entries, long[] times, int count, long dropped) {
+		int i = 0;
+		try {
+			openFile();
+			if (newSession) {
+				writeSession();
+				newSession = false;
+			}
+			if (dropped > 0) {
+				writeLog(0, new BundleLogEntryImpl(new BundleStatus(StatusCode.WARNING, Activator.PLUGIN_ID,
+						NLS.bind(Messages.DROPPED_LOG_ENTRIES_WARN, Long.toString(dropped)))), new Date());
+			}
+			for (; i < count; i++) {
+				writeLog(0, entries[i], new Date(times[i]));
+			}
+		} catch (Exception e) {
+			// any exceptions during logging should be caught 
+			System.err.println("An exception occurred while writing to the bundle log:");//$NON-NLS-1$
+			e.printStackTrace(System.err);
+			System.err.println("Logging to the console instead.");//$NON-NLS-1$
+			//we failed to write, so dump the remaining log entries to console instead
+			discardIndex();
+			try {
+				writer = logForStream(System.err);
+				for (; i < count; i++) {
+					writeLog(0, entries[i], new Date(times[i]));
+				}
+				writer.flush();
+			} catch (Exception e2) {
+				System.err.println("An exception occurred while logging to the console:");//$NON-NLS-1$
+				e2.printStackTrace(System.err);
+			}
+			// Open the log file again on next write
+			closeFile();
+		}
+	}
+
+	/**
+	 * Flush log entries written by {@link #write(BundleLogEntryImpl[], long[], int, long)} and
+	 * rotate the log file if it has reached its size limit
+	 */
+	synchronized void flushWritten() {
+		if (writer == null)
+			return;
+		try {
+			writer.flush();
+			if (index != null) {
+				index.flush();
+			}
+			if (logRecords != null) {
+				logRecords.flush();
+			}
+		} catch (IOException e) {
+			e.printStackTrace(System.err);
+		}
+		if (isLogFileFull()) {
+			closeFile();
+			checkLogFileSize();
+		}
+	}
+
 	/**
  * Writes the log entry to the log using the specified depth.  A depth value of 0
  * indicates that the log entry is the root entry.  Any value greater than 0 indicates
  * a sub-entry.
  * @param depth the depth of the entry
  * @param entry the entry to log
+ * @param date the time the entry was logged
  * @throws IOException if any error occurs writing to the log
  */
-	private void writeLog(int depth, BundleLogEntryImpl entry) throws IOException {
+	private void writeLog(int depth, BundleLogEntryImpl entry, Date date) throws IOException {
 
-		writeEntry(depth, entry);
+		writeEntry(depth, entry, date);
 		writeMessage(entry);
 		// Moved to Entry writeState(entry);
 		writeStack(entry);
@@ -353,7 +601,7 @@ public class LogWriter implements SynchronousLogListener, LogFilter {
 			for (int i = 0; i < children.length; i++) {
 				Object logEntry = children[i];
 				if (logEntry instanceof BundleLogEntryImpl) {
-					writeLog(depth + 1, (BundleLogEntryImpl) logEntry);
+					writeLog(depth + 1, (BundleLogEntryImpl) logEntry, date);
 				}
 			}
 		}
@@ -365,11 +613,18 @@ public class LogWriter implements SynchronousLogListener, LogFilter {
 	 * a sub-entry.
 	 * @param depth the depth of th entry
 	 * @param entry the entry to write the header for
+	 * @param date the time the entry was logged
 	 * @throws IOException if any error occurs writing to the log
 	 */
-	private void writeEntry(int depth, BundleLogEntryImpl entry) throws IOException {
+	private void writeEntry(int depth, BundleLogEntryImpl entry, Date date) throws IOException {
 		if (depth == 0) {
 			writeln(); // write a blank line before all !ENTRY tags bug #64406
+			if (index != null && filePosition >= 0) {
+				index.addEntry(filePosition);
+			}
+			if (logRecords != null && filePosition >= 0) {
+				logRecords.addEntry(entry, date);
+			}
 			write(ENTRY);
 		} else {
 			write(SUBENTRY);
@@ -385,7 +640,7 @@ public class LogWriter implements SynchronousLogListener, LogFilter {
 		writeSpace();
 		write(Integer.toString(entry.getBundleStateId()));
 		writeSpace();
-		write(getDate(new Date()));
+		write(getDate(date));
 		writeln();
 	}
 	
@@ -420,8 +675,9 @@ public class LogWriter implements SynchronousLogListener, LogFilter {
 	 */
 	private void writeStack(BundleLogEntryImpl entry) throws IOException {
 		Throwable t = entry.getThrowable();
-		if (t != null) {
-			String stack = getStackTrace(t);
+		// Entries read from a log have a stack trace without the exception
+		String stack = t != null ? getStackTrace(t) : entry.getStack();
+		if (stack != null) {
 			write(STACK);
 			writeSpace();
 			write(Integer.toString(0 /*entry.getStackCode() */));
@@ -433,6 +689,40 @@ public class LogWriter implements SynchronousLogListener, LogFilter {
 	
 
 
+	/**
+	 * Export entries of the structured log of a log file in the text format of the log. Each
+	 * exported entry is preceded by the header of its session when the session differs from the
+	 * session of the previous exported entry.
+	 * <p>
+	 * The entries are only written to the specified writer. The log file, its index and its
+	 * structured log are not changed. The writer is flushed but not closed.
+	 * 
+	 * @param logFile the log file of the structured log
+	 * @param filter selects the entries to export or null to export all entries
+	 * @param out the writer to export the entries to
+	 * @return the number of exported root entries
+	 * @throws IOException if any error occurs writing the entries
+	 */
+	public static int exportRecords(File logFile, LogRecordFilter filter, Writer out) throws IOException {
+		List entries = new ArrayList();
+		LogReader.parseRecords(logFile, filter, entries, null);
+		// A writer without a log file does not add the entries to an index or a structured log
+		LogWriter exporter = new LogWriter(out, null, true, null);
+		LogSession session = null;
+		for (Object entry : entries) {
+			BundleLogEntryImpl logEntry = (BundleLogEntryImpl) entry;
+			if (logEntry.getSession() != session) {
+				session = logEntry.getSession();
+				if (session.getDate() != null) {
+					exporter.writeSessionHeader(exporter.getDate(session.getDate()), session.getSessionData());
+				}
+			}
+			exporter.writeLog(0, logEntry, logEntry.getDate());
+		}
+		out.flush();
+		return entries.size();
+	}
+
 	public synchronized void setWriter(Writer newWriter, boolean append) {
 		setOutput(null, newWriter, append);
 	}
@@ -461,6 +751,14 @@ public class LogWriter implements SynchronousLogListener, LogFilter {
 
 	private void setOutput(File newOutFile, Writer newWriter, boolean append) {
 		if (newOutFile == null || !newOutFile.equals(this.outFile)) {
+			if (index != null) {
+				index.flush();
+				index = null;
+			}
+			if (logRecords != null) {
+				logRecords.flush();
+				logRecords = null;
+			}
 			if (this.writer != null) {
 				try {
 					this.writer.close();
@@ -498,6 +796,13 @@ public class LogWriter implements SynchronousLogListener, LogFilter {
 					}
 					closeFile();
 				}
+				// The copied content is not indexed. Index the log from its content when opened
+				index = null;
+				logRecords = null;
+				if (newOutFile != null) {
+					LogIndex.delete(newOutFile);
+					LogRecords.delete(newOutFile);
+				}
 			}
 		}
 	}
@@ -593,11 +898,38 @@ public class LogWriter implements SynchronousLogListener, LogFilter {
 	private void write(String message) throws IOException {
 		if (message != null) {
 			writer.write(message);
+			if (filePosition >= 0)
+				filePosition += getEncodedLength(message);
 			if (consoleLog)
 				System.out.print(message);
 		}
 	}
 
+	/**
+	 * Returns the number of bytes of the given message when encoded as UTF-8 
+	 * @param message the message
+	 * @return the encoded length of the message
+	 */
+	private static int getEncodedLength(String message) {
+		int length = 0;
+		for (int i = 0, len = message.length(); i < len; i++) {
+			char c = message.charAt(i);
+			if (c < 0x80) {
+				length++;
+			} else if (c < 0x800) {
+				length += 2;
+			} else if (Character.isHighSurrogate(c) && i + 1 < len && Character.isLowSurrogate(message.charAt(i + 1))) {
+				length += 4;
+				i++;
+			} else if (Character.isSurrogate(c)) {
+				length++; // replaced by '?'
+			} else {
+				length += 3;
+			}
+		}
+		return length;
+	}
+
 	/**
 	 * Writes the given message to the log and a newline.
 	 * @param s the message
@@ -635,7 +967,7 @@ public class LogWriter implements SynchronousLogListener, LogFilter {
 
 		boolean isBackupOK = true;
 		if (outFile != null) {
-			if ((secureAction.length(outFile) >> 10) > maxLogSize) { // Use KB as file size unit.
+			if (isLogFileFull()) {
 				String logFilename = outFile.getAbsolutePath();
 
 				// Delete old backup file that will be replaced.
@@ -663,6 +995,15 @@ public class LogWriter implements SynchronousLogListener, LogFilter {
 				if (!isRenameOK) {
 					System.err.println("Error when trying to rename log file to backup one."); //$NON-NLS-1$
 					isBackupOK = false;
+				} else {
+					// The backup log keeps its index and the new log gets a new index when opened
+					LogIndex.move(outFile, backupFile);
+					index = null;
+					if (logRecords != null) {
+						logRecords.flush();
+						logRecords = null;
+					}
+					LogRecords.move(outFile, backupFile);
 				}
 				File newFile = new File(logFilename);
 				setOutput(newFile, null, false);
@@ -685,6 +1026,14 @@ public class LogWriter implements SynchronousLogListener, LogFilter {
 		return isBackupOK;
 	}
 
+	/**
+	 * Checks if the log file has reached the size limit
+	 * @return true if the log file should be rotated
+	 */
+	private boolean isLogFileFull() {
+		return maxLogSize != 0 && outFile != null && (secureAction.length(outFile) >> 10) > maxLogSize; // Use KB as file size unit.
+	}
+
 	/**
 	 * Reads the PROP_LOG_SIZE_MAX and PROP_LOG_FILE_MAX properties.
 	 */
@@ -721,6 +1070,40 @@ public class LogWriter implements SynchronousLogListener, LogFilter {
 		}
 
 		includeCommandLine = "true".equals(environmentInfo.getProperty(PROP_LOG_INCLUDE_COMMAND_LINE));
+
+		async = "true".equals(environmentInfo.getProperty(PROP_LOG_ASYNC)); //$NON-NLS-1$
+		structuredLog = "true".equals(environmentInfo.getProperty(PROP_LOG_RECORDS)); //$NON-NLS-1$
+		asyncCapacity = getIntProperty(PROP_LOG_ASYNC_CAPACITY, DEFAULT_ASYNC_CAPACITY);
+		asyncFlushSize = getIntProperty(PROP_LOG_ASYNC_FLUSH_SIZE, DEFAULT_ASYNC_FLUSH_SIZE);
+		asyncFlushInterval = getIntProperty(PROP_LOG_ASYNC_FLUSH_INTERVAL, DEFAULT_ASYNC_FLUSH_INTERVAL);
+		String newOverflowPolicy = environmentInfo.getProperty(PROP_LOG_ASYNC_OVERFLOW);
+		if (newOverflowPolicy != null) {
+			try {
+				overflowPolicy = OverflowPolicy.valueOf(newOverflowPolicy.trim().toUpperCase().replace('-', '_'));
+			} catch (IllegalArgumentException e) {
+				overflowPolicy = OverflowPolicy.BLOCK;
+			}
+		}
+	}
+
+	/**
+	 * Reads a positive integer property
+	 * @param key the name of the property
+	 * @param defaultValue value to use if the property is not set or is not a positive integer 
+	 * @return the value of the property or the default value
+	 */
+	private int getIntProperty(String key, int defaultValue) {
+		String value = environmentInfo.getProperty(key);
+		if (value != null) {
+			try {
+				int intValue = Integer.parseInt(value.trim());
+				if (intValue > 0)
+					return intValue;
+			} catch (NumberFormatException e) {
+				// use the default value
+			}
+		}
+		return defaultValue;
 	}
 
 	/**
@@ -21,6 +21,9 @@ public class TailInputStream extends InputStream {
 
 	private long fTail;
 
+	/** Number of bytes left to read or -1 if reading to the end of the file */
+	private long fRemaining = -1;
+
 	public TailInputStream(File file, long maxLength) throws IOException {
 		super();
 		fTail = maxLength;
@@ -28,6 +31,21 @@ public class TailInputStream extends InputStream {
 		skipHead(file);
 	}
 
+	/**
+	 * Reads the bytes between two offsets of a file
+	 * 
+	 * @param file the file to read
+	 * @param start offset of the first byte to read
+	 * @param end offset after the last byte to read
+	 * @throws IOException if failing to open the file
+	 */
+	public TailInputStream(File file, long start, long end) throws IOException {
+		super();
+		fRaf = new RandomAccessFile(file, "r"); //$NON-NLS-1$
+		fRaf.seek(start);
+		fRemaining = Math.max(0, end - start);
+	}
+
 	private void skipHead(File file) throws IOException {
 		if (file.length() > fTail) {
 			fRaf.seek(file.length() - fTail);
@@ -42,7 +60,7 @@ public class TailInputStream extends InputStream {
 
 	public int read() throws IOException {
 		byte[] b = new byte[1];
-		int len = fRaf.read(b, 0, 1);
+		int len = read(b, 0, 1);
 		if (len < 0) {
 			return len;
 		}
@@ -50,11 +68,21 @@ public class TailInputStream extends InputStream {
 	}
 
 	public int read(byte[] b) throws IOException {
-		return fRaf.read(b, 0, b.length);
+		return read(b, 0, b.length);
 	}
 
 	public int read(byte[] b, int off, int len) throws IOException {
-		return fRaf.read(b, off, len);
+		if (fRemaining < 0) {
+			return fRaf.read(b, off, len);
+		}
+		if (fRemaining == 0) {
+			return len == 0 ? 0 : -1;
+		}
+		int count = fRaf.read(b, off, (int) Math.min(len, fRemaining));
+		if (count > 0) {
+			fRemaining -= count;
+		}
+		return count;
 	}
 
 	public void close() throws IOException {
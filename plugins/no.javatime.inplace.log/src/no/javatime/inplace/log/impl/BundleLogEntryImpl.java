@@ -25,6 +25,7 @@ import no.javatime.inplace.region.intface.BundleTransition.Transition;
 import no.javatime.inplace.region.status.BundleStatus;
 import no.javatime.inplace.region.status.IBundleStatus;
 
+import org.eclipse.core.resources.IProject;
 import org.eclipse.core.runtime.IStatus;
 import org.osgi.framework.Bundle;
 
@@ -53,6 +54,8 @@ public class BundleLogEntryImpl extends AbstractEntry implements BundleLogEntry
 	private LogSession session;
 	private int bundleState;
 	private Transition bundleTransition;
+	private long bundleId = -1;
+	private String projectName;
 
 	/**
 	 * Constructor
@@ -396,6 +399,59 @@ public class BundleLogEntryImpl extends AbstractEntry implements BundleLogEntry
 		return bundleState;
 	}
 
+	/**
+	 * Returns the transition of the bundle when this entry was logged
+	 * 
+	 * @return the bundle transition or null if not logged with a transition
+	 */
+	public Transition getBundleTransition() {
+		return bundleTransition;
+	}
+
+	/**
+	 * Returns the id of the bundle this entry was logged for
+	 * 
+	 * @return the bundle id or -1 if not logged for a bundle
+	 */
+	public long getBundleId() {
+		return bundleId;
+	}
+
+	/**
+	 * Returns the name of the project this entry was logged for
+	 * 
+	 * @return the project name or null if not logged for a project
+	 */
+	public String getProjectName() {
+		return projectName;
+	}
+
+	/**
+	 * Fills this entry with the fields of a record from the structured log. No validation is
+	 * performed on the values.
+	 * 
+	 * @param pluginId the plug-in id
+	 * @param severity the severity
+	 * @param code the status code
+	 * @param bundleState the bundle state
+	 * @param bundleTransition the bundle transition or null
+	 * @param bundleId the bundle id or -1
+	 * @param projectName the project name or null
+	 * @param date the time the entry was logged
+	 */
+	public void processRecord(String pluginId, int severity, int code, int bundleState,
+			Transition bundleTransition, long bundleId, String projectName, Date date) {
+		this.pluginId = pluginId;
+		this.severity = severity;
+		this.code = code;
+		this.bundleState = bundleState;
+		this.bundleTransition = bundleTransition;
+		this.bundleId = bundleId;
+		this.projectName = projectName;
+		fDate = date;
+		fDateString = LOCAL_SDF.format(fDate);
+	}
+
 	public String getBundleState() {
 		return getStateName(bundleState);
 	}
@@ -471,6 +527,14 @@ public class BundleLogEntryImpl extends AbstractEntry implements BundleLogEntry
 		if (status instanceof BundleStatus) {
 			bundleState = status.getBundleState();
 			bundleTransition = status.getBundleTransition();
+			Bundle bundle = status.getBundle();
+			if (bundle != null) {
+				bundleId = bundle.getBundleId();
+			}
+			IProject project = status.getProject();
+			if (project != null) {
+				projectName = project.getName();
+			}
 		}
 		severity = status.getSeverity();
 		code = status.getCode();
@@ -68,6 +68,19 @@ public class BundleLogimpl implements BundleLog {
 		return msg;
 	}
 	
+	@Override
+	public boolean flush() {
+
+		Activator activator = Activator.getDefault();
+		if (null != activator) {
+			LogWriter logWriter = activator.getLogWriter();
+			if (null != logWriter) {
+				return logWriter.flush();
+			}
+		}
+		return true;
+	}
+
 	@Override
 	public void logDirect(StatusCode statusCode, Bundle bundle, Exception exception, String msg)
 			throws BundleLogException {
@@ -80,6 +80,17 @@ public interface BundleLog {
 	 */
 	public String logDirect(IBundleStatus status) throws BundleLogException;
 
+	/**
+	 * Waits until all status objects logged before this call are written to the log file. Status
+	 * objects may be written to the log file by a separate thread after they have been logged.
+	 * <p>
+	 * Should be called when the workbench is shutting down, to ensure that all status objects are in
+	 * the log file before the log is closed.
+	 * 
+	 * @return true if all status objects are written to the log and false if waiting timed out
+	 */
+	public boolean flush();
+
 	/**
 	 * Logs the specified status code, bundle symbolic name, bundle state and message directly to the log.
 	 * In this case the status object is not shown in the log view until another of the log methods is used
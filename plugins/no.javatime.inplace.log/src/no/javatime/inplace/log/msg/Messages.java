@@ -25,6 +25,8 @@ public class Messages extends NLS {
 	public static String INVALID_CONTEXT_EXP;
 	public static String NULL_CONTEXT_EXP;
 	public static String NULL_ROOT_STATUS_EXP;
+	// Warnings
+	public static String DROPPED_LOG_ENTRIES_WARN;
 	public static String LogView_column_message;
 	public static String LogView_column_plugin;
 	public static String LogView_column_date;
@@ -43,12 +45,18 @@ public class Messages extends NLS {
 	public static String LogView_exportEntry;
 	public static String LogView_exportLogEntry;
 	public static String LogView_exportEntry_tooltip;
+	public static String LogView_exportRecords;
+	public static String LogView_exportFilteredRecords;
+	public static String LogView_exportRecords_tooltip;
+	public static String LogView_exportRecords_incomplete;
 	public static String LogView_import;
 	public static String LogView_import_tooltip;
 	public static String LogView_filter;
 	public static String LogView_readLog_reload;
 	public static String LogView_readLog_restore;
 	public static String LogView_readLog_restore_tooltip;
+	public static String LogView_readOlder;
+	public static String LogView_readOlder_tooltip;
 	public static String LogView_show_filter_text;
 	public static String LogView_show_filter_initialText;
 
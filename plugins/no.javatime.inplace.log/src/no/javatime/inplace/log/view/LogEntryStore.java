@@ -0,0 +1,183 @@
+package no.javatime.inplace.log.view;
+
+import java.util.ArrayList;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+
+import no.javatime.inplace.log.dl.AbstractEntry;
+
+/**
+ * Entries and groups shown in the log view. Entries are kept in a ring buffer in the order they
+ * were logged, and the oldest entries are evicted in constant time when the number of entries
+ * exceeds the maximum size of the store. Entries evicted from the store are also removed from
+ * their group.
+ * <p>
+ * Each entry and group is assigned a sequence number when added, used to order entries and groups
+ * logged at the same time in the order they were added.
+ * <p>
+ * The store is not thread safe.
+ */
+class LogEntryStore {
+
+	private static final int INITIAL_CAPACITY = 64;
+
+	// Ring buffer of entries with the oldest entry at head
+	private AbstractEntry[] entries = new AbstractEntry[INITIAL_CAPACITY];
+	private int head;
+	private int size;
+	private int maxSize = Integer.MAX_VALUE;
+
+	private final List<Group> groups = new ArrayList<>();
+	// Sequence numbers of entries and groups in the store
+	private final Map<Object, Long> sequences = new IdentityHashMap<>();
+	// Next sequence number of entries and groups added last and first
+	private long lastSequence;
+	private long firstSequence = -1;
+
+	/**
+	 * Number of entries in the store
+	 *
+	 * @return the number of entries
+	 */
+	int size() {
+		return size;
+	}
+
+	/**
+	 * Add an entry logged after all entries in the store. The oldest entries are evicted if the store
+	 * is full.
+	 *
+	 * @param entry the entry to add
+	 * @param evicted list to add entries evicted from the store to
+	 */
+	void addLast(AbstractEntry entry, List<AbstractEntry> evicted) {
+		if (size == entries.length) {
+			grow();
+		}
+		entries[(head + size) % entries.length] = entry;
+		size++;
+		sequences.put(entry, lastSequence++);
+		evict(evicted);
+	}
+
+	/**
+	 * Add an entry logged before all entries in the store. The entry is not added if the store is
+	 * full.
+	 *
+	 * @param entry the entry to add
+	 * @return true if the entry was added and false if the store is full
+	 */
+	boolean addFirst(AbstractEntry entry) {
+		if (size >= maxSize) {
+			return false;
+		}
+		if (size == entries.length) {
+			grow();
+		}
+		head = (head - 1 + entries.length) % entries.length;
+		entries[head] = entry;
+		size++;
+		sequences.put(entry, firstSequence--);
+		return true;
+	}
+
+	/**
+	 * Add a new group
+	 *
+	 * @param group the group to add
+	 */
+	void addGroup(Group group) {
+		groups.add(group);
+		sequences.put(group, lastSequence++);
+	}
+
+	/**
+	 * Set the maximum number of entries in the store and evict the oldest entries exceeding the
+	 * maximum size
+	 *
+	 * @param maxSize the maximum number of entries
+	 * @param evicted list to add entries evicted from the store to
+	 */
+	void setMaxSize(int maxSize, List<AbstractEntry> evicted) {
+		this.maxSize = maxSize;
+		evict(evicted);
+	}
+
+	/**
+	 * Get the entries in the order they were logged
+	 *
+	 * @return the entries in the store
+	 */
+	AbstractEntry[] getEntries() {
+		return getEntries(size);
+	}
+
+	/**
+	 * Get the groups in the order they were added
+	 *
+	 * @return the groups in the store
+	 */
+	AbstractEntry[] getGroups() {
+		return groups.toArray(new AbstractEntry[groups.size()]);
+	}
+
+	/**
+	 * Compare the order of two entries or groups in the store
+	 *
+	 * @param e1 an entry or group
+	 * @param e2 an entry or group
+	 * @return a negative number if the first element was added before the second, zero if they are
+	 * the same and a positive number if the first was added after the second. Elements not in the
+	 * store are ordered before the elements in the store.
+	 */
+	int compareOrder(Object e1, Object e2) {
+		Long s1 = sequences.get(e1);
+		Long s2 = sequences.get(e2);
+		long seq1 = s1 != null ? s1.longValue() : Long.MIN_VALUE;
+		long seq2 = s2 != null ? s2.longValue() : Long.MIN_VALUE;
+		return seq1 < seq2 ? -1 : (seq1 == seq2 ? 0 : 1);
+	}
+
+	/**
+	 * Remove all entries and groups from the store and remove the maximum size
+	 */
+	void clear() {
+		entries = new AbstractEntry[INITIAL_CAPACITY];
+		head = 0;
+		size = 0;
+		maxSize = Integer.MAX_VALUE;
+		groups.clear();
+		sequences.clear();
+		lastSequence = 0;
+		firstSequence = -1;
+	}
+
+	private void evict(List<AbstractEntry> evicted) {
+		while (size > maxSize) {
+			AbstractEntry entry = entries[head];
+			entries[head] = null;
+			head = (head + 1) % entries.length;
+			size--;
+			sequences.remove(entry);
+			Object parent = entry.getParent(entry);
+			if (parent instanceof Group) {
+				((Group) parent).removeChild(entry);
+			}
+			evicted.add(entry);
+		}
+	}
+
+	private void grow() {
+		entries = getEntries(entries.length * 2);
+		head = 0;
+	}
+
+	private AbstractEntry[] getEntries(int capacity) {
+		AbstractEntry[] result = new AbstractEntry[capacity];
+		int first = Math.min(size, entries.length - head);
+		System.arraycopy(entries, head, result, 0, first);
+		System.arraycopy(entries, 0, result, first, size - first);
+		return result;
+	}
+}
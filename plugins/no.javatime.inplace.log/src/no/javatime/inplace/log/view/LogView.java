@@ -29,7 +29,6 @@ import java.io.StringReader;
 import java.io.StringWriter;
 import java.lang.reflect.InvocationTargetException;
 import java.util.ArrayList;
-import java.util.Arrays;
 import java.util.Collections;
 import java.util.Comparator;
 import java.util.Date;
@@ -37,6 +36,8 @@ import java.util.HashMap;
 import java.util.Iterator;
 import java.util.List;
 import java.util.Map;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
 
 import no.javatime.inplace.dl.preferences.intface.MessageOptions;
 import no.javatime.inplace.extender.intface.ExtenderException;
@@ -45,7 +46,11 @@ import no.javatime.inplace.extender.intface.Extension;
 import no.javatime.inplace.log.Activator;
 import no.javatime.inplace.log.dl.AbstractEntry;
 import no.javatime.inplace.log.dl.LogFilesManager;
+import no.javatime.inplace.log.dl.LogIndex;
 import no.javatime.inplace.log.dl.LogReader;
+import no.javatime.inplace.log.dl.LogRecordFilter;
+import no.javatime.inplace.log.dl.LogRecords;
+import no.javatime.inplace.log.dl.LogWriter;
 import no.javatime.inplace.log.dl.LogSession;
 import no.javatime.inplace.log.impl.BundleLogEntryImpl;
 import no.javatime.inplace.log.msg.Messages;
@@ -184,12 +189,23 @@ public class LogView extends ViewPart implements SynchronousLogListener, LogFilt
 	public static final int GROUP_BY_SESSION = 1;
 	public static final int GROUP_BY_PLUGIN = 2;
 
-	private List elements;
+	/** Entries and groups shown in the view */
+	private LogEntryStore fStore;
 	private Map groups;
+	/** Entries added to the view since the viewer was last updated */
+	private List fAddedEntries;
+	/** Entries removed from the view since the viewer was last updated */
+	private List fRemovedEntries;
+	/** True if the whole viewer should be refreshed when updated */
+	private boolean fRefreshAll;
 	private LogSession currentSession;
 
-	private List batchedEntries;
-	private boolean batchEntries;
+	private Queue batchedEntries;
+	private volatile boolean batchEntries;
+	/** Adds batched entries to the view */
+	private Job fBatchJob;
+	/** Coalesces updates of the viewer */
+	private volatile LogViewRefresher fRefresher;
 
 	private Clipboard fClipboard;
 
@@ -197,6 +213,19 @@ public class LogView extends ViewPart implements SynchronousLogListener, LogFilt
 	private File fInputFile;
 	private String fDirectory;
 
+	/** Index of the input log file or null if the log file is read without an index */
+	private LogIndex fIndex;
+	/** Offset in the indexed input log file after the last read entry */
+	private long fReadOffset;
+	/** Offset in the indexed input log file of the oldest read entry */
+	private long fHistoryOffset;
+	/** True if there are entries in the indexed input log file older than the oldest read entry */
+	private boolean fHasOlderEntries;
+	/** Number of older entries read on request in addition to the limit of visible entries */
+	private int fHistoryCount;
+	/** Sessions read from the indexed input log file by offset */
+	private Map fSessions;
+
 	private Comparator fComparator;
 
 	// hover text
@@ -214,15 +243,18 @@ public class LogView extends ViewPart implements SynchronousLogListener, LogFilt
 	private Tree fTree;
 	private FilteredTree fFilteredTree;
 	private LogViewLabelProvider fLabelProvider;
+	private LogViewContentProvider fContentProvider;
 
 	private Action fPropertiesAction;
 	private Action fDeleteLogAction;
 	private Action fReadLogAction;
+	private Action fReadOlderAction;
 	private Action fCopyAction;
 	private Action fActivateViewAction;
 	private Action fOpenLogAction;
 	private Action fExportLogAction;
 	private Action fExportLogEntryAction;
+	private Action fExportRecordsAction;
 	private Action fToggleLoggingAction;
 
 	/**
@@ -253,9 +285,24 @@ public class LogView extends ViewPart implements SynchronousLogListener, LogFilt
 	 * Constructor
 	 */
 	public LogView() {
-		elements = new ArrayList();
+		fStore = new LogEntryStore();
 		groups = new HashMap();
-		batchedEntries = new ArrayList();
+		fAddedEntries = new ArrayList();
+		fRemovedEntries = new ArrayList();
+		fSessions = new HashMap();
+		batchedEntries = new ConcurrentLinkedQueue();
+		fBatchJob = new Job(Messages.LogView_AddingBatchedEvents) {
+			protected IStatus run(IProgressMonitor monitor) {
+				List entries = new ArrayList();
+				BundleLogEntryImpl entry;
+				while (!monitor.isCanceled() && (entry = (BundleLogEntryImpl) batchedEntries.poll()) != null) {
+					entries.add(entry);
+				}
+				pushEntries(entries);
+				asyncRefresh(true);
+				return Status.OK_STATUS;
+			}
+		};
 		fInputFile = Activator.getDefault().getLogFile();
 	}
 
@@ -341,6 +388,8 @@ public class LogView extends ViewPart implements SynchronousLogListener, LogFilt
 
 		fExportLogEntryAction = createExportLogEntryAction();
 
+		fExportRecordsAction = createExportRecordsAction();
+
 		final Action importLogAction = createImportLogAction();
 		toolBarManager.add(importLogAction);
 
@@ -358,6 +407,8 @@ public class LogView extends ViewPart implements SynchronousLogListener, LogFilt
 		fReadLogAction = createReadLogAction();
 		toolBarManager.add(fReadLogAction);
 
+		fReadOlderAction = createReadOlderAction();
+
 		toolBarManager.add(new Separator());
 
 		IMenuManager mgr = bars.getMenuManager();
@@ -366,6 +417,8 @@ public class LogView extends ViewPart implements SynchronousLogListener, LogFilt
 		mgr.add(new Separator());
 		mgr.add(createFilterAction());
 		mgr.add(new Separator());
+		mgr.add(fReadOlderAction);
+		mgr.add(new Separator());
 
 		fActivateViewAction = createActivateViewAction();
 		mgr.add(fActivateViewAction);
@@ -383,8 +436,10 @@ public class LogView extends ViewPart implements SynchronousLogListener, LogFilt
 				manager.add(fDeleteLogAction);
 				manager.add(fOpenLogAction);
 				manager.add(fReadLogAction);
+				manager.add(fReadOlderAction);
 				manager.add(new Separator());
 				manager.add(fExportLogAction);
+				manager.add(fExportRecordsAction);
 				manager.add(createImportLogAction());
 				manager.add(new Separator());
 				manager.add(fExportLogEntryAction);
@@ -514,6 +569,19 @@ public class LogView extends ViewPart implements SynchronousLogListener, LogFilt
 		return action;
 	}
 
+	private Action createExportRecordsAction() {
+		Action action = new Action(Messages.LogView_exportRecords) {
+			public void run() {
+				handleExportRecords();
+			}
+		};
+		action.setToolTipText(Messages.LogView_exportRecords_tooltip);
+		action.setImageDescriptor(SharedImages.getImageDescriptor(SharedImages.DESC_EXPORT));
+		action.setDisabledImageDescriptor(SharedImages.getImageDescriptor(SharedImages.DESC_EXPORT_DISABLED));
+		action.setEnabled(LogRecords.exists(fInputFile));
+		return action;
+	}
+
 	private Action createFilterAction() {
 		Action action = new Action(Messages.LogView_filter) {
 			public void run() {
@@ -585,6 +653,22 @@ public class LogView extends ViewPart implements SynchronousLogListener, LogFilt
 		return action;
 	}
 
+	private Action createReadOlderAction() {
+		Action action = new Action(Messages.LogView_readOlder) {
+			public void run() {
+				BusyIndicator.showWhile(fTree.getDisplay(), new Runnable() {
+					public void run() {
+						readOlderEntries();
+					}
+				});
+				asyncRefresh(false);
+			}
+		};
+		action.setToolTipText(Messages.LogView_readOlder_tooltip);
+		action.setEnabled(fHasOlderEntries);
+		return action;
+	}
+
 	/**
 	 * Creates the Show Text Filter view menu action 
 	 * @return the new action for the Show Text Filter 
@@ -651,7 +735,7 @@ public class LogView extends ViewPart implements SynchronousLogListener, LogFilt
 			}
 		};
 		filter.setIncludeLeadingWildcard(true);
-		fFilteredTree = new FilteredTree(parent, SWT.FULL_SELECTION, filter, true);
+		fFilteredTree = new FilteredTree(parent, SWT.FULL_SELECTION | SWT.VIRTUAL, filter, true);
 		// need to give filter Textbox some space from the border
 		if (fFilteredTree.getFilterControl() != null) {
 			Composite filterComposite = fFilteredTree.getFilterControl().getParent(); // FilteredTree new look lays filter Text on additional composite
@@ -662,10 +746,11 @@ public class LogView extends ViewPart implements SynchronousLogListener, LogFilt
 		fFilteredTree.setLayoutData(new GridData(GridData.FILL_BOTH));
 		fFilteredTree.setInitialText(Messages.LogView_show_filter_initialText);
 		fTree = fFilteredTree.getViewer().getTree();
+		fRefresher = new LogViewRefresher(this, fTree.getDisplay());
 		fTree.setLinesVisible(true);
 		createColumns(fTree);
-		fFilteredTree.getViewer().setAutoExpandLevel(2);
-		fFilteredTree.getViewer().setContentProvider(new LogViewContentProvider(this));
+		fFilteredTree.getViewer().setUseHashlookup(true);
+		fFilteredTree.getViewer().setContentProvider(fContentProvider = new LogViewContentProvider(this));
 		fFilteredTree.getViewer().setLabelProvider(fLabelProvider = new LogViewLabelProvider(this));
 		fLabelProvider.connect(this);
 		fFilteredTree.getViewer().addSelectionChangedListener(new ISelectionChangedListener() {
@@ -833,23 +918,35 @@ public class LogView extends ViewPart implements SynchronousLogListener, LogFilt
 		}
 	}
 
-	private void handleExport(boolean exportWholeLog) {
+	/**
+	 * Ask for the file to export to, and confirm overwriting the file if it exists
+	 * 
+	 * @param title title of the overwrite confirmation dialog
+	 * @return the file to export to or null if the export is canceled
+	 */
+	private File getExportFile(String title) {
 		FileDialog dialog = new FileDialog(getViewSite().getShell(), SWT.SAVE);
 		dialog.setFilterExtensions(new String[] {"*.log"}); //$NON-NLS-1$
 		if (fDirectory != null)
 			dialog.setFilterPath(fDirectory);
 		String path = dialog.open();
-		if (path != null) {
-			if (path.indexOf('.') == -1 && !path.endsWith("bundle.log")) //$NON-NLS-1$
-				path += "bundle.log"; //$NON-NLS-1$
-			File outputFile = new Path(path).toFile();
-			fDirectory = outputFile.getParent();
-			if (outputFile.exists()) {
-				String message = NLS.bind(Messages.LogView_confirmOverwrite_message, outputFile.toString());
-				if (!MessageDialog.openQuestion(getViewSite().getShell(), (exportWholeLog ? Messages.LogView_exportLog : Messages.LogView_exportLogEntry), message))
-					return;
-			}
+		if (path == null)
+			return null;
+		if (path.indexOf('.') == -1 && !path.endsWith("bundle.log")) //$NON-NLS-1$
+			path += "bundle.log"; //$NON-NLS-1$
+		File outputFile = new Path(path).toFile();
+		fDirectory = outputFile.getParent();
+		if (outputFile.exists()) {
+			String message = NLS.bind(Messages.LogView_confirmOverwrite_message, outputFile.toString());
+			if (!MessageDialog.openQuestion(getViewSite().getShell(), title, message))
+				return null;
+		}
+		return outputFile;
+	}
 
+	private void handleExport(boolean exportWholeLog) {
+		File outputFile = getExportFile(exportWholeLog ? Messages.LogView_exportLog : Messages.LogView_exportLogEntry);
+		if (outputFile != null) {
 			BufferedReader in = null;
 			BufferedWriter out = null;
 			try {
@@ -880,6 +977,63 @@ public class LogView extends ViewPart implements SynchronousLogListener, LogFilt
 		}
 	}
 
+	/**
+	 * Export the entries of the structured log selected by the severity and session filter of the
+	 * view in the text format. The structured log only holds entries written while it is enabled,
+	 * and is not exported if it does not have a record for each session and entry in the log.
+	 */
+	private void handleExportRecords() {
+		if (!LogRecords.covers(fInputFile)) {
+			MessageDialog.openInformation(getViewSite().getShell(), Messages.LogView_exportFilteredRecords,
+					Messages.LogView_exportRecords_incomplete);
+			return;
+		}
+		File outputFile = getExportFile(Messages.LogView_exportFilteredRecords);
+		if (outputFile != null) {
+			BufferedWriter out = null;
+			try {
+				out = new BufferedWriter(new OutputStreamWriter(new FileOutputStream(outputFile), "UTF-8")); //$NON-NLS-1$
+				LogWriter.exportRecords(fInputFile, getRecordFilter(), out);
+			} catch (IOException ex) {
+				// do nothing
+			} finally {
+				try {
+					if (out != null)
+						out.close();
+				} catch (IOException e) {
+					// do nothing
+				}
+			}
+		}
+	}
+
+	/**
+	 * Create a record filter selecting the severities shown in the view, and the entries of the most
+	 * recent session when only the most recent session is shown
+	 * 
+	 * @return filter of structured log entries
+	 */
+	private LogRecordFilter getRecordFilter() {
+		List<Integer> selected = new ArrayList<Integer>();
+		if (fMemento.getString(P_LOG_OK).equals("true")) //$NON-NLS-1$
+			selected.add(IStatus.OK);
+		if (fMemento.getString(P_LOG_INFO).equals("true")) //$NON-NLS-1$
+			selected.add(IStatus.INFO);
+		if (fMemento.getString(P_LOG_WARNING).equals("true")) //$NON-NLS-1$
+			selected.add(IStatus.WARNING);
+		if (fMemento.getString(P_LOG_ERROR).equals("true")) //$NON-NLS-1$
+			selected.add(IStatus.ERROR);
+		int[] severities = new int[selected.size()];
+		for (int i = 0; i < severities.length; i++)
+			severities[i] = selected.get(i);
+		LogRecordFilter filter = new LogRecordFilter();
+		filter.setSeverities(severities);
+		if (!fMemento.getString(P_SHOW_ALL_SESSIONS).equals("true") //$NON-NLS-1$
+				&& currentSession != null && currentSession.getDate() != null)
+			filter.setTimeRange(currentSession.getDate().getTime(), Long.MAX_VALUE);
+		return filter;
+	}
+
 	private void copy(BufferedReader reader, BufferedWriter writer) throws IOException {
 		String line;
 		while (reader.ready() && ((line = reader.readLine()) != null)) {
@@ -901,7 +1055,12 @@ public class LogView extends ViewPart implements SynchronousLogListener, LogFilt
 		String message = Messages.LogView_confirmDelete_message;
 		if (!MessageDialog.openConfirm(fTree.getShell(), title, message))
 			return;
-		if (fInputFile.delete() || elements.size() > 0) {
+		boolean isDeleted = fInputFile.delete();
+		if (isDeleted) {
+			LogIndex.delete(fInputFile);
+			LogRecords.delete(fInputFile);
+		}
+		if (isDeleted || fStore.size() > 0) {
 			handleClear();
 		}
 	}
@@ -909,15 +1068,17 @@ public class LogView extends ViewPart implements SynchronousLogListener, LogFilt
 	public void fillContextMenu(IMenuManager manager) { // nothing
 	}
 
-	public AbstractEntry[] getElements() {
-		return (AbstractEntry[]) elements.toArray(new AbstractEntry[elements.size()]);
+	public synchronized AbstractEntry[] getElements() {
+		if (fMemento.getInteger(P_GROUP_BY).intValue() == GROUP_BY_NONE) {
+			return fStore.getEntries();
+		}
+		return fStore.getGroups();
 	}
 
 	protected void handleClear() {
 		BusyIndicator.showWhile(fTree.getDisplay(), new Runnable() {
 			public void run() {
-				elements.clear();
-				groups.clear();
+				clearElements();
 				if (currentSession != null) {
 					currentSession.removeAllChildren();
 				}
@@ -954,11 +1115,19 @@ public class LogView extends ViewPart implements SynchronousLogListener, LogFilt
 	 * Reads the chosen backing log file
 	 */
 	void readLogFile() {
-		elements.clear();
-		groups.clear();
+		clearElements();
+		fSessions = new HashMap();
 
 		List result = new ArrayList();
-		LogSession lastLogSession = LogReader.parseLogFile(fInputFile, result, fMemento);
+		LogSession lastLogSession = null;
+		fIndex = LogIndex.load(fInputFile);
+		if (fIndex != null) {
+			lastLogSession = readRecentEntries(result);
+		}
+		if (fIndex == null) {
+			fHasOlderEntries = false;
+			lastLogSession = LogReader.parseLogFile(fInputFile, result, fMemento);
+		}
 		if (lastLogSession != null && (lastLogSession.getDate() == null || isEclipseStartTime(lastLogSession.getDate()))) {
 			currentSession = lastLogSession;
 		} else {
@@ -976,6 +1145,134 @@ public class LogView extends ViewPart implements SynchronousLogListener, LogFilt
 
 	}
 
+	/**
+	 * Reads the most recent entries of the indexed input log file. The index is set to null if the
+	 * log can not be read with the index.
+	 * 
+	 * @param result list to add the read entries to
+	 * @return the session of the last entry in the log or null if the log is empty
+	 */
+	private LogSession readRecentEntries(List result) {
+		try {
+			fReadOffset = fInputFile.length();
+			fHistoryOffset = fReadOffset;
+			fHasOlderEntries = false;
+			if (fIndex.size() == 0) {
+				return null;
+			}
+			LogSession lastLogSession = LogReader.getSession(fIndex, fIndex.getSessionOffset(), fMemento, fSessions);
+			int limit = getEntriesLimit();
+			if (limit > 0) {
+				fHistoryOffset = LogReader.parseOlderEntries(fIndex, fReadOffset, getHistoryStart(), limit, result, fMemento, fSessions);
+				fHasOlderEntries = hasOlderEntries();
+			}
+			return lastLogSession;
+		} catch (IOException e) {
+			fIndex = null;
+			result.clear();
+			return null;
+		}
+	}
+
+	/**
+	 * Reads entries appended to the indexed input log file since it was last read
+	 * 
+	 * @return true if the log was read and false if the log can not be read incrementally
+	 */
+	private boolean readNewEntries() {
+		if (fIndex == null) {
+			return false;
+		}
+		LogIndex index = LogIndex.load(fInputFile);
+		long length = fInputFile.length();
+		if (index == null || length < fReadOffset) {
+			// The log has been deleted, rotated or replaced
+			return false;
+		}
+		List result = new ArrayList();
+		LogSession lastLogSession;
+		try {
+			LogReader.parseLogFile(index, fReadOffset, length, result, fMemento, fSessions);
+			lastLogSession = index.size() > 0 ? LogReader.getSession(index, index.getSessionOffset(), fMemento, fSessions) : null;
+		} catch (IOException e) {
+			return false;
+		}
+		fIndex = index;
+		fReadOffset = length;
+		if (lastLogSession != null && (lastLogSession.getDate() == null || isEclipseStartTime(lastLogSession.getDate()))) {
+			currentSession = lastLogSession;
+		}
+		group(result);
+		limitEntriesCount();
+		return true;
+	}
+
+	/**
+	 * Reads a page of entries older than the oldest read entry of the indexed input log file. The
+	 * read entries are shown in addition to the limit of visible entries.
+	 */
+	private synchronized void readOlderEntries() {
+		if (fIndex == null || !fHasOlderEntries) {
+			return;
+		}
+		List result = new ArrayList();
+		try {
+			fHistoryOffset = LogReader.parseOlderEntries(fIndex, fHistoryOffset, getHistoryStart(), getEntriesLimit(), result, fMemento, fSessions);
+		} catch (IOException e) {
+			fHasOlderEntries = false;
+			return;
+		}
+		fHasOlderEntries = hasOlderEntries();
+		fHistoryCount += result.size();
+		limitEntriesCount();
+		boolean isGrouped = fMemento.getInteger(P_GROUP_BY).intValue() != GROUP_BY_NONE;
+		// Keep entries in the order they were logged
+		for (int i = result.size() - 1; i >= 0; i--) {
+			BundleLogEntryImpl entry = (BundleLogEntryImpl) result.get(i);
+			if (fStore.addFirst(entry)) {
+				if (isGrouped) {
+					getGroup(entry).addChild(entry);
+				}
+				if (!fRefreshAll) {
+					fAddedEntries.add(entry);
+				}
+			}
+		}
+	}
+
+	/**
+	 * Offset of the oldest entry that may be read from the indexed input log file
+	 * 
+	 * @return the start of the most recent session if only entries of the most recent session are
+	 * shown, and otherwise the start of the log
+	 */
+	private long getHistoryStart() {
+		if (fMemento.getString(P_SHOW_ALL_SESSIONS).equals("true")) { //$NON-NLS-1$
+			return 0;
+		}
+		return Math.max(0, fIndex.getSessionOffset());
+	}
+
+	private boolean hasOlderEntries() {
+		try {
+			return fIndex.search(fHistoryOffset) > fIndex.search(getHistoryStart());
+		} catch (IOException e) {
+			return false;
+		}
+	}
+
+	/**
+	 * The maximum number of visible entries
+	 * 
+	 * @return the entry limit or {@code Integer.MAX_VALUE} if there is no limit 
+	 */
+	private int getEntriesLimit() {
+		if (fMemento.getString(P_USE_LIMIT).equals("true")) {//$NON-NLS-1$
+			return fMemento.getInteger(P_LOG_LIMIT).intValue();
+		}
+		return Integer.MAX_VALUE;
+	}
+
 	private boolean isEclipseStartTime(Date date) {
 		String ts = System.getProperty("eclipse.startTime"); //$NON-NLS-1$
 		try {
@@ -1014,76 +1311,74 @@ public class LogView extends ViewPart implements SynchronousLogListener, LogFilt
 	 * Add new entries to correct groups in the view.
 	 * @param entries new entries to show up in groups in the view.
 	 */
-	private void group(List entries) {
-		if (fMemento.getInteger(P_GROUP_BY).intValue() == GROUP_BY_NONE) {
-			elements.addAll(entries);
-		} else {
-			for (Iterator i = entries.iterator(); i.hasNext();) {
-				BundleLogEntryImpl entry = (BundleLogEntryImpl) i.next();
+	private synchronized void group(List entries) {
+		boolean isGrouped = fMemento.getInteger(P_GROUP_BY).intValue() != GROUP_BY_NONE;
+		List evicted = new ArrayList();
+		for (Iterator i = entries.iterator(); i.hasNext();) {
+			BundleLogEntryImpl entry = (BundleLogEntryImpl) i.next();
+			if (isGrouped) {
 				Group group = getGroup(entry);
 				group.addChild(entry);
 			}
+			fStore.addLast(entry, evicted);
+			if (!fRefreshAll) {
+				fAddedEntries.add(entry);
+			}
 		}
+		removed(evicted);
 	}
 
 	/**
-	 * Limits the number of entries according to the max entries limit set in
-	 * memento.
+	 * Records entries removed from the view since the viewer was last updated
+	 * @param entries entries removed from the view
 	 */
-	private void limitEntriesCount() {
-		int limit = Integer.MAX_VALUE;
-		if (fMemento.getString(LogView.P_USE_LIMIT).equals("true")) {//$NON-NLS-1$
-			limit = fMemento.getInteger(LogView.P_LOG_LIMIT).intValue();
-		}
-
-		int entriesCount = getEntriesCount();
-
-		if (entriesCount <= limit) {
+	private void removed(List entries) {
+		if (fRefreshAll) {
+			// The viewer is refreshed from the current entries
 			return;
 		}
-		Comparator dateComparator = new Comparator() {
-			public int compare(Object o1, Object o2) {
-				Date l1 = ((BundleLogEntryImpl) o1).getDate();
-				Date l2 = ((BundleLogEntryImpl) o2).getDate();
-				if ((l1 != null) && (l2 != null)) {
-					return l1.before(l2) ? -1 : 1;
-				} else if ((l1 == null) && (l2 == null)) {
-					return 0;
-				} else
-					return (l1 == null) ? -1 : 1;
-			}
-		};
-
-		if (fMemento.getInteger(P_GROUP_BY).intValue() == GROUP_BY_NONE) {
-			elements.subList(0, elements.size() - limit).clear();
-		} else {
-			List copy = new ArrayList(entriesCount);
-			for (Iterator i = elements.iterator(); i.hasNext();) {
-				AbstractEntry group = (AbstractEntry) i.next();
-				copy.addAll(Arrays.asList(group.getChildren(group)));
-			}
-
-			Collections.sort(copy, dateComparator);
-			List toRemove = copy.subList(0, copy.size() - limit);
-
-			for (Iterator i = elements.iterator(); i.hasNext();) {
-				AbstractEntry group = (AbstractEntry) i.next();
-				group.removeChildren(toRemove);
+		for (Iterator i = entries.iterator(); i.hasNext();) {
+			Object entry = i.next();
+			// Entries added and removed before the viewer is updated are never shown
+			if (!fAddedEntries.remove(entry)) {
+				fRemovedEntries.add(entry);
 			}
 		}
+	}
 
+	/**
+	 * Removes all entries and groups from the view. The whole viewer is refreshed when updated
+	 */
+	private synchronized void clearElements() {
+		fStore.clear();
+		groups.clear();
+		fHistoryCount = 0;
+		fAddedEntries.clear();
+		fRemovedEntries.clear();
+		fRefreshAll = true;
 	}
 
-	private int getEntriesCount() {
-		if (fMemento.getInteger(P_GROUP_BY).intValue() == GROUP_BY_NONE) {
-			return elements.size();
-		}
-		int size = 0;
-		for (Iterator i = elements.iterator(); i.hasNext();) {
-			AbstractEntry group = (AbstractEntry) i.next();
-			size += group.size();
+	/**
+	 * Compares the order in which two entries or groups were added to the view
+	 * @see LogEntryStore#compareOrder(Object, Object)
+	 */
+	private synchronized int compareOrder(Object e1, Object e2) {
+		return fStore.compareOrder(e1, e2);
+	}
+
+	/**
+	 * Limits the number of entries according to the max entries limit set in
+	 * memento.
+	 */
+	private synchronized void limitEntriesCount() {
+		int limit = getEntriesLimit();
+		if (limit < Integer.MAX_VALUE) {
+			// Older entries are read on request
+			limit += fHistoryCount;
 		}
-		return size;
+		List evicted = new ArrayList();
+		fStore.setMaxSize(limit, evicted);
+		removed(evicted);
 	}
 
 	/**
@@ -1125,7 +1420,8 @@ public class LogView extends ViewPart implements SynchronousLogListener, LogFilt
 				group = new Group(groupName);
 			}
 			groups.put(elementGroupId, group);
-			elements.add(group);
+			fStore.addGroup(group);
+			fRefreshAll = true;
 		}
 
 		return group;
@@ -1154,7 +1450,14 @@ public class LogView extends ViewPart implements SynchronousLogListener, LogFilt
 		}
 
 		if (fFirstEvent || (currentSession == null)) {
-			readLogFile();
+			// The entry of this event is read from the log and may still be waiting to be written
+			LogWriter logWriter = Activator.getDefault().getLogWriter();
+			if (null != logWriter) {
+				logWriter.flush();
+			}
+			if (!readNewEntries()) {
+				readLogFile();
+			}
 			asyncRefresh(true);
 			fFirstEvent = false;
 		} else {
@@ -1165,7 +1468,7 @@ public class LogView extends ViewPart implements SynchronousLogListener, LogFilt
 				batchedEntries.add(entry);
 				pushBatchedEntries();
 			} else {
-				pushEntry(entry);
+				pushEntries(Collections.singletonList(entry));
 				asyncRefresh(true);
 			}
 		}
@@ -1175,20 +1478,8 @@ public class LogView extends ViewPart implements SynchronousLogListener, LogFilt
 	 * Push batched entries to log view.
 	 */
 	private void pushBatchedEntries() {
-		Job job = new Job(Messages.LogView_AddingBatchedEvents) {
-			protected IStatus run(IProgressMonitor monitor) {
-				for (int i = 0; i < batchedEntries.size(); i++) {
-					if (!monitor.isCanceled()) {
-						BundleLogEntryImpl entry = (BundleLogEntryImpl) batchedEntries.get(i);
-						pushEntry(entry);
-						batchedEntries.remove(i);
-					}
-				}
-				asyncRefresh(true);
-				return Status.OK_STATUS;
-			}
-		};
-		job.schedule();
+		// Entries batched while the job is running are added when the job is rescheduled
+		fBatchJob.schedule();
 	}
 
 	private BundleLogEntryImpl createLogEntry(IBundleStatus status) {
@@ -1203,42 +1494,113 @@ public class LogView extends ViewPart implements SynchronousLogListener, LogFilt
 		return entry;
 	}
 
-	private synchronized void pushEntry(BundleLogEntryImpl entry) {
-		if (LogReader.isLogged(entry, fMemento)) {
-			group(Collections.singletonList(entry));
-			limitEntriesCount();
+	/**
+	 * Add new entries to the view. The viewer is not updated.
+	 * 
+	 * @param entries new entries to add
+	 */
+	private synchronized void pushEntries(List entries) {
+		List logged = new ArrayList(entries.size());
+		for (Iterator i = entries.iterator(); i.hasNext();) {
+			BundleLogEntryImpl entry = (BundleLogEntryImpl) i.next();
+			if (LogReader.isLogged(entry, fMemento)) {
+				logged.add(entry);
+			}
+		}
+		if (logged.isEmpty()) {
+			return;
+		}
+		group(logged);
+		limitEntriesCount();
+		if (fRefresher != null) {
+			fRefresher.entriesAdded(logged.size());
 		}
-		asyncRefresh(true);
 	}
 
-	private void asyncRefresh(final boolean activate) {
+	/**
+	 * Request an update of the viewer. Requests are coalesced into at most one update per frame.
+	 * 
+	 * @param activate true to bring the view to top when updated
+	 * @see LogViewRefresher
+	 */
+	private void asyncRefresh(boolean activate) {
 		if (fTree.isDisposed())
 			return;
-		Display display = fTree.getDisplay();
-		final ViewPart view = this;
-		if (display != null) {
-			display.asyncExec(new Runnable() {
-				public void run() {
-					if (!fTree.isDisposed()) {
-						TreeViewer viewer = fFilteredTree.getViewer();
-						viewer.refresh();
-						viewer.expandToLevel(2);
-						fDeleteLogAction.setEnabled(fInputFile.exists() && fInputFile.equals(Activator.getDefault().getLogFile()));
-						fOpenLogAction.setEnabled(fInputFile.exists());
-						fExportLogAction.setEnabled(fInputFile.exists());
-						fExportLogEntryAction.setEnabled(!viewer.getSelection().isEmpty());
-						if (activate && fActivateViewAction.isChecked()) {
-							IWorkbenchWindow window = Activator.getDefault().getWorkbench().getActiveWorkbenchWindow();
-							if (window != null) {
-								IWorkbenchPage page = window.getActivePage();
-								if (page != null) {
-									page.bringToTop(view);
-								}
-							}
-						}
-					}
+		fRefresher.request(activate);
+	}
+
+	/**
+	 * Update the viewer and the enablement of the actions. Must be called from the UI thread.
+	 * 
+	 * @param activate true to bring the view to top
+	 */
+	void refresh(boolean activate) {
+		if (fTree.isDisposed())
+			return;
+		TreeViewer viewer = fFilteredTree.getViewer();
+		refreshViewer(viewer);
+		fDeleteLogAction.setEnabled(fInputFile.exists() && fInputFile.equals(Activator.getDefault().getLogFile()));
+		fOpenLogAction.setEnabled(fInputFile.exists());
+		fReadOlderAction.setEnabled(fHasOlderEntries);
+		fExportLogAction.setEnabled(fInputFile.exists());
+		fExportRecordsAction.setEnabled(LogRecords.exists(fInputFile));
+		fExportLogEntryAction.setEnabled(!viewer.getSelection().isEmpty());
+		if (activate && fActivateViewAction.isChecked()) {
+			IWorkbenchWindow window = Activator.getDefault().getWorkbench().getActiveWorkbenchWindow();
+			if (window != null) {
+				IWorkbenchPage page = window.getActivePage();
+				if (page != null) {
+					page.bringToTop(this);
 				}
-			});
+			}
+		}
+	}
+
+	/**
+	 * Number of entries added to the view per second, measured over the last second or more
+	 * 
+	 * @return the number of entries per second or zero if the view is not created
+	 */
+	public double getEntryRate() {
+		LogViewRefresher refresher = fRefresher;
+		return refresher != null ? refresher.getEntryRate() : 0;
+	}
+
+	/**
+	 * Number of requests to update the view merged into an already scheduled update
+	 * 
+	 * @return the number of dropped refresh requests or zero if the view is not created
+	 */
+	public long getDroppedRefreshCount() {
+		LogViewRefresher refresher = fRefresher;
+		return refresher != null ? refresher.getDroppedCount() : 0;
+	}
+
+	/**
+	 * Update the viewer with entries added to and removed from the view since last updated. Only the
+	 * changed ranges of the tree are updated unless entries were cleared or a new group was added.
+	 * Must be called from the UI thread.
+	 *
+	 * @param viewer the log view tree viewer
+	 */
+	private void refreshViewer(TreeViewer viewer) {
+		List added;
+		List removed;
+		boolean refreshAll;
+		synchronized (this) {
+			added = fAddedEntries;
+			removed = fRemovedEntries;
+			refreshAll = fRefreshAll;
+			fAddedEntries = new ArrayList();
+			fRemovedEntries = new ArrayList();
+			fRefreshAll = false;
+		}
+		if (refreshAll) {
+			fContentProvider.clear();
+			viewer.refresh();
+			viewer.expandToLevel(2);
+		} else if (added.size() > 0 || removed.size() > 0) {
+			fContentProvider.update(added, removed);
 		}
 	}
 
@@ -1580,7 +1942,7 @@ public class LogView extends ViewPart implements SynchronousLogListener, LogFilt
 						date2 = ((LogSession) e2).getDate() == null ? 0 : ((LogSession) e2).getDate().getTime();
 					}
 					if (date1 == date2) {
-						int result = elements.indexOf(e2) - elements.indexOf(e1);
+						int result = compareOrder(e2, e1);
 						if (DATE_ORDER == DESCENDING)
 							result *= DESCENDING;
 						return result;
@@ -1668,7 +2030,8 @@ public class LogView extends ViewPart implements SynchronousLogListener, LogFilt
 						// Everything that appears in LogView should be an AbstractEntry.
 						AbstractEntry parent = (AbstractEntry) ((AbstractEntry) e1).getParent(null);
 						Object[] children = null;
-						if (parent != null)
+						// Entries in groups are ordered as logged
+						if (parent != null && !(parent instanceof Group))
 							children = parent.getChildren(parent);
 
 						int result = 0;
@@ -1677,7 +2040,7 @@ public class LogView extends ViewPart implements SynchronousLogListener, LogFilt
 							// i.e. latest log message first, therefore index(e2)-index(e1)
 							result = indexOf(children, e2) - indexOf(children, e1);
 						} else {
-							result = elements.indexOf(e1) - elements.indexOf(e2);
+							result = compareOrder(e1, e2);
 						}
 						if (DATE_ORDER == DESCENDING)
 							result *= DESCENDING;
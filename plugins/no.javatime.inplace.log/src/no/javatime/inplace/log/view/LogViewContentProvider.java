@@ -11,20 +11,51 @@
  *******************************************************************************/
 package no.javatime.inplace.log.view;
 
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+
 import no.javatime.inplace.log.dl.AbstractEntry;
 import no.javatime.inplace.log.dl.LogSession;
 
+import org.eclipse.jface.viewers.ILazyTreeContentProvider;
 import org.eclipse.jface.viewers.ITreeContentProvider;
+import org.eclipse.jface.viewers.TreeViewer;
 import org.eclipse.jface.viewers.Viewer;
+import org.eclipse.jface.viewers.ViewerComparator;
+import org.eclipse.jface.viewers.ViewerFilter;
+import org.eclipse.swt.widgets.Tree;
+import org.eclipse.swt.widgets.TreeItem;
 
-public class LogViewContentProvider implements ITreeContentProvider {
+/**
+ * Content provider of the virtual log view tree. Tree items are created and labeled when they
+ * become visible, and the content provider sorts and filters the children of the input and groups
+ * itself since sorting and filtering is not done by the viewer for lazy content providers.
+ * <p>
+ * The sorted and filtered children of the input and groups are cached and recomputed when the
+ * viewer asks for the child count of the element. Entries added to and removed from the view are
+ * merged into the cached children, and only the tree items from the first changed position are
+ * cleared.
+ * <p>
+ * The provider is also a tree content provider for filters and dialogs navigating the unsorted
+ * content of the view.
+ */
+public class LogViewContentProvider implements ILazyTreeContentProvider, ITreeContentProvider {
 	private LogView logView;
+	private TreeViewer viewer;
+	/** Sorted and filtered children of the input and groups */
+	private Map cache = new HashMap();
 
 	public LogViewContentProvider(LogView logView) {
 		this.logView = logView;
 	}
 
-	public void dispose() { // do nothing
+	public void dispose() {
+		cache.clear();
 	}
 
 	public Object[] getChildren(Object element) {
@@ -46,10 +77,231 @@ public class LogViewContentProvider implements ITreeContentProvider {
 		return ((AbstractEntry) element).getChildren(element).length > 0;
 	}
 
-	public void inputChanged(Viewer viewer, Object oldInput, Object newInput) { // do nothing
+	public void inputChanged(Viewer viewer, Object oldInput, Object newInput) {
+		this.viewer = (TreeViewer) viewer;
+		cache.clear();
 	}
 
 	public boolean isDeleted(Object element) {
 		return false;
 	}
+
+	public void updateChildCount(Object element, int currentChildCount) {
+		List children = computeChildren(element);
+		if (children.size() != currentChildCount) {
+			viewer.setChildCount(element, children.size());
+		}
+	}
+
+	public void updateElement(Object parent, int index) {
+		List children = (List) cache.get(parent);
+		if (children == null) {
+			children = computeChildren(parent);
+		}
+		if (index < children.size()) {
+			Object element = children.get(index);
+			viewer.replace(parent, index, element);
+			viewer.setHasChildren(element, hasChildren(element));
+		}
+	}
+
+	/**
+	 * Merges added and removed entries into the cached children of their parents and updates the
+	 * tree items of the parents from the first changed position. Entries of parents without cached
+	 * children are counted when the parent is expanded.
+	 *
+	 * @param added entries added to the view
+	 * @param removed entries removed from the view
+	 */
+	void update(Collection added, Collection removed) {
+		Map changes = new IdentityHashMap();
+		for (Object element : removed) {
+			Object parent = getCacheParent(element);
+			List children = (List) cache.get(parent);
+			if (children != null) {
+				int index = indexOf(children, element);
+				if (index >= 0) {
+					addChange(changes, parent, children.size(), index);
+					children.remove(index);
+				}
+			}
+		}
+		for (Object element : added) {
+			Object parent = getCacheParent(element);
+			List children = (List) cache.get(parent);
+			if (children == null) {
+				if (parent != viewer.getInput()) {
+					viewer.setHasChildren(parent, true);
+				}
+				continue;
+			}
+			if (isVisible(parent, element)) {
+				int index = insertionPoint(children, element);
+				if (contains(children, index, element)) {
+					// Already computed when the viewer was refreshed
+					continue;
+				}
+				addChange(changes, parent, children.size(), index);
+				children.add(index, element);
+			}
+		}
+		for (Object o : changes.entrySet()) {
+			Map.Entry change = (Map.Entry) o;
+			Object parent = change.getKey();
+			int[] range = (int[]) change.getValue();
+			int count = ((List) cache.get(parent)).size();
+			viewer.setChildCount(parent, count);
+			clear(parent, range[1], Math.min(range[0], count));
+		}
+	}
+
+	/**
+	 * Removes all cached children. Children are computed again when requested by the viewer
+	 */
+	void clear() {
+		cache.clear();
+	}
+
+	/**
+	 * Sorts and filters the children of the specified element. Children of the input and groups are
+	 * cached.
+	 */
+	private List computeChildren(Object element) {
+		Object[] elements;
+		synchronized (logView) {
+			elements = element == viewer.getInput() ? getElements(element) : getChildren(element);
+		}
+		List children = new ArrayList(elements.length);
+		for (int i = 0; i < elements.length; i++) {
+			if (isVisible(element, elements[i])) {
+				children.add(elements[i]);
+			}
+		}
+		ViewerComparator comparator = viewer.getComparator();
+		if (comparator != null) {
+			Object[] sorted = children.toArray();
+			comparator.sort(viewer, sorted);
+			children = new ArrayList(Arrays.asList(sorted));
+		}
+		if (element == viewer.getInput() || element instanceof Group) {
+			cache.put(element, children);
+		}
+		return children;
+	}
+
+	private Object getCacheParent(Object element) {
+		Object parent = ((AbstractEntry) element).getParent(element);
+		return parent instanceof Group ? parent : viewer.getInput();
+	}
+
+	private boolean isVisible(Object parent, Object element) {
+		ViewerFilter[] filters = viewer.getFilters();
+		for (int i = 0; i < filters.length; i++) {
+			if (!filters[i].select(viewer, parent, element)) {
+				return false;
+			}
+		}
+		return true;
+	}
+
+	/**
+	 * Binary search for the position of a new element in sorted children
+	 */
+	private int insertionPoint(List children, Object element) {
+		ViewerComparator comparator = viewer.getComparator();
+		if (comparator == null) {
+			return children.size();
+		}
+		int low = 0;
+		int high = children.size();
+		while (low < high) {
+			int mid = (low + high) >>> 1;
+			if (comparator.compare(viewer, children.get(mid), element) <= 0) {
+				low = mid + 1;
+			} else {
+				high = mid;
+			}
+		}
+		return low;
+	}
+
+	/**
+	 * Check if an element is among the children sorted equal to the element before its insertion point
+	 */
+	private boolean contains(List children, int index, Object element) {
+		ViewerComparator comparator = viewer.getComparator();
+		for (int i = index - 1; i >= 0; i--) {
+			Object child = children.get(i);
+			if (child == element) {
+				return true;
+			}
+			if (comparator == null || comparator.compare(viewer, child, element) != 0) {
+				return false;
+			}
+		}
+		return false;
+	}
+
+	/**
+	 * Searches from both ends, since removed entries are the oldest entries and sorted first or last
+	 * when sorted by date
+	 */
+	private static int indexOf(List children, Object element) {
+		for (int low = 0, high = children.size() - 1; low <= high; low++, high--) {
+			if (children.get(low) == element) {
+				return low;
+			}
+			if (children.get(high) == element) {
+				return high;
+			}
+		}
+		return -1;
+	}
+
+	/**
+	 * Records the number of children of a parent before it changed and the first changed position
+	 */
+	private static void addChange(Map changes, Object parent, int count, int index) {
+		int[] range = (int[]) changes.get(parent);
+		if (range == null) {
+			changes.put(parent, new int[] {count, index});
+		} else {
+			range[1] = Math.min(range[1], index);
+		}
+	}
+
+	/**
+	 * Clears the tree items of the specified parent in the specified range. Cleared items that are
+	 * visible are updated by the viewer.
+	 */
+	private void clear(Object parent, int from, int to) {
+		if (from >= to) {
+			return;
+		}
+		Tree tree = viewer.getTree();
+		if (parent == viewer.getInput()) {
+			if (from == 0 && to == tree.getItemCount()) {
+				tree.clearAll(true);
+			} else {
+				for (int i = from; i < to; i++) {
+					tree.clear(i, true);
+				}
+			}
+			return;
+		}
+		// Groups are top level elements
+		List groups = (List) cache.get(viewer.getInput());
+		int index = groups != null ? groups.indexOf(parent) : -1;
+		if (index < 0 || index >= tree.getItemCount()) {
+			return;
+		}
+		TreeItem item = tree.getItem(index);
+		if (from == 0 && to == item.getItemCount()) {
+			item.clearAll(true);
+		} else {
+			for (int i = from; i < to; i++) {
+				item.clear(i, true);
+			}
+		}
+	}
 }
@@ -0,0 +1,127 @@
+package no.javatime.inplace.log.view;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.eclipse.swt.widgets.Display;
+
+/**
+ * Coalesces requests to refresh the log view into at most one update of the view per frame. A
+ * request is ignored if an update is already scheduled, and an update is delayed until at least one
+ * frame interval has passed since the previous update. All entries added to the view within a frame
+ * are shown by the same update.
+ * <p>
+ * Requests may be issued from any thread. Updates are executed in the UI thread.
+ * <p>
+ * The refresher also counts the entries added to the view and the requests merged into a scheduled
+ * update.
+ */
+class LogViewRefresher implements Runnable {
+
+	/** Minimum number of milliseconds between two updates of the view */
+	static final long FRAME_INTERVAL = 50;
+	private static final long RATE_INTERVAL = TimeUnit.SECONDS.toNanos(1);
+
+	private final LogView logView;
+	private final Display display;
+
+	private final AtomicBoolean scheduled = new AtomicBoolean();
+	private final AtomicBoolean activate = new AtomicBoolean();
+	// Time of the last update. Only accessed from the UI thread
+	private long lastRefresh = System.nanoTime() - TimeUnit.MILLISECONDS.toNanos(FRAME_INTERVAL);
+
+	// Number of entries added to the view
+	private final AtomicLong entryCount = new AtomicLong();
+	// Number of requests merged into an already scheduled update
+	private final AtomicLong droppedCount = new AtomicLong();
+	// Entry rate over the last sample interval
+	private long sampleTime = System.nanoTime();
+	private long sampleCount;
+	private double entryRate;
+
+	/**
+	 * Create a refresher updating the specified view
+	 *
+	 * @param logView the view to update
+	 * @param display the display of the view
+	 */
+	LogViewRefresher(LogView logView, Display display) {
+		this.logView = logView;
+		this.display = display;
+	}
+
+	/**
+	 * Schedule an update of the view unless an update is already scheduled
+	 *
+	 * @param activate true to bring the view to top when updated
+	 */
+	void request(boolean activate) {
+		if (activate) {
+			this.activate.set(true);
+		}
+		if (!scheduled.compareAndSet(false, true)) {
+			droppedCount.incrementAndGet();
+			return;
+		}
+		if (display.isDisposed()) {
+			scheduled.set(false);
+			return;
+		}
+		display.asyncExec(this);
+	}
+
+	/**
+	 * Count entries added to the view
+	 *
+	 * @param count number of added entries
+	 */
+	void entriesAdded(int count) {
+		entryCount.addAndGet(count);
+	}
+
+	/**
+	 * Number of entries added to the view per second, measured over the last sample interval of at
+	 * least one second
+	 *
+	 * @return the number of entries per second
+	 */
+	synchronized double getEntryRate() {
+		long now = System.nanoTime();
+		long elapsed = now - sampleTime;
+		if (elapsed >= RATE_INTERVAL) {
+			long count = entryCount.get();
+			entryRate = (count - sampleCount) * (double) RATE_INTERVAL / elapsed;
+			sampleTime = now;
+			sampleCount = count;
+		}
+		return entryRate;
+	}
+
+	/**
+	 * Number of refresh requests merged into an already scheduled update of the view
+	 *
+	 * @return the number of dropped refresh requests
+	 */
+	long getDroppedCount() {
+		return droppedCount.get();
+	}
+
+	/**
+	 * Update the view or delay the update until the frame interval has passed since the last update.
+	 * Must be called from the UI thread.
+	 */
+	@Override
+	public void run() {
+		long wait = FRAME_INTERVAL - TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - lastRefresh);
+		if (wait > 0 && !display.isDisposed()) {
+			display.timerExec((int) wait, this);
+			return;
+		}
+		// Requests after this point schedule a new update
+		scheduled.set(false);
+		lastRefresh = System.nanoTime();
+		getEntryRate();
+		logView.refresh(activate.getAndSet(false));
+	}
+}
@@ -30,6 +30,7 @@ public class Msg extends NLS {
 	public static String COMMAND_GROUP_LABEL;
 	public static String IS_DEACTIVATE_ON_EXIT_LABEL;
 	public static String IS_UPDATE_ON_BUILD_LABEL;
+	public static String BUILD_QUIET_PERIOD_LABEL;
 	public static String IS_ACTIVATE_ON_COMPILE_ERROR_LABEL;
 	public static String IS_REFRESH_ON_UPDATE_LABEL;
 	public static String IS_AUTO_HANDLE_EXTERNAL_COMMANDS_LABEL;
@@ -39,6 +39,8 @@ public class PreferencePage extends FieldEditorPreferencePage implements IWorkbe
 	GroupFieldEditor groupTimeoutEditor;
 	// Editor for the number of seconds before timeout
 	IntegerFieldEditor timoutSecEditor;
+	// Maximum wait time in milliseconds to merge bundle jobs of successive builds
+	private final static int maxBuildQuietPeriod = 10000;
 
 	/**
 	 * Sets the grid layout and initializes the preference page with the standard preference store
@@ -104,6 +106,14 @@ public class PreferencePage extends FieldEditorPreferencePage implements IWorkbe
 		addField(booleanEditor);
 		groupCmdEditor.add(booleanEditor);
 
+		// Wait time to merge bundle jobs of successive builds. Zero runs bundle jobs after each build
+		IntegerFieldEditor quietPeriodEditor = new IntegerFieldEditor(CommandOptions.BUILD_QUIET_PERIOD,
+				Msg.BUILD_QUIET_PERIOD_LABEL, groupCmdEditor.getMemberFieldEditorParent());
+		quietPeriodEditor.setValidateStrategy(IntegerFieldEditor.VALIDATE_ON_KEY_STROKE);
+		quietPeriodEditor.setValidRange(0, maxBuildQuietPeriod);
+		addField(quietPeriodEditor);
+		groupCmdEditor.add(quietPeriodEditor);
+
 		// Enable/Disable to activate and update projects with compile time errors
 		booleanEditor = new BooleanFieldEditor(CommandOptions.IS_ACTIVATE_ON_COMPILE_ERROR,
 				Msg.IS_ACTIVATE_ON_COMPILE_ERROR_LABEL, groupCmdEditor.getMemberFieldEditorParent());
@@ -230,6 +240,7 @@ public class PreferencePage extends FieldEditorPreferencePage implements IWorkbe
 			prefStore.setValue(CommandOptions.IS_UPDATE_DEFAULT_OUTPUT_FOLDER,
 					cmdStore.isUpdateDefaultOutPutFolder());
 			prefStore.setValue(CommandOptions.IS_UPDATE_ON_BUILD, cmdStore.isUpdateOnBuild());
+			prefStore.setValue(CommandOptions.BUILD_QUIET_PERIOD, cmdStore.getBuildQuietPeriod());
 			prefStore.setValue(CommandOptions.IS_ACTIVATE_ON_COMPILE_ERROR, cmdStore.isActivateOnCompileError());
 			prefStore.setValue(CommandOptions.IS_REFRESH_ON_UPDATE, cmdStore.isRefreshOnUpdate());
 			prefStore.setValue(CommandOptions.IS_EAGER_ON_ACTIVATE, cmdStore.isEagerOnActivate());
@@ -294,6 +305,7 @@ public class PreferencePage extends FieldEditorPreferencePage implements IWorkbe
 			cmdStore.setIsUpdateDefaultOutPutFolder(prefStore
 					.getBoolean(CommandOptions.IS_UPDATE_DEFAULT_OUTPUT_FOLDER));
 			cmdStore.setIsUpdateOnBuild(prefStore.getBoolean(CommandOptions.IS_UPDATE_ON_BUILD));
+			cmdStore.setBuildQuietPeriod(prefStore.getInt(CommandOptions.BUILD_QUIET_PERIOD));
 			cmdStore.setIsActivateOnCompileError(prefStore.getBoolean(CommandOptions.IS_ACTIVATE_ON_COMPILE_ERROR));
 			cmdStore.setIsRefreshOnUpdate(prefStore.getBoolean(CommandOptions.IS_REFRESH_ON_UPDATE));
 			cmdStore.setIsEagerOnActivate(prefStore.getBoolean(CommandOptions.IS_EAGER_ON_ACTIVATE));
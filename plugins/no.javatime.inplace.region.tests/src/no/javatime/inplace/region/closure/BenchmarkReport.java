@@ -0,0 +1,165 @@
+/*******************************************************************************
+ * Copyright (c) 2014 JavaTime project and others
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ * 	JavaTime project, Eirik Gronsund - initial implementation
+ *******************************************************************************/
+package no.javatime.inplace.region.closure;
+
+import java.io.File;
+import java.io.FileWriter;
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+import java.lang.reflect.Method;
+import java.util.Arrays;
+
+/**
+ * Measures operations on synthetic graphs and writes the results to a comma separated report file.
+ * <p>
+ * Each operation is run a number of times to warm up and then measured a fixed number of times. The
+ * minimum and median elapsed time of the measured runs are reported together with the average number
+ * of bytes allocated by the measuring thread in a run. The allocation is read from the
+ * {@code com.sun.management.ThreadMXBean} extension of the thread bean and reported as -1 when the
+ * runtime does not provide it.
+ * <p>
+ * The measurements are plain timing loops and not JMH benchmarks. The closures can only be reached
+ * inside the OSGi runtime started by the Tycho test harness, while JMH generates its benchmarks with
+ * an annotation processor and runs them in forked JVMs outside that runtime. The results are
+ * comparable between runs on the same machine, but are not corrected for JIT and GC noise the way JMH
+ * results are.
+ * <p>
+ * Measuring is enabled by the system property {@code closure.benchmark}, set by the {@code benchmark}
+ * profile of the test fragment. The report files are written to the directory given by
+ * {@code closure.benchmark.dir}.
+ */
+class BenchmarkReport {
+
+	/**
+	 * True if operations should be measured and reported. Otherwise the benchmark tests only verify
+	 * the results of the operations on the smallest graph size.
+	 */
+	static final boolean ENABLED = Boolean.getBoolean("closure.benchmark"); //$NON-NLS-1$
+
+	private static final int WARMUP = Integer.getInteger("closure.benchmark.warmup", 5); //$NON-NLS-1$
+	private static final int RUNS = Integer.getInteger("closure.benchmark.runs", 10); //$NON-NLS-1$
+	private static final Method allocatedBytes = getAllocatedBytesMethod();
+
+	/**
+	 * An operation to measure
+	 */
+	abstract static class Measure {
+
+		/**
+		 * Run the measured operation once
+		 *
+		 * @return a count derived from the result of the operation
+		 */
+		abstract int run();
+	}
+
+	private final PrintWriter out;
+
+	/**
+	 * Create a report file with the specified name
+	 *
+	 * @param name name of the report file without extension
+	 * @throws IOException if the report file could not be created
+	 */
+	BenchmarkReport(String name) throws IOException {
+
+		File dir = new File(System.getProperty("closure.benchmark.dir", "target")); //$NON-NLS-1$ //$NON-NLS-2$
+		dir.mkdirs();
+		out = new PrintWriter(new FileWriter(new File(dir, name + ".csv"))); //$NON-NLS-1$
+		out.println("operation,closure,shape,nodes,edges,result,min (us),median (us),allocated (bytes)"); //$NON-NLS-1$
+	}
+
+	/**
+	 * Get the graph sizes to measure. The sizes are given by the system property
+	 * {@code closure.benchmark.sizes} as a comma separated list. When measuring is disabled only the
+	 * smallest size is returned.
+	 *
+	 * @return graph sizes in ascending order
+	 */
+	static int[] getSizes() {
+
+		String[] values = System.getProperty("closure.benchmark.sizes", "100,500,1000,2000,5000") //$NON-NLS-1$ //$NON-NLS-2$
+				.split(","); //$NON-NLS-1$
+		int[] sizes = new int[values.length];
+		for (int i = 0; i < values.length; i++) {
+			sizes[i] = Integer.parseInt(values[i].trim());
+		}
+		Arrays.sort(sizes);
+		return ENABLED ? sizes : Arrays.copyOf(sizes, 1);
+	}
+
+	/**
+	 * Run the specified operation until warmed up and then a fixed number of times, and add the
+	 * measured times and allocations to the report
+	 *
+	 * @param operation name of the operation
+	 * @param closure name of the closure calculated by the operation
+	 * @param graph the graph the operation is run on
+	 * @param measure the operation to run
+	 */
+	void measure(String operation, Object closure, SyntheticGraph graph, Measure measure) {
+
+		long[] times = new long[RUNS];
+		int result = 0;
+		for (int i = 0; i < WARMUP; i++) {
+			result = measure.run();
+		}
+		long allocated = getAllocatedBytes();
+		for (int i = 0; i < RUNS; i++) {
+			long start = System.nanoTime();
+			result = measure.run();
+			times[i] = System.nanoTime() - start;
+		}
+		if (allocated >= 0) {
+			allocated = (getAllocatedBytes() - allocated) / RUNS;
+		}
+		Arrays.sort(times);
+		out.format("%s,%s,%s,%d,%d,%d,%.1f,%.1f,%d%n", operation, closure, graph.shape, graph.size(), //$NON-NLS-1$
+				graph.getEdges(), result, times[0] / 1000.0, times[RUNS / 2] / 1000.0, allocated);
+	}
+
+	void close() {
+		out.close();
+	}
+
+	/**
+	 * Get the bytes allocated by the current thread
+	 *
+	 * @return allocated bytes or -1 if not supported by the runtime
+	 */
+	private static long getAllocatedBytes() {
+
+		if (null == allocatedBytes) {
+			return -1;
+		}
+		try {
+			return (Long) allocatedBytes.invoke(ManagementFactory.getThreadMXBean(), Thread
+					.currentThread().getId());
+		} catch (ReflectiveOperationException | RuntimeException e) {
+			return -1;
+		}
+	}
+
+	private static Method getAllocatedBytesMethod() {
+
+		ThreadMXBean threadBean = ManagementFactory.getThreadMXBean();
+		for (Class<?> type : threadBean.getClass().getInterfaces()) {
+			try {
+				return type.getMethod("getThreadAllocatedBytes", long.class); //$NON-NLS-1$
+			} catch (NoSuchMethodException e) {
+				// Try the next interface
+			}
+		}
+		return null;
+	}
+}
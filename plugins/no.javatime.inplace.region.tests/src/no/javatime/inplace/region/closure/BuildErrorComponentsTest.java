@@ -0,0 +1,200 @@
+/*******************************************************************************
+ * Copyright (c) 2014 JavaTime project and others
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ * 	JavaTime project, Eirik Gronsund - initial implementation
+ *******************************************************************************/
+package no.javatime.inplace.region.closure;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Random;
+import java.util.Set;
+
+import no.javatime.inplace.dl.preferences.intface.DependencyOptions.Closure;
+import no.javatime.inplace.region.closure.ProjectBuildErrorClosure.ActivationScope;
+
+import org.eclipse.core.resources.IProject;
+import org.junit.AfterClass;
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+/**
+ * Compares the dependency components of projects with build errors to the fixed-point loop over
+ * providing and requiring closures that the reset job used before the components replaced it.
+ * <p>
+ * The components taint every project connected to a project with build errors. The loop leaves a
+ * project clean if the only path to an error project changes direction more than once, so the
+ * clean projects of the components are a subset of the clean projects of the loop. The gadget graph
+ * is built to give different results, and on the random graphs the tainted projects of the
+ * components are verified against the connected components calculated directly on the graph.
+ * <p>
+ * When enabled by the {@code benchmark} profile the loop and the components are measured and
+ * reported in {@code build-error-components.csv}.
+ *
+ * @see DependencyComponents
+ * @see BenchmarkReport
+ */
+public class BuildErrorComponentsTest {
+
+	private static final int SIZE = 1000;
+	private static final int GADGET = 6;
+	private static final int ERRORS = 5;
+
+	private static BenchmarkReport report;
+
+	@BeforeClass
+	public static void openReport() throws IOException {
+		if (BenchmarkReport.ENABLED) {
+			report = new BenchmarkReport("build-error-components"); //$NON-NLS-1$
+		}
+	}
+
+	@AfterClass
+	public static void closeReport() {
+		if (null != report) {
+			report.close();
+		}
+	}
+
+	/**
+	 * In each gadget of six nodes the first node requires the fourth, the second requires the fourth
+	 * and the fifth and the third requires the fifth and the sixth. The first node of every second
+	 * gadget has errors. The sixth node of an error gadget is only connected to the error node through
+	 * the third, fifth, second and fourth node, and is clean after the loop but tainted by the
+	 * components.
+	 */
+	@Test
+	public void gadgets() {
+
+		SyntheticGraph graph = new SyntheticGraph("gadget", SIZE); //$NON-NLS-1$
+		List<Integer> errors = new ArrayList<>();
+		Set<Integer> loopTainted = new LinkedHashSet<>();
+		Set<Integer> componentsTainted = new LinkedHashSet<>();
+		for (int gadget = 0; gadget + GADGET <= SIZE; gadget += GADGET) {
+			graph.require(gadget, gadget + 3);
+			graph.require(gadget + 1, gadget + 3);
+			graph.require(gadget + 1, gadget + 4);
+			graph.require(gadget + 2, gadget + 4);
+			graph.require(gadget + 2, gadget + 5);
+			if (gadget % (2 * GADGET) == 0) {
+				errors.add(gadget);
+				for (int node = gadget; node < gadget + GADGET; node++) {
+					componentsTainted.add(node);
+					if (node < gadget + 5) {
+						loopTainted.add(node);
+					}
+				}
+			}
+		}
+		Collection<Integer> loopClean = SyntheticGraph.getIds(getLoopClean(graph, errors));
+		Collection<Integer> componentsClean = SyntheticGraph.getIds(getComponentsClean(graph, errors));
+		assertEquals(getComplement(graph, loopTainted), new LinkedHashSet<>(loopClean));
+		assertEquals(getComplement(graph, componentsTainted), new LinkedHashSet<>(componentsClean));
+		assertTrue(loopClean.size() > componentsClean.size());
+		measure(graph, errors);
+	}
+
+	@Test
+	public void random() {
+
+		for (double degree : new double[] { 0.3, 0.8, 1.5, 3.0 }) {
+			SyntheticGraph graph = SyntheticGraph.random(SIZE, degree, SIZE);
+			Random random = new Random(ERRORS);
+			Set<Integer> errors = new LinkedHashSet<>();
+			while (errors.size() < ERRORS) {
+				errors.add(random.nextInt(SIZE));
+			}
+			Collection<IProject> loopClean = getLoopClean(graph, errors);
+			Collection<IProject> componentsClean = getComponentsClean(graph, errors);
+			assertEquals(graph.shape, getComplement(graph, graph.getComponents(errors)),
+					new LinkedHashSet<>(SyntheticGraph.getIds(componentsClean)));
+			assertTrue(graph.shape, loopClean.containsAll(componentsClean));
+			measure(graph, errors);
+		}
+	}
+
+	/**
+	 * Remove the providing and requiring closures of error projects from all projects until the
+	 * closures of the error projects and the remaining projects no longer overlap. The closures are
+	 * calculated over all projects, which is the same as over activated projects when all synthetic
+	 * projects are activated.
+	 *
+	 * @return the remaining projects
+	 */
+	private static Collection<IProject> getLoopClean(SyntheticGraph graph,
+			Collection<Integer> errorNodes) {
+
+		BundleClosures closures = graph.getClosures();
+		Collection<IProject> errorProjects = graph.getProjects(errorNodes);
+		Collection<IProject> resolvedProjects = new LinkedHashSet<>(graph.getProjects(graph
+				.getNodes()));
+		Collection<IProject> errorClosures = null;
+		do {
+			errorClosures = new LinkedHashSet<>(closures.projectDeactivation(
+					Closure.PROVIDING_AND_REQUIRING, errorProjects));
+			Collection<IProject> uninstallClosures = closures.projectDeactivation(
+					Closure.PROVIDING_AND_REQUIRING, resolvedProjects);
+			errorClosures.retainAll(uninstallClosures);
+			if (errorClosures.size() > 0) {
+				uninstallClosures = closures.projectDeactivation(Closure.PROVIDING_AND_REQUIRING,
+						errorClosures);
+				resolvedProjects.removeAll(uninstallClosures);
+			}
+		} while (errorClosures.size() > 0);
+		return resolvedProjects;
+	}
+
+	/**
+	 * Remove projects in the same dependency components as the error projects from all projects
+	 *
+	 * @return the remaining projects
+	 */
+	private static Collection<IProject> getComponentsClean(SyntheticGraph graph,
+			Collection<Integer> errorNodes) {
+
+		Collection<IProject> errorProjects = graph.getProjects(errorNodes);
+		DependencyComponents<IProject> components = DependencyComponents.getProjectComponents(
+				graph.projectGraph, ActivationScope.ALL);
+		components.add(errorProjects);
+		return components.getClean(graph.getProjects(graph.getNodes()), errorProjects);
+	}
+
+	private static Set<Integer> getComplement(SyntheticGraph graph, Collection<Integer> nodes) {
+
+		Set<Integer> complement = new LinkedHashSet<>(graph.getNodes());
+		complement.removeAll(nodes);
+		return complement;
+	}
+
+	private static void measure(final SyntheticGraph graph, final Collection<Integer> errors) {
+
+		if (null == report) {
+			return;
+		}
+		report.measure("error loop", Closure.PROVIDING_AND_REQUIRING, graph, //$NON-NLS-1$
+				new BenchmarkReport.Measure() {
+					@Override
+					int run() {
+						return getLoopClean(graph, errors).size();
+					}
+				});
+		report.measure("error components", Closure.PARTIAL_GRAPH, graph, //$NON-NLS-1$
+				new BenchmarkReport.Measure() {
+					@Override
+					int run() {
+						return getComponentsClean(graph, errors).size();
+					}
+				});
+	}
+}
@@ -0,0 +1,285 @@
+/*******************************************************************************
+ * Copyright (c) 2014 JavaTime project and others
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ * 	JavaTime project, Eirik Gronsund - initial implementation
+ *******************************************************************************/
+package no.javatime.inplace.region.closure;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import no.javatime.inplace.dl.preferences.intface.DependencyOptions.Closure;
+import no.javatime.inplace.dl.preferences.intface.DependencyOptions.Operation;
+
+import org.eclipse.core.resources.IProject;
+import org.junit.AfterClass;
+import org.junit.BeforeClass;
+import org.junit.Test;
+import org.osgi.framework.Bundle;
+
+/**
+ * Benchmark of the bundle and project closures on synthetic graphs. For each graph shape and size the
+ * test runs every valid closure of the project and bundle activation and deactivation operations of
+ * {@link BundleClosures}, sorts all nodes with {@link BundleSorter} and {@link ProjectSorter} and
+ * collects the requiring bundles of a node with {@link BundleDependencies}.
+ * <p>
+ * The nodes and closures of each result are verified against closures calculated directly on the
+ * synthetic graph. When enabled by the {@code benchmark} profile the time and allocation of each
+ * operation are measured for each size in {@code closure.benchmark.sizes} and reported in
+ * {@code closure-benchmark.csv}. Otherwise the results are only verified on the smallest size.
+ *
+ * @see BenchmarkReport
+ */
+public class ClosureBenchmarkTest {
+
+	private static BenchmarkReport report;
+
+	/**
+	 * A closure operation on synthetic bundles or projects
+	 */
+	private abstract static class ClosureOperation {
+
+		final String name;
+		final Operation operation;
+
+		ClosureOperation(String name, Operation operation) {
+			this.name = name;
+			this.operation = operation;
+		}
+
+		/**
+		 * Calculate the specified closure from the initial nodes
+		 *
+		 * @return the bundles or projects in the closure in sort order
+		 */
+		abstract Collection<?> get(Closure closure);
+	}
+
+	@BeforeClass
+	public static void openReport() throws IOException {
+		if (BenchmarkReport.ENABLED) {
+			report = new BenchmarkReport("closure-benchmark"); //$NON-NLS-1$
+		}
+	}
+
+	@AfterClass
+	public static void closeReport() {
+		if (null != report) {
+			report.close();
+		}
+	}
+
+	@Test
+	public void chain() {
+		for (int size : BenchmarkReport.getSizes()) {
+			run(SyntheticGraph.chain(size));
+		}
+	}
+
+	@Test
+	public void fanOut() {
+		for (int size : BenchmarkReport.getSizes()) {
+			run(SyntheticGraph.fanOut(size));
+		}
+	}
+
+	@Test
+	public void diamond() {
+		for (int size : BenchmarkReport.getSizes()) {
+			run(SyntheticGraph.diamond(size));
+		}
+	}
+
+	@Test
+	public void random() {
+		for (int size : BenchmarkReport.getSizes()) {
+			run(SyntheticGraph.random(size, 1.5, size));
+		}
+	}
+
+	/**
+	 * Verify and measure all operations on the specified graph. Every hundredth node is in the initial
+	 * set of the closures.
+	 */
+	private static void run(final SyntheticGraph graph) {
+
+		final List<Integer> initial = new ArrayList<>();
+		for (int i = 0; i < graph.size(); i += 100) {
+			initial.add(i);
+		}
+		final BundleClosures closures = graph.getClosures();
+		final Collection<Bundle> initialBundles = graph.getBundles(initial);
+		final Collection<IProject> initialProjects = graph.getProjects(initial);
+		final Collection<Bundle> scope = new LinkedHashSet<>(graph.getBundles(graph.getNodes()));
+		final Collection<IProject> projects = graph.getProjects(graph.getNodes());
+
+		runClosures(graph, initial, new ClosureOperation("bundle activation", //$NON-NLS-1$
+				Operation.ACTIVATE_BUNDLE) {
+			@Override
+			Collection<?> get(Closure closure) {
+				return closures.bundleActivation(closure, initialBundles, scope);
+			}
+		});
+		runClosures(graph, initial, new ClosureOperation("bundle deactivation", //$NON-NLS-1$
+				Operation.DEACTIVATE_BUNDLE) {
+			@Override
+			Collection<?> get(Closure closure) {
+				return closures.bundleDeactivation(closure, initialBundles, scope);
+			}
+		});
+		runClosures(graph, initial, new ClosureOperation("project activation", //$NON-NLS-1$
+				Operation.ACTIVATE_PROJECT) {
+			@Override
+			Collection<?> get(Closure closure) {
+				return closures.projectActivation(closure, initialProjects);
+			}
+		});
+		runClosures(graph, initial, new ClosureOperation("project deactivation", //$NON-NLS-1$
+				Operation.DEACTIVATE_PROJECT) {
+			@Override
+			Collection<?> get(Closure closure) {
+				return closures.projectDeactivation(closure, initialProjects);
+			}
+		});
+
+		BenchmarkReport.Measure bundleSort = new BenchmarkReport.Measure() {
+			@Override
+			int run() {
+				return new BundleSorter(graph.bundleGraph).sortProvidingBundles(scope, scope).size();
+			}
+		};
+		List<Integer> order = SyntheticGraph.getIds(new BundleSorter(graph.bundleGraph)
+				.sortProvidingBundles(scope, scope));
+		assertEquals(graph.size(), order.size());
+		assertOrder(graph, order, true);
+		BenchmarkReport.Measure projectSort = new BenchmarkReport.Measure() {
+			@Override
+			int run() {
+				return new ProjectSorter(graph.projectGraph).sortRequiringProjects(projects).size();
+			}
+		};
+		order = SyntheticGraph.getIds(new ProjectSorter(graph.projectGraph)
+				.sortRequiringProjects(projects));
+		assertEquals(graph.size(), order.size());
+		assertOrder(graph, order, false);
+
+		final Bundle provider = graph.getBundle(graph.size() / 2);
+		BenchmarkReport.Measure requirers = new BenchmarkReport.Measure() {
+			@Override
+			int run() {
+				return BundleDependencies.getRequiringBundles(graph.bundleGraph, provider, null,
+						new LinkedHashSet<Bundle>()).size();
+			}
+		};
+		Set<Integer> expected = graph.getRequiringClosure(Collections.singleton(graph.size() / 2));
+		expected.remove(graph.size() / 2);
+		assertEquals(expected, new LinkedHashSet<>(SyntheticGraph.getIds(BundleDependencies
+				.getRequiringBundles(graph.bundleGraph, provider, null, new LinkedHashSet<Bundle>()))));
+
+		if (null != report) {
+			report.measure("bundle sort", Closure.PROVIDING, graph, bundleSort); //$NON-NLS-1$
+			report.measure("project sort", Closure.REQUIRING, graph, projectSort); //$NON-NLS-1$
+			report.measure("requiring bundles", Closure.REQUIRING, graph, requirers); //$NON-NLS-1$
+		}
+	}
+
+	/**
+	 * Verify and measure each valid closure of the specified operation
+	 */
+	private static void runClosures(SyntheticGraph graph, List<Integer> initial,
+			final ClosureOperation closureOperation) {
+
+		for (final Closure closure : new SyntheticGraph.Options()
+				.getvalidClosures(closureOperation.operation)) {
+			List<Integer> result = SyntheticGraph.getIds(closureOperation.get(closure));
+			assertEquals(closureOperation.name + ' ' + closure, getExpected(graph, closure, initial),
+					new LinkedHashSet<>(result));
+			assertOrder(graph, result, isProvidingOrder(closureOperation.operation, closure));
+			if (null != report) {
+				report.measure(closureOperation.name, closure, graph, new BenchmarkReport.Measure() {
+					@Override
+					int run() {
+						return closureOperation.get(closure).size();
+					}
+				});
+			}
+		}
+	}
+
+	/**
+	 * Calculate the nodes of the specified closure directly on the graph
+	 */
+	private static Set<Integer> getExpected(SyntheticGraph graph, Closure closure,
+			Collection<Integer> initial) {
+
+		switch (closure) {
+		case PROVIDING:
+			return graph.getProvidingClosure(initial);
+		case REQUIRING:
+			return graph.getRequiringClosure(initial);
+		case REQUIRING_AND_PROVIDING:
+			return graph.getProvidingClosure(graph.getRequiringClosure(initial));
+		case PROVIDING_AND_REQUIRING:
+			return graph.getRequiringClosure(graph.getProvidingClosure(initial));
+		case PARTIAL_GRAPH:
+			return graph.getComponents(initial);
+		default:
+			return new LinkedHashSet<>(initial);
+		}
+	}
+
+	/**
+	 * Check whether the last sort of the specified closure is in providing order
+	 */
+	private static boolean isProvidingOrder(Operation operation, Closure closure) {
+
+		switch (closure) {
+		case PROVIDING:
+		case REQUIRING_AND_PROVIDING:
+			return true;
+		case PARTIAL_GRAPH:
+			// The partial graph of projects is sorted in providing order on deactivation as well
+			return operation != Operation.DEACTIVATE_BUNDLE;
+		case SINGLE:
+			return operation == Operation.ACTIVATE_BUNDLE;
+		default:
+			return false;
+		}
+	}
+
+	/**
+	 * Verify that providers come before their requirers in providing order and after their requirers
+	 * in requiring order
+	 */
+	private static void assertOrder(SyntheticGraph graph, List<Integer> order, boolean providing) {
+
+		Map<Integer, Integer> positions = new HashMap<>();
+		for (Integer node : order) {
+			positions.put(node, positions.size());
+		}
+		for (Integer node : order) {
+			for (Integer provider : graph.getProviders(node)) {
+				Integer position = positions.get(provider);
+				if (null != position) {
+					assertTrue(graph.shape + ' ' + node + " requires " + provider, //$NON-NLS-1$
+							providing == (position < positions.get(node)));
+				}
+			}
+		}
+	}
+}
@@ -0,0 +1,459 @@
+/*******************************************************************************
+ * Copyright (c) 2014 JavaTime project and others
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ * 	JavaTime project, Eirik Gronsund - initial implementation
+ *******************************************************************************/
+package no.javatime.inplace.region.closure;
+
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Deque;
+import java.util.EnumSet;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Random;
+import java.util.Set;
+
+import no.javatime.inplace.dl.preferences.intface.DependencyOptions;
+
+import org.eclipse.core.resources.IProject;
+import org.osgi.framework.Bundle;
+import org.osgi.framework.Version;
+
+/**
+ * Dependency graph with nodes numbered from zero where each node is both a synthetic bundle and a
+ * synthetic project. The bundles and projects are proxies that only answer the calls made by the
+ * sorters and closures.
+ * <p>
+ * The closures are calculated by {@link BundleClosures}, {@link BundleSorter}, {@link ProjectSorter}
+ * and {@link BundleDependencies} on a bundle and a project dependency graph reading the providers of
+ * the nodes from this graph instead of the framework and the workspace. All synthetic bundles are
+ * registered and activated workspace bundles.
+ * <p>
+ * The expected closures are calculated separately on the node numbers to verify the results.
+ */
+class SyntheticGraph {
+
+	/**
+	 * The closures allowed for each operation. The same closures as the dependency options service.
+	 */
+	static class Options implements DependencyOptions {
+
+		@Override
+		public Closure get(Operation operation) {
+			return getDefault(operation);
+		}
+
+		@Override
+		public boolean get(Operation operation, Closure closure) {
+			return closure == get(operation);
+		}
+
+		@Override
+		public Closure getDefault(Operation operation) {
+			switch (operation) {
+			case ACTIVATE_PROJECT:
+			case ACTIVATE_BUNDLE:
+				return Closure.PROVIDING;
+			default:
+				return Closure.REQUIRING;
+			}
+		}
+
+		@Override
+		public boolean isDefault(Operation operation, Closure closure) {
+			return closure == getDefault(operation);
+		}
+
+		@Override
+		public boolean isAllowed(Operation operation, Closure closure) {
+			return getvalidClosures(operation).contains(closure);
+		}
+
+		@Override
+		public EnumSet<Closure> getvalidClosures(Operation operation) {
+			switch (operation) {
+			case ACTIVATE_PROJECT:
+				return EnumSet.of(Closure.PROVIDING, Closure.REQUIRING_AND_PROVIDING,
+						Closure.PARTIAL_GRAPH);
+			case DEACTIVATE_PROJECT:
+				return EnumSet.of(Closure.REQUIRING, Closure.PROVIDING_AND_REQUIRING,
+						Closure.PARTIAL_GRAPH);
+			case ACTIVATE_BUNDLE:
+				return EnumSet.of(Closure.PROVIDING, Closure.REQUIRING, Closure.REQUIRING_AND_PROVIDING,
+						Closure.PARTIAL_GRAPH, Closure.SINGLE);
+			case DEACTIVATE_BUNDLE:
+				return EnumSet.of(Closure.REQUIRING, Closure.PROVIDING, Closure.PROVIDING_AND_REQUIRING,
+						Closure.PARTIAL_GRAPH, Closure.SINGLE);
+			default:
+				return EnumSet.noneOf(Closure.class);
+			}
+		}
+
+		@Override
+		public boolean set(Operation operation, Closure closure) {
+			return false;
+		}
+
+		@Override
+		public void flush() {
+		}
+	}
+
+	/**
+	 * Answers the calls on a synthetic bundle or project
+	 */
+	private static class Node implements InvocationHandler {
+
+		final int id;
+		final String name;
+
+		Node(int id, String name) {
+			this.id = id;
+			this.name = name;
+		}
+
+		@Override
+		public Object invoke(Object proxy, Method method, Object[] args) {
+
+			switch (method.getName()) {
+			case "equals": //$NON-NLS-1$
+				return proxy == args[0];
+			case "hashCode": //$NON-NLS-1$
+				return id;
+			case "toString": //$NON-NLS-1$
+			case "getName": //$NON-NLS-1$
+			case "getSymbolicName": //$NON-NLS-1$
+				return name;
+			case "getLocation": //$NON-NLS-1$
+				return "synthetic:" + name; //$NON-NLS-1$
+			case "getBundleId": //$NON-NLS-1$
+				return (long) id;
+			case "getState": //$NON-NLS-1$
+				return Bundle.ACTIVE;
+			case "getVersion": //$NON-NLS-1$
+				return Version.emptyVersion;
+			case "hasNature": //$NON-NLS-1$
+			case "isNatureEnabled": //$NON-NLS-1$
+			case "isAccessible": //$NON-NLS-1$
+			case "isOpen": //$NON-NLS-1$
+			case "exists": //$NON-NLS-1$
+				return true;
+			}
+			Class<?> type = method.getReturnType();
+			if (type == boolean.class) {
+				return false;
+			} else if (type == int.class) {
+				return 0;
+			} else if (type == long.class) {
+				return 0L;
+			}
+			return null;
+		}
+	}
+
+	final String shape;
+	private final int size;
+	private final List<List<Integer>> providerNodes = new ArrayList<>();
+	private final List<List<Integer>> requirerNodes = new ArrayList<>();
+	private final List<Bundle> bundles = new ArrayList<>();
+	private final List<IProject> projects = new ArrayList<>();
+	private int edges;
+
+	/**
+	 * Dependencies between the synthetic bundles read by the bundle sorter and closures
+	 */
+	final BundleDependencyGraph bundleGraph = new BundleDependencyGraph() {
+
+		@Override
+		protected Collection<Bundle> getNodes() {
+			return bundles;
+		}
+
+		@Override
+		protected Collection<Bundle> readProviders(Bundle bundle) {
+			return getBundles(providerNodes.get(SyntheticGraph.getId(bundle)));
+		}
+
+		@Override
+		protected Collection<Bundle> readInverseProviders(Bundle bundle,
+				Collection<Bundle> bundleProviders) {
+			return bundleProviders;
+		}
+
+		@Override
+		protected boolean isVolatile(Bundle bundle) {
+			return false;
+		}
+
+		@Override
+		protected boolean hasRequirers(Bundle bundle) {
+			return true;
+		}
+
+		@Override
+		protected boolean isWorkspaceBundle(Bundle bundle) {
+			return true;
+		}
+
+		@Override
+		protected boolean isActivated(Bundle bundle) {
+			return true;
+		}
+
+		@Override
+		protected Collection<Bundle> getRemovalPending() {
+			return new ArrayList<Bundle>();
+		}
+	};
+
+	/**
+	 * References between the synthetic projects read by the project sorter and closures
+	 */
+	final ProjectDependencyGraph projectGraph = new ProjectDependencyGraph() {
+
+		@Override
+		protected Collection<IProject> getNodes() {
+			return projects;
+		}
+
+		@Override
+		protected Collection<IProject> readProviders(IProject project) {
+			return getProjects(providerNodes.get(SyntheticGraph.getId(project)));
+		}
+	};
+
+	/**
+	 * Create a graph with the specified number of nodes and no dependencies
+	 *
+	 * @param shape name of the dependencies between the nodes
+	 * @param size number of nodes
+	 */
+	SyntheticGraph(String shape, int size) {
+
+		this.shape = shape;
+		this.size = size;
+		ClassLoader loader = SyntheticGraph.class.getClassLoader();
+		for (int i = 0; i < size; i++) {
+			providerNodes.add(new ArrayList<Integer>());
+			requirerNodes.add(new ArrayList<Integer>());
+			Node node = new Node(i, "synthetic.n" + i); //$NON-NLS-1$
+			bundles.add((Bundle) Proxy.newProxyInstance(loader, new Class<?>[] { Bundle.class }, node));
+			projects.add((IProject) Proxy.newProxyInstance(loader, new Class<?>[] { IProject.class },
+					node));
+		}
+	}
+
+	/**
+	 * Each node requires the next node
+	 */
+	static SyntheticGraph chain(int size) {
+
+		SyntheticGraph graph = new SyntheticGraph("chain", size); //$NON-NLS-1$
+		for (int i = 0; i + 1 < size; i++) {
+			graph.require(i, i + 1);
+		}
+		return graph;
+	}
+
+	/**
+	 * The first node requires all other nodes
+	 */
+	static SyntheticGraph fanOut(int size) {
+
+		SyntheticGraph graph = new SyntheticGraph("fan-out", size); //$NON-NLS-1$
+		for (int i = 1; i < size; i++) {
+			graph.require(0, i);
+		}
+		return graph;
+	}
+
+	/**
+	 * A chain of diamonds where the top node of each diamond requires two nodes that both require the
+	 * top node of the next diamond
+	 */
+	static SyntheticGraph diamond(int size) {
+
+		SyntheticGraph graph = new SyntheticGraph("diamond", size); //$NON-NLS-1$
+		for (int top = 0; top + 1 < size; top += 3) {
+			for (int side = top + 1; side <= top + 2 && side < size; side++) {
+				graph.require(top, side);
+				if (top + 3 < size) {
+					graph.require(side, top + 3);
+				}
+			}
+		}
+		return graph;
+	}
+
+	/**
+	 * Random acyclic graph where a node only requires nodes with a higher number
+	 *
+	 * @param size number of nodes
+	 * @param degree average number of providers of a node
+	 * @param seed seed of the random dependencies
+	 */
+	static SyntheticGraph random(int size, double degree, long seed) {
+
+		SyntheticGraph graph = new SyntheticGraph("random " + degree, size); //$NON-NLS-1$
+		Random random = new Random(seed);
+		for (int i = 0; i < (int) (size * degree); i++) {
+			int requirer = random.nextInt(size);
+			int provider = random.nextInt(size);
+			if (requirer != provider) {
+				graph.require(Math.min(requirer, provider), Math.max(requirer, provider));
+			}
+		}
+		return graph;
+	}
+
+	/**
+	 * Add a dependency between two nodes. A dependency already in the graph is ignored.
+	 *
+	 * @param requirer the requiring node
+	 * @param provider the providing node
+	 */
+	void require(int requirer, int provider) {
+
+		if (!providerNodes.get(requirer).contains(provider)) {
+			providerNodes.get(requirer).add(provider);
+			requirerNodes.get(provider).add(requirer);
+			edges++;
+		}
+	}
+
+	int size() {
+		return size;
+	}
+
+	int getEdges() {
+		return edges;
+	}
+
+	/**
+	 * Get a closure calculator on the dependency graphs of this graph
+	 *
+	 * @return closures of the synthetic bundles and projects
+	 */
+	BundleClosures getClosures() {
+		return new BundleClosures(new Options(), bundleGraph, projectGraph);
+	}
+
+	Bundle getBundle(int node) {
+		return bundles.get(node);
+	}
+
+	IProject getProject(int node) {
+		return projects.get(node);
+	}
+
+	List<Bundle> getBundles(Collection<Integer> nodes) {
+
+		List<Bundle> nodeBundles = new ArrayList<>(nodes.size());
+		for (Integer node : nodes) {
+			nodeBundles.add(bundles.get(node));
+		}
+		return nodeBundles;
+	}
+
+	List<IProject> getProjects(Collection<Integer> nodes) {
+
+		List<IProject> nodeProjects = new ArrayList<>(nodes.size());
+		for (Integer node : nodes) {
+			nodeProjects.add(projects.get(node));
+		}
+		return nodeProjects;
+	}
+
+	/**
+	 * Get the node of a synthetic bundle or project
+	 *
+	 * @param bundleOrProject a bundle or project of this graph
+	 * @return the node number
+	 */
+	static int getId(Object bundleOrProject) {
+		return ((Node) Proxy.getInvocationHandler(bundleOrProject)).id;
+	}
+
+	/**
+	 * Get the nodes of the specified bundles or projects in the same order
+	 */
+	static List<Integer> getIds(Collection<?> bundlesOrProjects) {
+
+		List<Integer> ids = new ArrayList<>(bundlesOrProjects.size());
+		for (Object bundleOrProject : bundlesOrProjects) {
+			ids.add(getId(bundleOrProject));
+		}
+		return ids;
+	}
+
+	/**
+	 * Get all nodes
+	 */
+	List<Integer> getNodes() {
+
+		List<Integer> nodes = new ArrayList<>(size);
+		for (int i = 0; i < size; i++) {
+			nodes.add(i);
+		}
+		return nodes;
+	}
+
+	List<Integer> getProviders(int node) {
+		return providerNodes.get(node);
+	}
+
+	/**
+	 * The specified nodes and all nodes they directly or indirectly require
+	 */
+	Set<Integer> getProvidingClosure(Collection<Integer> nodes) {
+		return reach(nodes, true, false);
+	}
+
+	/**
+	 * The specified nodes and all nodes directly or indirectly requiring them
+	 */
+	Set<Integer> getRequiringClosure(Collection<Integer> nodes) {
+		return reach(nodes, false, true);
+	}
+
+	/**
+	 * The specified nodes and all nodes connected to them by dependencies in any direction
+	 */
+	Set<Integer> getComponents(Collection<Integer> nodes) {
+		return reach(nodes, true, true);
+	}
+
+	private Set<Integer> reach(Collection<Integer> nodes, boolean providing, boolean requiring) {
+
+		Set<Integer> visited = new LinkedHashSet<>(nodes);
+		Deque<Integer> queue = new ArrayDeque<>(nodes);
+		while (!queue.isEmpty()) {
+			int node = queue.poll();
+			if (providing) {
+				for (Integer provider : providerNodes.get(node)) {
+					if (visited.add(provider)) {
+						queue.add(provider);
+					}
+				}
+			}
+			if (requiring) {
+				for (Integer requirer : requirerNodes.get(node)) {
+					if (visited.add(requirer)) {
+						queue.add(requirer);
+					}
+				}
+			}
+		}
+		return visited;
+	}
+}
@@ -0,0 +1,283 @@
+/*******************************************************************************
+ * Copyright (c) 2014 JavaTime project and others
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ * 	JavaTime project, Eirik Gronsund - initial implementation
+ *******************************************************************************/
+package no.javatime.inplace.region.tests;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.io.File;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+import no.javatime.inplace.region.intface.ResolverHookMetrics;
+import no.javatime.inplace.region.manager.BundleCommandImpl;
+import no.javatime.inplace.region.manager.WorkspaceRegionImpl;
+import no.javatime.inplace.region.resolver.BundleResolveHookFactory;
+import no.javatime.inplace.region.state.BundleStateEvents;
+import no.javatime.inplace.region.tests.SyntheticBundles.Shape;
+import no.javatime.inplace.region.tests.SyntheticBundles.SleepProfile;
+
+import org.eclipse.core.resources.IProject;
+import org.eclipse.core.resources.IResource;
+import org.eclipse.core.resources.ResourcesPlugin;
+import org.eclipse.osgi.launch.EquinoxFactory;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.BeforeClass;
+import org.junit.Test;
+import org.osgi.framework.Bundle;
+import org.osgi.framework.BundleContext;
+import org.osgi.framework.Constants;
+import org.osgi.framework.hooks.resolver.ResolverHookFactory;
+import org.osgi.framework.launch.Framework;
+
+/**
+ * Measures the latency of installing, resolving, starting, updating, refreshing, stopping and
+ * uninstalling synthetic bundles with the bundle command of the region. Latencies are reported per
+ * shape and operation on standard output.
+ * <p>
+ * The bundles are installed in an embedded headless Equinox framework from workspace projects
+ * generated for each dependency shape. The framework has the resolver hook factory and the bundle
+ * listener of the region registered, and the bundle command is created with the context of the
+ * embedded framework. Install, resolve, start, update, refresh, stop and uninstall therefore run
+ * through the same bundle node states, resolver hook filtering and dependency graph updates as for
+ * bundle projects in the workspace.
+ * <p>
+ * The workspace region keys bundles by their id. The bundles of the embedded framework share ids
+ * with bundles in the test runtime, which is not expected to install or resolve bundles while the
+ * test runs.
+ * <p>
+ * The harness is configured by the system properties {@code lifecycle.bundles} with the number of
+ * bundles for each shape, {@code lifecycle.activator.profile} with the name of the
+ * {@link SleepProfile} and {@code lifecycle.activator.sleep} with the number of milliseconds given to
+ * the sleep profile.
+ */
+public class BundleLifecycleLatencyTest {
+
+	private static final int BUNDLES = Integer.getInteger("lifecycle.bundles", 50); //$NON-NLS-1$
+	private static final SleepProfile PROFILE = SleepProfile.valueOf(System.getProperty(
+			"lifecycle.activator.profile", SleepProfile.FIXED.name()).toUpperCase()); //$NON-NLS-1$
+	private static final long SLEEP = Long.getLong("lifecycle.activator.sleep", 0); //$NON-NLS-1$
+	private static final long TIMEOUT = 60;
+	private static final String VERSION = "1.0.0"; //$NON-NLS-1$
+	private static final String UPDATE_VERSION = "1.0.1"; //$NON-NLS-1$
+
+	private File dir;
+	private Framework framework;
+	private BundleContext context;
+	private BundleStateEvents bundleEvents;
+	private BundleCommandImpl bundleCommand;
+	private final List<IProject> projects = new ArrayList<>();
+
+	@BeforeClass
+	public static void printHeader() {
+		System.out.format("%d bundles, %s activator sleep of %d ms%n", BUNDLES, PROFILE.name() //$NON-NLS-1$
+				.toLowerCase(), SLEEP);
+		System.out.format("%-8s %-10s %6s %9s %9s %9s %9s %9s%n", "shape", "operation", "count", //$NON-NLS-1$ //$NON-NLS-2$ //$NON-NLS-3$ //$NON-NLS-4$
+				"min (ms)", "p50", "p90", "p99", "max"); //$NON-NLS-1$ //$NON-NLS-2$ //$NON-NLS-3$ //$NON-NLS-4$ //$NON-NLS-5$
+	}
+
+	@Before
+	public void startFramework() throws Exception {
+
+		dir = Files.createTempDirectory("lifecycle").toFile(); //$NON-NLS-1$
+		Map<String, String> config = new HashMap<>();
+		config.put(Constants.FRAMEWORK_STORAGE, new File(dir, "storage").getPath()); //$NON-NLS-1$
+		config.put(Constants.FRAMEWORK_STORAGE_CLEAN, Constants.FRAMEWORK_STORAGE_CLEAN_ONFIRSTINIT);
+		framework = new EquinoxFactory().newFramework(config);
+		framework.start();
+		context = framework.getBundleContext();
+		BundleResolveHookFactory resolverHookFactory = new BundleResolveHookFactory();
+		context.registerService(ResolverHookFactory.class, resolverHookFactory, null);
+		bundleEvents = new BundleStateEvents();
+		context.addBundleListener(bundleEvents);
+		bundleCommand = new BundleCommandImpl(context, resolverHookFactory) {
+		};
+		bundleCommand.initFrameworkWiring();
+	}
+
+	@After
+	public void stopFramework() throws Exception {
+
+		if (null != bundleCommand) {
+			bundleCommand.shutdownActivatorExecutor();
+		}
+		if (null != framework) {
+			context.removeBundleListener(bundleEvents);
+			framework.stop();
+			framework.waitForStop(TimeUnit.SECONDS.toMillis(TIMEOUT));
+		}
+		for (IProject project : projects) {
+			WorkspaceRegionImpl.INSTANCE.unregisterBundleProject(project);
+			project.delete(true, true, null);
+		}
+		projects.clear();
+		delete(dir);
+	}
+
+	@Test
+	public void chain() throws Exception {
+		run(Shape.CHAIN);
+	}
+
+	@Test
+	public void fanOut() throws Exception {
+		run(Shape.FAN_OUT);
+	}
+
+	@Test
+	public void diamond() throws Exception {
+		run(Shape.DIAMOND);
+	}
+
+	@Test
+	public void cycle() throws Exception {
+		run(Shape.CYCLE);
+	}
+
+	/**
+	 * Run all bundles of the specified shape through the life cycle and report the latencies
+	 *
+	 * @param shape dependencies between the bundles
+	 * @throws Exception if a bundle operation fails
+	 */
+	private void run(Shape shape) throws Exception {
+
+		SyntheticBundles synthetic = new SyntheticBundles(shape, BUNDLES, PROFILE, SLEEP);
+		LatencyHistogram install = new LatencyHistogram("install"); //$NON-NLS-1$
+		LatencyHistogram resolve = new LatencyHistogram("resolve"); //$NON-NLS-1$
+		LatencyHistogram start = new LatencyHistogram("start"); //$NON-NLS-1$
+		LatencyHistogram update = new LatencyHistogram("update"); //$NON-NLS-1$
+		LatencyHistogram refresh = new LatencyHistogram("refresh"); //$NON-NLS-1$
+		LatencyHistogram stop = new LatencyHistogram("stop"); //$NON-NLS-1$
+		LatencyHistogram uninstall = new LatencyHistogram("uninstall"); //$NON-NLS-1$
+
+		IProject[] bundleProjects = new IProject[BUNDLES];
+		for (int node : synthetic.getProvidersFirst()) {
+			bundleProjects[node] = createProject(synthetic, node);
+		}
+		// The resolver hook adds the time of each call to the bundle command of the region
+		ResolverHookMetrics hookMetrics = BundleCommandImpl.INSTANCE.getResolverHookMetrics();
+		long hookCalls = hookMetrics.getCount();
+		Bundle[] bundles = new Bundle[BUNDLES];
+		for (int node : synthetic.getProvidersFirst()) {
+			long startTime = System.nanoTime();
+			bundles[node] = bundleCommand.install(bundleProjects[node], true);
+			install.add(startTime);
+			assertTrue(WorkspaceRegionImpl.INSTANCE.isBundleActivated(bundles[node]));
+		}
+		List<Bundle> all = Arrays.asList(bundles);
+		for (int node : synthetic.getProvidersFirst()) {
+			long startTime = System.nanoTime();
+			assertTrue(bundleCommand.resolve(Collections.singletonList(bundles[node])));
+			resolve.add(startTime);
+		}
+		assertTrue(hookMetrics.getCount() > hookCalls);
+		// Start persistently, so the framework starts the bundles again after update and refresh
+		for (int node : synthetic.getProvidersFirst()) {
+			long startTime = System.nanoTime();
+			bundleCommand.start(bundles[node], 0);
+			start.add(startTime);
+		}
+		assertState(all, Bundle.ACTIVE);
+		for (int node : synthetic.getProvidersFirst()) {
+			writeBundle(synthetic, bundleProjects[node], node, UPDATE_VERSION);
+			long startTime = System.nanoTime();
+			bundleCommand.update(bundles[node]);
+			update.add(startTime);
+		}
+		long startTime = System.nanoTime();
+		bundleCommand.refresh(all);
+		refresh.add(startTime);
+		assertState(all, Bundle.ACTIVE);
+		for (int node : synthetic.getRequirersFirst()) {
+			startTime = System.nanoTime();
+			bundleCommand.stop(bundles[node], false);
+			stop.add(startTime);
+		}
+		assertState(all, Bundle.RESOLVED);
+		for (int node : synthetic.getRequirersFirst()) {
+			startTime = System.nanoTime();
+			bundleCommand.uninstall(bundles[node], true);
+			uninstall.add(startTime);
+		}
+		assertState(all, Bundle.UNINSTALLED);
+		bundleCommand.refresh(all);
+
+		String name = shape.name().toLowerCase();
+		for (LatencyHistogram histogram : Arrays.asList(install, resolve, start, update, refresh,
+				stop, uninstall)) {
+			System.out.print(histogram.report(name));
+		}
+	}
+
+	/**
+	 * Create a workspace project containing the bundle of the specified node
+	 *
+	 * @param synthetic the synthetic bundles
+	 * @param node the node of the bundle
+	 * @return the open project
+	 * @throws Exception if failing to create the project or to write the bundle
+	 */
+	private IProject createProject(SyntheticBundles synthetic, int node) throws Exception {
+
+		IProject project = ResourcesPlugin.getWorkspace().getRoot()
+				.getProject(synthetic.getName(node));
+		project.create(null);
+		projects.add(project);
+		project.open(null);
+		writeBundle(synthetic, project, node, VERSION);
+		return project;
+	}
+
+	/**
+	 * Write the bundle of the specified node to the location of the specified project and refresh the
+	 * project, so the manifest read by the region is in sync with the bundle
+	 */
+	private static void writeBundle(SyntheticBundles synthetic, IProject project, int node,
+			String version) throws Exception {
+
+		synthetic.write(project.getLocation().toFile(), node, version);
+		project.refreshLocal(IResource.DEPTH_INFINITE, null);
+	}
+
+	private static void assertState(Collection<Bundle> bundles, int state) {
+
+		List<String> unexpected = new ArrayList<>();
+		for (Bundle bundle : bundles) {
+			if (bundle.getState() != state) {
+				unexpected.add(bundle.getSymbolicName());
+			}
+		}
+		assertEquals(Collections.<String> emptyList(), unexpected);
+	}
+
+	private static void delete(File file) {
+
+		if (null == file) {
+			return;
+		}
+		File[] files = file.listFiles();
+		if (null != files) {
+			for (File child : files) {
+				delete(child);
+			}
+		}
+		file.delete();
+	}
+}
@@ -0,0 +1,115 @@
+/*******************************************************************************
+ * Copyright (c) 2014 JavaTime project and others
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ * 	JavaTime project, Eirik Gronsund - initial implementation
+ *******************************************************************************/
+package no.javatime.inplace.region.tests;
+
+import java.util.Arrays;
+
+/**
+ * Latencies of one bundle operation. Reported as percentiles and as a histogram where the upper
+ * bound of each bucket is twice the bound of the previous bucket.
+ */
+class LatencyHistogram {
+
+	/** Upper bound of the first bucket in nanoseconds */
+	private static final long FIRST_BOUND = 100000;
+	private static final int BUCKETS = 16;
+
+	private final String operation;
+	private long[] samples = new long[64];
+	private int count;
+
+	/**
+	 * Create an empty histogram
+	 *
+	 * @param operation name of the measured operation
+	 */
+	LatencyHistogram(String operation) {
+		this.operation = operation;
+	}
+
+	/**
+	 * Add the time elapsed since the specified start time
+	 *
+	 * @param startTime the time in nanoseconds the operation started
+	 */
+	void add(long startTime) {
+
+		long latency = System.nanoTime() - startTime;
+		if (count == samples.length) {
+			samples = Arrays.copyOf(samples, count << 1);
+		}
+		samples[count++] = latency;
+	}
+
+	/**
+	 * Get the latency at the specified percentile
+	 *
+	 * @param percentile a percentile between 0 and 100
+	 * @return the latency in nanoseconds or 0 if there are no samples
+	 */
+	long getPercentile(double percentile) {
+
+		if (count == 0) {
+			return 0;
+		}
+		long[] sorted = Arrays.copyOf(samples, count);
+		Arrays.sort(sorted);
+		int index = (int) Math.ceil(percentile / 100 * count) - 1;
+		return sorted[Math.max(0, Math.min(count - 1, index))];
+	}
+
+	/**
+	 * Number of samples in each bucket. The last bucket holds all samples above the bound of the
+	 * previous bucket.
+	 *
+	 * @return the number of samples in each bucket with the first bucket first
+	 */
+	int[] getBuckets() {
+
+		int[] buckets = new int[BUCKETS];
+		for (int i = 0; i < count; i++) {
+			int bucket = 0;
+			for (long bound = FIRST_BOUND; samples[i] > bound && bucket < BUCKETS - 1; bound <<= 1) {
+				bucket++;
+			}
+			buckets[bucket]++;
+		}
+		return buckets;
+	}
+
+	/**
+	 * Format the percentiles and the non empty buckets of the histogram
+	 *
+	 * @param shape name of the dependency shape of the measured bundles
+	 * @return the latencies of the operation in milliseconds on two lines
+	 */
+	String report(String shape) {
+
+		StringBuilder report = new StringBuilder(String.format(
+				"%-8s %-10s %6d %9.2f %9.2f %9.2f %9.2f %9.2f%n", shape, operation, count, //$NON-NLS-1$
+				toMillis(getPercentile(0)), toMillis(getPercentile(50)), toMillis(getPercentile(90)),
+				toMillis(getPercentile(99)), toMillis(getPercentile(100))));
+		report.append(String.format("%-19s", "")); //$NON-NLS-1$ //$NON-NLS-2$
+		int[] buckets = getBuckets();
+		long bound = FIRST_BOUND;
+		for (int i = 0; i < BUCKETS; i++, bound <<= 1) {
+			if (buckets[i] > 0) {
+				String limit = i < BUCKETS - 1 ? "<=" + toMillis(bound) : ">" + toMillis(bound >> 1); //$NON-NLS-1$ //$NON-NLS-2$
+				report.append(' ').append(limit).append(':').append(buckets[i]);
+			}
+		}
+		return report.append(String.format("%n")).toString(); //$NON-NLS-1$
+	}
+
+	private static double toMillis(long nanos) {
+		return nanos / 1000000.0;
+	}
+}
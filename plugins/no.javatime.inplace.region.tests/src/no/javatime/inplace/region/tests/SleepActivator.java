@@ -0,0 +1,41 @@
+/*******************************************************************************
+ * Copyright (c) 2014 JavaTime project and others
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ * 	JavaTime project, Eirik Gronsund - initial implementation
+ *******************************************************************************/
+package no.javatime.inplace.region.tests;
+
+import org.osgi.framework.BundleActivator;
+import org.osgi.framework.BundleContext;
+
+/**
+ * Activator of the synthetic bundles. The class file is copied into each synthetic bundle, and the
+ * time to sleep when the bundle is started and stopped is read from the manifest of the bundle.
+ */
+public class SleepActivator implements BundleActivator {
+
+	/** Manifest header with the number of milliseconds to sleep in start and stop */
+	public static final String SLEEP_HEADER = "Synthetic-Activator-Sleep"; //$NON-NLS-1$
+
+	@Override
+	public void start(BundleContext context) throws Exception {
+		sleep(context);
+	}
+
+	@Override
+	public void stop(BundleContext context) throws Exception {
+		sleep(context);
+	}
+
+	private static void sleep(BundleContext context) throws InterruptedException {
+		String sleep = context.getBundle().getHeaders().get(SLEEP_HEADER);
+		if (null != sleep) {
+			Thread.sleep(Long.parseLong(sleep.trim()));
+		}
+	}
+}
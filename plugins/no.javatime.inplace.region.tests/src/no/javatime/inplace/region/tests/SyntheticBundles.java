@@ -0,0 +1,250 @@
+/*******************************************************************************
+ * Copyright (c) 2014 JavaTime project and others
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ * 	JavaTime project, Eirik Gronsund - initial implementation
+ *******************************************************************************/
+package no.javatime.inplace.region.tests;
+
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+import java.util.jar.Attributes;
+import java.util.jar.Manifest;
+
+/**
+ * Generates bundles as directories on disk with dependencies between them given by a graph shape.
+ * Each bundle exports one package and imports the packages of its providers. Nodes are numbered
+ * from zero and a node only requires nodes with a higher number, except for the last node of a
+ * cycle.
+ * <p>
+ * The bundles are activated by {@link SleepActivator} which sleeps for the time given by the sleep
+ * profile when the bundle is started and stopped.
+ */
+class SyntheticBundles {
+
+	private static final String PREFIX = "synthetic.b"; //$NON-NLS-1$
+	private static final String ACTIVATOR_RESOURCE = SleepActivator.class.getName().replace('.', '/')
+			+ ".class"; //$NON-NLS-1$
+
+	/**
+	 * Dependencies between the synthetic bundles
+	 */
+	enum Shape {
+		/** Each bundle requires the next bundle */
+		CHAIN,
+		/** The first bundle requires all other bundles */
+		FAN_OUT,
+		/**
+		 * A chain of diamonds where the top bundle of each diamond requires two bundles that both
+		 * require the top bundle of the next diamond
+		 */
+		DIAMOND,
+		/** Each bundle requires the next bundle and the last bundle requires the first bundle */
+		CYCLE;
+
+		/**
+		 * Get the providers of the specified node
+		 *
+		 * @param node the node to get the providers of
+		 * @param size number of nodes in the graph
+		 * @return the providers of the node. Never null.
+		 */
+		List<Integer> getProviders(int node, int size) {
+
+			List<Integer> providers = new ArrayList<>();
+			switch (this) {
+			case CHAIN:
+				if (node + 1 < size) {
+					providers.add(node + 1);
+				}
+				break;
+			case FAN_OUT:
+				if (node == 0) {
+					for (int i = 1; i < size; i++) {
+						providers.add(i);
+					}
+				}
+				break;
+			case DIAMOND:
+				int top = node - node % 3;
+				if (node == top) {
+					for (int side = top + 1; side <= top + 2 && side < size; side++) {
+						providers.add(side);
+					}
+				} else if (top + 3 < size) {
+					providers.add(top + 3);
+				}
+				break;
+			case CYCLE:
+				if (size > 1) {
+					providers.add((node + 1) % size);
+				}
+				break;
+			}
+			return providers;
+		}
+	}
+
+	/**
+	 * Time the activator of each bundle sleeps in start and stop
+	 */
+	enum SleepProfile {
+		/** All bundles sleep the specified time */
+		FIXED,
+		/** Each bundle sleeps a random time up to the specified time */
+		UNIFORM,
+		/** Every tenth bundle sleeps the specified time and the others do not sleep */
+		TAIL;
+
+		/**
+		 * Get the time the specified node sleeps
+		 *
+		 * @param node the node of the bundle
+		 * @param sleep the time in milliseconds given to the profile
+		 * @return the time in milliseconds to sleep
+		 */
+		long getSleep(int node, long sleep) {
+
+			switch (this) {
+			case UNIFORM:
+				return sleep > 0 ? new Random(node).nextInt((int) sleep + 1) : 0;
+			case TAIL:
+				return node % 10 == 9 ? sleep : 0;
+			default:
+				return sleep;
+			}
+		}
+	}
+
+	private final Shape shape;
+	private final int size;
+	private final SleepProfile profile;
+	private final long sleep;
+
+	/**
+	 * Create synthetic bundles
+	 *
+	 * @param shape dependencies between the bundles
+	 * @param size number of bundles
+	 * @param profile time the activators sleep
+	 * @param sleep the time in milliseconds given to the sleep profile
+	 */
+	SyntheticBundles(Shape shape, int size, SleepProfile profile, long sleep) {
+		this.shape = shape;
+		this.size = size;
+		this.profile = profile;
+		this.sleep = sleep;
+	}
+
+	/**
+	 * Get the symbolic name of the bundle of the specified node
+	 *
+	 * @param node the node of the bundle
+	 * @return the symbolic name of the bundle
+	 */
+	String getName(int node) {
+		return PREFIX + node;
+	}
+
+	/**
+	 * Write the manifest and the activator class of the bundle of the specified node to the specified
+	 * bundle directory. Files already in the directory are replaced.
+	 *
+	 * @param dir root directory of the bundle
+	 * @param node the node of the bundle
+	 * @param version version of the bundle and its exported package
+	 * @throws IOException if failing to write the files
+	 */
+	void write(File dir, int node, String version) throws IOException {
+
+		Manifest manifest = new Manifest();
+		Attributes attributes = manifest.getMainAttributes();
+		attributes.put(Attributes.Name.MANIFEST_VERSION, "1.0"); //$NON-NLS-1$
+		attributes.putValue("Bundle-ManifestVersion", "2"); //$NON-NLS-1$ //$NON-NLS-2$
+		attributes.putValue("Bundle-SymbolicName", PREFIX + node); //$NON-NLS-1$
+		attributes.putValue("Bundle-Version", version); //$NON-NLS-1$
+		attributes.putValue("Bundle-Activator", SleepActivator.class.getName()); //$NON-NLS-1$
+		attributes.putValue("Export-Package", PREFIX + node + ";version=" + version); //$NON-NLS-1$ //$NON-NLS-2$
+		StringBuilder imports = new StringBuilder("org.osgi.framework"); //$NON-NLS-1$
+		for (Integer provider : shape.getProviders(node, size)) {
+			imports.append(',').append(PREFIX).append(provider);
+		}
+		attributes.putValue("Import-Package", imports.toString()); //$NON-NLS-1$
+		attributes.putValue(SleepActivator.SLEEP_HEADER, Long.toString(profile.getSleep(node, sleep)));
+
+		File manifestFile = new File(dir, "META-INF/MANIFEST.MF"); //$NON-NLS-1$
+		manifestFile.getParentFile().mkdirs();
+		OutputStream out = new FileOutputStream(manifestFile);
+		try {
+			manifest.write(out);
+		} finally {
+			out.close();
+		}
+		File activatorFile = new File(dir, ACTIVATOR_RESOURCE);
+		activatorFile.getParentFile().mkdirs();
+		out = new FileOutputStream(activatorFile);
+		try {
+			out.write(getActivatorClass());
+		} finally {
+			out.close();
+		}
+	}
+
+	/**
+	 * Get the nodes in an order where providers come before their requirers. The last node of a
+	 * cycle comes first.
+	 *
+	 * @return all nodes with providers first
+	 */
+	List<Integer> getProvidersFirst() {
+
+		List<Integer> nodes = getRequirersFirst();
+		Collections.reverse(nodes);
+		return nodes;
+	}
+
+	/**
+	 * Get the nodes in an order where requirers come before their providers. The first node of a
+	 * cycle comes first.
+	 *
+	 * @return all nodes with requirers first
+	 */
+	List<Integer> getRequirersFirst() {
+
+		List<Integer> nodes = new ArrayList<>(size);
+		for (int i = 0; i < size; i++) {
+			nodes.add(i);
+		}
+		return nodes;
+	}
+
+	private static byte[] getActivatorClass() throws IOException {
+
+		InputStream in = SleepActivator.class.getClassLoader().getResourceAsStream(ACTIVATOR_RESOURCE);
+		if (null == in) {
+			throw new IOException("Missing class file " + ACTIVATOR_RESOURCE); //$NON-NLS-1$
+		}
+		try {
+			ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+			byte[] buffer = new byte[4096];
+			for (int n = in.read(buffer); n >= 0; n = in.read(buffer)) {
+				bytes.write(buffer, 0, n);
+			}
+			return bytes.toByteArray();
+		} finally {
+			in.close();
+		}
+	}
+}
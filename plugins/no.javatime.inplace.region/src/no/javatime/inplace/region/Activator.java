@@ -12,10 +12,13 @@ import no.javatime.inplace.region.intface.BundleRegion;
 import no.javatime.inplace.region.intface.BundleTransition;
 import no.javatime.inplace.region.intface.InPlaceException;
 import no.javatime.inplace.region.manager.BundleCommandImpl;
+import no.javatime.inplace.region.project.ProjectIndexListener;
 import no.javatime.inplace.region.resolver.BundleResolveHookFactory;
 import no.javatime.inplace.region.state.BundleStateEvents;
 
 import org.eclipse.core.resources.IProject;
+import org.eclipse.core.resources.IResourceChangeEvent;
+import org.eclipse.core.resources.ResourcesPlugin;
 import org.eclipse.core.runtime.CoreException;
 import org.eclipse.pde.core.project.IBundleProjectDescription;
 import org.eclipse.pde.core.project.IBundleProjectService;
@@ -38,6 +41,8 @@ public class Activator extends AbstractUIPlugin {
 
 	private BundleStateEvents bundleEvents = new BundleStateEvents();
 	private ExternalDuplicates duplicateEvents = new ExternalDuplicates();
+	// Keeps the location and manifest indexes of bundle projects in sync with project changes
+	private ProjectIndexListener projectIndexListener = new ProjectIndexListener();
 
 	private static ServiceTracker<IBundleProjectService, IBundleProjectService> bundleProjectTracker;
 
@@ -70,6 +75,9 @@ public class Activator extends AbstractUIPlugin {
 		bundle = context.getBundle();
 		registerResolverHook();
 		Activator.context.addBundleListener(bundleEvents);
+		// Build errors are read by post build listeners before the post change event is received
+		ResourcesPlugin.getWorkspace().addResourceChangeListener(projectIndexListener,
+				IResourceChangeEvent.POST_BUILD | IResourceChangeEvent.POST_CHANGE);
 		BundleCommandImpl bundleCommandImpl = BundleCommandImpl.INSTANCE;
 		bundleCommandImpl.initFrameworkWiring();
 		extenderTracker = new ExtenderTracker(context, Bundle.INSTALLED | Bundle.UNINSTALLED | Bundle.ACTIVE, null);
@@ -89,11 +97,13 @@ public class Activator extends AbstractUIPlugin {
 
 		Activator.context.removeBundleListener(duplicateEvents);
 		Activator.context.removeBundleListener(bundleEvents);
+		ResourcesPlugin.getWorkspace().removeResourceChangeListener(projectIndexListener);
 		bundleProjectTracker.close();
 		bundleProjectTracker = null;
 		extenderTracker.close();
 		extenderTracker = null;
 		unregisterResolverHook();
+		BundleCommandImpl.INSTANCE.shutdownActivatorExecutor();
 		super.stop(context);
 		plugin = null;
 		Activator.context = null;
@@ -104,6 +114,11 @@ public class Activator extends AbstractUIPlugin {
 		return extenderTracker.bundleRegionExtender.getService();
 	}
 
+	public static BundleCommand getBundleCommandService() throws ExtenderException {
+
+		return extenderTracker.bundleCommandExtender.getService(bundle);
+	}
+
 	public static BundleCommand getBundleCommandService(Bundle bundle) throws ExtenderException {
 
 		return extenderTracker.bundleCommandExtender.getService(bundle);
@@ -11,10 +11,18 @@
 
 package no.javatime.inplace.region.closure;
 
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+
 /**
  * This base class is typically used by classes analyzing cycles in workspace bundles and projects.
  * <p>
  * Set whether cycles and self reference among elements are allowed or not.
+ * <p>
+ * Sorts are performed by the iterative {@linkplain TopologicalSort} which detects all cycles as strongly
+ * connected components in one pass and groups the sorted elements in waves of mutually independent
+ * elements.
  * 
  * @see ProjectSorter
  * @see BundleSorter
@@ -75,4 +83,27 @@ package no.javatime.inplace.region.closure;
 		this.allowSelfReference = allowSelfReference;
 	}
 
+	/**
+	 * Get the cycles of the specified sort that are not allowed. Self references are cycles with one
+	 * element.
+	 * 
+	 * @param sort a completed sort
+	 * @param excluded elements that are not part of any cycle. Cycles only existing through these
+	 *          elements are ignored
+	 * @return cycles to report or an empty collection if cycles are allowed
+	 */
+	protected <T> List<List<T>> getCycles(TopologicalSort<T> sort, Collection<T> excluded) {
+
+		List<List<T>> cycles = new ArrayList<>();
+		if (getAllowCycles()) {
+			return cycles;
+		}
+		for (List<T> cycle : sort.getCycles(excluded)) {
+			if (cycle.size() > 1 || !getAllowSelfReference()) {
+				cycles.add(cycle);
+			}
+		}
+		return cycles;
+	}
+
 }
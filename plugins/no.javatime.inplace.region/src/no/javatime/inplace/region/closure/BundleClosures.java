@@ -9,9 +9,7 @@ import no.javatime.inplace.dl.preferences.intface.DependencyOptions.Closure;
 import no.javatime.inplace.dl.preferences.intface.DependencyOptions.Operation;
 import no.javatime.inplace.extender.intface.ExtenderException;
 import no.javatime.inplace.region.Activator;
-import no.javatime.inplace.region.intface.BundleRegion;
 import no.javatime.inplace.region.intface.InPlaceException;
-import no.javatime.inplace.region.manager.WorkspaceRegionImpl;
 
 import org.eclipse.core.resources.IProject;
 import org.osgi.framework.Bundle;
@@ -45,7 +43,8 @@ import org.osgi.framework.Bundle;
  */
 public class BundleClosures {
 
-	private final BundleRegion bundleRegion = WorkspaceRegionImpl.INSTANCE;
+	private final BundleDependencyGraph bundleDependencyGraph;
+	private final ProjectDependencyGraph projectDependencyGraph;
 	/**
 	 * Sort deactivated and activated projects when true
 	 */
@@ -61,7 +60,23 @@ public class BundleClosures {
 	 */
 	public BundleClosures() throws ExtenderException {
 
-		dependencyOptions = Activator.getDependencyOptionsService();
+		this(Activator.getDependencyOptionsService(), BundleDependencyGraph.INSTANCE,
+				ProjectDependencyGraph.INSTANCE);
+	}
+
+	/**
+	 * Calculate closures according to the specified dependency options and dependency graphs
+	 * 
+	 * @param dependencyOptions the valid closures of each operation
+	 * @param bundleDependencyGraph dependencies between workspace bundles
+	 * @param projectDependencyGraph references between projects
+	 */
+	BundleClosures(DependencyOptions dependencyOptions, BundleDependencyGraph bundleDependencyGraph,
+			ProjectDependencyGraph projectDependencyGraph) {
+
+		this.dependencyOptions = dependencyOptions;
+		this.bundleDependencyGraph = bundleDependencyGraph;
+		this.projectDependencyGraph = projectDependencyGraph;
 	}
 
 /**
@@ -122,7 +137,7 @@ public class BundleClosures {
 	public Collection<IProject> projectActivation(Closure closure, Collection<IProject> initialSet,
 			boolean activated) throws CircularReferenceException, InPlaceException {
 
-		ProjectSorter ps = new ProjectSorter();
+		ProjectSorter ps = new ProjectSorter(projectDependencyGraph);
 		Collection<IProject> resultSet = null;
 
 		if (null != closure && null != initialSet && initialSet.size() > 0) {
@@ -215,7 +230,7 @@ public class BundleClosures {
 	public Collection<IProject> projectDeactivation(Closure closure, Collection<IProject> initialSet,
 			boolean activated) throws CircularReferenceException, InPlaceException {
 
-		ProjectSorter ps = new ProjectSorter();
+		ProjectSorter ps = new ProjectSorter(projectDependencyGraph);
 		Collection<IProject> resultSet = null;
 
 		if (null != closure && null != initialSet && initialSet.size() > 0) {
@@ -289,7 +304,7 @@ public class BundleClosures {
 	public Collection<Bundle> bundleActivation(Closure closure, Collection<Bundle> initialSet,
 			Collection<Bundle> scope) throws CircularReferenceException, InPlaceException {
 
-		BundleSorter bs = new BundleSorter();
+		BundleSorter bs = new BundleSorter(bundleDependencyGraph);
 		Collection<Bundle> resultSet = null;
 
 		if (null != closure && null != initialSet && initialSet.size() > 0 && null != scope
@@ -386,7 +401,7 @@ public class BundleClosures {
 	public Collection<Bundle> bundleDeactivation(Closure closure, Collection<Bundle> initialSet,
 			Collection<Bundle> scope) throws CircularReferenceException, InPlaceException {
 
-		BundleSorter bs = new BundleSorter();
+		BundleSorter bs = new BundleSorter(bundleDependencyGraph);
 		bs.setAllowCycles(true);
 		Collection<Bundle> resultSet = null;
 
@@ -464,7 +479,7 @@ public class BundleClosures {
 	protected Collection<IProject> partialGraph(Collection<IProject> initialSet, boolean activated,
 			boolean requiring) throws CircularReferenceException {
 
-		ProjectSorter ps = new ProjectSorter();
+		ProjectSorter ps = new ProjectSorter(projectDependencyGraph);
 		Collection<IProject> resultSet = new LinkedHashSet<IProject>(initialSet);
 		int count = 0;
 		if (sortAllprojects) {
@@ -512,7 +527,7 @@ public class BundleClosures {
 			Collection<Bundle> scope, boolean requiring, boolean isResolved)
 			throws CircularReferenceException {
 
-		BundleSorter bs = new BundleSorter();
+		BundleSorter bs = new BundleSorter(bundleDependencyGraph);
 		Collection<Bundle> resultSet = new LinkedHashSet<Bundle>(initialSet);
 		int count = 0;
 		do {
@@ -550,10 +565,16 @@ public class BundleClosures {
 	 * are either in state RESOLVED, STARTING, ACTIVE, STOPPING OR RESOLVED.
 	 */
 	private boolean isResolved(Collection<Bundle> initialBundleSet, Collection<Bundle> scope) {
-		Collection<Bundle> activatedBundles = bundleRegion.getActivatedBundles();
-		if (activatedBundles.containsAll(initialBundleSet) && activatedBundles.containsAll(scope)) {
-			return true;
+		for (Bundle bundle : initialBundleSet) {
+			if (!bundleDependencyGraph.isActivated(bundle)) {
+				return false;
+			}
+		}
+		for (Bundle bundle : scope) {
+			if (!bundleDependencyGraph.isActivated(bundle)) {
+				return false;
+			}
 		}
-		return false;
+		return true;
 	}
 }
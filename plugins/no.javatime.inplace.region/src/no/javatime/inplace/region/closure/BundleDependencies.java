@@ -11,7 +11,6 @@
 package no.javatime.inplace.region.closure;
 
 import java.util.Collection;
-import java.util.Collections;
 import java.util.LinkedHashSet;
 
 import no.javatime.inplace.region.Activator;
@@ -29,8 +28,6 @@ import org.osgi.framework.Bundle;
 import org.osgi.framework.wiring.BundleCapability;
 import org.osgi.framework.wiring.BundleRequirement;
 import org.osgi.framework.wiring.BundleRevision;
-import org.osgi.framework.wiring.BundleWire;
-import org.osgi.framework.wiring.BundleWiring;
 
 /**
  * A set of methods returning direct and indirect dependencies between installed bundles. For installed
@@ -82,13 +79,29 @@ public class BundleDependencies {
 	 */
 	public static Collection<Bundle> getRequiringBundles(Bundle child, Bundle parent, Collection<Bundle> visited) {
 
+		return getRequiringBundles(BundleDependencyGraph.INSTANCE, child, parent, visited);
+	}
+
+	/**
+	 * Get direct and indirect bundles dependent on the specified initial bundle in the specified
+	 * dependency graph. Requiring bundles include self.
+	 * 
+	 * @param dependencyGraph dependencies between workspace bundles
+	 * @param child is the independent initial bundle
+	 * @param parent of child, may be null if child is a root bundle
+	 * @param visited bundles dependent on {@code child}
+	 * @return all bundles which are dependent on {@code child}
+	 */
+	static Collection<Bundle> getRequiringBundles(BundleDependencyGraph dependencyGraph, Bundle child,
+			Bundle parent, Collection<Bundle> visited) {
+
 		if (null != child && !visited.contains(child)) {
 			if (null != parent) {
 				visited.add(child);
 			}
-			Collection<Bundle> requiringBundles = getDirectRequiringBundles(child);
+			Collection<Bundle> requiringBundles = dependencyGraph.getRequiringBundles(child);
 			for (Bundle requiringBundle : requiringBundles) {
-				getRequiringBundles(requiringBundle, child, visited);
+				getRequiringBundles(dependencyGraph, requiringBundle, child, visited);
 			}
 		}
 		return visited;
@@ -102,21 +115,7 @@ public class BundleDependencies {
 	 */
 	public static Collection<Bundle> getDirectRequiringBundles(Bundle bundle) {
 
-		if (null != bundle) {
-			BundleWiring wiredReqBundle = bundle.adapt(BundleWiring.class);
-			if (null != wiredReqBundle && wiredReqBundle.isInUse()) {
-				Collection<Bundle> requiredBundles = new LinkedHashSet<Bundle>();
-				// Get the capabilities from all name spaces
-				for (BundleWire wire : wiredReqBundle.getProvidedWires(null)) {
-					Bundle reqBundle = wire.getRequirerWiring().getBundle();
-					if (null != reqBundle && WorkspaceRegionImpl.INSTANCE.exist(reqBundle)) {
-						requiredBundles.add(reqBundle);
-					}
-				}
-				return requiredBundles;
-			}
-		}
-		return Collections.emptyList();
+		return BundleDependencyGraph.INSTANCE.getRequiringBundles(bundle);
 	}
 
 	/**
@@ -171,21 +170,7 @@ public class BundleDependencies {
 	 */
 	public static Collection<Bundle> getDirectProvidingBundles(Bundle bundle) {
 
-		if (null != bundle) {
-			BundleWiring wiredProvBundle = bundle.adapt(BundleWiring.class);
-			if (null != wiredProvBundle && wiredProvBundle.isInUse()) {
-				Collection<Bundle> providedBundles = new LinkedHashSet<Bundle>();
-				// Get the requirements from all name spaces
-				for (BundleWire wire : wiredProvBundle.getRequiredWires(null)) {
-					Bundle provBundle = wire.getProviderWiring().getBundle();
-					if (null != provBundle && WorkspaceRegionImpl.INSTANCE.exist(provBundle)) {
-						providedBundles.add(provBundle);
-					}
-				}
-				return providedBundles;
-			}
-		}
-		return Collections.emptyList();
+		return BundleDependencyGraph.INSTANCE.getProvidingBundles(bundle);
 	}
 
 	/**
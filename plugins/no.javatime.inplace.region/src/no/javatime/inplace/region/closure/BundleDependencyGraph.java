@@ -0,0 +1,190 @@
+/*******************************************************************************
+ * Copyright (c) 2011, 2012 JavaTime project and others
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ * 	JavaTime project, Eirik Gronsund - initial implementation
+ *******************************************************************************/
+package no.javatime.inplace.region.closure;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedHashSet;
+import java.util.List;
+
+import no.javatime.inplace.region.intface.InPlaceException;
+import no.javatime.inplace.region.manager.BundleCommandImpl;
+import no.javatime.inplace.region.manager.WorkspaceRegionImpl;
+
+import org.osgi.framework.Bundle;
+import org.osgi.framework.namespace.PackageNamespace;
+import org.osgi.framework.wiring.BundleRevision;
+import org.osgi.framework.wiring.BundleRevisions;
+import org.osgi.framework.wiring.BundleWire;
+import org.osgi.framework.wiring.BundleWiring;
+import org.osgi.resource.Requirement;
+
+/**
+ * Cached wiring dependencies between workspace bundles shared by the bundle sorter and the bundle
+ * closures. Only bundles with a wiring in use have dependencies.
+ * <p>
+ * The providers of a bundle are read from the current wiring of the bundle. A bundle is registered as
+ * a requirer at the providers of all its wirings in use, so bundles with a pending removal are
+ * included in the requirers of their providers. A bundle should be invalidated when installed,
+ * resolved, unresolved and updated and removed when uninstalled.
+ * <p>
+ * Dynamic imports are wired to the requiring bundle without a bundle event. Bundles declaring
+ * dynamic imports are therefore read again from their current wiring before each query, so bundles
+ * dynamically wired to a provider are included in the requirers of the provider.
+ * <p>
+ * Registration and activation of bundles in the workspace region and pending removals in the
+ * framework are read by the sorters and closures through this graph, so a graph with synthetic
+ * bundles can be used in place of the shared instance.
+ */
+public class BundleDependencyGraph extends DependencyGraph<Bundle> {
+
+	public final static BundleDependencyGraph INSTANCE = new BundleDependencyGraph();
+
+	/**
+	 * Get the workspace bundles that requires capabilities from the specified bundle
+	 *
+	 * @param bundle the bundle which other bundles require capabilities from
+	 * @return the direct requirers of the specified bundle registered in the workspace region. Never
+	 *         null.
+	 */
+	public List<Bundle> getRequiringBundles(Bundle bundle) {
+
+		List<Bundle> bundles = new ArrayList<>();
+		if (null != bundle) {
+			for (Bundle requirer : getRequirers(bundle)) {
+				if (isWorkspaceBundle(requirer)) {
+					bundles.add(requirer);
+				}
+			}
+		}
+		return bundles;
+	}
+
+	/**
+	 * Get the workspace bundles that provides capabilities to the specified bundle
+	 *
+	 * @param bundle the bundle that requires capabilities from other bundles
+	 * @return the direct providers of the specified bundle registered in the workspace region. Never
+	 *         null.
+	 */
+	public List<Bundle> getProvidingBundles(Bundle bundle) {
+
+		List<Bundle> bundles = new ArrayList<>();
+		if (null != bundle) {
+			for (Bundle provider : getProviders(bundle)) {
+				if (isWorkspaceBundle(provider)) {
+					bundles.add(provider);
+				}
+			}
+		}
+		return bundles;
+	}
+
+	/**
+	 * Check whether the specified bundle is registered in the workspace region
+	 *
+	 * @param bundle the bundle to check. Must not be null.
+	 * @return true if the bundle is a workspace bundle and false if not
+	 */
+	protected boolean isWorkspaceBundle(Bundle bundle) {
+		return WorkspaceRegionImpl.INSTANCE.exist(bundle);
+	}
+
+	/**
+	 * Check whether the specified bundle is activated in the workspace region
+	 *
+	 * @param bundle the bundle to check
+	 * @return true if the bundle is activated and false if not activated or not a workspace bundle
+	 */
+	protected boolean isActivated(Bundle bundle) {
+		return WorkspaceRegionImpl.INSTANCE.isBundleActivated(bundle);
+	}
+
+	/**
+	 * Get the bundles with wirings pending removal in the framework
+	 *
+	 * @return the bundles pending removal. The returned collection may be modified by the caller.
+	 * @throws InPlaceException if the framework wiring is not available
+	 */
+	protected Collection<Bundle> getRemovalPending() throws InPlaceException {
+		return BundleCommandImpl.INSTANCE.getRemovalPending();
+	}
+
+	@Override
+	protected Collection<Bundle> getNodes() {
+		return WorkspaceRegionImpl.INSTANCE.getBundles();
+	}
+
+	@Override
+	protected Collection<Bundle> readProviders(Bundle bundle) {
+
+		Collection<Bundle> providers = new LinkedHashSet<>();
+		readProviders(bundle.adapt(BundleWiring.class), providers);
+		return providers;
+	}
+
+	@Override
+	protected Collection<Bundle> readInverseProviders(Bundle bundle, Collection<Bundle> providers) {
+
+		BundleRevisions revisions = bundle.adapt(BundleRevisions.class);
+		if (null == revisions) {
+			return providers;
+		}
+		Collection<Bundle> inverseProviders = new LinkedHashSet<>(providers);
+		for (BundleRevision revision : revisions.getRevisions()) {
+			readProviders(revision.getWiring(), inverseProviders);
+		}
+		return inverseProviders;
+	}
+
+	@Override
+	protected boolean isVolatile(Bundle bundle) {
+
+		BundleRevision revision = bundle.adapt(BundleRevision.class);
+		if (null == revision) {
+			return false;
+		}
+		for (Requirement requirement : revision.getRequirements(PackageNamespace.PACKAGE_NAMESPACE)) {
+			if (PackageNamespace.RESOLUTION_DYNAMIC.equals(requirement.getDirectives().get(
+					PackageNamespace.REQUIREMENT_RESOLUTION_DIRECTIVE))) {
+				return true;
+			}
+		}
+		return false;
+	}
+
+	@Override
+	protected boolean hasRequirers(Bundle bundle) {
+
+		BundleWiring wiring = bundle.adapt(BundleWiring.class);
+		return null != wiring && wiring.isInUse();
+	}
+
+	/**
+	 * Add the workspace bundles wired to the specified wiring to the providers
+	 *
+	 * @param wiring the wiring to get the providers from. Ignored if null or not in use
+	 * @param providers providing workspace bundles are added to this collection
+	 */
+	private void readProviders(BundleWiring wiring, Collection<Bundle> providers) {
+
+		if (null != wiring && wiring.isInUse()) {
+			// Get the requirements from all name spaces
+			for (BundleWire wire : wiring.getRequiredWires(null)) {
+				Bundle provider = wire.getProviderWiring().getBundle();
+				if (null != provider
+						&& null != WorkspaceRegionImpl.INSTANCE.getWorkspaceBundleProject(provider)) {
+					providers.add(provider);
+				}
+			}
+		}
+	}
+}
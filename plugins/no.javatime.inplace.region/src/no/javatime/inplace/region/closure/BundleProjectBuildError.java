@@ -23,9 +23,7 @@ import no.javatime.inplace.region.status.IBundleStatus;
 import no.javatime.inplace.region.status.IBundleStatus.StatusCode;
 
 import org.eclipse.core.resources.IFile;
-import org.eclipse.core.resources.IMarker;
 import org.eclipse.core.resources.IProject;
-import org.eclipse.core.resources.IResource;
 import org.eclipse.core.runtime.CoreException;
 import org.eclipse.jdt.core.IJavaProject;
 
@@ -216,29 +214,34 @@ public class BundleProjectBuildError {
 		return false;
 	}
 
+	/**
+	 * Check if the specified project has problem markers with error severity
+	 * <p>
+	 * The check is answered from the {@link ProblemMarkerIndex} and does not visit the markers of the
+	 * project after the project has been indexed. If the project is not accessible this is regarded
+	 * as a compile error and {@code true} is returned
+	 * 
+	 * @param project the project to check for compile errors
+	 * @return <code>true</code> if the project has compile errors <code>false</code> otherwise
+	 */
 	public static boolean hasCompileErrors(IProject project) {
 
 		try {
-			IMarker[] problems = project.findMarkers(IMarker.PROBLEM, true, IResource.DEPTH_INFINITE);
-			// check if any of these have a severity attribute that indicates an error
-			for (int problemsIndex = 0; problemsIndex < problems.length; problemsIndex++) {
-				if (IMarker.SEVERITY_ERROR == problems[problemsIndex].getAttribute(IMarker.SEVERITY,
-						IMarker.SEVERITY_INFO)) {
-					boolean activateOnCompileErrors = Activator.getCommandOptionsService().isActivateOnCompileError();
-					StatusCode statusCode = null;
-					String msg = null;
-					if (activateOnCompileErrors) {
-						statusCode = StatusCode.BUILD_WARNING;
-						msg = "Running " + project.getName() + " with compile time errors";
-					} else {
-						statusCode = StatusCode.BUILD_ERROR;
-						msg = "Build problems in project " + project.getName();
-					}
-					IBundleStatus multiStatus = new BundleStatus(statusCode, Activator.PLUGIN_ID, project, msg, null);
-					BundleTransition bundleTransition = BundleTransitionImpl.INSTANCE;
-					bundleTransition.setBuildStatus(project, TransitionError.BUILD, multiStatus);
-					return true;
+			if (ProblemMarkerIndex.INSTANCE.hasErrors(project)) {
+				boolean activateOnCompileErrors = Activator.getCommandOptionsService().isActivateOnCompileError();
+				StatusCode statusCode = null;
+				String msg = null;
+				if (activateOnCompileErrors) {
+					statusCode = StatusCode.BUILD_WARNING;
+					msg = "Running " + project.getName() + " with compile time errors";
+				} else {
+					statusCode = StatusCode.BUILD_ERROR;
+					msg = "Build problems in project " + project.getName();
 				}
+				IBundleStatus multiStatus = new BundleStatus(statusCode, Activator.PLUGIN_ID, project, msg, null);
+				BundleTransition bundleTransition = BundleTransitionImpl.INSTANCE;
+				bundleTransition.setBuildStatus(project, TransitionError.BUILD, multiStatus);
+				return true;
 			}
 		} catch (CoreException | InPlaceException e) {
 			return true;
@@ -435,18 +438,13 @@ public class BundleProjectBuildError {
 				return true;
 			}
 			IFile manifestFile = BundleProjectMetaImpl.INSTANCE.getManifestFile(project);
-			if (null != manifestFile && manifestFile.exists()) {
-				IMarker[] problems = manifestFile.findMarkers(IMarker.PROBLEM, true, IResource.DEPTH_ZERO);
-				for (int problemsIndex = 0; problemsIndex < problems.length; problemsIndex++) {
-					if (IMarker.SEVERITY_ERROR == problems[problemsIndex].getAttribute(IMarker.SEVERITY,
-							IMarker.SEVERITY_INFO)) {
-						IBundleStatus multiStatus = new BundleStatus(StatusCode.EXCEPTION, Activator.PLUGIN_ID,
-								project, "Error in manifest for " + project.getName(), null);
-						BundleTransition bundleTransition = BundleTransitionImpl.INSTANCE;
-						bundleTransition.setBuildStatus(project, TransitionError.BUILD_MANIFEST, multiStatus);
-						return true;
-					}
-				}
+			if (null != manifestFile && manifestFile.exists()
+					&& ProblemMarkerIndex.INSTANCE.hasManifestErrors(project)) {
+				IBundleStatus multiStatus = new BundleStatus(StatusCode.EXCEPTION, Activator.PLUGIN_ID,
+						project, "Error in manifest for " + project.getName(), null);
+				BundleTransition bundleTransition = BundleTransitionImpl.INSTANCE;
+				bundleTransition.setBuildStatus(project, TransitionError.BUILD_MANIFEST, multiStatus);
+				return true;
 			}
 		} catch (CoreException e) {
 			// Unreachable
@@ -21,7 +21,6 @@ import no.javatime.inplace.region.intface.BundleRegion;
 import no.javatime.inplace.region.intface.BundleTransition;
 import no.javatime.inplace.region.intface.BundleTransition.TransitionError;
 import no.javatime.inplace.region.intface.InPlaceException;
-import no.javatime.inplace.region.manager.BundleCommandImpl;
 import no.javatime.inplace.region.manager.BundleTransitionImpl;
 import no.javatime.inplace.region.manager.WorkspaceRegionImpl;
 import no.javatime.inplace.region.status.BundleStatus;
@@ -41,7 +40,8 @@ import org.osgi.framework.wiring.BundleWiring;
  * and {@linkplain #sortDeclaredRequiringBundles(Collection, Collection)}.
  * <p>
  * All cycles from an initial set (start bundles) of bundles are detected for each sort. To detect all cycles
- * in the workspace include all workspace bundles as the initial set to sort.
+ * in the workspace include all workspace bundles as the initial set to sort. Each cycle is reported as the
+ * complete set of bundles in the cycle.
  * 
  * @see CircularReferenceException
  * @see ProjectSorter
@@ -58,10 +58,30 @@ public class BundleSorter extends BaseSorter {
 	 */
 	private Collection<Bundle> removalPendingBundles;
 
+	/**
+	 * Sorted bundles grouped in waves
+	 */
+	private List<List<Bundle>> bundleWaves;
+
+	/**
+	 * Dependencies between workspace bundles
+	 */
+	private final BundleDependencyGraph dependencyGraph;
+
 	/**
 	 * Default constructor
 	 */
 	public BundleSorter() {
+		this(BundleDependencyGraph.INSTANCE);
+	}
+
+	/**
+	 * Sort bundles according to the dependencies in the specified graph
+	 * 
+	 * @param dependencyGraph dependencies between the bundles to sort
+	 */
+	BundleSorter(BundleDependencyGraph dependencyGraph) {
+		this.dependencyGraph = dependencyGraph;
 	}
 
 	/**
@@ -76,6 +96,20 @@ public class BundleSorter extends BaseSorter {
 		return bundleOrder;
 	}
 
+	/**
+	 * The waves of the last sort. All bundles a bundle depends on in the direction of the sort are in
+	 * preceding waves, except for bundles in the same cycle which are in the same wave.
+	 * 
+	 * @return the bundles of the last sort grouped in waves or an empty collection if no sort has been
+	 *         performed
+	 */
+	public List<List<Bundle>> getBundleWaves() {
+		if (null == bundleWaves) {
+			return Collections.<List<Bundle>>emptyList();
+		}
+		return bundleWaves;
+	}
+
 	/**
 	 * Topological sort in requiring bundle order where the specified scope is all workspace bundles.Installed
 	 * bundles are not included. Initial set of specified bundles are included in the result set.
@@ -111,24 +145,17 @@ public class BundleSorter extends BaseSorter {
 		imports a package which is exported by the bundle, 
 		is a fragment to the bundle or is the host of the bundle.
 		*/
-		removalPendingBundles = BundleCommandImpl.INSTANCE.getRemovalPending();
+		removalPendingBundles = dependencyGraph.getRemovalPending();
 		removalPendingBundles.retainAll(bundleScope);
 		if (removalPendingBundles.size() > 0) {
-			sortDeclaredRequiringBundles(bundles, bundleScope);
-		} else {
-			circularException = null;
-			bundleOrder = new LinkedHashSet<Bundle>();
-			if (null == bundles) {
-				return bundleOrder;
-			}
-			for (final Bundle bundle : bundles) {
-				visitRequiringBundle(bundle, null, bundleScope, new LinkedHashSet<Bundle>());
-			}
+			return sortDeclaredRequiringBundles(bundles, bundleScope);
 		}
-		if (null != circularException) {
-			throw circularException;
-		}
-		return bundleOrder;
+		return sortBundles(bundles, new TopologicalSort.Adjacency<Bundle>() {
+			@Override
+			public Collection<Bundle> getAdjacent(Bundle bundle) {
+				return getDirectRequiringBundles(bundle, bundleScope);
+			}
+		});
 	}
 
 	/**
@@ -145,83 +172,18 @@ public class BundleSorter extends BaseSorter {
 	 */
 	public Collection<Bundle> sortDeclaredRequiringBundles(final Collection<Bundle> bundles,
 			final Collection<Bundle> bundleScope) throws CircularReferenceException {
-		bundleOrder = new LinkedHashSet<Bundle>();
+
 		if (null == bundles) {
-			return bundleOrder;
+			return sortBundles(null, null);
 		}
-		circularException = null;
 		final Collection<BundleRevision> bundleRevisionsScope = BundleDependencies.getRevisionsFrom(bundleScope);
-		final Collection<BundleRevision> bundleRevisions = BundleDependencies.getRevisionsFrom(bundles);
-		for (final BundleRevision bundleRevision : bundleRevisions) {
-			visitRequiringBundle(bundleRevision, null, bundleRevisionsScope, new LinkedHashSet<BundleRevision>());
-		}
-		if (null != circularException) {
-			throw circularException;
-		}
-		return bundleOrder;
-	}
-
-	/**
-	 * Traverse the partial graph of the specified child as the initial bundle. The graph is in dependency order
-	 * and added to the internal stored bundle order which is accessible from {@linkplain #getBundleOrder()}.
-	 * Any cycles in the graph are stored in {@linkplain CircularReferenceException}
-	 * 
-	 * @param child the initial providing bundle
-	 * @param parent a requiring bundle to the {@code child} bundle parameter. May be null.
-	 * @param scope limit the set of bundles to search for dependencies relative to the workspace
-	 * @param visited is a list of bundles in the current call stack (used for detecting cycles)
-	 */
-	protected void visitRequiringBundle(final BundleRevision child, final BundleRevision parent,
-			final Collection<BundleRevision> scope, final Collection<BundleRevision> visited) {
-
-		final Bundle childBundle = child.getBundle();
-		// Has this start bundle element been visited before (not through recursion)
-		if (!bundleOrder.contains(childBundle)) {
-			// If visited before during this nested sequence of recursive calls, it's a cycle
-			if (visited.contains(child)) {
-				if (null != parent) {
-					handleBundleCycle(childBundle, parent.getBundle());
-				} else {
-					handleBundleCycle(childBundle, null);
-				}
-				return;
-			}
-			visited.add(child);
-			final Collection<BundleRevision> requirers = BundleDependencies.getDirectRequiringBundles(child, scope);
-			for (final BundleRevision requirer : requirers) {
-				visitRequiringBundle(requirer, child, scope, visited);
-			}
-			bundleOrder.add(childBundle);
-		}
-	}
-
-	/**
-	 * Traverse the partial graph of the specified child as the initial bundle. The graph is in dependency order
-	 * and added to the internal stored bundle order which is accessible from {@linkplain #getBundleOrder()}.
-	 * Any cycles in the graph are stored in {@linkplain CircularReferenceException}
-	 * 
-	 * @param child the initial providing bundle
-	 * @param parent a requiring bundle to the {@code child} bundle parameter. May be null.
-	 * @param scope limit the set of bundles to search for dependencies relative to the workspace
-	 * @param visited is a list of bundles in the current call stack (used for detecting cycles)
-	 */
-	protected void visitRequiringBundle(Bundle child, Bundle parent, Collection<Bundle> scope,
-			Collection<Bundle> visited) throws CircularReferenceException {
-
-		// Has this start bundle element been visited before (not through recursion)
-		if (!bundleOrder.contains(child)) {
-			// If visited before during this nested sequence of recursive calls, it's a cycle
-			if (visited.contains(child)) {
-				handleBundleCycle(child, parent);
-				return;
-			}
-			visited.add(child);
-			final Collection<Bundle> requirers = getDirectRequiringBundles(child, scope);
-			for (final Bundle requirer : requirers) {
-				visitRequiringBundle(requirer, child, scope, visited);
-			}
-			bundleOrder.add(child);
-		}
+		return sortRevisions(BundleDependencies.getRevisionsFrom(bundles),
+				new TopologicalSort.Adjacency<BundleRevision>() {
+					@Override
+					public Collection<BundleRevision> getAdjacent(BundleRevision bundleRevision) {
+						return BundleDependencies.getDirectRequiringBundles(bundleRevision, bundleRevisionsScope);
+					}
+				});
 	}
 
 	/**
@@ -234,21 +196,14 @@ public class BundleSorter extends BaseSorter {
 	public Collection<Bundle> getDirectRequiringBundles(final Bundle bundle, final Collection<Bundle> scope) {
 
 		if (null != bundle) {
-			BundleWiring wiredReqBundle = bundle.adapt(BundleWiring.class);
-			if (null != wiredReqBundle && wiredReqBundle.isInUse()) {
-				final List<Bundle> requiredBundles = new ArrayList<Bundle>();
-				// Get the capabilities from all name spaces
-				for (BundleWire wire : wiredReqBundle.getProvidedWires(null)) {
-					Bundle reqBundle = wire.getRequirerWiring().getBundle();
-					if (null != reqBundle && WorkspaceRegionImpl.INSTANCE.exist(reqBundle)) {
-						// Restrict to scope
-						if (scope.contains(reqBundle)) {
-							requiredBundles.add(reqBundle);
-						}
-					}
+			final List<Bundle> requiredBundles = new ArrayList<Bundle>();
+			for (Bundle reqBundle : dependencyGraph.getRequiringBundles(bundle)) {
+				// Restrict to scope
+				if (scope.contains(reqBundle)) {
+					requiredBundles.add(reqBundle);
 				}
-				return requiredBundles;
 			}
+			return requiredBundles;
 		}
 		return Collections.emptyList();
 	}
@@ -281,24 +236,17 @@ public class BundleSorter extends BaseSorter {
 	 */
 	public Collection<Bundle> sortProvidingBundles(final Collection<Bundle> bundles, final Collection<Bundle> bundleScope)
 			throws CircularReferenceException {
-		circularException = null;
-		removalPendingBundles = BundleCommandImpl.INSTANCE.getRemovalPending();
+		removalPendingBundles = dependencyGraph.getRemovalPending();
 		removalPendingBundles.retainAll(bundleScope);
 		if (removalPendingBundles.size() > 0) {
-			sortDeclaredProvidingBundles(bundles, bundleScope);
-		} else {
-			bundleOrder = new LinkedHashSet<Bundle>();
-			if (null == bundles) {
-				return bundleOrder;
-			}
-			for (final Bundle bundle : bundles) {
-				visitProvidingBundle(bundle, null, bundleScope, new LinkedHashSet<Bundle>());
-			}
-		}
-		if (null != circularException) {
-			throw circularException;
+			return sortDeclaredProvidingBundles(bundles, bundleScope);
 		}
-		return bundleOrder;
+		return sortBundles(bundles, new TopologicalSort.Adjacency<Bundle>() {
+			@Override
+			public Collection<Bundle> getAdjacent(Bundle bundle) {
+				return getDirectProvidingBundles(bundle, bundleScope);
+			}
+		});
 	}
 
 	/**
@@ -316,174 +264,168 @@ public class BundleSorter extends BaseSorter {
 	public Collection<Bundle> sortDeclaredProvidingBundles(final Collection<Bundle> bundles, final Collection<Bundle> bundleScope)
 			throws CircularReferenceException {
 
-		bundleOrder = new LinkedHashSet<Bundle>();
 		if (null == bundles) {
-			return bundleOrder;
+			return sortBundles(null, null);
 		}
-		circularException = null;
 		final Collection<BundleRevision> bundleRevisionsScope = BundleDependencies.getRevisionsFrom(bundleScope);
-		final Collection<BundleRevision> bundleRevisions = BundleDependencies.getRevisionsFrom(bundles);
-		for (final BundleRevision bundleRevision : bundleRevisions) {
-			visitProvidingBundle(bundleRevision, null, bundleRevisionsScope, new LinkedHashSet<BundleRevision>());
-		}
-		if (null != circularException) {
-			throw circularException;
-		}
-		return bundleOrder;
+		return sortRevisions(BundleDependencies.getRevisionsFrom(bundles),
+				new TopologicalSort.Adjacency<BundleRevision>() {
+					@Override
+					public Collection<BundleRevision> getAdjacent(BundleRevision bundleRevision) {
+						return BundleDependencies.getDirectProvidingBundles(bundleRevision, bundleRevisionsScope);
+					}
+				});
 	}
 
 	/**
-	 * Traverse the partial graph of the specified child as the initial bundle. The graph is in dependency order
-	 * and added to the internal stored bundle order which is accessible from {@linkplain #getBundleOrder()}.
-	 * Any cycles in the graph are stored in {@linkplain CircularReferenceException}
+	 * Get the neighboring bundles that provides capabilities to this bundle.
 	 * 
-	 * @param child the initial requiring bundle
-	 * @param parent a providing bundle to the {@code child} bundle parameter. May be null.
-	 * @param scope limit the set of bundles to search for dependencies relative to the workspace
-	 * @param visited is a list of bundles in the current call stack (used for detecting cycles)
+	 * @param bundle that requires capabilities from other bundles
+	 * @param scope the scope of bundles to include in the result
+	 * @return set of neighboring bundles who provide capabilities to the specified bundle
 	 */
-	protected void visitProvidingBundle(final BundleRevision child, final BundleRevision parent,
-			final Collection<BundleRevision> scope, final Collection<BundleRevision> visited) {
-
-		final Bundle childBundle = child.getBundle();
-		// Has this start bundle element been visited before (not through recursion)
-		if (!bundleOrder.contains(childBundle)) {
-			// If visited before during this nested sequence of recursive calls, it's a cycle
-			if (visited.contains(child)) {
-				if (null != parent) {
-					handleBundleCycle(childBundle, parent.getBundle());
-				} else {
-					handleBundleCycle(childBundle, null);
+	public Collection<Bundle> getDirectProvidingBundles(final Bundle bundle, final Collection<Bundle> scope) {
+
+		if (null != bundle) {
+			List<Bundle> providedBundles = new ArrayList<Bundle>();
+			for (Bundle provBundle : dependencyGraph.getProvidingBundles(bundle)) {
+				// Adjust to scope
+				if (scope.contains(provBundle)) {
+					providedBundles.add(provBundle);
 				}
-				return;
-			}
-			visited.add(child);
-			Collection<BundleRevision> providers = null;
-			providers = BundleDependencies.getDirectProvidingBundles(child, scope);
-			for (final BundleRevision provider : providers) {
-				visitProvidingBundle(provider, child, scope, visited);
 			}
-			bundleOrder.add(childBundle);
+			return providedBundles;
 		}
+		return Collections.emptyList();
 	}
 
 	/**
-	 * Traverse the partial graph of the specified child as the initial bundle. The graph is in dependency order
-	 * and added to the internal stored bundle order which is accessible from {@linkplain #getBundleOrder()}.
-	 * Any cycles in the graph are stored in {@linkplain CircularReferenceException}
+	 * Sort the specified bundles and all bundles reachable from them in the direction of the sort and
+	 * store the result. Any cycles in the graph are stored in {@linkplain CircularReferenceException}
 	 * 
-	 * @param child the initial requiring bundle
-	 * @param parent a providing bundle to the {@code child} bundle parameter. May be null.
-	 * @param scope limit the set of bundles to search for dependencies relative to the workspace
-	 * @param visited is a list of bundles in the current call stack (used for detecting cycles)
+	 * @param bundles the initial bundles. May be null.
+	 * @param adjacency the neighboring bundles of a bundle in the direction of the sort
+	 * @return collection of bundles in sort order
+	 * @throws CircularReferenceException if cycles are detected in the bundle graph
 	 */
-	protected void visitProvidingBundle(Bundle child, Bundle parent, Collection<Bundle> scope,
-			Collection<Bundle> visited) {
-
-		// Has this start bundle element been visited before (not through recursion)
-		if (!bundleOrder.contains(child)) {
-			// If visited before during this nested sequence of recursive calls, it's a cycle
-			if (visited.contains(child)) {
-				handleBundleCycle(child, parent);
-				return;
-			}
-			visited.add(child);
-			Collection<Bundle> providers = null;
-			providers = getDirectProvidingBundles(child, scope);
-			for (final Bundle provider : providers) {
-				visitProvidingBundle(provider, child, scope, visited);
+	private Collection<Bundle> sortBundles(final Collection<Bundle> bundles,
+			final TopologicalSort.Adjacency<Bundle> adjacency) throws CircularReferenceException {
+
+		circularException = null;
+		bundleOrder = new LinkedHashSet<Bundle>();
+		bundleWaves = null;
+		if (null == bundles) {
+			return bundleOrder;
+		}
+		TopologicalSort<Bundle> sort = new TopologicalSort<>(adjacency);
+		bundleOrder.addAll(sort.sort(bundles));
+		bundleWaves = sort.getWaves();
+		Collection<Bundle> fragments = new ArrayList<>();
+		for (List<Bundle> cycle : sort.getCycles()) {
+			for (Bundle bundle : cycle) {
+				if (isFragment(bundle)) {
+					fragments.add(bundle);
+				}
 			}
-			bundleOrder.add(child);
 		}
+		for (List<Bundle> cycle : getCycles(sort, fragments)) {
+			handleBundleCycle(cycle);
+		}
+		if (null != circularException) {
+			throw circularException;
+		}
+		return bundleOrder;
 	}
 
 	/**
-	 * Get the neighboring bundles that provides capabilities to this bundle.
+	 * Sort the specified bundle revisions and all bundle revisions reachable from them in the direction of
+	 * the sort and store the result as bundles. Any cycles in the graph are stored in
+	 * {@linkplain CircularReferenceException}
 	 * 
-	 * @param bundle that requires capabilities from other bundles
-	 * @param scope the scope of bundles to include in the result
-	 * @return set of neighboring bundles who provide capabilities to the specified bundle
+	 * @param bundleRevisions the initial bundle revisions
+	 * @param adjacency the neighboring bundle revisions of a bundle revision in the direction of the sort
+	 * @return collection of bundles in sort order
+	 * @throws CircularReferenceException if cycles are detected in the bundle graph
 	 */
-	public Collection<Bundle> getDirectProvidingBundles(final Bundle bundle, final Collection<Bundle> scope) {
+	private Collection<Bundle> sortRevisions(final Collection<BundleRevision> bundleRevisions,
+			final TopologicalSort.Adjacency<BundleRevision> adjacency) throws CircularReferenceException {
 
-		if (null != bundle) {
-			BundleWiring wiredProvBundle = bundle.adapt(BundleWiring.class);
-			if (null != wiredProvBundle && wiredProvBundle.isInUse()) {
-				List<Bundle> providedBundles = new ArrayList<Bundle>();
-				// Get the requirements from all name spaces
-				for (BundleWire wire : wiredProvBundle.getRequiredWires(null)) {
-					Bundle provBundle = wire.getProviderWiring().getBundle();
-					if (null != provBundle && WorkspaceRegionImpl.INSTANCE.exist(provBundle)) {
-						// Adjust to scope
-						if (scope.contains(provBundle)) {
-							providedBundles.add(provBundle);
-						}
-					}
+		circularException = null;
+		TopologicalSort<BundleRevision> sort = new TopologicalSort<>(adjacency);
+		bundleOrder = new LinkedHashSet<Bundle>(toBundles(sort.sort(bundleRevisions)));
+		bundleWaves = new ArrayList<>();
+		for (List<BundleRevision> wave : sort.getWaves()) {
+			bundleWaves.add(toBundles(wave));
+		}
+		Collection<BundleRevision> fragments = new ArrayList<>();
+		for (List<BundleRevision> cycle : sort.getCycles()) {
+			for (BundleRevision bundleRevision : cycle) {
+				if ((bundleRevision.getTypes() & BundleRevision.TYPE_FRAGMENT) != 0) {
+					fragments.add(bundleRevision);
 				}
-				return providedBundles;
 			}
 		}
-		return Collections.emptyList();
+		for (List<BundleRevision> cycle : getCycles(sort, fragments)) {
+			handleBundleCycle(toBundles(cycle));
+		}
+		if (null != circularException) {
+			throw circularException;
+		}
+		return bundleOrder;
+	}
+
+	private static List<Bundle> toBundles(Collection<BundleRevision> bundleRevisions) {
+
+		List<Bundle> bundles = new ArrayList<>(bundleRevisions.size());
+		for (BundleRevision bundleRevision : bundleRevisions) {
+			Bundle bundle = bundleRevision.getBundle();
+			if (!bundles.contains(bundle)) {
+				bundles.add(bundle);
+			}
+		}
+		return bundles;
 	}
 
 	/**
 	 * Adds bundles included in the cycle and a status message describing the cycle to the
-	 * {@linkplain CircularReferenceException}.
+	 * {@linkplain CircularReferenceException}. A cycle with one bundle is a self reference.
 	 * 
-	 * @param child bundle that refers to the parent bundle parameter
-	 * @param parent bundle that refers to the child bundle parameter
+	 * @param cycle bundles in a strongly connected component of the bundle graph
 	 */
-	protected void handleBundleCycle(final Bundle child, final Bundle parent) {
-		boolean directRecursion = false;
-		// Self reference
-		if (parent == child) {
-			if (getAllowSelfReference()) {
-				return;
-			}
-			directRecursion = true;
-		}
-		if (null == child || null == parent) {
+	protected void handleBundleCycle(final List<Bundle> cycle) {
+
+		if (cycle.isEmpty()) {
 			String msg = ExceptionMessage.getInstance().formatString("internal_error_detecting_cycles");
 			throw new CircularReferenceException(msg);
 		}
-		// Hosts can import packages from fragment (no complaints from Equinox),
-		// even if fragment is an inherent part of the host. Is this a kind of self reference?
-		// Must check both parent and child, due to traversal order (providing or requiring)
-		if (!getAllowCycles() && (!isFragment(child) && !isFragment(parent))) {
-			BundleSorter bs = new BundleSorter();
-			bs.setAllowCycles(true);
-			Collection<Bundle> bundles = bs.sortDeclaredRequiringBundles(Collections.<Bundle>singletonList(parent), WorkspaceRegionImpl.INSTANCE.getBundles());
-			bundles.addAll(bs.sortDeclaredRequiringBundles(Collections.<Bundle>singletonList(child), WorkspaceRegionImpl.INSTANCE.getBundles()));
-			if (null == circularException) {
-				circularException = new CircularReferenceException();
-			}
-			String msg = ExceptionMessage.getInstance().formatString("affected_bundles",
-					WorkspaceRegionImpl.INSTANCE.formatBundleList(bundles, false));
-			circularException.addToStatusList(new BundleStatus(StatusCode.INFO, Activator.PLUGIN_ID, msg, null));
-			if (directRecursion) {
-				msg = ExceptionMessage.getInstance().formatString("direct_circular_reference_with_bundles",
-						parent.getSymbolicName());
-			} else {
-				msg = ExceptionMessage.getInstance().formatString("circular_reference_with_bundles",
-						parent.getSymbolicName(), child.getSymbolicName());
-			}
-			circularException.addToStatusList(new BundleStatus(StatusCode.EXCEPTION, Activator.PLUGIN_ID, msg, null));
-			circularException.addBundles(bundles);
-			
-			// Parent
-			BundleRegion bundleRegion = WorkspaceRegionImpl.INSTANCE;
-			BundleTransition bundleTransition = BundleTransitionImpl.INSTANCE;
-			msg = ExceptionMessage.getInstance().formatString("circular_reference_termination");
+		BundleSorter bs = new BundleSorter();
+		bs.setAllowCycles(true);
+		Collection<Bundle> bundles = bs.sortDeclaredRequiringBundles(cycle, WorkspaceRegionImpl.INSTANCE.getBundles());
+		if (null == circularException) {
+			circularException = new CircularReferenceException();
+		}
+		String msg = ExceptionMessage.getInstance().formatString("affected_bundles",
+				WorkspaceRegionImpl.INSTANCE.formatBundleList(bundles, false));
+		circularException.addToStatusList(new BundleStatus(StatusCode.INFO, Activator.PLUGIN_ID, msg, null));
+		if (cycle.size() == 1) {
+			msg = ExceptionMessage.getInstance().formatString("direct_circular_reference_with_bundles",
+					cycle.get(0).getSymbolicName());
+		} else {
+			msg = ExceptionMessage.getInstance().formatString("circular_reference_in_bundles",
+					WorkspaceRegionImpl.INSTANCE.formatBundleList(cycle, false));
+		}
+		circularException.addToStatusList(new BundleStatus(StatusCode.EXCEPTION, Activator.PLUGIN_ID, msg, null));
+		circularException.addBundles(bundles);
+		circularException.addBundleCycle(cycle);
+
+		BundleRegion bundleRegion = WorkspaceRegionImpl.INSTANCE;
+		BundleTransition bundleTransition = BundleTransitionImpl.INSTANCE;
+		msg = ExceptionMessage.getInstance().formatString("circular_reference_termination");
+		for (Bundle bundle : cycle) {
 			IBundleStatus multiStatus = new BundleStatus(StatusCode.EXCEPTION, Activator.PLUGIN_ID,
-					parent, msg, circularException);
-			multiStatus.add(circularException.getStatusList());
-			bundleTransition.setBuildStatus(bundleRegion.getProject(parent), TransitionError.BUILD_CYCLE, multiStatus);
-			// Child
-			multiStatus = new BundleStatus(StatusCode.EXCEPTION, Activator.PLUGIN_ID,
-					child, msg, circularException);
+					bundle, msg, circularException);
 			multiStatus.add(circularException.getStatusList());
-			bundleTransition.setBuildStatus(bundleRegion.getProject(child), TransitionError.BUILD_CYCLE, multiStatus);
-
+			bundleTransition.setBuildStatus(bundleRegion.getProject(bundle), TransitionError.BUILD_CYCLE, multiStatus);
 		}
 	}
 
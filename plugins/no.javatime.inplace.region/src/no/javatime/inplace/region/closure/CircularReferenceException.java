@@ -25,13 +25,16 @@ import org.osgi.framework.Bundle;
  * Circular references in projects and in bundles.
  * <p>
  * All elements (projects or bundles) included in cycles and a list of status objects, one for each cycle, is
- * registered and can be obtained from the exception.
+ * registered and can be obtained from the exception. Each cycle is a strongly connected component of
+ * the dependency graph and is also registered separately.
  */
 public class CircularReferenceException extends RuntimeException {
 
 	private static final long serialVersionUID = -6180458290568463709L;
 	private transient Collection<Bundle> bundles;
 	private transient Collection<IProject> projects;
+	private transient Collection<Collection<Bundle>> bundleCycles;
+	private transient Collection<Collection<IProject>> projectCycles;
 	private Collection<IBundleStatus> statuslist = new ArrayList<IBundleStatus>();
 
 	/**
@@ -132,4 +135,47 @@ public class CircularReferenceException extends RuntimeException {
 		}
 		projects.add(project);
 	}
+
+	/**
+	 * Get all bundle cycles. Each cycle is the complete set of bundles in a strongly connected component
+	 * 
+	 * @return the set of bundle cycles or null
+	 */
+	public Collection<Collection<Bundle>> getBundleCycles() {
+		return bundleCycles;
+	}
+
+	/**
+	 * Add a strongly connected component of bundles. A cycle with one bundle is a self reference
+	 * 
+	 * @param cycle bundles in the same cycle
+	 */
+	public void addBundleCycle(Collection<Bundle> cycle) {
+		if (null == bundleCycles) {
+			bundleCycles = new ArrayList<Collection<Bundle>>();
+		}
+		bundleCycles.add(cycle);
+	}
+
+	/**
+	 * Get all project cycles. Each cycle is the complete set of projects in a strongly connected
+	 * component
+	 * 
+	 * @return the set of project cycles or null
+	 */
+	public Collection<Collection<IProject>> getProjectCycles() {
+		return projectCycles;
+	}
+
+	/**
+	 * Add a strongly connected component of projects. A cycle with one project is a self reference
+	 * 
+	 * @param cycle projects in the same cycle
+	 */
+	public void addProjectCycle(Collection<IProject> cycle) {
+		if (null == projectCycles) {
+			projectCycles = new ArrayList<Collection<IProject>>();
+		}
+		projectCycles.add(cycle);
+	}
 }
@@ -0,0 +1,265 @@
+/*******************************************************************************
+ * Copyright (c) 2011, 2012 JavaTime project and others
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ * 	JavaTime project, Eirik Gronsund - initial implementation
+ *******************************************************************************/
+package no.javatime.inplace.region.closure;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import no.javatime.inplace.region.closure.ProjectBuildErrorClosure.ActivationScope;
+import no.javatime.inplace.region.intface.InPlaceException;
+import no.javatime.inplace.region.manager.WorkspaceRegionImpl;
+
+import org.eclipse.core.resources.IProject;
+
+/**
+ * Partitions nodes into the connected components of the undirected dependency graph using
+ * union-find. Requiring and providing dependencies are treated alike, so two nodes are in the same
+ * component if there is a path of dependencies in any direction between them.
+ * <p>
+ * The components are built in one pass over the nodes reachable from the added nodes. A node is
+ * tainted by errors if it is in the same component as a node with errors. This replaces computing
+ * providing and requiring closures of error and legal nodes repeatedly until they no longer overlap.
+ * The result may include nodes connected to error nodes through a path that changes direction more
+ * than once, which the closures only include after several iterations.
+ *
+ * @param <T> the node type
+ */
+public class DependencyComponents<T> {
+
+	/**
+	 * The nodes adjacent to a node in both directions
+	 *
+	 * @param <T> the node type
+	 */
+	public interface Neighbors<T> {
+
+		/**
+		 * Get the requiring and providing nodes of the specified node. Nodes outside the scope of the
+		 * partition should not be returned.
+		 *
+		 * @param node the node to get the neighbors of
+		 * @return the neighbors. Never null.
+		 * @throws InPlaceException if the dependencies of the node could not be obtained
+		 */
+		Collection<T> getNeighbors(T node) throws InPlaceException;
+	}
+
+	private final Neighbors<T> neighbors;
+	// Visited nodes and their ids in visit order
+	private final Map<T, Integer> ids = new HashMap<>();
+	private final List<T> nodes = new ArrayList<>();
+	private int[] parent = new int[16];
+	private int[] rank = new int[16];
+
+	/**
+	 * Create a partition over the graph given by the specified neighbors
+	 *
+	 * @param neighbors the requiring and providing nodes of each node
+	 */
+	public DependencyComponents(Neighbors<T> neighbors) {
+		this.neighbors = neighbors;
+	}
+
+	/**
+	 * Add the specified nodes and all nodes reachable from them to the partition
+	 *
+	 * @param startNodes nodes to add
+	 * @throws InPlaceException if the dependencies of a node could not be obtained
+	 */
+	public void add(Collection<T> startNodes) throws InPlaceException {
+
+		Deque<T> queue = new ArrayDeque<>();
+		for (T node : startNodes) {
+			if (!ids.containsKey(node)) {
+				addNode(node);
+				queue.add(node);
+			}
+		}
+		while (!queue.isEmpty()) {
+			T node = queue.poll();
+			int id = ids.get(node);
+			for (T neighbor : neighbors.getNeighbors(node)) {
+				Integer neighborId = ids.get(neighbor);
+				if (null == neighborId) {
+					neighborId = addNode(neighbor);
+					queue.add(neighbor);
+				}
+				union(id, neighborId);
+			}
+		}
+	}
+
+	/**
+	 * Check if the specified nodes are in the same component
+	 *
+	 * @param node a node in the partition
+	 * @param other another node in the partition
+	 * @return true if both nodes are added and in the same component. Otherwise false.
+	 */
+	public boolean isConnected(T node, T other) {
+
+		Integer id = ids.get(node);
+		Integer otherId = ids.get(other);
+		return null != id && null != otherId && find(id) == find(otherId);
+	}
+
+	/**
+	 * Get all nodes in the same components as the specified error nodes. Error nodes not added to the
+	 * partition are ignored.
+	 *
+	 * @param errors nodes with errors
+	 * @return the error nodes and all nodes connected to them in the order they were added. Never
+	 * null.
+	 */
+	public Collection<T> getTainted(Collection<T> errors) {
+
+		Set<Integer> roots = getRoots(errors);
+		Collection<T> tainted = new LinkedHashSet<>();
+		if (roots.isEmpty()) {
+			return tainted;
+		}
+		for (int id = 0; id < nodes.size(); id++) {
+			if (roots.contains(find(id))) {
+				tainted.add(nodes.get(id));
+			}
+		}
+		return tainted;
+	}
+
+	/**
+	 * Get the specified nodes that are not in the same component as any of the specified error nodes
+	 *
+	 * @param candidates nodes to partition
+	 * @param errors nodes with errors
+	 * @return the candidates with no path to an error node in the order of the candidates. Never null.
+	 */
+	public Collection<T> getClean(Collection<T> candidates, Collection<T> errors) {
+
+		Set<Integer> roots = getRoots(errors);
+		Collection<T> clean = new LinkedHashSet<>();
+		for (T node : candidates) {
+			Integer id = ids.get(node);
+			if (null == id || !roots.contains(find(id))) {
+				clean.add(node);
+			}
+		}
+		return clean;
+	}
+
+	/**
+	 * Create a partition of projects where dependencies are restricted to projects in the specified
+	 * scope. Added projects are members of the partition even if they are outside the scope.
+	 *
+	 * @param scope activated, deactivated or all bundle projects
+	 * @return an empty partition of projects
+	 */
+	public static DependencyComponents<IProject> getProjectComponents(final ActivationScope scope) {
+
+		return getProjectComponents(ProjectDependencyGraph.INSTANCE, scope);
+	}
+
+	/**
+	 * Create a partition of projects in the specified dependency graph where dependencies are
+	 * restricted to projects in the specified scope
+	 *
+	 * @param dependencyGraph the references between projects
+	 * @param scope activated, deactivated or all bundle projects
+	 * @return an empty partition of projects
+	 */
+	static DependencyComponents<IProject> getProjectComponents(
+			final ProjectDependencyGraph dependencyGraph, final ActivationScope scope) {
+
+		return new DependencyComponents<>(new Neighbors<IProject>() {
+			@Override
+			public Collection<IProject> getNeighbors(IProject project) throws InPlaceException {
+
+				Collection<IProject> projects = new LinkedHashSet<>();
+				projects.addAll(dependencyGraph.getProvidingProjects(project));
+				projects.addAll(dependencyGraph.getRequiringProjects(project));
+				if (scope != ActivationScope.ALL) {
+					WorkspaceRegionImpl bundleRegion = WorkspaceRegionImpl.INSTANCE;
+					boolean activated = scope == ActivationScope.ACTIVATED;
+					for (Iterator<IProject> it = projects.iterator(); it.hasNext();) {
+						if (bundleRegion.isBundleActivated(it.next()) != activated) {
+							it.remove();
+						}
+					}
+				}
+				return projects;
+			}
+		});
+	}
+
+	private Set<Integer> getRoots(Collection<T> errors) {
+
+		Set<Integer> roots = new HashSet<>();
+		for (T node : errors) {
+			Integer id = ids.get(node);
+			if (null != id) {
+				roots.add(find(id));
+			}
+		}
+		return roots;
+	}
+
+	private int addNode(T node) {
+
+		int id = nodes.size();
+		ids.put(node, id);
+		nodes.add(node);
+		if (id == parent.length) {
+			parent = Arrays.copyOf(parent, id << 1);
+			rank = Arrays.copyOf(rank, id << 1);
+		}
+		parent[id] = id;
+		rank[id] = 0;
+		return id;
+	}
+
+	/**
+	 * Find the root of the component of the specified node and halve the path to it
+	 */
+	private int find(int id) {
+
+		while (parent[id] != id) {
+			parent[id] = parent[parent[id]];
+			id = parent[id];
+		}
+		return id;
+	}
+
+	private void union(int id, int otherId) {
+
+		int root = find(id);
+		int otherRoot = find(otherId);
+		if (root == otherRoot) {
+			return;
+		}
+		if (rank[root] < rank[otherRoot]) {
+			parent[root] = otherRoot;
+		} else if (rank[root] > rank[otherRoot]) {
+			parent[otherRoot] = root;
+		} else {
+			parent[otherRoot] = root;
+			rank[root]++;
+		}
+	}
+}
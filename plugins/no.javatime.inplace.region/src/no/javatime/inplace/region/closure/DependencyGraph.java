@@ -0,0 +1,342 @@
+/*******************************************************************************
+ * Copyright (c) 2011, 2012 JavaTime project and others
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ * 	JavaTime project, Eirik Gronsund - initial implementation
+ *******************************************************************************/
+package no.javatime.inplace.region.closure;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import no.javatime.inplace.region.intface.InPlaceException;
+
+/**
+ * In-memory dependency graph where each node is assigned an id on first use. The providers and the
+ * requirers of a node are stored as adjacency arrays indexed by the id of the node.
+ * <p>
+ * Providers are read on demand from the underlying model by the subclasses. Requirers are the inverse
+ * of the providers and are patched incrementally each time the providers of a node are read. Nodes
+ * are invalidated one at a time or all together and read again on the next query. All nodes are
+ * loaded on the first query and after the graph has been invalidated as a whole. Nodes with
+ * providers that may change without the node being invalidated are read again before each query.
+ * <p>
+ * The id of a removed node is reused when all nodes that referred to the removed node have been read
+ * again. The graph is not filtered. Any scope and node type restrictions are left to the callers.
+ *
+ * @param <T> the node type
+ */
+abstract class DependencyGraph<T> {
+
+	private final static int[] NO_EDGES = new int[0];
+
+	private final Map<T, Integer> ids = new HashMap<>();
+	private final List<T> nodes = new ArrayList<>();
+
+	// Providers of each node
+	private int[][] providers = new int[16][];
+	// Providers the node is registered as a requirer at. Always includes the providers of the node
+	private int[][] inverseProviders = new int[16][];
+	// Requirers of each node with the number of requirers in use
+	private int[][] requirers = new int[16][];
+	private int[] requirerCount = new int[16];
+
+	// Failures reading the providers of a node, thrown when the providers of the node are requested
+	private final Map<Integer, InPlaceException> errors = new HashMap<>();
+	// Nodes to read again before the next query
+	private final BitSet dirty = new BitSet();
+	// Nodes to read again before each query
+	private final BitSet volatileNodes = new BitSet();
+	// Ids of removed nodes still referred to by other nodes
+	private final BitSet released = new BitSet();
+	// Ids available for reuse
+	private final BitSet free = new BitSet();
+	private boolean isLoaded;
+
+	/**
+	 * All nodes to load into the graph on the first query and after the graph has been invalidated
+	 *
+	 * @return the nodes of the graph
+	 */
+	protected abstract Collection<T> getNodes();
+
+	/**
+	 * Read the direct providers of the specified node from the underlying model
+	 *
+	 * @param node the node to read the providers of
+	 * @return the providers of the specified node without duplicates. Never null.
+	 * @throws InPlaceException if the providers could not be read. The exception is thrown each time
+	 *           the providers of the node are requested until the node is read again
+	 */
+	protected abstract Collection<T> readProviders(T node) throws InPlaceException;
+
+	/**
+	 * Read the providers where the specified node should be registered as a requirer. The default is
+	 * the providers of the node.
+	 *
+	 * @param node the node to read the providers of
+	 * @param providers the providers of the specified node
+	 * @return a super set of the providers of the specified node without duplicates. Never null.
+	 */
+	protected Collection<T> readInverseProviders(T node, Collection<T> providers) {
+		return providers;
+	}
+
+	/**
+	 * Check whether requirers of the specified node should be reported at the time of a query. The
+	 * default is true.
+	 *
+	 * @param node the node to get the requirers of
+	 * @return true if requirers of the node should be returned and false to return no requirers
+	 */
+	protected boolean hasRequirers(T node) {
+		return true;
+	}
+
+	/**
+	 * Check whether the providers of the specified node may change without the node being
+	 * invalidated. The default is false.
+	 *
+	 * @param node the node to check
+	 * @return true to read the providers of the node again before each query and false to keep the
+	 *         providers until the node is invalidated
+	 */
+	protected boolean isVolatile(T node) {
+		return false;
+	}
+
+	/**
+	 * Read the providers of the specified node again on the next query. A node not in the graph is
+	 * added.
+	 *
+	 * @param node the node to invalidate. Ignored if null.
+	 */
+	public synchronized void invalidate(T node) {
+
+		if (null != node) {
+			dirty.set(getId(node));
+		}
+	}
+
+	/**
+	 * Load all nodes and read their providers again on the next query
+	 */
+	public synchronized void invalidate() {
+		isLoaded = false;
+	}
+
+	/**
+	 * Remove the specified node from the graph. Nodes requiring the removed node are read again on the
+	 * next query.
+	 *
+	 * @param node the node to remove. Ignored if null or not in the graph.
+	 */
+	public synchronized void remove(T node) {
+
+		Integer id = null != node ? ids.remove(node) : null;
+		if (null == id) {
+			return;
+		}
+		setEdges(id, NO_EDGES, NO_EDGES);
+		for (int i = 0; i < requirerCount[id]; i++) {
+			dirty.set(requirers[id][i]);
+		}
+		requirers[id] = NO_EDGES;
+		requirerCount[id] = 0;
+		nodes.set(id, null);
+		errors.remove(id);
+		dirty.clear(id);
+		volatileNodes.clear(id);
+		released.set(id);
+	}
+
+	/**
+	 * Get the direct providers of the specified node
+	 *
+	 * @param node the node to get the providers of. Must not be null.
+	 * @return the direct providers of the specified node. Never null.
+	 * @throws InPlaceException if reading the providers of the node failed
+	 */
+	synchronized List<T> getProviders(T node) throws InPlaceException {
+
+		int id = getId(node);
+		clean();
+		InPlaceException e = errors.get(id);
+		if (null != e) {
+			throw e;
+		}
+		return toNodes(providers[id], providers[id].length);
+	}
+
+	/**
+	 * Get the direct requirers of the specified node
+	 *
+	 * @param node the node to get the requirers of. Must not be null.
+	 * @return the direct requirers of the specified node. Never null.
+	 */
+	synchronized List<T> getRequirers(T node) {
+
+		int id = getId(node);
+		clean();
+		if (!hasRequirers(node)) {
+			return Collections.emptyList();
+		}
+		return toNodes(requirers[id], requirerCount[id]);
+	}
+
+	/**
+	 * Load the graph if invalidated as a whole and read all invalidated nodes again. Unknown nodes
+	 * detected while reading providers are added and read in the same pass.
+	 */
+	private void clean() {
+
+		if (!isLoaded) {
+			for (T node : getNodes()) {
+				getId(node);
+			}
+			for (int id = 0; id < nodes.size(); id++) {
+				if (null != nodes.get(id)) {
+					dirty.set(id);
+				}
+			}
+			isLoaded = true;
+		}
+		dirty.or(volatileNodes);
+		for (int id = dirty.nextSetBit(0); id >= 0; id = dirty.nextSetBit(0)) {
+			dirty.clear(id);
+			T node = nodes.get(id);
+			Collection<T> nodeProviders = null;
+			Collection<T> nodeInverseProviders = null;
+			errors.remove(id);
+			try {
+				nodeProviders = readProviders(node);
+				nodeInverseProviders = readInverseProviders(node, nodeProviders);
+			} catch (InPlaceException e) {
+				errors.put(id, e);
+				nodeProviders = Collections.emptyList();
+				nodeInverseProviders = nodeProviders;
+			}
+			int[] providerIds = toIds(nodeProviders);
+			int[] inverseIds = nodeInverseProviders == nodeProviders ? providerIds
+					: toIds(nodeInverseProviders);
+			setEdges(id, providerIds, inverseIds);
+			volatileNodes.set(id, isVolatile(node));
+		}
+		free.or(released);
+		released.clear();
+	}
+
+	/**
+	 * Replace the providers of a node and patch the requirers of the old and new providers
+	 */
+	private void setEdges(int id, int[] newProviders, int[] newInverseProviders) {
+
+		for (int provider : inverseProviders[id]) {
+			removeRequirer(provider, id);
+		}
+		providers[id] = newProviders;
+		inverseProviders[id] = newInverseProviders;
+		for (int provider : newInverseProviders) {
+			addRequirer(provider, id);
+		}
+	}
+
+	private void addRequirer(int provider, int requirer) {
+
+		int count = requirerCount[provider];
+		int[] edges = requirers[provider];
+		if (count == edges.length) {
+			edges = Arrays.copyOf(edges, Math.max(4, count << 1));
+			requirers[provider] = edges;
+		}
+		edges[count] = requirer;
+		requirerCount[provider] = count + 1;
+	}
+
+	private void removeRequirer(int provider, int requirer) {
+
+		int count = requirerCount[provider];
+		int[] edges = requirers[provider];
+		for (int i = 0; i < count; i++) {
+			if (edges[i] == requirer) {
+				// Keep the order the requirers were added in
+				System.arraycopy(edges, i + 1, edges, i, count - i - 1);
+				requirerCount[provider] = count - 1;
+				return;
+			}
+		}
+	}
+
+	/**
+	 * Get the id of the specified node. A new node is assigned a free id and marked as invalid.
+	 */
+	private int getId(T node) {
+
+		Integer id = ids.get(node);
+		if (null != id) {
+			return id;
+		}
+		int newId = free.nextSetBit(0);
+		if (newId < 0) {
+			newId = nodes.size();
+			nodes.add(node);
+			ensureCapacity(newId + 1);
+		} else {
+			free.clear(newId);
+			nodes.set(newId, node);
+		}
+		providers[newId] = NO_EDGES;
+		inverseProviders[newId] = NO_EDGES;
+		requirers[newId] = NO_EDGES;
+		requirerCount[newId] = 0;
+		ids.put(node, newId);
+		dirty.set(newId);
+		return newId;
+	}
+
+	private void ensureCapacity(int capacity) {
+
+		if (capacity > providers.length) {
+			int length = Math.max(capacity, providers.length << 1);
+			providers = Arrays.copyOf(providers, length);
+			inverseProviders = Arrays.copyOf(inverseProviders, length);
+			requirers = Arrays.copyOf(requirers, length);
+			requirerCount = Arrays.copyOf(requirerCount, length);
+		}
+	}
+
+	private int[] toIds(Collection<T> edgeNodes) {
+
+		if (edgeNodes.isEmpty()) {
+			return NO_EDGES;
+		}
+		int[] edges = new int[edgeNodes.size()];
+		int i = 0;
+		for (T node : edgeNodes) {
+			edges[i++] = getId(node);
+		}
+		return edges;
+	}
+
+	private List<T> toNodes(int[] edges, int count) {
+
+		if (count == 0) {
+			return Collections.emptyList();
+		}
+		List<T> edgeNodes = new ArrayList<>(count);
+		for (int i = 0; i < count; i++) {
+			edgeNodes.add(nodes.get(edges[i]));
+		}
+		return edgeNodes;
+	}
+}
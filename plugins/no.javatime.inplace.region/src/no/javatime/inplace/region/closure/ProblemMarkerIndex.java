@@ -0,0 +1,282 @@
+/*******************************************************************************
+ * Copyright (c) 2011, 2012 JavaTime project and others
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ * 	JavaTime project, Eirik Gronsund - initial implementation
+ *******************************************************************************/
+package no.javatime.inplace.region.closure;
+
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+import no.javatime.inplace.region.intface.BundleProjectMeta;
+
+import org.eclipse.core.resources.IMarker;
+import org.eclipse.core.resources.IMarkerDelta;
+import org.eclipse.core.resources.IProject;
+import org.eclipse.core.resources.IResource;
+import org.eclipse.core.resources.IResourceChangeEvent;
+import org.eclipse.core.resources.IResourceDelta;
+import org.eclipse.core.runtime.CoreException;
+import org.eclipse.core.runtime.IPath;
+import org.eclipse.core.runtime.Path;
+
+/**
+ * Index of problem markers with error severity in projects. The error markers of a project are
+ * collected from the project the first time it is queried, and then kept up to date from the marker
+ * deltas of resource change events. Queries on indexed projects do not visit the markers of the
+ * project.
+ * <p>
+ * Markers collected by a query may be read in the middle of a workspace operation, and the marker
+ * deltas at the end of the operation are not relative to what was read. A project indexed by a query
+ * is therefore collected again when the next post change event is received, after which the deltas
+ * of later events apply to the indexed markers. Collecting markers and applying deltas is done
+ * under the same lock so no delta is applied to markers collected before it and then lost.
+ * <p>
+ * Listeners are notified when a project changes between having and not having compile errors.
+ * <p>
+ * The index is fed by the {@link no.javatime.inplace.region.project.ProjectIndexListener
+ * ProjectIndexListener}. A project should be removed from the index when deleted or closed.
+ */
+public class ProblemMarkerIndex {
+
+	public final static ProblemMarkerIndex INSTANCE = new ProblemMarkerIndex();
+
+	/**
+	 * Listen to projects changing between having and not having compile errors
+	 */
+	public interface ErrorStateListener {
+
+		/**
+		 * Called when the specified project changes between having and not having compile errors
+		 *
+		 * @param project the project with changed error state
+		 * @param hasErrors true if the project has compile errors and false if it has no errors
+		 */
+		public void errorStateChanged(IProject project, boolean hasErrors);
+	}
+
+	private static final IPath MANIFEST_PATH = new Path(BundleProjectMeta.MANIFEST_RELATIVE_PATH
+			+ BundleProjectMeta.MANIFEST_FILE_NAME).makeRelative();
+
+	private final ConcurrentMap<IProject, ProjectErrors> projects = new ConcurrentHashMap<>();
+	// Projects indexed by a query since the last post change event. Guarded by this
+	private final Set<IProject> provisional = new HashSet<>();
+	private final CopyOnWriteArrayList<ErrorStateListener> listeners = new CopyOnWriteArrayList<>();
+
+	/**
+	 * Check if the specified project has problem markers with error severity
+	 *
+	 * @param project the project to check
+	 * @return true if the project has error markers and false if not
+	 * @throws CoreException if the project is not indexed and it is closed or does not exist
+	 */
+	public boolean hasErrors(IProject project) throws CoreException {
+		return getErrors(project).hasErrors();
+	}
+
+	/**
+	 * Check if the manifest file at the default location in the specified project has problem
+	 * markers with error severity
+	 *
+	 * @param project the project to check
+	 * @return true if the manifest file has error markers and false if not
+	 * @throws CoreException if the project is not indexed and it is closed or does not exist
+	 */
+	public boolean hasManifestErrors(IProject project) throws CoreException {
+		return getErrors(project).hasManifestErrors();
+	}
+
+	/**
+	 * Remove the specified project from the index. The project is indexed again the next time it is
+	 * queried.
+	 *
+	 * @param project a deleted or closed project
+	 */
+	public synchronized void remove(IProject project) {
+		projects.remove(project);
+		provisional.remove(project);
+	}
+
+	/**
+	 * Update indexed projects with the problem marker deltas of the specified resource change event
+	 * and notify listeners of projects changing error state. On post change events projects indexed
+	 * by a query since the previous post change event are collected again.
+	 *
+	 * @param event a resource change event with marker deltas
+	 */
+	public void update(IResourceChangeEvent event) {
+
+		IMarkerDelta[] deltas = event.findMarkerDeltas(IMarker.PROBLEM, true);
+		// Error state before the event of changed projects
+		Map<IProject, Boolean> changed = new LinkedHashMap<>();
+		synchronized (this) {
+			for (IMarkerDelta delta : deltas) {
+				IResource resource = delta.getResource();
+				IProject project = resource.getProject();
+				ProjectErrors errors = null != project ? projects.get(project) : null;
+				if (null == errors) {
+					// Collected from the current markers when first queried
+					continue;
+				}
+				if (!changed.containsKey(project)) {
+					changed.put(project, errors.hasErrors());
+				}
+				boolean isManifest = resource.getType() == IResource.FILE
+						&& MANIFEST_PATH.equals(resource.getProjectRelativePath());
+				if (delta.getKind() == IResourceDelta.REMOVED) {
+					errors.remove(delta.getId());
+				} else {
+					int severity = delta.getKind() == IResourceDelta.ADDED ? delta.getAttribute(
+							IMarker.SEVERITY, IMarker.SEVERITY_INFO) : delta.getMarker().getAttribute(
+							IMarker.SEVERITY, IMarker.SEVERITY_INFO);
+					if (IMarker.SEVERITY_ERROR == severity) {
+						errors.add(delta.getId(), isManifest);
+					} else {
+						errors.remove(delta.getId());
+					}
+				}
+			}
+			if (event.getType() == IResourceChangeEvent.POST_CHANGE) {
+				// The workspace can not change while post change listeners run
+				for (Iterator<IProject> it = provisional.iterator(); it.hasNext();) {
+					IProject project = it.next();
+					it.remove();
+					ProjectErrors errors = projects.get(project);
+					if (!changed.containsKey(project)) {
+						changed.put(project, errors.hasErrors());
+					}
+					try {
+						collect(project, errors);
+					} catch (CoreException e) {
+						// Closed or deleted. Indexed again when queried
+						projects.remove(project);
+					}
+				}
+			}
+		}
+		for (Map.Entry<IProject, Boolean> entry : changed.entrySet()) {
+			ProjectErrors errors = projects.get(entry.getKey());
+			if (null != errors && errors.hasErrors() != entry.getValue()) {
+				fireErrorStateChanged(entry.getKey(), errors.hasErrors());
+			}
+		}
+	}
+
+	/**
+	 * Add a listener to projects changing error state
+	 *
+	 * @param listener the listener to add
+	 */
+	public void addErrorStateListener(ErrorStateListener listener) {
+		listeners.addIfAbsent(listener);
+	}
+
+	/**
+	 * Remove a listener to projects changing error state
+	 *
+	 * @param listener the listener to remove
+	 */
+	public void removeErrorStateListener(ErrorStateListener listener) {
+		listeners.remove(listener);
+	}
+
+	private void fireErrorStateChanged(IProject project, boolean hasErrors) {
+
+		for (ErrorStateListener listener : listeners) {
+			listener.errorStateChanged(project, hasErrors);
+		}
+	}
+
+	/**
+	 * Get the error markers of the specified project. Collect them from the project if not indexed.
+	 */
+	private ProjectErrors getErrors(IProject project) throws CoreException {
+
+		ProjectErrors errors = projects.get(project);
+		if (null != errors) {
+			return errors;
+		}
+		synchronized (this) {
+			errors = projects.get(project);
+			if (null == errors) {
+				errors = new ProjectErrors();
+				collect(project, errors);
+				projects.put(project, errors);
+				provisional.add(project);
+			}
+			return errors;
+		}
+	}
+
+	/**
+	 * Replace the indexed error markers of the specified project with its current error markers
+	 */
+	private static void collect(IProject project, ProjectErrors errors) throws CoreException {
+
+		Set<Long> ids = new HashSet<>();
+		Set<Long> manifestIds = new HashSet<>();
+		IMarker[] problems = project.findMarkers(IMarker.PROBLEM, true, IResource.DEPTH_INFINITE);
+		for (int i = 0; i < problems.length; i++) {
+			IMarker marker = problems[i];
+			if (IMarker.SEVERITY_ERROR == marker.getAttribute(IMarker.SEVERITY, IMarker.SEVERITY_INFO)) {
+				IResource resource = marker.getResource();
+				ids.add(marker.getId());
+				if (resource.getType() == IResource.FILE
+						&& MANIFEST_PATH.equals(resource.getProjectRelativePath())) {
+					manifestIds.add(marker.getId());
+				}
+			}
+		}
+		errors.set(ids, manifestIds);
+	}
+
+	/**
+	 * Ids of error markers in a project
+	 */
+	private static class ProjectErrors {
+
+		private final Set<Long> errors = new HashSet<>();
+		private final Set<Long> manifestErrors = new HashSet<>();
+
+		synchronized void add(long id, boolean isManifest) {
+
+			errors.add(id);
+			if (isManifest) {
+				manifestErrors.add(id);
+			}
+		}
+
+		synchronized void set(Set<Long> ids, Set<Long> manifestIds) {
+
+			errors.clear();
+			errors.addAll(ids);
+			manifestErrors.clear();
+			manifestErrors.addAll(manifestIds);
+		}
+
+		synchronized void remove(long id) {
+
+			errors.remove(id);
+			manifestErrors.remove(id);
+		}
+
+		synchronized boolean hasErrors() {
+			return !errors.isEmpty();
+		}
+
+		synchronized boolean hasManifestErrors() {
+			return !manifestErrors.isEmpty();
+		}
+	}
+}
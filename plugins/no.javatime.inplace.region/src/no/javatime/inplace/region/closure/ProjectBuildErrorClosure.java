@@ -200,6 +200,35 @@ public class ProjectBuildErrorClosure {
 		return errorClosures;
 	}
 
+	/**
+	 * Get the projects with build errors among the project closures and all projects connected to
+	 * them through requiring or providing dependencies within the activation scope.
+	 * <p>
+	 * The connected projects are found in one pass over the dependency graph. Projects in the returned
+	 * set can not be activated without involving a project with build errors. If the dependencies
+	 * could not be obtained only the projects with build errors are returned.
+	 * 
+	 * @param includeDuplicates if true projects that are duplicates of workspace or external bundles
+	 * are regarded as having build errors
+	 * @return projects with build errors and their connected projects or an empty set
+	 * @see DependencyComponents
+	 */
+	public Collection<IProject> getBuildErrorComponents(boolean includeDuplicates) {
+
+		Collection<IProject> buildErrors = getBuildErrors(includeDuplicates);
+		if (buildErrors.isEmpty()) {
+			return new LinkedHashSet<>();
+		}
+		DependencyComponents<IProject> components = DependencyComponents
+				.getProjectComponents(activationScope);
+		try {
+			components.add(buildErrors);
+		} catch (InPlaceException e) {
+			return new LinkedHashSet<>(buildErrors);
+		}
+		return components.getTainted(buildErrors);
+	}
+
 	/**
 	 * Construct a set of closures based on the specified set of projects
 	 * <p>
@@ -1,19 +1,16 @@
 package no.javatime.inplace.region.closure;
 
 import java.util.Collection;
-import java.util.LinkedHashSet;
 
-import no.javatime.inplace.region.intface.BundleProjectCandidates;
 import no.javatime.inplace.region.intface.InPlaceException;
-import no.javatime.inplace.region.project.BundleProjectCandidatesImpl;
 
 import org.eclipse.core.resources.IProject;
-import org.eclipse.core.runtime.CoreException;
-import org.eclipse.jdt.core.JavaCore;
 
 /**
  * Utility to get direct and transitive requiring (referencing) and providing (referenced) projects
- * given an initial project.
+ * given an initial project. Project references are read from the cached project dependency graph.
+ * 
+ * @see ProjectDependencyGraph
  */
 public class ProjectDependencies {
 
@@ -28,22 +25,7 @@ public class ProjectDependencies {
 	 */
 	public static Collection<IProject> getProvidingProjects(IProject project) throws InPlaceException{
 
-		Collection<IProject> projects = new LinkedHashSet<IProject>();
-		if (null != project) {
-			try {
-				IProject[] referencedProjects = project.getReferencedProjects();
-				for (int i = 0; i < referencedProjects.length; i++) {
-					IProject refProject = referencedProjects[i];
-						if (refProject.hasNature(JavaCore.NATURE_ID) 
-								&& refProject.isNatureEnabled(BundleProjectCandidates.PLUGIN_NATURE_ID)) {
-							projects.add(refProject);
-						}
-				}
-			} catch (CoreException e) {
-				throw new InPlaceException(e, "error_get_providing_projects", BundleProjectCandidatesImpl.INSTANCE.formatProjectList(projects));
-			}
-		}
-		return projects;
+		return ProjectDependencyGraph.INSTANCE.getProvidingProjects(project);
 	}
 
 	/**
@@ -58,13 +40,8 @@ public class ProjectDependencies {
 
 		if (null != project && !projects.contains(project)) {
 			projects.add(project);
-			try {
-				IProject[] referencedProjects = project.getReferencedProjects();
-				for (int i = 0; i < referencedProjects.length; i++) {
-					getProvidingProjects(referencedProjects[i], projects);
-				}
-			} catch (CoreException e) {
-				throw new InPlaceException(e, "error_get_providing_projects", BundleProjectCandidatesImpl.INSTANCE.formatProjectList(projects));
+			for (IProject referencedProject : ProjectDependencyGraph.INSTANCE.getReferencedProjects(project)) {
+				getProvidingProjects(referencedProject, projects);
 			}
 		}
 		return projects;
@@ -84,22 +61,8 @@ public class ProjectDependencies {
 	 */
 	public static Collection<IProject> getRequiringProjects(IProject project) 
 			throws InPlaceException {
-		Collection<IProject> projects = new LinkedHashSet<IProject>();
-		if (null != project) {
-			IProject[] referencingProjects = project.getReferencingProjects();
-			for (int i = 0; i < referencingProjects.length; i++) {
-				try {
-					IProject refProject = referencingProjects[i];
-					if (refProject.hasNature(JavaCore.NATURE_ID) 
-							&& refProject.isNatureEnabled(BundleProjectCandidates.PLUGIN_NATURE_ID)) {
-						projects.add(refProject);
-					}
-				} catch (CoreException e) {
-					throw new InPlaceException(e, "error_get_requiring_projects", BundleProjectCandidatesImpl.INSTANCE.formatProjectList(projects));
-				}
-			}
-		}
-		return projects;
+
+		return ProjectDependencyGraph.INSTANCE.getRequiringProjects(project);
 	}
 	
 	/**
@@ -117,17 +80,8 @@ public class ProjectDependencies {
 
 		if (null != project && !projects.contains(project)) {
 			projects.add(project);
-			IProject[] referencingProjects = project.getReferencingProjects();
-			for (int i = 0; i < referencingProjects.length; i++) {
-				try {
-					IProject refProject = referencingProjects[i];
-					if (refProject.hasNature(JavaCore.NATURE_ID) 
-							&& refProject.isNatureEnabled(BundleProjectCandidates.PLUGIN_NATURE_ID)) {
-						getRequiringProjects(referencingProjects[i], projects);
-					}
-				} catch (CoreException e) {
-					throw new InPlaceException(e, "error_get_requiring_projects", BundleProjectCandidatesImpl.INSTANCE.formatProjectList(projects));
-				}
+			for (IProject refProject : ProjectDependencyGraph.INSTANCE.getRequiringProjects(project)) {
+				getRequiringProjects(refProject, projects);
 			}
 		}
 		return projects;
@@ -0,0 +1,123 @@
+/*******************************************************************************
+ * Copyright (c) 2011, 2012 JavaTime project and others
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ * 	JavaTime project, Eirik Gronsund - initial implementation
+ *******************************************************************************/
+package no.javatime.inplace.region.closure;
+
+import java.util.Collection;
+import java.util.Collections;
+import java.util.LinkedHashSet;
+
+import no.javatime.inplace.region.intface.BundleProjectCandidates;
+import no.javatime.inplace.region.intface.InPlaceException;
+import no.javatime.inplace.region.project.BundleProjectCandidatesImpl;
+
+import org.eclipse.core.resources.IProject;
+import org.eclipse.core.runtime.CoreException;
+import org.eclipse.jdt.core.JavaCore;
+
+/**
+ * Cached project references between open projects in the workspace shared by the project sorter and
+ * the project dependency utilities.
+ * <p>
+ * All project references are cached while the plug-in nature of the referenced and referencing
+ * projects is checked when queried. A project should be invalidated when added, opened, closed or
+ * when the description of the project changes and removed when deleted.
+ *
+ * @see ProjectDependencies
+ */
+public class ProjectDependencyGraph extends DependencyGraph<IProject> {
+
+	public final static ProjectDependencyGraph INSTANCE = new ProjectDependencyGraph();
+
+	/**
+	 * Get the plug-in projects directly referenced by the specified project
+	 *
+	 * @param project the requiring project
+	 * @return providing projects. Never null.
+	 * @throws InPlaceException if the project or any referenced project is closed or does not exist
+	 */
+	public Collection<IProject> getProvidingProjects(IProject project) throws InPlaceException {
+
+		Collection<IProject> projects = new LinkedHashSet<IProject>();
+		if (null != project) {
+			try {
+				for (IProject refProject : getProviders(project)) {
+					if (refProject.hasNature(JavaCore.NATURE_ID)
+							&& refProject.isNatureEnabled(BundleProjectCandidates.PLUGIN_NATURE_ID)) {
+						projects.add(refProject);
+					}
+				}
+			} catch (CoreException e) {
+				throw new InPlaceException(e, "error_get_providing_projects",
+						BundleProjectCandidatesImpl.INSTANCE.formatProjectList(projects));
+			}
+		}
+		return projects;
+	}
+
+	/**
+	 * Get the plug-in projects directly referencing the specified project
+	 *
+	 * @param project the providing project
+	 * @return requiring projects. Never null.
+	 * @throws InPlaceException if test for the plug in nature fails
+	 */
+	public Collection<IProject> getRequiringProjects(IProject project) throws InPlaceException {
+
+		Collection<IProject> projects = new LinkedHashSet<IProject>();
+		if (null != project) {
+			try {
+				for (IProject refProject : getRequirers(project)) {
+					if (refProject.hasNature(JavaCore.NATURE_ID)
+							&& refProject.isNatureEnabled(BundleProjectCandidates.PLUGIN_NATURE_ID)) {
+						projects.add(refProject);
+					}
+				}
+			} catch (CoreException e) {
+				throw new InPlaceException(e, "error_get_requiring_projects",
+						BundleProjectCandidatesImpl.INSTANCE.formatProjectList(projects));
+			}
+		}
+		return projects;
+	}
+
+	/**
+	 * Get all projects directly referenced by the specified project
+	 *
+	 * @param project the requiring project
+	 * @return referenced projects. Never null.
+	 * @throws InPlaceException if the project is closed or does not exist
+	 */
+	public Collection<IProject> getReferencedProjects(IProject project) throws InPlaceException {
+
+		if (null == project) {
+			return Collections.emptyList();
+		}
+		return getProviders(project);
+	}
+
+	@Override
+	protected Collection<IProject> getNodes() {
+		return BundleProjectCandidatesImpl.INSTANCE.getProjects();
+	}
+
+	@Override
+	protected Collection<IProject> readProviders(IProject project) throws InPlaceException {
+
+		try {
+			Collection<IProject> projects = new LinkedHashSet<IProject>();
+			Collections.addAll(projects, project.getReferencedProjects());
+			return projects;
+		} catch (CoreException e) {
+			throw new InPlaceException(e, "error_get_providing_projects",
+					BundleProjectCandidatesImpl.INSTANCE.formatProjectList(Collections.singletonList(project)));
+		}
+	}
+}
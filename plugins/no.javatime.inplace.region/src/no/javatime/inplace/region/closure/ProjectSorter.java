@@ -10,9 +10,11 @@
  *******************************************************************************/
 package no.javatime.inplace.region.closure;
 
+import java.util.ArrayList;
 import java.util.Collection;
 import java.util.Collections;
 import java.util.LinkedHashSet;
+import java.util.List;
 
 import no.javatime.inplace.region.Activator;
 import no.javatime.inplace.region.intface.BundleTransition;
@@ -32,7 +34,8 @@ import org.eclipse.core.resources.IProject;
  * Topological sort of projects in requiring (referencing) and providing (referenced) project dependency order.
  * <p>
  * All cycles from an initial set (start projects) of projects are detected for each sort. To detect all cycles in the
- * workspace include all workspace projects as the initial set to sort.
+ * workspace include all workspace projects as the initial set to sort. Each cycle is reported as the complete set
+ * of projects in the cycle.
  * 
  * @see CircularReferenceException
  * @see BundleSorter
@@ -44,10 +47,30 @@ public class ProjectSorter extends BaseSorter {
 	 */
 	private Collection<IProject> projectOrder = null;
 
+	/**
+	 * Sorted projects grouped in waves
+	 */
+	private List<List<IProject>> projectWaves = null;
+
+	/**
+	 * References between projects
+	 */
+	private final ProjectDependencyGraph dependencyGraph;
+
 	/**
 	 * Default constructor
 	 */
 	public ProjectSorter() {
+		this(ProjectDependencyGraph.INSTANCE);
+	}
+
+	/**
+	 * Sort projects according to the references in the specified graph
+	 * 
+	 * @param dependencyGraph references between the projects to sort
+	 */
+	ProjectSorter(ProjectDependencyGraph dependencyGraph) {
+		this.dependencyGraph = dependencyGraph;
 	}
 
 	/**
@@ -62,6 +85,20 @@ public class ProjectSorter extends BaseSorter {
 		return projectOrder;
 	}
 
+	/**
+	 * The waves of the last sort. All projects a project depends on in the direction of the sort are in
+	 * preceding waves, except for projects in the same cycle which are in the same wave.
+	 * 
+	 * @return the projects of the last sort grouped in waves or an empty collection if no sort has been
+	 *         performed
+	 */
+	public List<List<IProject>> getProjectWaves() {
+		if (null == projectWaves) {
+			return Collections.<List<IProject>>emptyList();
+		}
+		return projectWaves;
+	}
+
 	/**
 	 * Topological sort in referenced project order among all valid workspace projects. 
 	 * The initial set of specified projects are included in the result set.
@@ -72,42 +109,12 @@ public class ProjectSorter extends BaseSorter {
 	 */
 	public Collection<IProject> sortRequiringProjects(final Collection<IProject> projects)
 			throws CircularReferenceException {
-		projectOrder = new LinkedHashSet<IProject>();
-		circularException = null;
-		for (final IProject project : projects) {
-			visitRequiringProject(project, null, new LinkedHashSet<IProject>());
-		}
-		if (null != circularException) {
-			throw circularException;
-		}
-		return projectOrder;
-	}
-
-	/**
-	 * Traverse the partial graph of the specified child as the initial project. The graph is in dependency order and
-	 * added to the internal stored project order which is accessible from {@linkplain ProjectSorter#getProjectOrder()}.
-	 * Any cycles in the graph are stored in {@linkplain CircularReferenceException}
-	 * 
-	 * @param child the initial providing project
-	 * @param parent a requiring project to the {@code child} project parameter. May be null.
-	 * @param visited is a list of projects in the current call stack (used for detecting cycles)
-	 */
-	protected void visitRequiringProject(final IProject child, final IProject parent, final Collection<IProject> visited) {
-
-		// Has this start bundle element been visited before (not through recursion)
-		if (!projectOrder.contains(child)) {
-			// If visited before during this nested sequence of recursive calls, it's a cycle
-			if (visited.contains(child)) {
-				handleProjectCycle(child, parent);
-				return;
-			}
-			visited.add(child);
-			Collection<IProject> requirers = ProjectDependencies.getRequiringProjects(child);
-			for (IProject requirer : requirers) {
-				visitRequiringProject(requirer, child, visited);
+		return sortProjects(projects, new TopologicalSort.Adjacency<IProject>() {
+			@Override
+			public Collection<IProject> getAdjacent(IProject project) {
+				return dependencyGraph.getRequiringProjects(project);
 			}
-			projectOrder.add(child);
-		}
+		});
 	}
 
 	/**
@@ -122,46 +129,12 @@ public class ProjectSorter extends BaseSorter {
 	 */
 	public Collection<IProject> sortRequiringProjects(final Collection<IProject> projects, final Boolean natureEnabled)
 			throws CircularReferenceException {
-		projectOrder = new LinkedHashSet<IProject>();
-		circularException = null;
-		for (final IProject project : projects) {
-			visitRequiringProject(project, null, natureEnabled, new LinkedHashSet<IProject>());
-		}
-		if (null != circularException) {
-			throw circularException;
-		}
-		return projectOrder;
-	}
-
-	/**
-	 * Traverse the partial graph of the specified child as the initial project. The graph is in dependency order and
-	 * added to the internal stored project order which is accessible from {@linkplain ProjectSorter#getProjectOrder()}.
-	 * Any cycles in the graph are stored in {@linkplain CircularReferenceException}
-	 * 
-	 * @param child the initial providing project
-	 * @param parent a requiring project to the {@code child} project parameter. May be null.
-	 * @param natureEnabled if true only consider activated projects and only deactivated projects if false
-	 * @param visited is a list of projects in the current call stack (used for detecting cycles)
-	 */
-	protected void visitRequiringProject(final IProject child, final IProject parent, final Boolean natureEnabled,
-			final Collection<IProject> visited) {
-
-		// Has this start bundle element been visited before (not through recursion)
-		if (!projectOrder.contains(child)) {
-			// If visited before during this nested sequence of recursive calls, it's a cycle
-			if (visited.contains(child)) {
-				handleProjectCycle(child, parent);
-				return;
-			}
-			visited.add(child);
-			Collection<IProject> requirers = ProjectDependencies.getRequiringProjects(child);
-			for (IProject requirer : requirers) {
-				if (natureEnabled.equals(WorkspaceRegionImpl.INSTANCE.isBundleActivated(requirer))) {
-					visitRequiringProject(requirer, child, natureEnabled, visited);
-				}
+		return sortProjects(projects, new TopologicalSort.Adjacency<IProject>() {
+			@Override
+			public Collection<IProject> getAdjacent(IProject project) {
+				return filter(dependencyGraph.getRequiringProjects(project), natureEnabled);
 			}
-			projectOrder.add(child);
-		}
+		});
 	}
 
 	/**
@@ -175,44 +148,12 @@ public class ProjectSorter extends BaseSorter {
 	 */
 	public Collection<IProject> sortProvidingProjects(final Collection<IProject> projects)
 			throws CircularReferenceException, InPlaceException {
-		projectOrder = new LinkedHashSet<IProject>();
-		circularException = null;
-		for (final IProject project : projects) {
-			visitProvidingProject(project, null, new LinkedHashSet<IProject>());
-		}
-		if (null != circularException) {
-			throw circularException;
-		}
-		return projectOrder;
-	}
-
-	/**
-	 * Traverse the partial graph of the specified child as the initial project. The graph is in dependency order and
-	 * added to the internal stored project order which is accessible from {@linkplain ProjectSorter#getProjectOrder()}.
-	 * Any cycles in the graph are stored in {@linkplain CircularReferenceException}
-	 * 
-	 * @param child the initial requiring project
-	 * @param parent a providing project to the {@code child} project parameter. May be null.
-	 * @param visited is a list of projects in the current call stack (used for detecting cycles)
-	 * @throws InPlaceException if any referenced project is closed or does nor exist
-	 */
-	protected void visitProvidingProject(final IProject child, final IProject parent, final Collection<IProject> visited) 
-			throws InPlaceException {
-
-		// Has this start bundle element been visited before (not through recursion)
-		if (!projectOrder.contains(child)) {
-			// If visited before during this nested sequence of recursive calls, it's a cycle
-			if (visited.contains(child)) {
-				handleProjectCycle(child, parent);
-				return;
+		return sortProjects(projects, new TopologicalSort.Adjacency<IProject>() {
+			@Override
+			public Collection<IProject> getAdjacent(IProject project) {
+				return dependencyGraph.getProvidingProjects(project);
 			}
-			visited.add(child); // Overlook self providing
-			Collection<IProject> providers = ProjectDependencies.getProvidingProjects(child);
-			for (IProject provider : providers) {
-				visitProvidingProject(provider, child, visited);
-			}
-			projectOrder.add(child);
-		}
+		});
 	}
 
 	/**
@@ -228,105 +169,109 @@ public class ProjectSorter extends BaseSorter {
 	 */
 	public Collection<IProject> sortProvidingProjects(final Collection<IProject> projects, final Boolean natureEnabled)
 			throws CircularReferenceException, InPlaceException {
-		projectOrder = new LinkedHashSet<IProject>();
-		circularException = null;
-		for (final IProject project : projects) {
-			visitProvidingProject(project, null, natureEnabled, new LinkedHashSet<IProject>());
-		}
-		if (null != circularException) {
-			throw circularException;
+		return sortProjects(projects, new TopologicalSort.Adjacency<IProject>() {
+			@Override
+			public Collection<IProject> getAdjacent(IProject project) {
+				return filter(dependencyGraph.getProvidingProjects(project), natureEnabled);
+			}
+		});
+	}
+
+	/**
+	 * Restrict the specified projects to activated or deactivated projects
+	 * 
+	 * @param projects projects to filter
+	 * @param natureEnabled if true only keep activated projects and only deactivated projects if false
+	 * @return the filtered projects
+	 */
+	private static Collection<IProject> filter(final Collection<IProject> projects, final Boolean natureEnabled) {
+
+		Collection<IProject> filteredProjects = new ArrayList<IProject>(projects.size());
+		for (IProject project : projects) {
+			if (natureEnabled.equals(WorkspaceRegionImpl.INSTANCE.isBundleActivated(project))) {
+				filteredProjects.add(project);
+			}
 		}
-		return projectOrder;
+		return filteredProjects;
 	}
 
 	/**
-	 * Traverse the partial graph of the specified child as the initial project. The graph is in dependency order and
-	 * added to the internal stored project order which is accessible from {@linkplain ProjectSorter#getProjectOrder()}.
-	 * Any cycles in the graph are stored in {@linkplain CircularReferenceException}
+	 * Sort the specified projects and all projects reachable from them in the direction of the sort and
+	 * store the result. Any cycles in the graph are stored in {@linkplain CircularReferenceException}
 	 * 
-	 * @param child the initial requiring project
-	 * @param parent a providing project to the {@code child} project parameter. May be null.
-	 * @param natureEnabled if true only consider activated projects and only deactivated projects if false
-	 * @param visited is a list of projects in the current call stack (used for detecting cycles)
+	 * @param projects the initial projects
+	 * @param adjacency the neighboring projects of a project in the direction of the sort
+	 * @return collection of projects in sort order
+	 * @throws CircularReferenceException if cycles are detected in the project graph
 	 * @throws InPlaceException if any referenced project is closed or does nor exist
 	 */
-	protected void visitProvidingProject(final IProject child, final IProject parent, final Boolean natureEnabled,
-			final Collection<IProject> visited) throws InPlaceException {
+	private Collection<IProject> sortProjects(final Collection<IProject> projects,
+			final TopologicalSort.Adjacency<IProject> adjacency) throws CircularReferenceException,
+			InPlaceException {
 
-		// Has this start bundle element been visited before (not through recursion)
-		if (!projectOrder.contains(child)) {
-			// If visited before during this nested sequence of recursive calls, it's a cycle
-			if (visited.contains(child)) {
-				handleProjectCycle(child, parent);
-				return;
-			}
-			visited.add(child); // Overlook self providing
-			Collection<IProject> providers = ProjectDependencies.getProvidingProjects(child);
-			for (IProject provider : providers) {
-				if (natureEnabled.equals(WorkspaceRegionImpl.INSTANCE.isBundleActivated(provider))) {
-					visitProvidingProject(provider, child, natureEnabled, visited);
+		circularException = null;
+		projectWaves = null;
+		TopologicalSort<IProject> sort = new TopologicalSort<>(adjacency);
+		projectOrder = new LinkedHashSet<IProject>(sort.sort(projects));
+		projectWaves = sort.getWaves();
+		// Hosts can import packages from fragment (no complaints from PDE),
+		// even if fragment is an inherent part of the host. Is this a kind of self reference?
+		Collection<IProject> fragments = new ArrayList<>();
+		for (List<IProject> cycle : sort.getCycles()) {
+			for (IProject project : cycle) {
+				if (BundleProjectCandidatesImpl.isFragment(project)) {
+					fragments.add(project);
 				}
 			}
-			projectOrder.add(child);
 		}
+		for (List<IProject> cycle : getCycles(sort, fragments)) {
+			handleProjectCycle(cycle);
+		}
+		if (null != circularException) {
+			throw circularException;
+		}
+		return projectOrder;
 	}
 
 	/**
 	 * Adds projects included in the cycle and a status message describing the cycle to the
-	 * {@linkplain CircularReferenceException}.
+	 * {@linkplain CircularReferenceException}. A cycle with one project is a self reference.
 	 * 
-	 * @param child project that refers to the parent project parameter
-	 * @param parent project that refers to the child project parameter
+	 * @param cycle projects in a strongly connected component of the project graph
 	 */
-	protected void handleProjectCycle(final IProject child, final IProject parent) {
-		boolean directRecursion = false;
-		// Self reference
-		if (parent == child) {
-			if (getAllowSelfReference()) {
-				return;
-			}
-			directRecursion = true;
-		}
-		if (null == child || null == parent) {
+	protected void handleProjectCycle(final List<IProject> cycle) {
+
+		if (cycle.isEmpty()) {
 			String msg = ExceptionMessage.getInstance().formatString("internal_error_detecting_cycles");
 			throw new CircularReferenceException(msg);
 		}
-		// Hosts can import packages from fragment (no complaints from PDE),
-		// even if fragment is an inherent part of the host. Is this a kind of self reference?
-		// Must check both parent and child, due to traversal order (providing or requiring)
-		if (!getAllowCycles() && (!BundleProjectCandidatesImpl.isFragment(child) && !BundleProjectCandidatesImpl.isFragment(parent))) {
-			ProjectSorter ps = new ProjectSorter();
-			ps.setAllowCycles(true);
-			Collection<IProject> projects = ps.sortRequiringProjects(Collections.<IProject>singletonList(parent));
-			projects.addAll(ps.sortRequiringProjects(Collections.<IProject>singletonList(child)));
-			if (null == circularException) {
-				circularException = new CircularReferenceException();
-			}
-			String msg = ExceptionMessage.getInstance().formatString("affected_bundles",
-					BundleProjectCandidatesImpl.INSTANCE.formatProjectList(projects));
-			circularException.addToStatusList(new BundleStatus(StatusCode.INFO, Activator.PLUGIN_ID, msg, null));
-			if (directRecursion) {
-				msg = ExceptionMessage.getInstance().formatString("direct_circular_reference_with_bundles",
-						parent.getName());
-			} else {
-				msg = ExceptionMessage.getInstance().formatString("circular_reference_with_bundles",
-						parent.getName(), child.getName());
-			}
-			circularException.addToStatusList(new BundleStatus(StatusCode.EXCEPTION, Activator.PLUGIN_ID, msg, null));
-			circularException.addProjects(projects);
+		ProjectSorter ps = new ProjectSorter();
+		ps.setAllowCycles(true);
+		Collection<IProject> projects = ps.sortRequiringProjects(cycle);
+		if (null == circularException) {
+			circularException = new CircularReferenceException();
+		}
+		String msg = ExceptionMessage.getInstance().formatString("affected_bundles",
+				BundleProjectCandidatesImpl.INSTANCE.formatProjectList(projects));
+		circularException.addToStatusList(new BundleStatus(StatusCode.INFO, Activator.PLUGIN_ID, msg, null));
+		if (cycle.size() == 1) {
+			msg = ExceptionMessage.getInstance().formatString("direct_circular_reference_with_bundles",
+					cycle.get(0).getName());
+		} else {
+			msg = ExceptionMessage.getInstance().formatString("circular_reference_in_bundles",
+					BundleProjectCandidatesImpl.INSTANCE.formatProjectList(cycle));
+		}
+		circularException.addToStatusList(new BundleStatus(StatusCode.EXCEPTION, Activator.PLUGIN_ID, msg, null));
+		circularException.addProjects(projects);
+		circularException.addProjectCycle(cycle);
 
-			// Parent
-			BundleTransition bundleTransition = BundleTransitionImpl.INSTANCE;
-			msg = ExceptionMessage.getInstance().formatString("circular_reference_termination");
+		BundleTransition bundleTransition = BundleTransitionImpl.INSTANCE;
+		msg = ExceptionMessage.getInstance().formatString("circular_reference_termination");
+		for (IProject project : cycle) {
 			IBundleStatus multiStatus = new BundleStatus(StatusCode.EXCEPTION, Activator.PLUGIN_ID,
-					parent, msg, circularException);
-			multiStatus.add(circularException.getStatusList());
-			bundleTransition.setBuildStatus(parent, TransitionError.BUILD_CYCLE, multiStatus);
-			// Child
-			multiStatus = new BundleStatus(StatusCode.EXCEPTION, Activator.PLUGIN_ID,
-					child, msg, circularException);
+					project, msg, circularException);
 			multiStatus.add(circularException.getStatusList());
-			bundleTransition.setBuildStatus(child, TransitionError.BUILD_CYCLE, multiStatus);
+			bundleTransition.setBuildStatus(project, TransitionError.BUILD_CYCLE, multiStatus);
 		}
 	}
 
@@ -0,0 +1,280 @@
+/*******************************************************************************
+ * Copyright (c) 2011, 2012 JavaTime project and others
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ * 	JavaTime project, Eirik Gronsund - initial implementation
+ *******************************************************************************/
+package no.javatime.inplace.region.closure;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Iterative topological sort computing the strongly connected components (cycles) of a graph in one
+ * pass using Tarjan's algorithm.
+ * <p>
+ * Nodes are visited depth first in the direction of the adjacent nodes and added to the sort order
+ * after all nodes reachable from them. Members of a cycle are added together. Nodes reachable from
+ * the start nodes of earlier sorts with the same instance are not visited again.
+ * <p>
+ * In addition to the sort order the nodes are grouped in waves. A node is placed in the wave following
+ * the last wave of its adjacent nodes, so nodes in the same wave do not depend on each other unless
+ * they are members of the same cycle.
+ *
+ * @param <T> the node type
+ */
+class TopologicalSort<T> {
+
+	/**
+	 * The adjacent nodes of a node in the direction of the sort
+	 *
+	 * @param <T> the node type
+	 */
+	interface Adjacency<T> {
+
+		/**
+		 * Get the direct neighbors of the specified node in the direction of the sort
+		 *
+		 * @param node the node to get the adjacent nodes of
+		 * @return the adjacent nodes. Never null.
+		 */
+		Collection<T> getAdjacent(T node);
+	}
+
+	private final Adjacency<T> adjacency;
+
+	// Visited nodes and their ids in visit order
+	private final Map<T, Integer> ids = new HashMap<>();
+	private final List<T> nodes = new ArrayList<>();
+	// Adjacent nodes of each visited node
+	private final List<Collection<T>> edges = new ArrayList<>();
+	private int[] lowLinks = new int[16];
+	// Wave of each node. Set when the component of the node has been sorted
+	private int[] waves = new int[16];
+	private final BitSet onStack = new BitSet();
+	private final BitSet selfReference = new BitSet();
+	// Tarjan stack of node ids
+	private int[] stack = new int[16];
+	private int stackSize;
+
+	private final List<T> order = new ArrayList<>();
+	private final List<List<T>> cycles = new ArrayList<>();
+	private final List<List<T>> waveNodes = new ArrayList<>();
+
+	/**
+	 * Create a sort over the graph given by the specified adjacent nodes
+	 *
+	 * @param adjacency the adjacent nodes of each node in the direction of the sort
+	 */
+	TopologicalSort(Adjacency<T> adjacency) {
+		this.adjacency = adjacency;
+	}
+
+	/**
+	 * Sort the specified start nodes and all nodes reachable from them
+	 *
+	 * @param startNodes nodes to start the sort from
+	 * @return the sort order of all nodes sorted by this instance
+	 */
+	List<T> sort(Collection<T> startNodes) {
+
+		for (T node : startNodes) {
+			if (!ids.containsKey(node)) {
+				visit(node);
+			}
+		}
+		return order;
+	}
+
+	/**
+	 * Visit all nodes reachable from the specified root node without recursion. The call stack is
+	 * replaced by a stack of node ids and an iterator over the adjacent nodes of each node on the stack.
+	 */
+	private void visit(T root) {
+
+		int[] callStack = new int[16];
+		List<Iterator<T>> iterators = new ArrayList<>();
+		int depth = 0;
+		callStack[depth++] = push(root);
+		iterators.add(edges.get(ids.get(root)).iterator());
+		while (depth > 0) {
+			int id = callStack[depth - 1];
+			Iterator<T> iterator = iterators.get(depth - 1);
+			if (iterator.hasNext()) {
+				T adjacent = iterator.next();
+				Integer adjacentId = ids.get(adjacent);
+				if (null == adjacentId) {
+					// Descend into the adjacent node
+					int newId = push(adjacent);
+					if (depth == callStack.length) {
+						callStack = Arrays.copyOf(callStack, depth << 1);
+					}
+					callStack[depth] = newId;
+					if (depth == iterators.size()) {
+						iterators.add(edges.get(newId).iterator());
+					} else {
+						iterators.set(depth, edges.get(newId).iterator());
+					}
+					depth++;
+				} else if (onStack.get(adjacentId)) {
+					if (adjacentId == id) {
+						selfReference.set(id);
+					}
+					lowLinks[id] = Math.min(lowLinks[id], adjacentId);
+				}
+			} else {
+				// All adjacent nodes visited
+				depth--;
+				if (lowLinks[id] == id) {
+					addComponent(id);
+				}
+				if (depth > 0) {
+					int parentId = callStack[depth - 1];
+					lowLinks[parentId] = Math.min(lowLinks[parentId], lowLinks[id]);
+				}
+			}
+		}
+	}
+
+	/**
+	 * Assign the next id to the specified node and push it on the Tarjan stack
+	 */
+	private int push(T node) {
+
+		int id = nodes.size();
+		ids.put(node, id);
+		nodes.add(node);
+		edges.add(adjacency.getAdjacent(node));
+		if (id == lowLinks.length) {
+			lowLinks = Arrays.copyOf(lowLinks, id << 1);
+			waves = Arrays.copyOf(waves, id << 1);
+		}
+		lowLinks[id] = id;
+		if (stackSize == stack.length) {
+			stack = Arrays.copyOf(stack, stackSize << 1);
+		}
+		stack[stackSize++] = id;
+		onStack.set(id);
+		return id;
+	}
+
+	/**
+	 * Pop the strongly connected component with the specified root from the Tarjan stack and add it to
+	 * the sort order and to its wave. All nodes adjacent to the component have been sorted.
+	 */
+	private void addComponent(int rootId) {
+
+		int start = stackSize;
+		do {
+			start--;
+		} while (stack[start] != rootId);
+		// Adjacent nodes still on the stack are members of the component
+		int wave = 0;
+		for (int i = stackSize - 1; i >= start; i--) {
+			for (T adjacent : edges.get(stack[i])) {
+				int adjacentId = ids.get(adjacent);
+				if (!onStack.get(adjacentId)) {
+					wave = Math.max(wave, waves[adjacentId] + 1);
+				}
+			}
+		}
+		int size = stackSize - start;
+		List<T> component = size > 1 || selfReference.get(rootId) ? new ArrayList<T>(size) : null;
+		while (waveNodes.size() <= wave) {
+			waveNodes.add(new ArrayList<T>());
+		}
+		List<T> waveList = waveNodes.get(wave);
+		// Members are added to the order in the reverse order they were visited
+		for (int i = stackSize - 1; i >= start; i--) {
+			int id = stack[i];
+			T node = nodes.get(id);
+			onStack.clear(id);
+			waves[id] = wave;
+			order.add(node);
+			waveList.add(node);
+			if (null != component) {
+				component.add(node);
+			}
+		}
+		stackSize = start;
+		if (null != component) {
+			cycles.add(component);
+		}
+	}
+
+	/**
+	 * The sort order of all nodes sorted by this instance
+	 *
+	 * @return sorted nodes. Never null.
+	 */
+	List<T> getOrder() {
+		return order;
+	}
+
+	/**
+	 * The strongly connected components with more than one member and members referring to themselves
+	 * in the sort order
+	 *
+	 * @return cycles where a cycle with one member is a self reference. Never null.
+	 */
+	List<List<T>> getCycles() {
+		return cycles;
+	}
+
+	/**
+	 * Get the cycles remaining when the specified nodes are not members of the graph. Cycles where
+	 * none of the specified nodes are members are returned as is.
+	 *
+	 * @param excluded nodes not to take part in any cycle
+	 * @return cycles where a cycle with one member is a self reference. Never null.
+	 */
+	List<List<T>> getCycles(Collection<T> excluded) {
+
+		if (excluded.isEmpty() || cycles.isEmpty()) {
+			return cycles;
+		}
+		List<List<T>> remainingCycles = new ArrayList<>();
+		for (List<T> cycle : cycles) {
+			if (Collections.disjoint(cycle, excluded)) {
+				remainingCycles.add(cycle);
+				continue;
+			}
+			final Set<T> members = new HashSet<>(cycle);
+			members.removeAll(excluded);
+			TopologicalSort<T> memberSort = new TopologicalSort<>(new Adjacency<T>() {
+				@Override
+				public Collection<T> getAdjacent(T node) {
+					Collection<T> adjacent = new ArrayList<>(edges.get(ids.get(node)));
+					adjacent.retainAll(members);
+					return adjacent;
+				}
+			});
+			memberSort.sort(members);
+			remainingCycles.addAll(memberSort.getCycles());
+		}
+		return remainingCycles;
+	}
+
+	/**
+	 * The sorted nodes grouped in waves. All nodes adjacent to the nodes in a wave are in preceding
+	 * waves, except for members of the same cycle which are in the same wave.
+	 *
+	 * @return nodes in the first wave first. Never null.
+	 */
+	List<List<T>> getWaves() {
+		return waveNodes;
+	}
+}
@@ -0,0 +1,74 @@
+/*******************************************************************************
+ * Copyright (c) 2011, 2012 JavaTime project and others
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ * 	JavaTime project, Eirik Gronsund - initial implementation
+ *******************************************************************************/
+package no.javatime.inplace.region.intface;
+
+import java.util.Collection;
+
+import org.osgi.framework.Bundle;
+
+/**
+ * Metrics of the executor running start and stop operations with a timeout.
+ * <p>
+ * Latencies are measured from the operation starts to execute until it finishes and are computed from
+ * a limited number of the most recent operations of each bundle. Note that the values may have changed
+ * when the receiver uses them.
+ *
+ * @see BundleCommand#start(Bundle, int, long)
+ * @see BundleCommand#stop(Bundle, boolean, long)
+ */
+public interface ActivatorMetrics {
+
+	/**
+	 * Number of start and stop operations currently executing
+	 *
+	 * @return number of executing operations including operations that have timed out
+	 */
+	public int getInFlight();
+
+	/**
+	 * Number of start and stop operations waiting for a thread to execute on
+	 *
+	 * @return number of queued operations
+	 */
+	public int getQueueDepth();
+
+	/**
+	 * Total number of start and stop operations that have timed out
+	 *
+	 * @return number of timeouts since the region bundle was started
+	 */
+	public long getTimeouts();
+
+	/**
+	 * Bundles with a start or stop operation that has timed out and is still executing
+	 *
+	 * @return bundles with stuck operations. Never null.
+	 */
+	public Collection<Bundle> getStuckBundles();
+
+	/**
+	 * Get the latency of start operations of the specified bundle at the specified percentile
+	 *
+	 * @param bundle the bundle to get the latency of
+	 * @param percentile a value from 1 to 100 where 50 is the median
+	 * @return the latency in milliseconds or -1 if the bundle has not been started
+	 */
+	public long getStartLatency(Bundle bundle, int percentile);
+
+	/**
+	 * Get the latency of stop operations of the specified bundle at the specified percentile
+	 *
+	 * @param bundle the bundle to get the latency of
+	 * @param percentile a value from 1 to 100 where 50 is the median
+	 * @return the latency in milliseconds or -1 if the bundle has not been stopped
+	 */
+	public long getStopLatency(Bundle bundle, int percentile);
+}
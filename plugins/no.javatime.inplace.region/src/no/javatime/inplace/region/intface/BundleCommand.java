@@ -3,6 +3,8 @@ package no.javatime.inplace.region.intface;
 import java.io.InputStream;
 import java.util.Collection;
 import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Future;
 
 import no.javatime.inplace.extender.intface.ExtenderException;
 import no.javatime.inplace.region.resolver.BundleResolveHookFactory;
@@ -203,6 +205,21 @@ public interface BundleCommand {
 	 */
 	public Bundle update(Bundle bundle) throws InPlaceException, WorkspaceDuplicateException;
 
+	/**
+	 * Updates the specified bundles in the specified order from input streams based on the bundle
+	 * location identifiers. All input streams are opened and all bundles are registered as duplicate
+	 * candidates in the resolver hook before the first bundle is updated. Bundles are neither
+	 * refreshed nor resolved.
+	 * <p>
+	 * A failure to update a bundle does not prevent the remaining bundles from being updated.
+	 * 
+	 * @param bundles the bundles to update in update order
+	 * @return bundles that failed to update mapped to an {@code InPlaceException}, a
+	 * {@code WorkspaceDuplicateException} or an {@code ExternalDuplicateException}. Never null.
+	 * @see #update(Bundle)
+	 */
+	public Map<Bundle, RuntimeException> update(Collection<Bundle> bundles);
+
 	/**
 	 * Refresh the specified set of bundles synchronously.
 	 * 
@@ -214,6 +231,25 @@ public interface BundleCommand {
 	 */
 	public void refresh(final Collection<Bundle> bundles) throws InPlaceException;
 
+	/**
+	 * Refresh the specified set of bundles asynchronously. The returned future is completed when the
+	 * framework has finished refreshing the bundles.
+	 * <p>
+	 * Only one refresh is in progress at a time. Refresh requests made while a refresh is in progress
+	 * are coalesced into one refresh started when the current refresh has finished.
+	 * <p>
+	 * Cancelling the future stops waiting for the refresh. The framework continues to refresh the
+	 * bundles, but if all waiting for a refresh in progress cancel, the next coalesced refresh is
+	 * started without waiting for the framework to finish.
+	 * 
+	 * @param bundles to refresh. If null or empty the returned future is completed immediately.
+	 * @return a future completed with the requested and the refreshed bundles. The future fails with
+	 * an {@code InPlaceException} when the framework wiring object is null, the bundle was created
+	 * with another framework wiring object than the current or if a security permission is missing.
+	 * @see #refresh(Collection)
+	 */
+	public Future<RefreshResult> refreshAsync(Collection<Bundle> bundles);
+
 	/**
 	 * Uninstall the specified bundle. If the unregister parameter is set to true, the specified
 	 * workspace project and the associated bundle is removed from the workspace region. If set to
@@ -335,9 +371,39 @@ public interface BundleCommand {
 	public List<BundleRevision> getBundleRevisions(Bundle bundle) throws InPlaceException;
 
 	/**
-	 * Execution time of start and stop operations
+	 * Execution time of start and stop operations. Bundles may be started and stopped in parallel, and
+	 * the time is kept for each bundle.
+	 * 
+	 * @param bundle the bundle to get the execution time of
+	 * @return execution time in milliseconds of the last start or stop operation on the specified
+	 * bundle or 0 if the bundle is not registered in the workspace region
+	 */
+	public long getExecutionTime(Bundle bundle);
+
+	/**
+	 * Get the thread executing a start or stop operation with a timeout on the specified bundle
+	 * 
+	 * @param bundle the bundle running the operation
+	 * @return the thread or null if the bundle has no operation executing with a timeout
+	 * @see #start(Bundle, int, long)
+	 * @see #stop(Bundle, boolean, long)
+	 */
+	public Thread getActivatorThread(Bundle bundle);
+
+	/**
+	 * Metrics of start and stop operations executed with a timeout
+	 * 
+	 * @return the activator metrics
+	 * @see #start(Bundle, int, long)
+	 * @see #stop(Bundle, boolean, long)
+	 */
+	public ActivatorMetrics getActivatorMetrics();
+
+	/**
+	 * Metrics of the time used by the resolver hook to filter bundles to resolve
 	 * 
-	 * @return execution time in milliseconds of last start or stop operation
+	 * @return the resolver hook metrics
+	 * @see #resolve(Collection)
 	 */
-	public long getExecutionTime();
+	public ResolverHookMetrics getResolverHookMetrics();
 }
\ No newline at end of file
@@ -148,6 +148,20 @@ public interface BundleRegion {
 	public String getBundleLocationIdentifier(IProject project)
 			throws ProjectLocationException, InPlaceException;
 
+	/**
+	 * Update the location of the specified project in the location index of bundle projects. The
+	 * location index is used to identify the bundle project of a bundle from the location identifier
+	 * of the bundle without scanning the workspace.
+	 * <p>
+	 * Call this when the specified project is about to be renamed, moved, closed or deleted. The
+	 * location of a registered project is indexed again immediately while unregistered candidate
+	 * projects are indexed on demand.
+	 *
+	 * @param project the project to update in the location index. If null the index is unchanged
+	 * @see #getBundleLocationIdentifier(IProject)
+	 */
+	public void updateProjectLocation(IProject project);
+
 	/**
 	 * Register the specified project and the associated bundle with the region as a bundle project.
 	 * If the specified bundle does not exist, is invalid or is null it is initialized with state
@@ -252,6 +266,21 @@ public interface BundleRegion {
 	 */
 	public IProject getProject(String symbolicName, String version);
 
+	/**
+	 * Get all registered projects with the specified symbolic name and version in their manifest.
+	 * More than one project is returned if there are duplicates among the registered projects.
+	 * <p>
+	 * The projects are obtained from an index of the symbolic name and version in the manifest of
+	 * registered projects. The index is updated when the manifest changes.
+	 * 
+	 * @param symbolicName symbolic name of the projects to return
+	 * @param version version of the specified symbolic name. If null, projects with any version of
+	 * the symbolic name are returned. An empty version matches projects without a version
+	 * @return registered projects with the specified symbolic name and version or an empty collection
+	 * @see #getWorkspaceDuplicates(Collection, Collection)
+	 */
+	public Collection<IProject> getSymbolicKeyProjects(String symbolicName, String version);
+
 	/**
 	 * Check if the workspace is activated. The condition is satisfied if one bundle is activated
 	 * 
@@ -38,6 +38,9 @@ public class BundleThread {
 	 * There is to my knowledge no official way to obtain or ask a bundle if it is in a state changing process. 
 	 * Interrogating the bundle dynamically for its thread (the life cycle API is single threaded) breaks the life cycle API 
 	 * even if it is not recognized by the compiler.
+	 * <p>
+	 * If the thread can not be obtained from the framework, the thread executing a start or stop operation
+	 * with a timeout on the bundle is returned.
 	 * 
 	 * @param bundle the bundle running the operation
 	 * @return null or the thread
@@ -68,6 +71,13 @@ public class BundleThread {
 		} catch (ExtenderException | SecurityException e) {
 			// Return null when failing
 		}
+		if (null == thread && null != bundle) {
+			try {
+				thread = Activator.getBundleCommandService().getActivatorThread(bundle);
+			} catch (ExtenderException e) {
+				// Return null when failing
+			}
+		}
 		return thread;
 	}
 
@@ -0,0 +1,91 @@
+/*******************************************************************************
+ * Copyright (c) 2011, 2012 JavaTime project and others
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ * 	JavaTime project, Eirik Gronsund - initial implementation
+ *******************************************************************************/
+package no.javatime.inplace.region.intface;
+
+import java.util.Collection;
+import java.util.Collections;
+import java.util.LinkedHashSet;
+
+import org.osgi.framework.Bundle;
+
+/**
+ * The outcome of a refresh. Overlapping refresh requests are coalesced into one refresh, so the
+ * requested bundles may include bundles requested by other callers.
+ *
+ * @see BundleCommand#refreshAsync(Collection)
+ */
+public class RefreshResult {
+
+	private final Collection<Bundle> requested;
+	private final Collection<Bundle> refreshed;
+	private final Throwable error;
+
+	/**
+	 * Create the result of a finished refresh
+	 *
+	 * @param requested bundles requested to be refreshed
+	 * @param refreshed bundles refreshed by the framework
+	 * @param error the error reported by the framework or null if no error
+	 */
+	public RefreshResult(Collection<Bundle> requested, Collection<Bundle> refreshed, Throwable error) {
+		this.requested = Collections.unmodifiableCollection(new LinkedHashSet<Bundle>(requested));
+		this.refreshed = Collections.unmodifiableCollection(new LinkedHashSet<Bundle>(refreshed));
+		this.error = error;
+	}
+
+	/**
+	 * The bundles requested to be refreshed
+	 *
+	 * @return requested bundles. Never null.
+	 */
+	public Collection<Bundle> getRequested() {
+		return requested;
+	}
+
+	/**
+	 * The bundles refreshed by the framework. This is the dependency closure of the requested bundles.
+	 *
+	 * @return refreshed bundles. Never null.
+	 */
+	public Collection<Bundle> getRefreshed() {
+		return refreshed;
+	}
+
+	/**
+	 * Get the bundles refreshed by the framework in addition to the requested bundles
+	 *
+	 * @return additional refreshed bundles. Never null.
+	 */
+	public Collection<Bundle> getAdditional() {
+
+		Collection<Bundle> additional = new LinkedHashSet<Bundle>(refreshed);
+		additional.removeAll(requested);
+		return additional;
+	}
+
+	/**
+	 * Check if the framework reported an error while refreshing
+	 *
+	 * @return true if the framework reported an error. Otherwise false.
+	 */
+	public boolean hasError() {
+		return null != error;
+	}
+
+	/**
+	 * The error reported by the framework while refreshing
+	 *
+	 * @return the error or null if no error was reported
+	 */
+	public Throwable getError() {
+		return error;
+	}
+}
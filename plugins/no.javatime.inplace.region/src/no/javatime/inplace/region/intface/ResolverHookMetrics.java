@@ -0,0 +1,43 @@
+/*******************************************************************************
+ * Copyright (c) 2011, 2012 JavaTime project and others
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ * 	JavaTime project, Eirik Gronsund - initial implementation
+ *******************************************************************************/
+package no.javatime.inplace.region.intface;
+
+/**
+ * Metrics of the time used by the resolver hook to filter the bundles to resolve.
+ * <p>
+ * The time is measured for each call from the framework to filter resolvable bundles since the
+ * region bundle was started. Note that the values may have changed when the receiver uses them.
+ *
+ * @see BundleCommand#resolve(java.util.Collection)
+ */
+public interface ResolverHookMetrics {
+
+	/**
+	 * Number of times the resolver hook has filtered bundles to resolve
+	 *
+	 * @return number of filter calls
+	 */
+	public long getCount();
+
+	/**
+	 * Total time used by the resolver hook to filter bundles to resolve
+	 *
+	 * @return the total time in nanoseconds
+	 */
+	public long getTotalTime();
+
+	/**
+	 * The longest time used by the resolver hook in a single filter call
+	 *
+	 * @return the maximum time in nanoseconds or 0 if the resolver hook has not filtered any bundles
+	 */
+	public long getMaxTime();
+}
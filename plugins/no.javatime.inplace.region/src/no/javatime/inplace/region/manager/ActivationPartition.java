@@ -0,0 +1,90 @@
+/*******************************************************************************
+ * Copyright (c) 2011, 2012 JavaTime project and others
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ * 	JavaTime project, Eirik Gronsund - initial implementation
+ *******************************************************************************/
+package no.javatime.inplace.region.manager;
+
+import java.util.Collections;
+import java.util.Set;
+
+/**
+ * Immutable partition of the ids of installed workspace bundles into activated and deactivated
+ * bundles. A partition is created with each region snapshot and shared by readers until the next
+ * change of the region.
+ * 
+ * @see RegionSnapshot#getActivationPartition()
+ */
+public class ActivationPartition {
+
+	private final long generation;
+	private final Set<Long> activated;
+	private final Set<Long> deactivated;
+
+	ActivationPartition(long generation, Set<Long> activated, Set<Long> deactivated) {
+		this.generation = generation;
+		this.activated = Collections.unmodifiableSet(activated);
+		this.deactivated = Collections.unmodifiableSet(deactivated);
+	}
+
+	/**
+	 * The generation of the region when this partition was created
+	 * 
+	 * @return the generation of this partition
+	 */
+	public long getGeneration() {
+		return generation;
+	}
+
+	/**
+	 * Check if there are no workspace bundles in the partition
+	 * 
+	 * @return true if no workspace bundles are installed
+	 */
+	public boolean isEmpty() {
+		return activated.isEmpty() && deactivated.isEmpty();
+	}
+
+	/**
+	 * Check if the specified bundle is an activated workspace bundle
+	 * 
+	 * @param bundleId id of the bundle to check
+	 * @return true if activated and false if deactivated or not a workspace bundle
+	 */
+	public boolean isActivated(long bundleId) {
+		return activated.contains(bundleId);
+	}
+
+	/**
+	 * Check if the specified bundle is a deactivated workspace bundle
+	 * 
+	 * @param bundleId id of the bundle to check
+	 * @return true if deactivated and false if activated or not a workspace bundle
+	 */
+	public boolean isDeactivated(long bundleId) {
+		return deactivated.contains(bundleId);
+	}
+
+	/**
+	 * Ids of activated workspace bundles
+	 * 
+	 * @return unmodifiable set of bundle ids
+	 */
+	public Set<Long> getActivated() {
+		return activated;
+	}
+
+	/**
+	 * Ids of deactivated workspace bundles
+	 * 
+	 * @return unmodifiable set of bundle ids
+	 */
+	public Set<Long> getDeactivated() {
+		return deactivated;
+	}
+}
@@ -0,0 +1,350 @@
+/*******************************************************************************
+ * Copyright (c) 2011, 2012 JavaTime project and others
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ * 	JavaTime project, Eirik Gronsund - initial implementation
+ *******************************************************************************/
+package no.javatime.inplace.region.manager;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import no.javatime.inplace.region.intface.ActivatorMetrics;
+import no.javatime.inplace.region.intface.InPlaceException;
+
+import org.osgi.framework.Bundle;
+
+/**
+ * Long lived bounded executor running bundle start and stop operations with a timeout on behalf of
+ * the bundle command. The executor is owned by the region bundle and shut down when the region
+ * bundle stops.
+ * <p>
+ * A watchdog is scheduled when an operation starts to execute. When the timeout expires the waiting
+ * caller is released with a {@code TimeoutException} while the operation continues to execute until
+ * it finishes or its thread is stopped. To not starve other operations the executor is given an extra
+ * thread for as long as a timed out operation is stuck.
+ * <p>
+ * The thread executing an operation on a bundle is available to
+ * {@link no.javatime.inplace.region.intface.BundleThread BundleThread} as a fall back when the thread
+ * owning the state change can not be obtained from the framework.
+ */
+class ActivatorExecutor implements ActivatorMetrics {
+
+	// Number of latency samples kept for each bundle and operation
+	private final static int SAMPLE_SIZE = 32;
+
+	private final int poolSize = Math.max(2, Math.min(8, Runtime.getRuntime().availableProcessors()));
+	private ThreadPoolExecutor executor;
+	private ScheduledThreadPoolExecutor watchdog;
+
+	private final AtomicInteger inFlight = new AtomicInteger();
+	private final AtomicLong timeouts = new AtomicLong();
+	// Executing operations by bundle
+	private final Map<Bundle, ActivatorTask> running = new ConcurrentHashMap<>();
+	private final ConcurrentMap<Bundle, Latency> startLatency = new ConcurrentHashMap<>();
+	private final ConcurrentMap<Bundle, Latency> stopLatency = new ConcurrentHashMap<>();
+
+	/**
+	 * Execute the specified start or stop operation and wait for it to finish or time out
+	 *
+	 * @param bundle the bundle to start or stop
+	 * @param operation the start or stop operation
+	 * @param isStart true if this is a start operation and false if it is a stop operation
+	 * @param timeOut number of milliseconds to wait for the operation to finish after it starts to
+	 * execute
+	 * @throws TimeoutException if the operation did not finish before the timeout
+	 * @throws InterruptedException if interrupted while waiting for the operation to finish
+	 * @throws Exception any exception thrown by the operation
+	 */
+	void execute(Bundle bundle, Callable<Void> operation, boolean isStart, long timeOut)
+			throws Exception {
+
+		ActivatorTask task = new ActivatorTask(bundle, operation, isStart, timeOut);
+		try {
+			getExecutor().execute(task);
+		} catch (RejectedExecutionException e) {
+			throw new InPlaceException(e);
+		}
+		task.finished.await();
+		if (task.timedOut) {
+			throw new TimeoutException();
+		}
+		Throwable failure = task.failure;
+		if (null != failure) {
+			if (failure instanceof Exception) {
+				throw (Exception) failure;
+			}
+			// A thread death from stopping the thread is not passed on to the caller
+			throw new InPlaceException(failure);
+		}
+	}
+
+	/**
+	 * Get the thread executing a start or stop operation on the specified bundle
+	 *
+	 * @param bundle the bundle running the operation
+	 * @return the thread or null if the bundle has no executing operation
+	 */
+	Thread getThread(Bundle bundle) {
+
+		ActivatorTask task = null != bundle ? running.get(bundle) : null;
+		return null != task ? task.thread : null;
+	}
+
+	/**
+	 * Remove the latency samples of the specified bundle
+	 *
+	 * @param bundle an uninstalled bundle
+	 */
+	void remove(Bundle bundle) {
+
+		startLatency.remove(bundle);
+		stopLatency.remove(bundle);
+	}
+
+	/**
+	 * Shut down the executor and the watchdog. Executing operations are not interrupted. The executor
+	 * is created again if used after being shut down.
+	 */
+	synchronized void shutdown() {
+
+		if (null != executor) {
+			executor.shutdown();
+			executor = null;
+		}
+		if (null != watchdog) {
+			watchdog.shutdownNow();
+			watchdog = null;
+		}
+	}
+
+	@Override
+	public int getInFlight() {
+		return inFlight.get();
+	}
+
+	@Override
+	public synchronized int getQueueDepth() {
+		return null != executor ? executor.getQueue().size() : 0;
+	}
+
+	@Override
+	public long getTimeouts() {
+		return timeouts.get();
+	}
+
+	@Override
+	public Collection<Bundle> getStuckBundles() {
+
+		Collection<Bundle> bundles = new ArrayList<>();
+		for (ActivatorTask task : running.values()) {
+			if (task.timedOut) {
+				bundles.add(task.bundle);
+			}
+		}
+		return bundles;
+	}
+
+	@Override
+	public long getStartLatency(Bundle bundle, int percentile) {
+
+		Latency latency = null != bundle ? startLatency.get(bundle) : null;
+		return null != latency ? latency.getPercentile(percentile) : -1;
+	}
+
+	@Override
+	public long getStopLatency(Bundle bundle, int percentile) {
+
+		Latency latency = null != bundle ? stopLatency.get(bundle) : null;
+		return null != latency ? latency.getPercentile(percentile) : -1;
+	}
+
+	private synchronized ThreadPoolExecutor getExecutor() {
+
+		if (null == executor) {
+			executor = new ThreadPoolExecutor(poolSize, poolSize, 60L, TimeUnit.SECONDS,
+					new LinkedBlockingQueue<Runnable>(), new NamedThreadFactory("InPlace Activator"));
+			executor.allowCoreThreadTimeOut(true);
+			watchdog = new ScheduledThreadPoolExecutor(1, new NamedThreadFactory("InPlace Activator Watchdog"));
+			watchdog.setRemoveOnCancelPolicy(true);
+		}
+		return executor;
+	}
+
+	private synchronized ScheduledFuture<?> schedule(Runnable command, long delay) {
+
+		if (null == watchdog) {
+			return null;
+		}
+		return watchdog.schedule(command, delay, TimeUnit.MILLISECONDS);
+	}
+
+	/**
+	 * Add or remove a thread to compensate for a thread occupied by a stuck operation
+	 *
+	 * @param delta one to add and minus one to remove a thread
+	 */
+	private synchronized void resize(int delta) {
+
+		if (null != executor) {
+			int size = executor.getMaximumPoolSize() + delta;
+			if (delta > 0) {
+				executor.setMaximumPoolSize(size);
+				executor.setCorePoolSize(size);
+			} else if (size >= poolSize) {
+				executor.setCorePoolSize(size);
+				executor.setMaximumPoolSize(size);
+			}
+		}
+	}
+
+	/**
+	 * A start or stop operation with a timeout enforced by the watchdog
+	 */
+	private class ActivatorTask implements Runnable {
+
+		private final Bundle bundle;
+		private final Callable<Void> operation;
+		private final boolean isStart;
+		private final long timeOut;
+		private final CountDownLatch finished = new CountDownLatch(1);
+		private volatile Thread thread;
+		private volatile boolean timedOut;
+		private volatile Throwable failure;
+
+		public ActivatorTask(Bundle bundle, Callable<Void> operation, boolean isStart, long timeOut) {
+			this.bundle = bundle;
+			this.operation = operation;
+			this.isStart = isStart;
+			this.timeOut = timeOut;
+		}
+
+		@Override
+		public void run() {
+
+			thread = Thread.currentThread();
+			running.put(bundle, this);
+			inFlight.incrementAndGet();
+			long startTime = System.currentTimeMillis();
+			ScheduledFuture<?> timer = schedule(new Runnable() {
+				@Override
+				public void run() {
+					timeOut();
+				}
+			}, timeOut);
+			try {
+				operation.call();
+			} catch (Throwable e) {
+				failure = e;
+			} finally {
+				if (null != timer) {
+					timer.cancel(false);
+				}
+				addLatency(System.currentTimeMillis() - startTime);
+				inFlight.decrementAndGet();
+				running.remove(bundle, this);
+				thread = null;
+				synchronized (this) {
+					if (timedOut) {
+						resize(-1);
+					}
+					finished.countDown();
+				}
+			}
+		}
+
+		/**
+		 * Release the caller and compensate for the stuck thread if the operation has not finished
+		 */
+		private synchronized void timeOut() {
+
+			if (finished.getCount() > 0) {
+				timedOut = true;
+				timeouts.incrementAndGet();
+				resize(1);
+				finished.countDown();
+			}
+		}
+
+		private void addLatency(long msec) {
+
+			ConcurrentMap<Bundle, Latency> latencies = isStart ? startLatency : stopLatency;
+			Latency latency = latencies.get(bundle);
+			if (null == latency) {
+				Latency newLatency = new Latency();
+				latency = latencies.putIfAbsent(bundle, newLatency);
+				if (null == latency) {
+					latency = newLatency;
+				}
+			}
+			latency.add(msec);
+		}
+	}
+
+	/**
+	 * Ring buffer of the most recent latencies of an operation
+	 */
+	private static class Latency {
+
+		private final long[] samples = new long[SAMPLE_SIZE];
+		private int count;
+		private int next;
+
+		synchronized void add(long msec) {
+
+			samples[next] = msec;
+			next = (next + 1) % samples.length;
+			if (count < samples.length) {
+				count++;
+			}
+		}
+
+		synchronized long getPercentile(int percentile) {
+
+			if (count == 0) {
+				return -1;
+			}
+			long[] sorted = Arrays.copyOf(samples, count);
+			Arrays.sort(sorted);
+			int rank = (int) Math.ceil(Math.max(1, Math.min(100, percentile)) / 100.0 * count);
+			return sorted[Math.max(0, rank - 1)];
+		}
+	}
+
+	private static class NamedThreadFactory implements ThreadFactory {
+
+		private final String name;
+		private final AtomicInteger threadNumber = new AtomicInteger(1);
+
+		public NamedThreadFactory(String name) {
+			this.name = name;
+		}
+
+		@Override
+		public Thread newThread(Runnable runnable) {
+			Thread thread = new Thread(runnable, name + "-" + threadNumber.getAndIncrement());
+			thread.setDaemon(true);
+			return thread;
+		}
+	}
+}
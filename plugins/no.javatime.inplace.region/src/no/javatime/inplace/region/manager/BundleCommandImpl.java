@@ -14,26 +14,25 @@ import java.io.IOException;
 import java.io.InputStream;
 import java.net.MalformedURLException;
 import java.net.URL;
+import java.util.ArrayList;
 import java.util.Collection;
 import java.util.Collections;
 import java.util.HashMap;
+import java.util.LinkedHashMap;
 import java.util.LinkedHashSet;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
 import java.util.concurrent.Callable;
-import java.util.concurrent.CancellationException;
 import java.util.concurrent.ExecutionException;
-import java.util.concurrent.ExecutorService;
-import java.util.concurrent.Executors;
 import java.util.concurrent.Future;
-import java.util.concurrent.TimeUnit;
 import java.util.concurrent.TimeoutException;
 
 import no.javatime.inplace.dl.preferences.intface.CommandOptions;
 import no.javatime.inplace.extender.intface.ExtenderException;
 import no.javatime.inplace.region.Activator;
 import no.javatime.inplace.region.events.TransitionEvent;
+import no.javatime.inplace.region.intface.ActivatorMetrics;
 import no.javatime.inplace.region.intface.BundleActivatorException;
 import no.javatime.inplace.region.intface.BundleCommand;
 import no.javatime.inplace.region.intface.BundleStateChangeException;
@@ -43,6 +42,8 @@ import no.javatime.inplace.region.intface.BundleTransitionListener;
 import no.javatime.inplace.region.intface.ExternalDuplicateException;
 import no.javatime.inplace.region.intface.InPlaceException;
 import no.javatime.inplace.region.intface.ProjectLocationException;
+import no.javatime.inplace.region.intface.RefreshResult;
+import no.javatime.inplace.region.intface.ResolverHookMetrics;
 import no.javatime.inplace.region.intface.WorkspaceDuplicateException;
 import no.javatime.inplace.region.msg.Msg;
 import no.javatime.inplace.region.project.BundleProjectMetaImpl;
@@ -88,9 +89,10 @@ public class BundleCommandImpl implements BundleCommand {
 	private WorkspaceRegionImpl bundleRegion = WorkspaceRegionImpl.INSTANCE;
 	private BundleTransitionImpl bundleTransition = BundleTransitionImpl.INSTANCE;
 
-	// Used in wait loop, waiting for the refresh thread to notify that it has finished refreshing
-	// bundles
-	private volatile boolean refreshed;
+	// Guards the refresh in progress and the refresh requests made while it is in progress
+	private final Object refreshLock = new Object();
+	private RefreshBatch refreshInFlight;
+	private RefreshBatch refreshPending;
 
 	/**
 	 * Access to the wiring framework API and used internally to refresh and resolve bundles.
@@ -98,15 +100,49 @@ public class BundleCommandImpl implements BundleCommand {
 	private FrameworkWiring frameworkWiring;
 
 	/**
-	 * Execution time of start and stop
+	 * Runs start and stop operations with a timeout
 	 */
-	private long msec;
+	private final ActivatorExecutor activatorExecutor = new ActivatorExecutor();
+
+	/**
+	 * Time used by the resolver hook to filter bundles to resolve
+	 */
+	private final ResolverHookTime resolverHookTime = new ResolverHookTime();
+
+	/**
+	 * Context used to install bundles and the resolver hook factory registered in the framework of
+	 * the context. If null the context and the factory of the region bundle are used.
+	 */
+	private final BundleContext context;
+	private final BundleResolveHookFactory resolverHookFactory;
 
 	/**
 	 * Default empty constructor.
 	 */
 	protected BundleCommandImpl() {
-		super();
+		this(null, null);
+	}
+
+	/**
+	 * Create a bundle command operating on bundles in the framework of the specified context instead
+	 * of the framework the region bundle is installed in. The bundles are registered in the workspace
+	 * region as any other workspace bundle.
+	 * 
+	 * @param context context used to install bundles and to obtain the framework wiring
+	 * @param resolverHookFactory the resolver hook factory registered in the framework of the context
+	 */
+	protected BundleCommandImpl(BundleContext context, BundleResolveHookFactory resolverHookFactory) {
+		this.context = context;
+		this.resolverHookFactory = resolverHookFactory;
+	}
+
+	/**
+	 * Get the context used to install bundles
+	 * 
+	 * @return the context given when this command was created or the context of the region bundle
+	 */
+	private BundleContext getContext() {
+		return null != context ? context : Activator.getContext();
 	}
 
 	/**
@@ -114,7 +150,7 @@ public class BundleCommandImpl implements BundleCommand {
 	 */
 	public void initFrameworkWiring() {
 		if (null == frameworkWiring) {
-			Bundle systemBundle = Activator.getContext().getBundle(0);
+			Bundle systemBundle = getContext().getBundle(0);
 			if (null != systemBundle) {
 				frameworkWiring = systemBundle.adapt(FrameworkWiring.class);
 			} else {
@@ -127,7 +163,8 @@ public class BundleCommandImpl implements BundleCommand {
 
 	@Override
 	public final BundleResolveHookFactory getResolverHookFactory() {
-		return Activator.getDefault().getResolverHookFactory();
+		return null != resolverHookFactory ? resolverHookFactory : Activator.getDefault()
+				.getResolverHookFactory();
 	}
 	
 	@Override
@@ -243,7 +280,7 @@ public class BundleCommandImpl implements BundleCommand {
 			locationIdentifier = bundleRegion.getBundleLocationIdentifier(project);
 			URL bundleReference = new URL(locationIdentifier);
 			is = bundleReference.openStream();
-			bundle = Activator.getContext().installBundle(locationIdentifier, is);
+			bundle = getContext().installBundle(locationIdentifier, is);
 		} catch (MalformedURLException e) {
 			bundleNode.setBundleTransitionError(TransitionError.MODULAR_EXCEPTION);
 			throw new InPlaceException(e, "bundle_install_malformed_error", locationIdentifier);
@@ -378,97 +415,151 @@ public class BundleCommandImpl implements BundleCommand {
 		if (null == bundles || bundles.size() == 0) {
 			return; // Ok to return when no bundles to refresh
 		}
+		try {
+			if (Category.DEBUG && Category.getState(Category.listeners))
+				TraceMessage.getInstance().getString("waiting_on_refresh",
+						BundleCommandImpl.class.getSimpleName());
+			refreshAsync(bundles).get();
+		} catch (InterruptedException e) {
+			throw new InPlaceException(e, "interrupt_exception_refresh",
+					BundleCommandImpl.class.getSimpleName());
+		} catch (ExecutionException e) {
+			Throwable cause = e.getCause();
+			if (cause instanceof InPlaceException) {
+				throw (InPlaceException) cause;
+			}
+			throw new InPlaceException(cause);
+		} finally {
+			if (Category.DEBUG && Category.getState(Category.listeners))
+				TraceMessage.getInstance().getString("continuing_after_refresh",
+						BundleCommandImpl.class.getSimpleName());
+		}
+	}
 
-		// Report on any additional bundles refreshed than those specified
-			// Collection<Bundle> dependencyClosure = getDependencyClosure(bundles);
-			// dependencyClosure.removeAll(bundles);
-		try { // wait block
-			final IBundleStatus refreshStatus = new BundleStatus(StatusCode.OK, Activator.PLUGIN_ID,"");
-			for (Bundle bundle : bundles) {
-				if (WorkspaceRegionImpl.INSTANCE.exist(bundle)) {
-					BundleNode node = bundleRegion.getBundleNode(bundle);
-					node.getState().refresh(node);
+	@Override
+	public Future<RefreshResult> refreshAsync(Collection<Bundle> bundles) {
+
+		final RefreshFuture future = new RefreshFuture();
+		if (null == bundles || bundles.size() == 0) {
+			Collection<Bundle> noBundles = Collections.<Bundle> emptySet();
+			future.complete(new RefreshResult(noBundles, noBundles, null));
+			return future;
+		}
+		final RefreshBatch batch;
+		synchronized (refreshLock) {
+			if (null != refreshInFlight) {
+				// Coalesce with other requests made while the current refresh is in progress
+				if (null == refreshPending) {
+					refreshPending = new RefreshBatch();
 				}
+				refreshPending.add(bundles, future);
+				return future;
 			}
-			// Used to notify that refresh has finished in the framework event handler
-			final BundleCommandImpl thisBundleCommand = this;
-			synchronized (this) {
-				this.refreshed = false;
+			batch = new RefreshBatch();
+			batch.add(bundles, future);
+			refreshInFlight = batch;
+		}
+		startRefresh(batch);
+		return future;
+	}
+
+	/**
+	 * Start refreshing the bundles of the specified batch. The futures of the batch are completed when
+	 * the framework has finished refreshing.
+	 * 
+	 * @param batch the bundles to refresh and the futures waiting for the refresh
+	 */
+	private void startRefresh(final RefreshBatch batch) {
+
+		final Collection<Bundle> bundles = batch.bundles;
+		for (Bundle bundle : bundles) {
+			if (WorkspaceRegionImpl.INSTANCE.exist(bundle)) {
+				BundleNode node = bundleRegion.getBundleNode(bundle);
+				node.getState().refresh(node);
 			}
-			try { // refresh block
-				frameworkWiring.refreshBundles(bundles, new FrameworkListener() {
-					@Override
-					public void frameworkEvent(FrameworkEvent event) {
-
-						try {
-							if (Category.getState(Category.bundleEvents)) {
-								TraceMessage.getInstance().getString("framework_event",
-										BundleCommandImpl.INSTANCE.getStateName(event),
-										event.getBundle().getSymbolicName());
-							}
+		}
+		if (null == frameworkWiring) {
+			finishRefresh(batch, new InPlaceException(ExceptionMessage.getInstance().getString("null_framework")));
+			return;
+		}
+		final IBundleStatus refreshStatus = new BundleStatus(StatusCode.OK, Activator.PLUGIN_ID,"");
+		try {
+			// The framework refreshes the dependency closure of the requested bundles
+			batch.refreshed = frameworkWiring.getDependencyClosure(bundles);
+			frameworkWiring.refreshBundles(bundles, new FrameworkListener() {
+				@Override
+				public void frameworkEvent(FrameworkEvent event) {
 
-							if ((event.getType() & (FrameworkEvent.ERROR)) != 0) {
-								for (Bundle bundle : bundles) {
-									BundleNode node = bundleRegion.getBundleNode(bundle);
-									node.setBundleTransitionError(TransitionError.MODULAR_REFRESH_ERROR);
-								}
-								refreshStatus.setStatusCode(StatusCode.EXCEPTION);
-								Throwable throwable = event.getThrowable();
-								if (null != throwable) { 
-									refreshStatus.setMessage(throwable.getMessage()); 
-									refreshStatus.setException(throwable);
-								}
-								refreshStatus.setBundle(event.getBundle());
-								StatusManager.getManager().handle(refreshStatus, StatusManager.LOG);
+					try {
+						if (Category.getState(Category.bundleEvents)) {
+							TraceMessage.getInstance().getString("framework_event",
+									BundleCommandImpl.INSTANCE.getStateName(event),
+									event.getBundle().getSymbolicName());
+						}
+						if ((event.getType() & (FrameworkEvent.ERROR)) != 0) {
+							for (Bundle bundle : bundles) {
+								BundleNode node = bundleRegion.getBundleNode(bundle);
+								node.setBundleTransitionError(TransitionError.MODULAR_REFRESH_ERROR);
 							}
-						} finally {
-							synchronized (thisBundleCommand) { // Notify to proceed
-								if (Category.DEBUG && Category.getState(Category.listeners))
-									TraceMessage.getInstance().getString("notify_refresh_finished",
-											BundleCommandImpl.class.getSimpleName(),
-											bundleRegion.formatBundleList(bundles, true));
-								thisBundleCommand.refreshed = true;
-								thisBundleCommand.notifyAll();
+							refreshStatus.setStatusCode(StatusCode.EXCEPTION);
+							Throwable throwable = event.getThrowable();
+							if (null != throwable) { 
+								refreshStatus.setMessage(throwable.getMessage()); 
+								refreshStatus.setException(throwable);
 							}
+							refreshStatus.setBundle(event.getBundle());
+							StatusManager.getManager().handle(refreshStatus, StatusManager.LOG);
+							batch.error = null != throwable ? throwable : new InPlaceException(
+									"bundle_refresh_error", bundleRegion.formatBundleList(bundles, true));
 						}
+					} finally {
+						if (Category.DEBUG && Category.getState(Category.listeners))
+							TraceMessage.getInstance().getString("notify_refresh_finished",
+									BundleCommandImpl.class.getSimpleName(),
+									bundleRegion.formatBundleList(bundles, true));
+						finishRefresh(batch, null);
 					}
-				});
-			
-			// Refresh	
-			} catch (SecurityException e) {
-				for (Bundle bundle : bundles) {
-					BundleNode node = bundleRegion.getBundleNode(bundle);
-					node.setBundleTransitionError(TransitionError.MODULAR_EXCEPTION);
-				}
-				throw new InPlaceException(e, "framework_bundle_security_error",
-						bundleRegion.formatBundleList(bundles, true));
-			} catch (IllegalArgumentException e) {
-				for (Bundle bundle : bundles) {
-					BundleNode node = bundleRegion.getBundleNode(bundle);
-					node.setBundleTransitionError(TransitionError.MODULAR_EXCEPTION);
 				}
-				throw new InPlaceException(e, "bundles_argument_refresh_bundle",
-						bundleRegion.formatBundleList(bundles, true));
+			});
+		} catch (SecurityException e) {
+			for (Bundle bundle : bundles) {
+				BundleNode node = bundleRegion.getBundleNode(bundle);
+				node.setBundleTransitionError(TransitionError.MODULAR_EXCEPTION);
 			}
-
-			synchronized (this) {
-				while (!this.refreshed) {
-					if (Category.DEBUG && Category.getState(Category.listeners))
-						TraceMessage.getInstance().getString("waiting_on_refresh",
-								BundleCommandImpl.class.getSimpleName());
-					this.wait();
-				}
+			finishRefresh(batch, new InPlaceException(e, "framework_bundle_security_error",
+					bundleRegion.formatBundleList(bundles, true)));
+		} catch (IllegalArgumentException e) {
+			for (Bundle bundle : bundles) {
+				BundleNode node = bundleRegion.getBundleNode(bundle);
+				node.setBundleTransitionError(TransitionError.MODULAR_EXCEPTION);
 			}
-		} catch (InterruptedException e) {
-			throw new InPlaceException(e, "interrupt_exception_refresh",
-					BundleCommandImpl.class.getSimpleName());
+			finishRefresh(batch, new InPlaceException(e, "bundles_argument_refresh_bundle",
+					bundleRegion.formatBundleList(bundles, true)));
+		}
+	}
 
-		} finally {
-			if (Category.DEBUG && Category.getState(Category.listeners))
-				TraceMessage.getInstance().getString("continuing_after_refresh",
-						BundleCommandImpl.class.getSimpleName());
-			for (Bundle bundle : bundles) {
+	/**
+	 * Commit or roll back the refreshed bundles, complete the futures of the specified batch and start
+	 * refreshing bundles requested while the batch was refreshed. Only the first call for a batch has
+	 * an effect.
+	 * 
+	 * @param batch a refreshed batch
+	 * @param failure the reason the refresh could not be started or null
+	 */
+	private void finishRefresh(RefreshBatch batch, InPlaceException failure) {
+
+		synchronized (batch) {
+			if (batch.finished) {
+				return;
+			}
+			batch.finished = true;
+		}
+		try {
+			for (Bundle bundle : batch.bundles) {
 				BundleNode node = bundleRegion.getBundleNode(bundle);
+				if (null == node) {
+					continue;
+				}
 				if (node.hasBundleTransitionError()) {
 					node.rollBack();
 				} else {
@@ -476,6 +567,81 @@ public class BundleCommandImpl implements BundleCommand {
 					BundleTransitionListener.addBundleTransition(new TransitionEvent(bundle, Transition.REFRESH));
 				}
 			}
+		} finally {
+			RefreshResult result = new RefreshResult(batch.bundles, batch.refreshed, batch.error);
+			for (RefreshFuture future : batch.futures) {
+				if (null != failure) {
+					future.fail(failure);
+				} else {
+					future.complete(result);
+				}
+			}
+			releaseRefresh(batch);
+		}
+	}
+
+	/**
+	 * Let the next coalesced batch, if any, be refreshed after the specified batch has finished or
+	 * all waiting for it have cancelled
+	 * 
+	 * @param batch the batch to release
+	 */
+	private void releaseRefresh(RefreshBatch batch) {
+
+		RefreshBatch next = null;
+		synchronized (refreshLock) {
+			if (refreshInFlight != batch) {
+				return;
+			}
+			next = refreshPending;
+			refreshPending = null;
+			refreshInFlight = next;
+		}
+		if (null != next) {
+			startRefresh(next);
+		}
+	}
+
+	/**
+	 * Bundles to refresh in one framework refresh and the futures waiting for the refresh to finish
+	 */
+	private class RefreshBatch {
+
+		private final Collection<Bundle> bundles = new LinkedHashSet<>();
+		private final Collection<RefreshFuture> futures = new ArrayList<>();
+		private Collection<Bundle> refreshed = Collections.<Bundle> emptySet();
+		private volatile Throwable error;
+		private boolean finished;
+
+		/**
+		 * Add the specified bundles and the future waiting for them to be refreshed
+		 */
+		private void add(Collection<Bundle> bundles, final RefreshFuture future) {
+
+			this.bundles.addAll(bundles);
+			futures.add(future);
+			future.setCancelHandler(new Runnable() {
+				@Override
+				public void run() {
+					cancel();
+				}
+			});
+		}
+
+		/**
+		 * Stop waiting for this batch if all its futures are cancelled. A lost framework event does not
+		 * block later refresh requests
+		 */
+		private void cancel() {
+
+			synchronized (refreshLock) {
+				for (RefreshFuture future : futures) {
+					if (!future.isCancelled()) {
+						return;
+					}
+				}
+			}
+			releaseRefresh(this);
 		}
 	}
 
@@ -483,7 +649,7 @@ public class BundleCommandImpl implements BundleCommand {
 	public void start(Bundle bundle, int startOption, long timeOut) throws InPlaceException,
 			InterruptedException, IllegalStateException {
 
-		class StartTask implements Callable<String> {
+		class StartTask implements Callable<Void> {
 			Bundle bundle;
 			int startOption = Bundle.START_TRANSIENT;
 
@@ -493,45 +659,66 @@ public class BundleCommandImpl implements BundleCommand {
 			}
 
 			@Override
-			public String call() throws Exception {
+			public Void call() throws Exception {
 				start(bundle, startOption);
 				return null;
 			}
 		}
 
-		ExecutorService executor = Executors.newSingleThreadExecutor();
 		try {
-			Future<String> future = null;
-			future = executor.submit(new StartTask(bundle, startOption));
-			future.get(timeOut, TimeUnit.MILLISECONDS);
-		} catch (CancellationException e) {
-			throw new InPlaceException(e);
+			activatorExecutor.execute(bundle, new StartTask(bundle, startOption), true, timeOut);
 		} catch (TimeoutException e) {
 			BundleNode bundleNode = bundleRegion.getBundleNode(bundle);
 			bundleNode.setBundleTransitionError(TransitionError.SERVICE_STATECHANGE);
 			throw new BundleStateChangeException(e, "bundle_task_start_terminate", bundle);
 		} catch (InterruptedException e) {
 			throw e;
-		} catch (ExecutionException e) {
-			Throwable cause = e.getCause();
-			if (cause instanceof InPlaceException) {
-				throw (InPlaceException) cause;
-			} else if (cause instanceof BundleActivatorException) {
-				throw (BundleActivatorException) cause;
-			} else {
-				throw new InPlaceException(e);
-			}
-		} finally {
-			try {
-				executor.shutdownNow();
-			} catch (Exception ex) {
-				throw new InPlaceException(ex, "bundle_security_error", bundle);
-			}
+		} catch (InPlaceException e) {
+			throw e;
+		} catch (BundleActivatorException e) {
+			throw e;
+		} catch (Exception e) {
+			throw new InPlaceException(e);
 		}
 	}
 
-	public long getExecutionTime() {
-		return msec;
+	@Override
+	public long getExecutionTime(Bundle bundle) {
+
+		BundleNode node = bundleRegion.getBundleNode(bundle);
+		return null != node ? node.getExecutionTime() : 0;
+	}
+
+	@Override
+	public ActivatorMetrics getActivatorMetrics() {
+		return activatorExecutor;
+	}
+
+	@Override
+	public ResolverHookMetrics getResolverHookMetrics() {
+		return resolverHookTime;
+	}
+
+	/**
+	 * Add the time used by the resolver hook to filter bundles to resolve
+	 * 
+	 * @param startTime the time in nanoseconds when the resolver hook started filtering
+	 */
+	public void addResolverHookTime(long startTime) {
+		resolverHookTime.add(startTime);
+	}
+
+	@Override
+	public Thread getActivatorThread(Bundle bundle) {
+		return activatorExecutor.getThread(bundle);
+	}
+
+	/**
+	 * Shut down the executor running start and stop operations with a timeout. Called when the region
+	 * bundle is stopped.
+	 */
+	public void shutdownActivatorExecutor() {
+		activatorExecutor.shutdown();
 	}
 
 	@Override
@@ -569,7 +756,7 @@ public class BundleCommandImpl implements BundleCommand {
 				throw new InPlaceException(e, "bundle_start_error", bundle);
 			}
 		} finally {
-			msec = System.currentTimeMillis() - startTime;
+			node.setExecutionTime(System.currentTimeMillis() - startTime);
 			// The framework moves the bundle to state resolve for incomplete (exceptions) start commands
 			if (node.hasBundleTransitionError()) {
 				node.getState().rollBack(node);
@@ -585,7 +772,7 @@ public class BundleCommandImpl implements BundleCommand {
 	public void stop(Bundle bundle, boolean stopTransient, long timeOut) throws InPlaceException,
 			InterruptedException, IllegalStateException {
 
-		class StopTask implements Callable<String> {
+		class StopTask implements Callable<Void> {
 			Bundle bundle;
 			boolean stopTransient;
 
@@ -595,42 +782,24 @@ public class BundleCommandImpl implements BundleCommand {
 			}
 
 			@Override
-			public String call() throws Exception {
-				try {
-					stop(bundle, stopTransient);
-				} catch (Exception e) {
-					throw e;
-				}
+			public Void call() throws Exception {
+				stop(bundle, stopTransient);
 				return null;
 			}
 		}
 
-		ExecutorService executor = Executors.newSingleThreadExecutor();
 		try {
-			Future<String> future = null;
-			future = executor.submit(new StopTask(bundle, stopTransient));
-			future.get(timeOut, TimeUnit.MILLISECONDS);
-		} catch (CancellationException e) {
-			throw new InPlaceException(e);
+			activatorExecutor.execute(bundle, new StopTask(bundle, stopTransient), false, timeOut);
 		} catch (TimeoutException e) {
 			throw new BundleStateChangeException(e, "bundle_task_stop_terminate", bundle);
 		} catch (InterruptedException e) {
 			throw e;
-		} catch (ExecutionException e) {
-			Throwable cause = e.getCause();
-			if (cause instanceof InPlaceException) {
-				throw (InPlaceException) cause;
-			} else if (cause instanceof BundleActivatorException) {
-				throw (BundleActivatorException) cause;
-			} else {
-				throw new InPlaceException(e);
-			}
-		} finally {
-			try {
-				executor.shutdownNow();
-			} catch (Exception ex) {
-				throw new InPlaceException(ex, "bundle_security_error", bundle);
-			}
+		} catch (InPlaceException e) {
+			throw e;
+		} catch (BundleActivatorException e) {
+			throw e;
+		} catch (Exception e) {
+			throw new InPlaceException(e);
 		}
 	}
 
@@ -671,7 +840,7 @@ public class BundleCommandImpl implements BundleCommand {
 				throw new InPlaceException(e, "bundle_stop_error", bundle);
 			}
 		} finally {
-			msec = System.currentTimeMillis() - startTime;
+			node.setExecutionTime(System.currentTimeMillis() - startTime);
 			BundleTransitionListener
 					.addBundleTransition(new TransitionEvent(bundle, node.getTransition()));
 			// The framework moves the bundle to state resolve for both
@@ -697,30 +866,93 @@ public class BundleCommandImpl implements BundleCommand {
 	@Override
 	public Bundle update(Bundle bundle) throws InPlaceException, WorkspaceDuplicateException {
 
-		InputStream is = null;
 		if (bundle == null) {
 			throw new InPlaceException(ExceptionMessage.getInstance().getString("null_bundle_update"));
 		}
+		UpdateInput input = new UpdateInput(bundle);
+		try {
+			setDuplicateGroups(Collections.<Bundle> singletonList(bundle));
+			return update(bundle, input);
+		} finally {
+			input.close();
+			// TODO Check again if resolver hook has been visited during update.
+			setDuplicateGroups(Collections.<Bundle> emptyList());
+		}
+	}
+
+	@Override
+	public Map<Bundle, RuntimeException> update(Collection<Bundle> bundles) {
+
+		Map<Bundle, RuntimeException> failures = new LinkedHashMap<>();
+		Map<Bundle, UpdateInput> inputs = new LinkedHashMap<>();
+		try {
+			// Open all input streams and register all duplicate candidates before the first update
+			for (Bundle bundle : bundles) {
+				inputs.put(bundle, new UpdateInput(bundle));
+			}
+			setDuplicateGroups(inputs.keySet());
+			for (Map.Entry<Bundle, UpdateInput> input : inputs.entrySet()) {
+				Bundle bundle = input.getKey();
+				try {
+					update(bundle, input.getValue());
+				} catch (InPlaceException | WorkspaceDuplicateException | ExternalDuplicateException e) {
+					failures.put(bundle, e);
+				}
+			}
+		} finally {
+			// Streams of bundles not updated
+			for (UpdateInput input : inputs.values()) {
+				try {
+					input.close();
+				} catch (InPlaceException e) {
+					// Ignore. The stream was never read
+				}
+			}
+			setDuplicateGroups(Collections.<Bundle> emptyList());
+		}
+		return failures;
+	}
+
+	/**
+	 * Register each of the specified bundles as a duplicate candidate group in the resolver hook to
+	 * avoid singleton collisions when updating
+	 * 
+	 * @param bundles bundles to update or an empty collection to clear the groups
+	 */
+	private void setDuplicateGroups(Collection<Bundle> bundles) {
+
 		// Contains duplicate candidate bundles to be removed in the resolver hook in case of singleton
 		// collisions
 		Map<Bundle, Set<Bundle>> duplicateInstanceGroups = new HashMap<Bundle, Set<Bundle>>();
-		Set<Bundle> duplicateInstanceCandidates = new LinkedHashSet<Bundle>();
+		for (Bundle bundle : bundles) {
+			Set<Bundle> duplicateInstanceCandidates = new LinkedHashSet<Bundle>();
+			duplicateInstanceCandidates.add(bundle);
+			duplicateInstanceGroups.put(bundle, duplicateInstanceCandidates);
+		}
+		getResolverHookFactory().setGroups(duplicateInstanceGroups);
+	}
+
+	/**
+	 * Updates the specified bundle from the specified prepared input stream
+	 * 
+	 * @param bundle the bundle object to update
+	 * @param input the input stream based on the bundle location identifier
+	 * @return the object of the updated bundle
+	 * @throws InPlaceException if failing to open the input stream or any of the
+	 * {@link Bundle#update(InputStream)} exceptions
+	 * @throws WorkspaceDuplicateException if this bundle is a duplicate - same symbolic name and version
+	 * - of an already installed bundle with a different location identifier.
+	 */
+	private Bundle update(Bundle bundle, UpdateInput input) throws InPlaceException,
+			WorkspaceDuplicateException {
 
-		String location = null;
+		String location = input.location;
 		BundleNode node = bundleRegion.getBundleNode(bundle);
 		BundleState state = node.getState();
 		try {
 			state.update(node);
-			// Set conditions in the resolver hook for removal of duplicates to avoid singleton
-			// collisions
-			duplicateInstanceCandidates.add(bundle);
-			duplicateInstanceGroups.put(bundle, duplicateInstanceCandidates);
-			getResolverHookFactory().setGroups(duplicateInstanceGroups);
 			Activator.getDefault().getDuplicateEvents().symbolicNameDuplicate(bundle);
-			location = bundle.getLocation();
-			URL bundlereference = new URL(location);
-			is = bundlereference.openStream();
-			bundle.update(is);
+			bundle.update(input.getStream());
 		} catch (MalformedURLException e) {
 			node.setBundleTransitionError(TransitionError.MODULAR_EXCEPTION);
 			throw new InPlaceException(e, "bundle_update_malformed_error", location);
@@ -748,12 +980,10 @@ public class BundleCommandImpl implements BundleCommand {
 			throw e;
 		} finally {
 			try {
-				if (null != is) {
-					is.close();
-				}
-			} catch (IOException e) {
+				input.close();
+			} catch (InPlaceException e) {
 				node.setBundleTransitionError(TransitionError.MODULAR_EXCEPTION);
-				throw new InPlaceException(e, "io_exception_update", bundle, location);
+				throw e;
 			} finally {
 				if (node.hasBundleTransitionError()) {
 					node.getState().rollBack(node);
@@ -762,14 +992,63 @@ public class BundleCommandImpl implements BundleCommand {
 					BundleTransitionListener.addBundleTransition(new TransitionEvent(bundle, node
 							.getTransition()));
 				}
-				// TODO Check again if resolver hook has been visited during update.
-				duplicateInstanceGroups.clear();
-				duplicateInstanceCandidates.clear();
 			}
 		}
 		return bundle;
 	}	
 
+	/**
+	 * Input stream over the location of a bundle to update. The stream is opened when created and any
+	 * failure opening the stream is deferred until the stream is used.
+	 */
+	private static class UpdateInput {
+
+		private final Bundle bundle;
+		private final String location;
+		private InputStream is;
+		private IOException failure;
+
+		public UpdateInput(Bundle bundle) {
+			this.bundle = bundle;
+			this.location = bundle.getLocation();
+			try {
+				is = new URL(location).openStream();
+			} catch (IOException e) {
+				failure = e;
+			}
+		}
+
+		/**
+		 * Get the opened input stream
+		 * 
+		 * @return the input stream
+		 * @throws IOException if the location is malformed or the stream could not be opened
+		 */
+		public InputStream getStream() throws IOException {
+			if (null != failure) {
+				throw failure;
+			}
+			return is;
+		}
+
+		/**
+		 * Close the input stream. Closing a closed stream has no effect.
+		 * 
+		 * @throws InPlaceException if failing to close the stream
+		 */
+		public void close() throws InPlaceException {
+			if (null != is) {
+				try {
+					is.close();
+				} catch (IOException e) {
+					throw new InPlaceException(e, "io_exception_update", bundle, location);
+				} finally {
+					is = null;
+				}
+			}
+		}
+	}
+
 	@Override
 	public IProject uninstall(Bundle bundle, Boolean unregister) throws InPlaceException,
 			ProjectLocationException {
@@ -802,6 +1081,7 @@ public class BundleCommandImpl implements BundleCommand {
 			project = node.getProject();
 			state.uninstall(node);
 			bundle.uninstall();
+			activatorExecutor.remove(bundle);
 		} catch (IllegalStateException e) {
 			node.setBundleTransitionError(TransitionError.MODULAR_EXCEPTION);
 			throw new InPlaceException(e, "bundle_state_error", bundle);
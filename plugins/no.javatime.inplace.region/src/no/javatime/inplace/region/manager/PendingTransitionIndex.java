@@ -0,0 +1,194 @@
+/*******************************************************************************
+ * Copyright (c) 2011, 2012 JavaTime project and others
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ * 	JavaTime project, Eirik Gronsund - initial implementation
+ *******************************************************************************/
+package no.javatime.inplace.region.manager;
+
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.Collection;
+import java.util.EnumSet;
+import java.util.List;
+
+import no.javatime.inplace.region.intface.BundleTransition.Transition;
+import no.javatime.inplace.region.state.BundleNode;
+
+/**
+ * Index of bundle nodes by pending transition. Each registered node is assigned a small id, and the
+ * index holds a bit set of node ids for each transition. Bundle nodes keep the index in sync when
+ * pending transitions are added to or removed from them.
+ * <p>
+ * Ids of unregistered nodes are reused by nodes registered later. Changes to a node that is no longer
+ * registered are ignored by the index.
+ *
+ * @see WorkspaceRegionImpl#getPendingTransitionIndex()
+ */
+public class PendingTransitionIndex {
+
+	private static final Transition[] TRANSITIONS = Transition.values();
+
+	// Nodes with a pending transition by transition ordinal
+	private final BitSet[] pending = new BitSet[TRANSITIONS.length];
+	// Number of nodes with a pending transition by transition ordinal
+	private final int[] counts = new int[TRANSITIONS.length];
+	// Registered nodes by node id
+	private final List<BundleNode> nodes = new ArrayList<>();
+	private final BitSet freeIds = new BitSet();
+
+	PendingTransitionIndex() {
+		for (int i = 0; i < pending.length; i++) {
+			pending[i] = new BitSet();
+		}
+	}
+
+	/**
+	 * Assign an id to the specified node
+	 *
+	 * @param node a new bundle node
+	 * @return the id of the node in the index
+	 */
+	public synchronized int register(BundleNode node) {
+
+		int id = freeIds.nextSetBit(0);
+		if (id < 0) {
+			id = nodes.size();
+			nodes.add(node);
+		} else {
+			freeIds.clear(id);
+			nodes.set(id, node);
+		}
+		return id;
+	}
+
+	/**
+	 * Remove the specified node and its pending transitions from the index and free its id
+	 *
+	 * @param node a removed bundle node
+	 */
+	public synchronized void unregister(BundleNode node) {
+
+		int id = node.getNodeId();
+		if (!isRegistered(node, id)) {
+			return;
+		}
+		for (int i = 0; i < pending.length; i++) {
+			clear(i, id);
+		}
+		nodes.set(id, null);
+		freeIds.set(id);
+	}
+
+	/**
+	 * Mark the specified transition as pending for the specified node
+	 *
+	 * @param node the node the transition is added to
+	 * @param transition the pending transition
+	 */
+	public synchronized void add(BundleNode node, Transition transition) {
+
+		int id = node.getNodeId();
+		if (isRegistered(node, id)) {
+			set(transition.ordinal(), id);
+		}
+	}
+
+	/**
+	 * Clear the specified transition as pending for the specified node
+	 *
+	 * @param node the node the transition is removed from
+	 * @param transition the transition that is no longer pending
+	 */
+	public synchronized void remove(BundleNode node, Transition transition) {
+
+		int id = node.getNodeId();
+		if (isRegistered(node, id)) {
+			clear(transition.ordinal(), id);
+		}
+	}
+
+	/**
+	 * Replace all pending transitions of the specified node with the specified transitions
+	 *
+	 * @param node the node with changed pending transitions
+	 * @param transitions all pending transitions of the node
+	 */
+	public synchronized void update(BundleNode node, EnumSet<Transition> transitions) {
+
+		int id = node.getNodeId();
+		if (!isRegistered(node, id)) {
+			return;
+		}
+		for (Transition transition : TRANSITIONS) {
+			if (transitions.contains(transition)) {
+				set(transition.ordinal(), id);
+			} else {
+				clear(transition.ordinal(), id);
+			}
+		}
+	}
+
+	/**
+	 * Check if any node has the specified pending transition
+	 *
+	 * @param transition the transition to check for
+	 * @return true if at least one registered node has the pending transition
+	 */
+	public synchronized boolean contains(Transition transition) {
+		return counts[transition.ordinal()] > 0;
+	}
+
+	/**
+	 * Check if the specified node has the specified pending transition
+	 *
+	 * @param node the node to check
+	 * @param transition the transition to check for
+	 * @return true if the node is registered and has the pending transition
+	 */
+	public synchronized boolean contains(BundleNode node, Transition transition) {
+
+		int id = node.getNodeId();
+		return isRegistered(node, id) && pending[transition.ordinal()].get(id);
+	}
+
+	/**
+	 * Get all nodes with the specified pending transition
+	 *
+	 * @param transition the transition to check for
+	 * @return the nodes with the pending transition in id order. Never null.
+	 */
+	public synchronized Collection<BundleNode> getNodes(Transition transition) {
+
+		BitSet ids = pending[transition.ordinal()];
+		Collection<BundleNode> pendingNodes = new ArrayList<>(counts[transition.ordinal()]);
+		for (int id = ids.nextSetBit(0); id >= 0; id = ids.nextSetBit(id + 1)) {
+			pendingNodes.add(nodes.get(id));
+		}
+		return pendingNodes;
+	}
+
+	private boolean isRegistered(BundleNode node, int id) {
+		return id >= 0 && id < nodes.size() && nodes.get(id) == node;
+	}
+
+	private void set(int ordinal, int id) {
+
+		if (!pending[ordinal].get(id)) {
+			pending[ordinal].set(id);
+			counts[ordinal]++;
+		}
+	}
+
+	private void clear(int ordinal, int id) {
+
+		if (pending[ordinal].get(id)) {
+			pending[ordinal].clear(id);
+			counts[ordinal]--;
+		}
+	}
+}
@@ -0,0 +1,135 @@
+/*******************************************************************************
+ * Copyright (c) 2011, 2012 JavaTime project and others
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ * 	JavaTime project, Eirik Gronsund - initial implementation
+ *******************************************************************************/
+package no.javatime.inplace.region.manager;
+
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+import no.javatime.inplace.region.intface.RefreshResult;
+
+/**
+ * Pending result of a refresh completed by the framework listener when the framework has finished
+ * refreshing.
+ * <p>
+ * Cancelling the future stops waiting for the refresh to finish. The framework continues to refresh
+ * the bundles, and the bundles are committed or rolled back when the framework reports that it has
+ * finished.
+ */
+class RefreshFuture implements Future<RefreshResult> {
+
+	private final CountDownLatch done = new CountDownLatch(1);
+	private RefreshResult result;
+	private Throwable failure;
+	private boolean cancelled;
+	// Run when cancelled
+	private Runnable cancelHandler;
+
+	/**
+	 * Set a handler to run when this future is cancelled
+	 *
+	 * @param cancelHandler the handler to run
+	 */
+	synchronized void setCancelHandler(Runnable cancelHandler) {
+		this.cancelHandler = cancelHandler;
+	}
+
+	/**
+	 * Complete this future with the specified result
+	 *
+	 * @param result the result of the refresh
+	 * @return true if completed and false if this future has already been completed or cancelled
+	 */
+	synchronized boolean complete(RefreshResult result) {
+
+		if (isDone()) {
+			return false;
+		}
+		this.result = result;
+		done.countDown();
+		return true;
+	}
+
+	/**
+	 * Complete this future with the specified failure
+	 *
+	 * @param failure the reason the refresh failed
+	 * @return true if completed and false if this future has already been completed or cancelled
+	 */
+	synchronized boolean fail(Throwable failure) {
+
+		if (isDone()) {
+			return false;
+		}
+		this.failure = failure;
+		done.countDown();
+		return true;
+	}
+
+	@Override
+	public boolean cancel(boolean mayInterruptIfRunning) {
+
+		Runnable handler = null;
+		synchronized (this) {
+			if (isDone()) {
+				return false;
+			}
+			cancelled = true;
+			done.countDown();
+			handler = cancelHandler;
+		}
+		if (null != handler) {
+			handler.run();
+		}
+		return true;
+	}
+
+	@Override
+	public synchronized boolean isCancelled() {
+		return cancelled;
+	}
+
+	@Override
+	public boolean isDone() {
+		return done.getCount() == 0;
+	}
+
+	@Override
+	public RefreshResult get() throws InterruptedException, ExecutionException {
+
+		done.await();
+		return getResult();
+	}
+
+	@Override
+	public RefreshResult get(long timeout, TimeUnit unit) throws InterruptedException,
+			ExecutionException, TimeoutException {
+
+		if (!done.await(timeout, unit)) {
+			throw new TimeoutException();
+		}
+		return getResult();
+	}
+
+	private synchronized RefreshResult getResult() throws ExecutionException {
+
+		if (cancelled) {
+			throw new CancellationException();
+		}
+		if (null != failure) {
+			throw new ExecutionException(failure);
+		}
+		return result;
+	}
+}
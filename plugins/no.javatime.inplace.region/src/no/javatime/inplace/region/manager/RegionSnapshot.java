@@ -0,0 +1,302 @@
+/*******************************************************************************
+ * Copyright (c) 2011, 2012 JavaTime project and others
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ * 	JavaTime project, Eirik Gronsund - initial implementation
+ *******************************************************************************/
+package no.javatime.inplace.region.manager;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import no.javatime.inplace.region.Activator;
+import no.javatime.inplace.region.intface.BundleTransition.Transition;
+import no.javatime.inplace.region.intface.BundleTransition.TransitionError;
+import no.javatime.inplace.region.state.BundleNode;
+import no.javatime.inplace.region.state.BundleState;
+
+import org.eclipse.core.resources.IProject;
+import org.osgi.framework.Bundle;
+
+/**
+ * Immutable view of the bundle nodes in the region at a given generation. The region increments its
+ * generation each time a bundle node is registered, unregistered or changes state, transition,
+ * activation or errors, and creates a new snapshot the first time it is requested after a change.
+ * <p>
+ * All readers share the same snapshot until the next change, and the collections of a snapshot are
+ * unmodifiable. Readers may compare the generation of a snapshot with the generation of an earlier
+ * snapshot to detect if anything has changed in between.
+ *
+ * @see WorkspaceRegionImpl#getSnapshot()
+ */
+public class RegionSnapshot {
+
+	/**
+	 * The state of a bundle node when the snapshot was taken
+	 */
+	public static class NodeRecord {
+
+		private final IProject project;
+		private final Bundle bundle;
+		private final BundleState state;
+		private final Transition transition;
+		private final boolean activated;
+		private final boolean stateChanging;
+		private final TransitionError buildError;
+		private final TransitionError bundleError;
+
+		private NodeRecord(BundleNode node, Bundle bundle) {
+			project = node.getProject();
+			this.bundle = bundle;
+			state = node.getState();
+			transition = node.getTransition();
+			activated = Boolean.TRUE.equals(node.isActivated());
+			stateChanging = node.isStateChanging();
+			buildError = node.getBuildTransitionError();
+			bundleError = node.getBundleTransitionError();
+		}
+
+		public IProject getProject() {
+			return project;
+		}
+
+		/**
+		 * The installed bundle of the project
+		 *
+		 * @return the bundle or null if not installed
+		 */
+		public Bundle getBundle() {
+			return bundle;
+		}
+
+		public BundleState getState() {
+			return state;
+		}
+
+		public Transition getTransition() {
+			return transition;
+		}
+
+		public boolean isActivated() {
+			return activated;
+		}
+
+		public boolean isStateChanging() {
+			return stateChanging;
+		}
+
+		public TransitionError getBuildTransitionError() {
+			return buildError;
+		}
+
+		public TransitionError getBundleTransitionError() {
+			return bundleError;
+		}
+	}
+
+	private final long generation;
+	private final List<NodeRecord> records;
+	private final Map<IProject, NodeRecord> projectRecords;
+	private final Map<Long, NodeRecord> bundleRecords;
+	private final Collection<Bundle> bundles;
+	private final Collection<Bundle> activatedBundles;
+	private final Collection<Bundle> deactivatedBundles;
+	private final Collection<IProject> projects;
+	private final Collection<IProject> activatedProjects;
+	private final Collection<IProject> deactivatedProjects;
+	private final Bundle stateChangingBundle;
+	private final ActivationPartition activationPartition;
+
+	/**
+	 * Create a snapshot of the specified nodes
+	 *
+	 * @param generation the generation of the region before the nodes were read
+	 * @param nodes the registered bundle nodes
+	 */
+	RegionSnapshot(long generation, Collection<BundleNode> nodes) {
+
+		this.generation = generation;
+		List<NodeRecord> records = new ArrayList<>(nodes.size());
+		Map<IProject, NodeRecord> projectRecords = new HashMap<>();
+		Map<Long, NodeRecord> bundleRecords = new HashMap<>();
+		Collection<Bundle> bundles = new LinkedHashSet<>();
+		Collection<Bundle> activatedBundles = new ArrayList<>();
+		Collection<Bundle> deactivatedBundles = new ArrayList<>();
+		Collection<IProject> projects = new ArrayList<>();
+		Collection<IProject> activatedProjects = new ArrayList<>();
+		Collection<IProject> deactivatedProjects = new ArrayList<>();
+		Set<Long> activatedIds = new HashSet<>();
+		Set<Long> deactivatedIds = new HashSet<>();
+		Bundle stateChangingBundle = null;
+		for (BundleNode node : nodes) {
+			Long bundleId = node.getBundleId();
+			Bundle bundle = null != bundleId ? Activator.getContext().getBundle(bundleId) : null;
+			NodeRecord record = new NodeRecord(node, bundle);
+			records.add(record);
+			projectRecords.put(record.project, record);
+			projects.add(record.project);
+			if (record.activated) {
+				activatedProjects.add(record.project);
+			} else {
+				deactivatedProjects.add(record.project);
+			}
+			if (null != bundle) {
+				bundleRecords.put(bundleId, record);
+				bundles.add(bundle);
+				if (record.activated) {
+					activatedBundles.add(bundle);
+					activatedIds.add(bundleId);
+				} else {
+					deactivatedBundles.add(bundle);
+					deactivatedIds.add(bundleId);
+				}
+			}
+			if (null == stateChangingBundle && record.stateChanging) {
+				stateChangingBundle = node.getBundle();
+			}
+		}
+		this.records = Collections.unmodifiableList(records);
+		this.projectRecords = projectRecords;
+		this.bundleRecords = bundleRecords;
+		this.bundles = Collections.unmodifiableCollection(bundles);
+		this.activatedBundles = Collections.unmodifiableCollection(activatedBundles);
+		this.deactivatedBundles = Collections.unmodifiableCollection(deactivatedBundles);
+		this.projects = Collections.unmodifiableCollection(projects);
+		this.activatedProjects = Collections.unmodifiableCollection(activatedProjects);
+		this.deactivatedProjects = Collections.unmodifiableCollection(deactivatedProjects);
+		this.stateChangingBundle = stateChangingBundle;
+		activationPartition = new ActivationPartition(generation, activatedIds, deactivatedIds);
+	}
+
+	/**
+	 * The generation of the region when this snapshot was taken
+	 *
+	 * @return the generation of this snapshot
+	 */
+	public long getGeneration() {
+		return generation;
+	}
+
+	/**
+	 * Check if the region has changed since the specified generation was taken
+	 *
+	 * @param generation the generation of an earlier snapshot
+	 * @return true if this snapshot is of a different generation than the specified generation
+	 */
+	public boolean isChanged(long generation) {
+		return this.generation != generation;
+	}
+
+	/**
+	 * The records of all registered bundle nodes
+	 *
+	 * @return unmodifiable list of node records
+	 */
+	public List<NodeRecord> getRecords() {
+		return records;
+	}
+
+	/**
+	 * Get the record of the specified project
+	 *
+	 * @param project a bundle project
+	 * @return the record or null if the project is not registered
+	 */
+	public NodeRecord getRecord(IProject project) {
+		return projectRecords.get(project);
+	}
+
+	/**
+	 * Get the record of the specified installed workspace bundle
+	 *
+	 * @param bundleId id of a bundle
+	 * @return the record or null if the bundle is not an installed workspace bundle
+	 */
+	public NodeRecord getRecord(long bundleId) {
+		return bundleRecords.get(bundleId);
+	}
+
+	/**
+	 * The ids of installed workspace bundles partitioned into activated and deactivated bundles
+	 *
+	 * @return the activation partition of this snapshot
+	 */
+	public ActivationPartition getActivationPartition() {
+		return activationPartition;
+	}
+
+	/**
+	 * Check if at least one bundle project is activated
+	 *
+	 * @return true if the region is activated and false if not
+	 */
+	public boolean isRegionActivated() {
+		return !activatedProjects.isEmpty();
+	}
+
+	/**
+	 * Get a bundle executing a transition
+	 *
+	 * @return the first bundle found in a state changing state or null
+	 */
+	public Bundle getStateChangingBundle() {
+		return stateChangingBundle;
+	}
+
+	/**
+	 * All installed workspace bundles
+	 *
+	 * @return unmodifiable collection of bundles
+	 */
+	public Collection<Bundle> getBundles() {
+		return bundles;
+	}
+
+	/**
+	 * Installed and activated workspace bundles
+	 *
+	 * @return unmodifiable collection of bundles
+	 */
+	public Collection<Bundle> getActivatedBundles() {
+		return activatedBundles;
+	}
+
+	/**
+	 * Installed and deactivated workspace bundles
+	 *
+	 * @return unmodifiable collection of bundles
+	 */
+	public Collection<Bundle> getDeactivatedBundles() {
+		return deactivatedBundles;
+	}
+
+	/**
+	 * All registered bundle projects
+	 *
+	 * @return unmodifiable collection of projects
+	 */
+	public Collection<IProject> getProjects() {
+		return projects;
+	}
+
+	/**
+	 * Activated or deactivated bundle projects
+	 *
+	 * @param activated true to get activated and false to get deactivated bundle projects
+	 * @return unmodifiable collection of projects
+	 */
+	public Collection<IProject> getProjects(boolean activated) {
+		return activated ? activatedProjects : deactivatedProjects;
+	}
+}
@@ -0,0 +1,57 @@
+/*******************************************************************************
+ * Copyright (c) 2011, 2012 JavaTime project and others
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ * 	JavaTime project, Eirik Gronsund - initial implementation
+ *******************************************************************************/
+package no.javatime.inplace.region.manager;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+import no.javatime.inplace.region.intface.ResolverHookMetrics;
+
+/**
+ * Count, total and maximum time of the filter calls to the resolver hook. Adding a call only updates
+ * three counters, so the time is kept for every call.
+ */
+class ResolverHookTime implements ResolverHookMetrics {
+
+	private final AtomicLong count = new AtomicLong();
+	private final AtomicLong totalTime = new AtomicLong();
+	private final AtomicLong maxTime = new AtomicLong();
+
+	/**
+	 * Add the time used by a filter call started at the specified time
+	 *
+	 * @param startTime the time in nanoseconds when the call started
+	 */
+	void add(long startTime) {
+
+		long time = System.nanoTime() - startTime;
+		count.incrementAndGet();
+		totalTime.addAndGet(time);
+		long max = maxTime.get();
+		while (time > max && !maxTime.compareAndSet(max, time)) {
+			max = maxTime.get();
+		}
+	}
+
+	@Override
+	public long getCount() {
+		return count.get();
+	}
+
+	@Override
+	public long getTotalTime() {
+		return totalTime.get();
+	}
+
+	@Override
+	public long getMaxTime() {
+		return maxTime.get();
+	}
+}
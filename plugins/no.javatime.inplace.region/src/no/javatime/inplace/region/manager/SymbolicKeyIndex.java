@@ -0,0 +1,164 @@
+/*******************************************************************************
+ * Copyright (c) 2011, 2012 JavaTime project and others
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ * 	JavaTime project, Eirik Gronsund - initial implementation
+ *******************************************************************************/
+package no.javatime.inplace.region.manager;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+import org.eclipse.core.resources.IProject;
+
+/**
+ * Concurrent multi-map of bundle projects keyed by symbolic name and version. More than one project
+ * may share the same symbolic name and version (duplicates).
+ * <p>
+ * A missing version is indexed as an empty version string. Each project is indexed with at most one
+ * symbolic name and version at a time. Indexing a project again replaces the previous key of the
+ * project.
+ */
+class SymbolicKeyIndex {
+
+	// Version used for projects without a version
+	private static final String NO_VERSION = "";
+
+	/**
+	 * Projects by symbolic name and version
+	 */
+	private final ConcurrentMap<String, ConcurrentMap<String, Set<IProject>>> symbolicNames = new ConcurrentHashMap<String, ConcurrentMap<String, Set<IProject>>>();
+
+	/**
+	 * The current symbolic name and version of each indexed project
+	 */
+	private final Map<IProject, String[]> projectKeys = new ConcurrentHashMap<IProject, String[]>();
+
+	/**
+	 * Index the specified project with the specified symbolic name and version. Any previous key of
+	 * the project is removed. If the symbolic name is null the project is removed from the index.
+	 *
+	 * @param project the project to index. Must not be null
+	 * @param symbolicName symbolic name of the specified project. May be null
+	 * @param version version of the specified project. May be null
+	 */
+	synchronized void put(IProject project, String symbolicName, String version) {
+
+		if (null == symbolicName) {
+			remove(project);
+			return;
+		}
+		if (null == version) {
+			version = NO_VERSION;
+		}
+		String[] oldKey = projectKeys.put(project, new String[] { symbolicName, version });
+		if (null != oldKey) {
+			if (oldKey[0].equals(symbolicName) && oldKey[1].equals(version)) {
+				return;
+			}
+			removeKey(project, oldKey);
+		}
+		ConcurrentMap<String, Set<IProject>> versions = symbolicNames.get(symbolicName);
+		if (null == versions) {
+			versions = new ConcurrentHashMap<String, Set<IProject>>(2, 0.75f, 1);
+			symbolicNames.put(symbolicName, versions);
+		}
+		Set<IProject> projects = versions.get(version);
+		if (null == projects) {
+			projects = Collections.newSetFromMap(new ConcurrentHashMap<IProject, Boolean>(2, 0.75f, 1));
+			versions.put(version, projects);
+		}
+		projects.add(project);
+	}
+
+	/**
+	 * Remove the specified project from the index
+	 *
+	 * @param project the project to remove
+	 */
+	synchronized void remove(IProject project) {
+
+		String[] oldKey = projectKeys.remove(project);
+		if (null != oldKey) {
+			removeKey(project, oldKey);
+		}
+	}
+
+	private void removeKey(IProject project, String[] key) {
+
+		ConcurrentMap<String, Set<IProject>> versions = symbolicNames.get(key[0]);
+		if (null != versions) {
+			Set<IProject> projects = versions.get(key[1]);
+			if (null != projects) {
+				projects.remove(project);
+				if (projects.isEmpty()) {
+					versions.remove(key[1]);
+					if (versions.isEmpty()) {
+						symbolicNames.remove(key[0]);
+					}
+				}
+			}
+		}
+	}
+
+	/**
+	 * Get all projects with the specified symbolic name and version
+	 *
+	 * @param symbolicName symbolic name of the projects to get
+	 * @param version version of the projects to get. If null, all versions of the specified symbolic
+	 * name
+	 * @return projects with the specified symbolic name and version or an empty collection
+	 */
+	Collection<IProject> get(String symbolicName, String version) {
+
+		if (null == symbolicName) {
+			return Collections.<IProject> emptySet();
+		}
+		Map<String, Set<IProject>> versions = symbolicNames.get(symbolicName);
+		if (null == versions) {
+			return Collections.<IProject> emptySet();
+		}
+		if (null != version) {
+			Set<IProject> projects = versions.get(version);
+			return null != projects ? Collections.unmodifiableSet(projects) : Collections
+					.<IProject> emptySet();
+		}
+		Collection<IProject> projects = new ArrayList<IProject>();
+		for (Set<IProject> versionProjects : versions.values()) {
+			projects.addAll(versionProjects);
+		}
+		return projects;
+	}
+
+	/**
+	 * Get the indexed symbolic name and version of the specified project
+	 *
+	 * @param project an indexed project
+	 * @return the symbolic name as the first element and the version, which is empty if the project
+	 * has no version, as the second element or null if the project is not indexed
+	 */
+	String[] getKey(IProject project) {
+
+		String[] key = projectKeys.get(project);
+		return null != key ? key.clone() : null;
+	}
+
+	/**
+	 * Check if the specified project is indexed
+	 *
+	 * @param project the project to check
+	 * @return true if the project is indexed, otherwise false
+	 */
+	boolean contains(IProject project) {
+		return projectKeys.containsKey(project);
+	}
+}
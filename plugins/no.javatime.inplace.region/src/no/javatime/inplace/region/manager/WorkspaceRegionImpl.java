@@ -15,11 +15,14 @@ import java.util.Collection;
 import java.util.Collections;
 import java.util.EnumSet;
 import java.util.HashMap;
+import java.util.HashSet;
 import java.util.Iterator;
 import java.util.LinkedHashSet;
 import java.util.Map;
 import java.util.Set;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicLong;
 
 import no.javatime.inplace.extender.intface.ExtenderException;
 import no.javatime.inplace.region.Activator;
@@ -80,6 +83,58 @@ public class WorkspaceRegionImpl implements BundleRegion {
 	private Map<Long, IProject> bundleProjects = new ConcurrentHashMap<Long, IProject>(
 			initialCapacity, 1);
 
+	/**
+	 * Location index of bundle projects with the normalized location identifier as key. The location
+	 * identifier is the location of the bundle if installed and the project location identifier if
+	 * not.
+	 * <p>
+	 * Registered bundle projects are indexed when registered. Candidate bundle projects not
+	 * registered with the region are indexed on demand the first time a location is not found
+	 * in the index. Bundles not found in a complete index are not workspace bundles (jar bundles)
+	 */
+	private ConcurrentMap<String, IProject> locationProjects = new ConcurrentHashMap<String, IProject>(
+			initialCapacity, 1);
+
+	/**
+	 * Reverse mapping of the location index. Used to remove stale locations when projects are
+	 * relocated or removed
+	 */
+	private Map<IProject, String> projectLocations = new ConcurrentHashMap<IProject, String>(
+			initialCapacity, 1);
+
+	/**
+	 * True when all candidate bundle projects in the workspace are members of the location index.
+	 * Reset when projects are added, removed, opened, closed, renamed or moved
+	 */
+	private volatile boolean isLocationIndexComplete;
+
+	/**
+	 * Registered bundle projects by the symbolic name and version of their bundles. Updated when
+	 * bundles are registered, installed and updated
+	 */
+	private SymbolicKeyIndex bundleKeys = new SymbolicKeyIndex();
+
+	/**
+	 * Registered bundle projects by the symbolic name and version in their manifest. Updated when
+	 * projects are registered and when the manifest changes
+	 */
+	private SymbolicKeyIndex manifestKeys = new SymbolicKeyIndex();
+
+	/**
+	 * Incremented when bundle nodes are registered, unregistered or changed
+	 */
+	private final AtomicLong generation = new AtomicLong();
+
+	/**
+	 * Immutable view of the bundle nodes. Recreated on demand when the generation has changed
+	 */
+	private volatile RegionSnapshot snapshot;
+
+	/**
+	 * Bundle nodes by pending transition. Kept in sync by the bundle nodes
+	 */
+	private final PendingTransitionIndex pendingIndex = new PendingTransitionIndex();
+
 	protected WorkspaceRegionImpl() {
 		super();
 	}
@@ -118,13 +173,10 @@ public class WorkspaceRegionImpl implements BundleRegion {
 		if (null == bundle || projectNodes.size() == 0) {
 			return null;
 		}
-		IPath bundlePathLoc = new Path(bundle.getLocation());
-		for (IProject project : projectNodes.keySet()) {
-			IPath projectPathLoc = new Path(getProjectLocationIdentifier(project,
-					BundleRegion.BUNDLE_REF_LOC_SCHEME));
-			if (bundlePathLoc.equals(projectPathLoc)) {
-				return project;
-			}
+		// Only registered projects are searched
+		IProject project = locationProjects.get(getLocationKey(bundle.getLocation()));
+		if (null != project && projectNodes.containsKey(project)) {
+			return project;
 		}
 		return null;
 	}
@@ -133,6 +185,11 @@ public class WorkspaceRegionImpl implements BundleRegion {
 	 * Get the associated project of the specified bundle.
 	 * <p>
 	 * First search registered bundle projects than search the entire workspace for the project
+	 * <p>
+	 * The workspace is searched using the location index of bundle projects. The index is completed
+	 * with all candidate bundle projects on the first miss after the set of projects in the workspace
+	 * has changed. Bundles not found in a complete index (jar bundles) are rejected without scanning
+	 * the workspace
 	 * 
 	 * @param bundle the bundle associated with the project to return
 	 * @return the associated project of the specified bundle or null if no project is found or
@@ -151,15 +208,14 @@ public class WorkspaceRegionImpl implements BundleRegion {
 			if (null != node) {
 				return node.getProject();
 			} else {
-				IPath bundlePathLoc = new Path(bundle.getLocation());
-				// Uninstalled bundles are not registered in the workspace region
-				Collection<IProject> bundleProjects = BundleProjectCandidatesImpl.INSTANCE.getBundleProjects();
-				for (IProject bundleProject : bundleProjects) {
-					IPath projectPathLoc = new Path(getBundleLocationIdentifier(bundleProject));
-					if (bundlePathLoc.equals(projectPathLoc)) {
-						return bundleProject;
-					}
+				String locationKey = getLocationKey(bundle.getLocation());
+				IProject project = locationProjects.get(locationKey);
+				if (null == project && !isLocationIndexComplete) {
+					// Uninstalled bundles are not registered in the workspace region
+					indexCandidateLocations();
+					project = locationProjects.get(locationKey);
 				}
+				return project;
 			}
 		} catch (IllegalStateException e) {
 			// Workspace closed
@@ -167,6 +223,95 @@ public class WorkspaceRegionImpl implements BundleRegion {
 		return null;
 	}
 
+	@Override
+	public void updateProjectLocation(IProject project) {
+
+		if (null == project) {
+			return;
+		}
+		unindexLocation(project);
+		BundleNode node = getNode(project);
+		if (null != node) {
+			indexLocation(project, node.getBundle());
+		}
+		// Candidate bundle projects are indexed again on the next miss
+		isLocationIndexComplete = false;
+	}
+
+	/**
+	 * Normalize the specified location to a key in the location index. Location identifiers equal as
+	 * paths have the same key
+	 * 
+	 * @param location a bundle or project location identifier
+	 * @return the normalized location identifier
+	 */
+	private static String getLocationKey(String location) {
+		return new Path(location).toString();
+	}
+
+	/**
+	 * Add or replace the location of the specified project in the location index. If the specified
+	 * bundle is not null the bundle location is used, otherwise the project location identifier.
+	 * <p>
+	 * If the location could not be obtained any existing location of the project is removed from the
+	 * index
+	 * 
+	 * @param project the project to index. Must not be null
+	 * @param bundle the bundle of the specified project. May be null
+	 */
+	private void indexLocation(IProject project, Bundle bundle) {
+
+		try {
+			String location = null != bundle ? bundle.getLocation() : getProjectLocationIdentifier(
+					project, BundleRegion.BUNDLE_REF_LOC_SCHEME);
+			String locationKey = getLocationKey(location);
+			String oldLocationKey = projectLocations.put(project, locationKey);
+			if (null != oldLocationKey && !oldLocationKey.equals(locationKey)) {
+				locationProjects.remove(oldLocationKey, project);
+			}
+			locationProjects.put(locationKey, project);
+		} catch (ProjectLocationException | SecurityException e) {
+			unindexLocation(project);
+		}
+	}
+
+	/**
+	 * Remove the location of the specified project from the location index
+	 * 
+	 * @param project the project to remove from the index
+	 */
+	private void unindexLocation(IProject project) {
+
+		String locationKey = projectLocations.remove(project);
+		if (null != locationKey) {
+			locationProjects.remove(locationKey, project);
+		}
+	}
+
+	/**
+	 * Add the location of all candidate bundle projects in the workspace to the location index. The
+	 * index is marked as complete before the scan, so a change in the set of projects while scanning
+	 * forces a new scan on the next miss.
+	 * 
+	 * @throws IllegalStateException if the workspace is closed
+	 */
+	private synchronized void indexCandidateLocations() throws IllegalStateException {
+
+		if (isLocationIndexComplete) {
+			return;
+		}
+		isLocationIndexComplete = true;
+		try {
+			for (IProject project : BundleProjectCandidatesImpl.INSTANCE.getBundleProjects()) {
+				BundleNode node = getNode(project);
+				indexLocation(project, null != node ? node.getBundle() : null);
+			}
+		} catch (InPlaceException | IllegalStateException e) {
+			isLocationIndexComplete = false;
+			throw e;
+		}
+	}
+
 	@Override
 	public IProject getProject(String symbolicName, String version) {
 		BundleNode node = getNode(symbolicName, version);
@@ -176,6 +321,99 @@ public class WorkspaceRegionImpl implements BundleRegion {
 		return null;
 	}
 
+	@Override
+	public Collection<IProject> getSymbolicKeyProjects(String symbolicName, String version) {
+
+		return manifestKeys.get(symbolicName, version);
+	}
+
+	/**
+	 * Index the symbolic name and version of the bundle of the specified project again. The symbolic
+	 * name and version of a bundle may change when the bundle is updated.
+	 * 
+	 * @param project a registered bundle project
+	 */
+	public void updateBundleKey(IProject project) {
+
+		BundleNode node = getNode(project);
+		if (null != node) {
+			indexBundleKey(project, node.getBundle());
+		}
+	}
+
+	/**
+	 * Index the symbolic name and version in the manifest of the specified project again. Should be
+	 * called when the manifest of the specified project has changed.
+	 * 
+	 * @param project a registered bundle project
+	 */
+	public void updateManifestKey(IProject project) {
+
+		if (null != getNode(project)) {
+			indexManifestKey(project);
+		}
+	}
+
+	private void indexBundleKey(IProject project, Bundle bundle) {
+
+		if (null != bundle) {
+			bundleKeys.put(project, bundle.getSymbolicName(), bundle.getVersion().toString());
+		} else {
+			bundleKeys.remove(project);
+		}
+	}
+
+	private void indexManifestKey(IProject project) {
+
+		String[] key = getManifestKey(project, false);
+		if (null != key) {
+			manifestKeys.put(project, key[0], key[1]);
+		} else {
+			manifestKeys.remove(project);
+		}
+	}
+
+	/**
+	 * Get the symbolic name and version from the manifest of the specified project
+	 * 
+	 * @param project the project to get the symbolic name and version from
+	 * @param cached if true use the manifest index for registered projects, otherwise read the
+	 * manifest
+	 * @return the symbolic name as the first element and the version, which is empty if the manifest
+	 * has no version, as the second element or null if there is no symbolic name
+	 */
+	private String[] getManifestKey(IProject project, boolean cached) {
+
+		if (cached) {
+			String[] key = manifestKeys.getKey(project);
+			if (null != key) {
+				return key;
+			}
+		}
+		try {
+			String symbolicName = BundleProjectMetaImpl.INSTANCE.getSymbolicName(project);
+			if (null == symbolicName) {
+				return null;
+			}
+			String version = BundleProjectMetaImpl.INSTANCE.getBundleVersion(project);
+			return new String[] { symbolicName, null != version ? version : "" };
+		} catch (InPlaceException e) {
+			return null;
+		}
+	}
+
+	/**
+	 * Format the symbolic name and version obtained from {@link #getManifestKey(IProject, boolean)}
+	 * the same way as {@link BundleNode#formatSymbolicKey(Bundle, IProject)}
+	 * 
+	 * @param key the symbolic name and version to format
+	 * @return the formatted symbolic key
+	 */
+	private static String formatManifestKey(String[] key) {
+
+		return key[1].length() == 0 ? key[0] : key[0] + '_' + key[1];
+	}
+
 	@Override
 	public String getProjectLocationIdentifier(IProject project, String locationScheme)
 			throws ProjectLocationException {
@@ -212,30 +450,11 @@ public class WorkspaceRegionImpl implements BundleRegion {
 
 	@Override
 	public Boolean isRegionActivated() {
-		for (BundleNode node : projectNodes.values()) {
-			if (null != node && node.isActivated()) {
-				return true;
-			}
-		}
-		return false;
+		return getSnapshot().isRegionActivated();
 	}
 
 	public Bundle isRegionStateChanging() {
-
-		for (BundleNode node : projectNodes.values()) {
-			if (null != node && node.isStateChanging()) {
-				Bundle bundle = node.getBundle();
-				// Verify by interrogating the thread
-				// if (!BundleThread.isStateChanging(bundle)) {
-				// String msg = NLS.bind(Msg.STATE_CHANGE_ERROR, bundle);
-				// StatusManager.getManager().handle(
-				// new BundleStatus(StatusCode.WARNING, Activator.PLUGIN_ID, bundle, msg, null),
-				// StatusManager.LOG);
-				// }
-				return bundle;
-			}
-		}
-		return null;
+		return getSnapshot().getStateChangingBundle();
 	}
 
 	@Override
@@ -315,24 +534,12 @@ public class WorkspaceRegionImpl implements BundleRegion {
 
 	@Override
 	public Collection<IProject> getProjects(Boolean activated) {
-		Collection<IProject> projects = new ArrayList<IProject>();
-		for (BundleNode node : projectNodes.values()) {
-			if (activated && node.isActivated()) {
-				projects.add(node.getProject());
-			} else if (!activated && !node.isActivated()) {
-				projects.add(node.getProject());
-			}
-		}
-		return projects;
+		return new ArrayList<IProject>(getSnapshot().getProjects(activated));
 	}
 
 	@Override
 	public Collection<IProject> getProjects() {
-		Collection<IProject> projects = new ArrayList<IProject>();
-		for (BundleNode node : projectNodes.values()) {
-			projects.add(node.getProject());
-		}
-		return projects;
+		return new ArrayList<IProject>(getSnapshot().getProjects());
 	}
 
 	@Override
@@ -346,48 +553,21 @@ public class WorkspaceRegionImpl implements BundleRegion {
 
 	@Override
 	public Collection<Bundle> getActivatedBundles() {
-		Collection<Bundle> bundles = new ArrayList<Bundle>();
-		for (BundleNode node : projectNodes.values()) {
-			if (node.isActivated()) {
-				Long bundleId = node.getBundleId();
-				if (null != bundleId) {
-					Bundle bundle = Activator.getContext().getBundle(bundleId);
-					if (null != bundle) {
-						bundles.add(bundle);
-					}
-				}
-			}
-		}
-		return bundles;
+		return new ArrayList<Bundle>(getSnapshot().getActivatedBundles());
 	}
 
 	@Override
 	public Collection<Bundle> getDeactivatedBundles() {
-		Collection<Bundle> bundles = new ArrayList<Bundle>();
-		for (BundleNode node : projectNodes.values()) {
-			if (!node.isActivated()) {
-				Long bundleId = node.getBundleId();
-				if (null != bundleId) {
-					Bundle bundle = Activator.getContext().getBundle(bundleId);
-					if (null != bundle) {
-						bundles.add(bundle);
-					}
-				}
-			}
-		}
-		return bundles;
+		return new ArrayList<Bundle>(getSnapshot().getDeactivatedBundles());
 	}
 
 	@Override
 	public Collection<Bundle> getBundles(int state) {
 		Collection<Bundle> bundles = new ArrayList<Bundle>();
-		for (BundleNode node : projectNodes.values()) {
-			Long bundleId = node.getBundleId();
-			if (null != bundleId) {
-				Bundle bundle = Activator.getContext().getBundle(bundleId);
-				if (null != bundle && (bundle.getState() & (state)) != 0) {
-					bundles.add(bundle);
-				}
+		// The framework state of bundles is not part of the snapshot
+		for (Bundle bundle : getSnapshot().getBundles()) {
+			if ((bundle.getState() & (state)) != 0) {
+				bundles.add(bundle);
 			}
 		}
 		return bundles;
@@ -407,18 +587,54 @@ public class WorkspaceRegionImpl implements BundleRegion {
 
 	@Override
 	public Collection<Bundle> getBundles() {
+		return new LinkedHashSet<Bundle>(getSnapshot().getBundles());
+	}
 
-		Collection<Bundle> bundles = new LinkedHashSet<Bundle>();
-		for (BundleNode node : projectNodes.values()) {
-			Long bundleId = node.getBundleId();
-			if (null != bundleId) {
-				Bundle bundle = Activator.getContext().getBundle(bundleId);
-				if (null != bundle) {
-					bundles.add(bundle);
-				}
-			}
+	/**
+	 * Get an immutable view of the bundle nodes in the region. The snapshot is shared by all callers
+	 * until a bundle node is registered, unregistered or changed.
+	 * <p>
+	 * A snapshot taken while a node is changing is given the generation before the change, and is
+	 * replaced by the next caller.
+	 * 
+	 * @return the current snapshot. Never null.
+	 */
+	public RegionSnapshot getSnapshot() {
+
+		RegionSnapshot current = snapshot;
+		long currentGeneration = generation.get();
+		if (null != current && current.getGeneration() == currentGeneration) {
+			return current;
 		}
-		return bundles;
+		current = new RegionSnapshot(currentGeneration, projectNodes.values());
+		snapshot = current;
+		return current;
+	}
+
+	/**
+	 * The generation of the region. Compare with the generation of a snapshot to detect if the region
+	 * has changed since the snapshot was taken.
+	 * 
+	 * @return the current generation
+	 */
+	public long getGeneration() {
+		return generation.get();
+	}
+
+	/**
+	 * Get the index of bundle nodes by pending transition
+	 * 
+	 * @return the pending transition index
+	 */
+	public PendingTransitionIndex getPendingTransitionIndex() {
+		return pendingIndex;
+	}
+
+	/**
+	 * Called by bundle nodes when their state, transition, errors, activation or bundle has changed
+	 */
+	public void nodeChanged() {
+		generation.incrementAndGet();
 	}
 
 	@Override
@@ -499,33 +715,44 @@ public class WorkspaceRegionImpl implements BundleRegion {
 
 		Map<IProject, IProject> duplicateMap = new HashMap<IProject, IProject>();
 		Map<String, IProject> candidateKeyMap = new HashMap<String, IProject>();
+		Map<IProject, String[]> candidateKeys = new HashMap<IProject, String[]>();
 		for (IProject candidateProject : candidateProjects) {
-			String symbolicKey = getSymbolicKey(null, candidateProject);
-			if (symbolicKey.length() == 0) {
+			String[] key = getManifestKey(candidateProject, false);
+			if (null == key) {
 				continue;
 			}
-			IProject project = candidateKeyMap.put(symbolicKey, candidateProject);
+			candidateKeys.put(candidateProject, key);
+			IProject project = candidateKeyMap.put(formatManifestKey(key), candidateProject);
 			if (null != project) {
 				duplicateMap.put(candidateProject, project);
 			}
 		}
 		// Extend scope of search for additional duplicates of the duplicates already found
 		if (candidateKeyMap.size() > 0) {
-			Collection<IProject> candidatesCopy = null;
+			Set<IProject> keyProjects = new HashSet<IProject>(candidateKeyMap.values());
 			if (null == candidates) {
-				candidatesCopy = getProjects();
-			} else {
-				candidatesCopy = new LinkedHashSet<>(candidates);
-			}
-			candidatesCopy.removeAll(candidateKeyMap.values());
-			for (IProject project : candidatesCopy) {
-				String symbolicKey = getSymbolicKey(null, project);
-				if (symbolicKey.length() == 0) {
-					continue;
+				// Join with the manifest index of all registered projects
+				for (IProject duplicateProject : keyProjects) {
+					String[] key = candidateKeys.get(duplicateProject);
+					for (IProject project : manifestKeys.get(key[0], key[1])) {
+						if (!keyProjects.contains(project)) {
+							duplicateMap.put(duplicateProject, project);
+						}
+					}
 				}
-				if (candidateKeyMap.containsKey(symbolicKey)) {
-					IProject duplicateProject = candidateKeyMap.get(symbolicKey);
-					duplicateMap.put(duplicateProject, project);
+			} else {
+				for (IProject project : candidates) {
+					if (keyProjects.contains(project)) {
+						continue;
+					}
+					String[] key = getManifestKey(project, true);
+					if (null == key) {
+						continue;
+					}
+					IProject duplicateProject = candidateKeyMap.get(formatManifestKey(key));
+					if (null != duplicateProject) {
+						duplicateMap.put(duplicateProject, project);
+					}
 				}
 			}
 		}
@@ -546,12 +773,9 @@ public class WorkspaceRegionImpl implements BundleRegion {
 		Map<IProject, Bundle> duplicateMap = new HashMap<IProject, Bundle>();
 
 		for (IProject project : projects) {
-			try {
-				String symbolicName = BundleProjectMetaImpl.INSTANCE.getSymbolicName(project);
-				if (null != symbolicName) {
-					newSymbolicNameMap.put(symbolicName, project);
-				}
-			} catch (InPlaceException e) {
+			String[] key = getManifestKey(project, true);
+			if (null != key) {
+				newSymbolicNameMap.put(key[0], project);
 			}
 		}
 		Collection<Bundle> bundleProjects = getBundles(projects);
@@ -682,8 +906,12 @@ public class WorkspaceRegionImpl implements BundleRegion {
 	 */
 	Collection<IProject> getPendingProjects(Collection<IProject> projects, Transition command) {
 		Collection<IProject> pendingProjects = new LinkedHashSet<IProject>();
+		if (!pendingIndex.contains(command)) {
+			return pendingProjects;
+		}
 		for (IProject project : projects) {
-			if (containsPendingCommand(project, command, false)) {
+			BundleNode bn = getNode(project);
+			if (null != bn && pendingIndex.contains(bn, command)) {
 				pendingProjects.add(project);
 			}
 		}
@@ -700,8 +928,12 @@ public class WorkspaceRegionImpl implements BundleRegion {
 	 */
 	Collection<Bundle> getPendingBundles(Collection<Bundle> bundles, Transition command) {
 		Collection<Bundle> pendingBundles = new LinkedHashSet<Bundle>();
+		if (!pendingIndex.contains(command)) {
+			return pendingBundles;
+		}
 		for (Bundle bundle : bundles) {
-			if (containsPendingCommand(bundle, command, false)) {
+			BundleNode bn = getNode(bundle);
+			if (null != bn && pendingIndex.contains(bn, command)) {
 				pendingBundles.add(bundle);
 			}
 		}
@@ -762,16 +994,7 @@ public class WorkspaceRegionImpl implements BundleRegion {
 	 * @return true if the specified command is associated with any bundle project
 	 */
 	boolean containsPendingCommand(Transition command) {
-		for (BundleNode node : projectNodes.values()) {
-			Long bundleId = node.getBundleId();
-			if (null != bundleId) {
-				Bundle bundle = Activator.getContext().getBundle(bundleId);
-				if (null != bundle && containsPendingCommand(bundle, command, false)) {
-					return true;
-				}
-			}
-		}
-		return false;
+		return pendingIndex.contains(command);
 	}
 
 	/**
@@ -874,6 +1097,12 @@ public class WorkspaceRegionImpl implements BundleRegion {
 		if (null != bundle) {
 			bundleProjects.put(bundle.getBundleId(), project);
 		}
+		generation.incrementAndGet();
+		indexLocation(project, node.getBundle());
+		indexBundleKey(project, node.getBundle());
+		if (!manifestKeys.contains(project)) {
+			indexManifestKey(project);
+		}
 		return node;
 	}
 
@@ -894,6 +1123,7 @@ public class WorkspaceRegionImpl implements BundleRegion {
 				if (null != node) {
 					node.setActivated(false);
 				}
+				generation.incrementAndGet();
 			}
 		}
 		return project;
@@ -918,11 +1148,18 @@ public class WorkspaceRegionImpl implements BundleRegion {
 		} else {
 			if (Category.DEBUG && Category.getState(Category.dag))
 				TraceMessage.getInstance().getString("removed_node", project.getName());
+			pendingIndex.unregister(deletedNode);
+			// The project may still be a candidate bundle project
+			unindexLocation(project);
+			isLocationIndexComplete = false;
+			bundleKeys.remove(project);
+			manifestKeys.remove(project);
 			Long bundleId = deletedNode.getBundleId();
 			IProject delProject = null;
 			if (null != bundleId) {
 				delProject = bundleProjects.remove(bundleId);
 			}
+			generation.incrementAndGet();
 			if (Category.DEBUG && Category.getState(Category.dag)) {
 				if (null == delProject) {
 					TraceMessage.getInstance().getString("null_remove_node", project.getName());
@@ -982,9 +1219,9 @@ public class WorkspaceRegionImpl implements BundleRegion {
 	 */
 	private BundleNode getNode(String symbolicName, String version) {
 		if (null != symbolicName && null != version) {
-			for (BundleNode node : projectNodes.values()) {
-				String symbolicKey = node.getSymbolicKey();
-				if (null != symbolicKey && symbolicKey.equals(symbolicName + version)) {
+			for (IProject project : bundleKeys.get(symbolicName, version)) {
+				BundleNode node = getNode(project);
+				if (null != node) {
 					return node;
 				}
 			}
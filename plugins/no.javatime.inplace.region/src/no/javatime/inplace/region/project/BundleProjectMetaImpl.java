@@ -18,7 +18,6 @@ import java.net.MalformedURLException;
 import java.net.URL;
 import java.util.ArrayList;
 import java.util.Collection;
-import java.util.Map;
 import java.util.Properties;
 
 import no.javatime.inplace.extender.intface.ExtenderException;
@@ -37,7 +36,6 @@ import no.javatime.util.messages.TraceMessage;
 import no.javatime.util.messages.WarnMessage;
 
 import org.eclipse.core.internal.runtime.DevClassPathHelper;
-import org.eclipse.core.resources.IFile;
 import org.eclipse.core.resources.IProject;
 import org.eclipse.core.resources.IWorkspace;
 import org.eclipse.core.resources.IWorkspaceRoot;
@@ -387,19 +385,7 @@ public class BundleProjectMetaImpl extends CachedManifestOperationsImpl implemen
 	
 	public ManifestElement[] getRequiredBundles(IProject project) throws InPlaceException {
 		
-		if (null != project && project.isAccessible()) {
-			IFile manifestFile = BundleProjectMetaImpl.INSTANCE.getManifestFile(project);
-			if (manifestFile.exists()) {
-				try {
-					Map<String, String> headers = ManifestElement.parseBundleManifest(manifestFile.getContents(), null);
-					ManifestElement[] elements = parseHeader(headers, Constants.REQUIRE_BUNDLE);
-					return elements;
-				} catch (CoreException | IOException | BundleException e) {
-					throw new InPlaceException(new BundleStatus(StatusCode.ERROR, Activator.PLUGIN_ID, e.getMessage(), e));
-				}
-			}
-		}		
-		return null;
+		return super.getHeaderElements(project, Constants.REQUIRE_BUNDLE);
 	}
 
 	@Override
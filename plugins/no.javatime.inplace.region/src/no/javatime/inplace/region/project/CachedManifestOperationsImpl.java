@@ -52,6 +52,9 @@ import org.osgi.framework.Constants;
  */
 public class CachedManifestOperationsImpl {
 
+	// Parsed manifest headers of bundle projects shared by all instances
+	final static ManifestCache manifestCache = new ManifestCache();
+
 	/**
 	 * Get the header value of the specified header for the specified project
 	 * 
@@ -68,9 +71,8 @@ public class CachedManifestOperationsImpl {
 			IFile manifestFile = getManifestFile(project);
 			if (manifestFile.exists()) {
 				try {
-					Map<String, String> headers = ManifestElement
-							.parseBundleManifest(manifestFile.getContents(), null);
-					key = (String) headers.get(Constants.BUNDLE_CLASSPATH);
+					Map<String, String> headers = manifestCache.getHeaders(project, manifestFile);
+					key = headers.get(header);
 				} catch (CoreException | IOException | BundleException e) {
 					throw new InPlaceException(
 							new BundleStatus(StatusCode.ERROR, Activator.PLUGIN_ID, e.getMessage(), e));
@@ -96,9 +98,7 @@ public class CachedManifestOperationsImpl {
 			IFile manifestFile = getManifestFile(project);
 			if (manifestFile.exists()) {
 				try {
-					Map<String, String> headers = ManifestElement
-							.parseBundleManifest(manifestFile.getContents(), null);
-					ManifestElement[] elements = parseHeader(headers, header);
+					ManifestElement[] elements = manifestCache.getElements(project, manifestFile, header);
 					if (elements != null) {
 						if (elements.length > 0) {
 							key = elements[0].getValue();
@@ -113,6 +113,50 @@ public class CachedManifestOperationsImpl {
 		return key;
 	}
 
+	/**
+	 * Get the parsed elements of the specified header for the specified project
+	 * 
+	 * @param project project with the specified header
+	 * @param header header with a set of values
+	 * @return elements of the specified header or <code>null</code> if none
+	 * @throws InPlaceException if the manifest or the header value has an invalid syntax or if an
+	 * error occurs while reading the manifest
+	 */
+	public ManifestElement[] getHeaderElements(IProject project, String header)
+			throws InPlaceException {
+
+		if (null != project && project.isAccessible()) {
+			IFile manifestFile = getManifestFile(project);
+			if (manifestFile.exists()) {
+				try {
+					return manifestCache.getElements(project, manifestFile, header);
+				} catch (CoreException | IOException | BundleException e) {
+					throw new InPlaceException(
+							new BundleStatus(StatusCode.ERROR, Activator.PLUGIN_ID, e.getMessage(), e));
+				}
+			}
+		}
+		return null;
+	}
+
+	/**
+	 * Number of manifest header accesses served from the parsed manifest cache
+	 * 
+	 * @return number of cache hits since the region bundle was started
+	 */
+	public long getManifestCacheHits() {
+		return manifestCache.getHits();
+	}
+
+	/**
+	 * Number of manifest header accesses where the manifest file was read and parsed
+	 * 
+	 * @return number of cache misses since the region bundle was started
+	 */
+	public long getManifestCacheMisses() {
+		return manifestCache.getMisses();
+	}
+
 	/**
 	 * Parses the specified header.
 	 * 
@@ -0,0 +1,156 @@
+/*******************************************************************************
+ * Copyright (c) 2011, 2012 JavaTime project and others
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ * 	JavaTime project, Eirik Gronsund - initial implementation
+ *******************************************************************************/
+package no.javatime.inplace.region.project;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.Collections;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.eclipse.core.resources.IFile;
+import org.eclipse.core.resources.IProject;
+import org.eclipse.core.resources.IResource;
+import org.eclipse.core.runtime.CoreException;
+import org.eclipse.osgi.util.ManifestElement;
+import org.osgi.framework.BundleException;
+
+/**
+ * Parsed manifest headers of bundle projects. The headers of a project are parsed when first
+ * accessed and reused for as long as the modification stamp of the manifest file is unchanged. Header
+ * values are parsed into manifest elements on first access of each header.
+ * <p>
+ * Entries are validated against the modification stamp on each access and in addition removed by
+ * the {@link ProjectIndexListener} when the manifest file or the project changes.
+ */
+class ManifestCache {
+
+	// Cached value of headers without elements
+	private static final ManifestElement[] NO_ELEMENTS = new ManifestElement[0];
+
+	private final ConcurrentMap<IProject, Entry> entries = new ConcurrentHashMap<>();
+	private final AtomicLong hits = new AtomicLong();
+	private final AtomicLong misses = new AtomicLong();
+
+	/**
+	 * Get the parsed headers of the specified manifest file
+	 *
+	 * @param project the project containing the manifest file
+	 * @param manifestFile an existing manifest file
+	 * @return unmodifiable map of header keys and values
+	 * @throws CoreException if the manifest file could not be read
+	 * @throws IOException if an error occurs while reading the manifest file
+	 * @throws BundleException if the manifest has an invalid syntax
+	 */
+	Map<String, String> getHeaders(IProject project, IFile manifestFile) throws CoreException,
+			IOException, BundleException {
+
+		return getEntry(project, manifestFile).headers;
+	}
+
+	/**
+	 * Get the manifest elements of the specified header in the specified manifest file
+	 *
+	 * @param project the project containing the manifest file
+	 * @param manifestFile an existing manifest file
+	 * @param header the header to get the elements of
+	 * @return a copy of the elements of the header or null if the header does not exist or is empty
+	 * @throws CoreException if the manifest file could not be read
+	 * @throws IOException if an error occurs while reading the manifest file
+	 * @throws BundleException if the manifest or the header value has an invalid syntax
+	 */
+	ManifestElement[] getElements(IProject project, IFile manifestFile, String header)
+			throws CoreException, IOException, BundleException {
+
+		Entry entry = getEntry(project, manifestFile);
+		ManifestElement[] elements = entry.elements.get(header);
+		if (null == elements) {
+			String value = entry.headers.get(header);
+			elements = null != value && value.trim().length() > 0 ? ManifestElement.parseHeader(
+					header, value) : null;
+			if (null == elements) {
+				elements = NO_ELEMENTS;
+			}
+			entry.elements.putIfAbsent(header, elements);
+		}
+		return elements == NO_ELEMENTS ? null : elements.clone();
+	}
+
+	/**
+	 * Remove the cached headers of the specified project
+	 *
+	 * @param project the project with a changed or removed manifest file
+	 */
+	void invalidate(IProject project) {
+		entries.remove(project);
+	}
+
+	/**
+	 * Number of accesses served from the cache
+	 *
+	 * @return number of cache hits
+	 */
+	long getHits() {
+		return hits.get();
+	}
+
+	/**
+	 * Number of accesses where the manifest file was read and parsed
+	 *
+	 * @return number of cache misses
+	 */
+	long getMisses() {
+		return misses.get();
+	}
+
+	private Entry getEntry(IProject project, IFile manifestFile) throws CoreException, IOException,
+			BundleException {
+
+		long stamp = manifestFile.getModificationStamp();
+		Entry entry = entries.get(project);
+		if (null != entry && entry.stamp == stamp && stamp != IResource.NULL_STAMP) {
+			hits.incrementAndGet();
+			return entry;
+		}
+		misses.incrementAndGet();
+		InputStream is = null;
+		try {
+			is = manifestFile.getContents();
+			Map<String, String> headers = ManifestElement.parseBundleManifest(is, null);
+			entry = new Entry(stamp, headers);
+		} finally {
+			if (null != is) {
+				is.close();
+			}
+		}
+		if (stamp != IResource.NULL_STAMP) {
+			entries.put(project, entry);
+		}
+		return entry;
+	}
+
+	/**
+	 * Parsed headers of a manifest file with a given modification stamp
+	 */
+	private static class Entry {
+
+		private final long stamp;
+		private final Map<String, String> headers;
+		private final ConcurrentMap<String, ManifestElement[]> elements = new ConcurrentHashMap<>();
+
+		public Entry(long stamp, Map<String, String> headers) {
+			this.stamp = stamp;
+			this.headers = Collections.unmodifiableMap(headers);
+		}
+	}
+}
@@ -0,0 +1,115 @@
+/*******************************************************************************
+ * Copyright (c) 2011, 2012 JavaTime project and others
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ * 	JavaTime project, Eirik Gronsund - initial implementation
+ *******************************************************************************/
+package no.javatime.inplace.region.project;
+
+import no.javatime.inplace.region.closure.ProblemMarkerIndex;
+import no.javatime.inplace.region.closure.ProjectDependencyGraph;
+import no.javatime.inplace.region.intface.BundleProjectMeta;
+import no.javatime.inplace.region.manager.WorkspaceRegionImpl;
+
+import org.eclipse.core.resources.IProject;
+import org.eclipse.core.resources.IResource;
+import org.eclipse.core.resources.IResourceChangeEvent;
+import org.eclipse.core.resources.IResourceChangeListener;
+import org.eclipse.core.resources.IResourceDelta;
+import org.eclipse.core.runtime.IPath;
+import org.eclipse.core.runtime.Path;
+
+/**
+ * Keeps the indexes of bundle projects in the workspace region in sync with project changes:
+ * <ol>
+ * <li>The location index is updated for projects that are added, removed, opened, closed, moved or
+ * have their description changed.
+ * <li>The manifest index is updated for projects with a changed manifest file.
+ * <li>The project dependency graph is invalidated for the same projects as the location index.
+ * <li>The problem marker index is updated from the marker deltas of the event and projects are
+ * removed from the index when they are removed or closed.
+ * <li>The parsed manifest cache is invalidated for projects with a changed manifest file and for
+ * the same projects as the location index.
+ * </ol>
+ * <p>
+ * Only the project level and the manifest file of the delta are visited. Project changes are handled
+ * once in the post change event. Builds do not change project descriptions and manifests, and the
+ * project changes that trigger a build are received in a post change event before the build starts.
+ * <p>
+ * The markers created by a build are first received by post build listeners checking the built
+ * projects for build errors. The listener should therefore also receive post build events, which
+ * only update the problem marker index. Marker deltas of a post build event are received again in
+ * the next post change event and applying them twice leaves the index unchanged.
+ *
+ * @see WorkspaceRegionImpl#updateProjectLocation(IProject)
+ * @see WorkspaceRegionImpl#updateManifestKey(IProject)
+ * @see ProjectDependencyGraph
+ * @see ProblemMarkerIndex
+ */
+public class ProjectIndexListener implements IResourceChangeListener {
+
+	/**
+	 * Project delta flags that may change the location or the bundle project status of a project
+	 */
+	private static final int LOCATION_FLAGS = IResourceDelta.OPEN | IResourceDelta.DESCRIPTION
+			| IResourceDelta.MOVED_FROM | IResourceDelta.MOVED_TO;
+
+	private static final IPath MANIFEST_PATH = new Path(BundleProjectMeta.MANIFEST_RELATIVE_PATH
+			+ BundleProjectMeta.MANIFEST_FILE_NAME).makeRelative();
+
+	@Override
+	public void resourceChanged(IResourceChangeEvent event) {
+
+		IResourceDelta rootDelta = event.getDelta();
+		if (null == rootDelta) {
+			return;
+		}
+		if (event.getType() == IResourceChangeEvent.POST_CHANGE) {
+			updateProjects(rootDelta);
+		}
+		ProblemMarkerIndex.INSTANCE.update(event);
+	}
+
+	/**
+	 * Update the location and manifest indexes, the project dependency graph and the parsed manifest
+	 * cache of changed projects
+	 *
+	 * @param rootDelta the workspace delta of a post change event
+	 */
+	private void updateProjects(IResourceDelta rootDelta) {
+
+		WorkspaceRegionImpl bundleRegion = WorkspaceRegionImpl.INSTANCE;
+		for (IResourceDelta projectDelta : rootDelta.getAffectedChildren(IResourceDelta.ADDED
+				| IResourceDelta.REMOVED | IResourceDelta.CHANGED)) {
+			IResource resource = projectDelta.getResource();
+			if (resource.getType() != IResource.PROJECT) {
+				continue;
+			}
+			IProject project = (IProject) resource;
+			if (projectDelta.getKind() != IResourceDelta.CHANGED
+					|| (projectDelta.getFlags() & LOCATION_FLAGS) != 0) {
+				CachedManifestOperationsImpl.manifestCache.invalidate(project);
+				bundleRegion.updateProjectLocation(project);
+				// Project references may have changed
+				if (projectDelta.getKind() == IResourceDelta.REMOVED) {
+					ProjectDependencyGraph.INSTANCE.remove(project);
+					ProblemMarkerIndex.INSTANCE.remove(project);
+				} else {
+					if (!project.isOpen()) {
+						ProblemMarkerIndex.INSTANCE.remove(project);
+					}
+					ProjectDependencyGraph.INSTANCE.invalidate(project);
+				}
+			}
+			if (projectDelta.getKind() == IResourceDelta.CHANGED
+					&& null != projectDelta.findMember(MANIFEST_PATH)) {
+				CachedManifestOperationsImpl.manifestCache.invalidate(project);
+				bundleRegion.updateManifestKey(project);
+			}
+		}
+	}
+}
@@ -22,6 +22,9 @@ import no.javatime.inplace.region.Activator;
 import no.javatime.inplace.region.closure.BundleDependencies;
 import no.javatime.inplace.region.intface.BundleTransition;
 import no.javatime.inplace.region.intface.BundleTransition.Transition;
+import no.javatime.inplace.region.manager.ActivationPartition;
+import no.javatime.inplace.region.manager.BundleCommandImpl;
+import no.javatime.inplace.region.manager.RegionSnapshot;
 import no.javatime.inplace.region.manager.BundleTransitionImpl;
 import no.javatime.inplace.region.manager.WorkspaceRegionImpl;
 import no.javatime.inplace.region.state.BundleNode;
@@ -85,46 +88,83 @@ class BundleResolveHandler implements ResolverHook {
 	 * delayed and a pending activate transition is added to the deactivated bundle project. Any
 	 * additional dependencies on the bundle project to activate should be handled by the activation
 	 * job.
+	 * <p>
+	 * The candidates are split in one pass using the activation partition of the region snapshot,
+	 * which is only recreated when bundle projects have changed. Resolves not involving any workspace
+	 * bundles return after the pass without allocating. The time used by each call is added to the
+	 * resolver hook metrics of the bundle command.
 	 */
 	@Override
 	public void filterResolvable(Collection<BundleRevision> candidates) {
 
-		// Do not infer when workspace is deactivated
-		if (!WorkspaceRegionImpl.INSTANCE.isRegionActivated()) {
-			return;
-		}
-		Collection<Bundle> bundles = WorkspaceRegionImpl.INSTANCE.getBundles();
-		if (bundles.size() == 0) {
-			return;
-		}
-		Collection<BundleRevision> deactivatedBundles = new LinkedHashSet<BundleRevision>();
-		Collection<BundleRevision> activatedBundles = new LinkedHashSet<BundleRevision>();
-		// Restrict the scope of bundles to resolve to workspace bundles
-		Collection<BundleRevision> workspaceCandidates = BundleDependencies.getRevisionsFrom(bundles);
-		// Restrict workspace candidate bundles to candidate bundles closures to resolve
-		workspaceCandidates.retainAll(candidates);
-		// Split candidates in those activated and those deactivated
-		for (BundleRevision workspaceCandidate : workspaceCandidates) {
-			Bundle bundle = workspaceCandidate.getBundle();
-			BundleNode node = WorkspaceRegionImpl.INSTANCE.getBundleNode(bundle);
-			if (node.isActivated()) {
-				activatedBundles.add(workspaceCandidate);
-			} else {
-				deactivatedBundles.add(workspaceCandidate);
+		long startTime = System.nanoTime();
+		try {
+			RegionSnapshot snapshot = WorkspaceRegionImpl.INSTANCE.getSnapshot();
+			// Do not infer when workspace is deactivated
+			if (!snapshot.isRegionActivated()) {
+				return;
+			}
+			ActivationPartition partition = snapshot.getActivationPartition();
+			if (partition.isEmpty()) {
+				return;
+			}
+			Collection<BundleRevision> deactivatedBundles = null;
+			Collection<BundleRevision> activatedBundles = null;
+			// Split the current revisions of workspace candidates in those activated and those
+			// deactivated
+			for (BundleRevision candidate : candidates) {
+				Bundle bundle = candidate.getBundle();
+				long bundleId = bundle.getBundleId();
+				if (partition.isActivated(bundleId)) {
+					if (isCurrent(bundle, candidate)) {
+						if (null == activatedBundles) {
+							activatedBundles = new LinkedHashSet<BundleRevision>();
+						}
+						activatedBundles.add(candidate);
+					}
+				} else if (partition.isDeactivated(bundleId)) {
+					if (isCurrent(bundle, candidate)) {
+						if (null == deactivatedBundles) {
+							deactivatedBundles = new LinkedHashSet<BundleRevision>();
+						}
+						deactivatedBundles.add(candidate);
+					}
+				}
+			}
+			// No workspace bundles among the candidates
+			if (null == activatedBundles && null == deactivatedBundles) {
+				return;
+			}
+			if (null == activatedBundles) {
+				activatedBundles = Collections.<BundleRevision> emptySet();
+			}
+			// If no deactivated bundles, all error free bundles are activated and will be resolved
+			if (null == deactivatedBundles) {
+				return;
 			}
-		}
-		// If no deactivated bundles, all error free bundles are activated and will be resolved
-		if (!deactivatedBundles.isEmpty()) {
 			candidates.removeAll(deactivatedBundles);
 			// If no activated bundles, the candidate list should be empty
 			// Note this is not among all workspace bundles, but the ones relevant for this resolve
 			if (activatedBundles.isEmpty() && candidates.isEmpty()) {
 				return;
 			}
+			// All deactivated providers are by default removed form the candidate list so there is no
+			// need to remove deactivated providers here.
+			delayResolve(activatedBundles, deactivatedBundles);
+		} finally {
+			BundleCommandImpl.INSTANCE.addResolverHookTime(startTime);
 		}
-		// All deactivated providers are by default removed form the candidate list so there is no need
-		// to remove deactivated providers here.
-		delayResolve(activatedBundles, deactivatedBundles);
+	}
+
+	/**
+	 * Check if the specified revision is the current revision of the specified bundle
+	 * 
+	 * @param bundle the bundle of the revision
+	 * @param revision a revision of the bundle
+	 * @return true if the revision is the current revision of the bundle
+	 */
+	private boolean isCurrent(Bundle bundle, BundleRevision revision) {
+		return revision.equals(bundle.adapt(BundleRevision.class));
 	}
 
 	/**
@@ -17,6 +17,7 @@ import no.javatime.inplace.region.intface.BundleTransition;
 import no.javatime.inplace.region.intface.BundleTransition.Transition;
 import no.javatime.inplace.region.intface.BundleTransition.TransitionError;
 import no.javatime.inplace.region.intface.InPlaceException;
+import no.javatime.inplace.region.manager.WorkspaceRegionImpl;
 import no.javatime.inplace.region.project.BundleProjectMetaImpl;
 import no.javatime.inplace.region.status.IBundleStatus;
 import no.javatime.util.messages.Category;
@@ -83,6 +84,10 @@ public class BundleNode {
 	private Transition prevTransition = Transition.NO_TRANSITION;
 	// A set of pending transitions in random order waiting to be executed
 	private EnumSet<Transition> pendingTranitions = EnumSet.noneOf(Transition.class);
+	// Id of this node in the pending transition index of the region
+	private final int nodeId;
+	// Execution time in milliseconds of the last start or stop operation
+	private volatile long executionTime;
 
 	private IBundleStatus buildStatus;
 	private IBundleStatus bundleStatus;
@@ -100,6 +105,16 @@ public class BundleNode {
 		this.project = project;
 		this.activated = activate;
 		this.bundle = bundle;
+		nodeId = WorkspaceRegionImpl.INSTANCE.getPendingTransitionIndex().register(this);
+	}
+
+	/**
+	 * The id of this node in the pending transition index of the region
+	 * 
+	 * @return the node id
+	 */
+	public final int getNodeId() {
+		return nodeId;
 	}
 
 	public TransitionError getTransitionError() {
@@ -135,6 +150,7 @@ public class BundleNode {
 	public boolean clearBuildTransitionError() {
 		this.buildTransitionError = TransitionError.NOERROR;
 		buildStatus = null;
+		changed();
 		return true;
 	}
 
@@ -159,6 +175,7 @@ public class BundleNode {
 	public boolean clearBundleTransitionError() {
 		this.bundleTransitionError = TransitionError.NOERROR;
 		bundleStatus = null;
+		changed();
 		return true;
 	}
 	
@@ -170,6 +187,7 @@ public class BundleNode {
 	public Transition setTransition(Transition transition) {
 		Transition tmp = this.transition;
 		this.transition = transition;
+		changed();
 		return tmp;
 	}
 
@@ -179,6 +197,7 @@ public class BundleNode {
 
 	public void setBuildTransitionError(TransitionError buildTransitionError) {
 		this.buildTransitionError = buildTransitionError;
+		changed();
 	}
 
 	public TransitionError getBundleTransitionError() {
@@ -187,6 +206,7 @@ public class BundleNode {
 
 	public void setBundleTransitionError(TransitionError bundleTransitionError) {
 		this.bundleTransitionError = bundleTransitionError;
+		changed();
 	}
 
 	public boolean hasBuildTransitionError() {
@@ -264,6 +284,7 @@ public class BundleNode {
 			}
 		}
 		this.state = currentState;
+		changed();
 	}
 
 	/**
@@ -353,6 +374,7 @@ public class BundleNode {
 	 */
 	public final void setBundle(Bundle bundle) {
 		this.bundle = bundle;
+		changed();
 	}
 
 	/**
@@ -371,6 +393,7 @@ public class BundleNode {
 	 */
 	public final void setProject(IProject project) {
 		this.project = project;
+		changed();
 	}
 
 	/**
@@ -390,15 +413,16 @@ public class BundleNode {
 	 */
 	public final void setActivated(Boolean activate) {
 		this.activated = activate;
+		changed();
 	}
 
 	/**
 	 * All pending operations of this bundle
 	 * 
-	 * @return pending operations registered with this bundle
+	 * @return a copy of the pending operations registered with this bundle
 	 */
 	public EnumSet<BundleTransition.Transition> getPendingCommands() {
-		return pendingTranitions;
+		return EnumSet.copyOf(pendingTranitions);
 	}
 
 	/**
@@ -407,7 +431,8 @@ public class BundleNode {
 	 * @param operations to register with this bundle
 	 */
 	public void setPendingCommands(EnumSet<BundleTransition.Transition> operations) {
-		this.pendingTranitions = operations;
+		this.pendingTranitions = EnumSet.copyOf(operations);
+		pendingChanged();
 	}
 
 	/**
@@ -417,7 +442,12 @@ public class BundleNode {
 	 * @return true if the operation was added and false if it already exist
 	 */
 	public boolean addPendingCommand(BundleTransition.Transition operation) {
-		return pendingTranitions.add(operation);
+
+		if (pendingTranitions.add(operation)) {
+			WorkspaceRegionImpl.INSTANCE.getPendingTransitionIndex().add(this, operation);
+			return true;
+		}
+		return false;
 	}
 
 	/**
@@ -427,6 +457,7 @@ public class BundleNode {
 	 */
 	public void addPendingCommands(EnumSet<BundleTransition.Transition> operations) {
 		this.pendingTranitions.addAll(operations);
+		pendingChanged();
 	}
 
 	/**
@@ -455,7 +486,7 @@ public class BundleNode {
 	public boolean containsPendingCommand(BundleTransition.Transition operation, boolean remove) {
 
 		if (remove) {
-			return pendingTranitions.remove(operation);
+			return removePendingCommand(operation);
 		}
 		return pendingTranitions.contains(operation);
 	}
@@ -477,7 +508,12 @@ public class BundleNode {
 	 * @param operation to remove from this bundle node
 	 */
 	public Boolean removePendingCommand(BundleTransition.Transition operation) {
-		return this.pendingTranitions.remove(operation);
+
+		if (this.pendingTranitions.remove(operation)) {
+			WorkspaceRegionImpl.INSTANCE.getPendingTransitionIndex().remove(this, operation);
+			return true;
+		}
+		return false;
 	}
 
 	/**
@@ -487,6 +523,14 @@ public class BundleNode {
 	 */
 	public void removePendingCommands(EnumSet<BundleTransition.Transition> operations) {
 		this.pendingTranitions.removeAll(operations);
+		pendingChanged();
+	}
+
+	/**
+	 * Update the pending transition index of the region with all pending transitions of this node
+	 */
+	private void pendingChanged() {
+		WorkspaceRegionImpl.INSTANCE.getPendingTransitionIndex().update(this, pendingTranitions);
 	}
 
 	/**
@@ -508,6 +552,7 @@ public class BundleNode {
 		this.transition = transition;
 		this.state = state;
 		isStateChanging = true;
+		changed();
 	}
 
 	/**
@@ -516,6 +561,7 @@ public class BundleNode {
 	 */
 	public void commit() {
 		isStateChanging = false;
+		changed();
 	}
 
 	/**
@@ -529,6 +575,7 @@ public class BundleNode {
 		this.transition = transition;
 		this.state = state;
 		isStateChanging = false;
+		changed();
 	}
 
 	/**
@@ -540,6 +587,15 @@ public class BundleNode {
 		this.transition = this.prevTransition;
 		this.state = this.prevState;
 		isStateChanging = false;
+		changed();
+	}
+
+	/**
+	 * Invalidate the region snapshot after the state, transition, errors, activation or bundle of
+	 * this node has changed
+	 */
+	private void changed() {
+		WorkspaceRegionImpl.INSTANCE.nodeChanged();
 	}
 
 	/**
@@ -551,6 +607,24 @@ public class BundleNode {
 		return isStateChanging;
 	}
 
+	/**
+	 * Execution time of the last start or stop operation on the bundle
+	 * 
+	 * @return execution time in milliseconds
+	 */
+	public long getExecutionTime() {
+		return executionTime;
+	}
+
+	/**
+	 * Set the execution time of a start or stop operation on the bundle
+	 * 
+	 * @param executionTime execution time in milliseconds
+	 */
+	public void setExecutionTime(long executionTime) {
+		this.executionTime = executionTime;
+	}
+
 	public BundleState getPrevState() {
 		return prevState;
 	}
@@ -11,6 +11,7 @@
 package no.javatime.inplace.region.state;
 
 import no.javatime.inplace.region.Activator;
+import no.javatime.inplace.region.closure.BundleDependencyGraph;
 import no.javatime.inplace.region.events.TransitionEvent;
 import no.javatime.inplace.region.intface.BundleRegion;
 import no.javatime.inplace.region.intface.BundleTransition.Transition;
@@ -134,6 +135,7 @@ public class BundleStateEvents implements SynchronousBundleListener {
 			return; // not a workspace project (jar bundle)
 		}
 		BundleNode node = bundleRegion.getBundleNode(project);
+		updateDependencies(event);
 		/*
 		 * Examine all bundle events and update state by executing intermediate transitions, identify
 		 * and recover from transition errors and sync with external bundle commands
@@ -224,6 +226,8 @@ public class BundleStateEvents implements SynchronousBundleListener {
 		 * or installed.
 		 */
 		case BundleEvent.UPDATED: {
+			// The symbolic name and version may have changed
+			bundleRegion.updateBundleKey(project);
 			if (!node.isStateChanging()) {
 				node.getState().external(node, event, StateFactory.INSTANCE.installedState,
 						Transition.EXTERNAL);
@@ -365,4 +369,27 @@ public class BundleStateEvents implements SynchronousBundleListener {
 			}
 		}
 	}
-}
\ No newline at end of file
+
+	/**
+	 * Invalidate the cached dependencies of the bundle in the specified event when the wiring of the
+	 * bundle may have changed. Uninstalled bundles are removed from the dependency graph.
+	 * 
+	 * @param event a bundle event of a workspace bundle
+	 */
+	private void updateDependencies(BundleEvent event) {
+
+		switch (event.getType()) {
+		case BundleEvent.INSTALLED:
+		case BundleEvent.RESOLVED:
+		case BundleEvent.UNRESOLVED:
+		case BundleEvent.UPDATED:
+			BundleDependencyGraph.INSTANCE.invalidate(event.getBundle());
+			break;
+		case BundleEvent.UNINSTALLED:
+			BundleDependencyGraph.INSTANCE.remove(event.getBundle());
+			break;
+		default:
+			break;
+		}
+	}
+}
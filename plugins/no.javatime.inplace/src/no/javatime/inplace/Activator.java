@@ -356,6 +356,7 @@ public class Activator extends AbstractUIPlugin  {
 	public void removeResourceListeners() {
 		IWorkspace workspace = ResourcesPlugin.getWorkspace();
 		workspace.removeResourceChangeListener(postBuildListener);
+		postBuildListener.dispose();
 		BundleTransitionListener.removeBundleTransitionListener(preBuildListener);
 		workspace.removeResourceChangeListener(preBuildListener);
 		workspace.removeResourceChangeListener(preChangeListener);
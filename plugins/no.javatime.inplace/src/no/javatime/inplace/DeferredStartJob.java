@@ -0,0 +1,66 @@
+/*******************************************************************************
+ * Copyright (c) 2011, 2012 JavaTime project and others
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ * 	JavaTime project, Eirik Gronsund - initial implementation
+ *******************************************************************************/
+package no.javatime.inplace;
+
+import java.text.DecimalFormat;
+import java.util.Collection;
+
+import no.javatime.inplace.bundlejobs.StartJob;
+import no.javatime.inplace.msg.Msg;
+import no.javatime.inplace.region.status.BundleStatus;
+import no.javatime.inplace.region.status.IBundleStatus;
+import no.javatime.inplace.region.status.IBundleStatus.StatusCode;
+
+import org.eclipse.core.resources.IProject;
+import org.eclipse.core.runtime.IProgressMonitor;
+import org.eclipse.core.runtime.jobs.Job;
+import org.eclipse.osgi.util.NLS;
+
+/**
+ * Starts activated bundles with an eager activation policy deferred by the {@link StartUpJob} when
+ * the fast start option is on. The job runs with a low priority after start up, and logs the time
+ * it took until the workspace was interactive and until all bundles were started.
+ */
+class DeferredStartJob extends StartJob {
+
+	/** Number of msec to wait after start up before starting deferred bundles */
+	static final long DELAY = 2000;
+
+	/** Start time of the start up job */
+	private final long startUpTime;
+	/** Number of msec from start up began until the start up job finished */
+	private final long interactiveTime;
+
+	/**
+	 * Construct a job starting the specified deferred bundle projects
+	 *
+	 * @param projects bundle projects deferred at start up
+	 * @param startUpTime time in msec when the start up job began
+	 * @param interactiveTime number of msec from start up began until the start up job finished
+	 */
+	DeferredStartJob(Collection<IProject> projects, long startUpTime, long interactiveTime) {
+		super(Msg.FAST_START_JOB, projects);
+		this.startUpTime = startUpTime;
+		this.interactiveTime = interactiveTime;
+		setPriority(Job.DECORATE);
+	}
+
+	@Override
+	public IBundleStatus runInWorkspace(IProgressMonitor monitor) {
+
+		IBundleStatus status = super.runInWorkspace(monitor);
+		DecimalFormat format = new DecimalFormat();
+		addLogStatus(new BundleStatus(StatusCode.INFO, Activator.PLUGIN_ID, NLS.bind(
+				Msg.FAST_START_INFO, format.format(interactiveTime),
+				format.format(System.currentTimeMillis() - startUpTime))));
+		return status;
+	}
+}
@@ -194,6 +194,8 @@ public class SessionManager implements IStartup, IWorkbenchListener {
 			// They should be, but ensure that saved and current pending transitions are in sync
 			StatePersistParticipant.savePendingBuildTransitions(sessionPrefs,
 					StatePersistParticipant.isWorkspaceSession());
+			// Read by the next session instead of deriving state from the preference store
+			StatePersistParticipant.saveSessionSnapshot();
 			for (IProject project : bundleRegion.getProjects()) {
 				bundleRegion.unregisterBundleProject(project);
 			}
@@ -217,6 +219,14 @@ public class SessionManager implements IStartup, IWorkbenchListener {
 			if (null != workbench) {
 				workbench.removeWorkbenchListener(this);
 			}
+			// Write pending log entries to the bundle log before the workbench closes
+			try {
+				Activator.getBundleLogService().flush();
+			} catch (ExtenderException e) {
+				StatusManager.getManager().handle(
+						new BundleStatus(StatusCode.EXCEPTION, Activator.PLUGIN_ID, e.getMessage(), e),
+						StatusManager.LOG);
+			}
 		}
 	}
 
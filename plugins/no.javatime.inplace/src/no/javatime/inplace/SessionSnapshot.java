@@ -0,0 +1,281 @@
+/*******************************************************************************
+ * Copyright (c) 2011, 2012 JavaTime project and others
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ * 	JavaTime project, Eirik Gronsund - initial implementation
+ *******************************************************************************/
+package no.javatime.inplace;
+
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.Charset;
+import java.util.EnumSet;
+import java.util.HashMap;
+import java.util.Map;
+
+import no.javatime.inplace.region.intface.BundleProjectMeta;
+import no.javatime.inplace.region.intface.BundleTransition.Transition;
+
+import org.eclipse.core.resources.IProject;
+import org.eclipse.core.resources.IResource;
+import org.eclipse.core.runtime.Path;
+
+/**
+ * Binary copy of the persisted workspace region state written at the end of a workspace session.
+ * The snapshot is a single file in the state location of the plug-in and is read into a buffer
+ * with one sequential read.
+ * <p>
+ * The file starts with a header holding a magic number, the format version and the transition
+ * state of deactivated bundle projects. The header is followed by one record for each bundle
+ * project with the project name, the modification stamp of the manifest, the activation level and a
+ * bit mask of pending transitions by ordinal.
+ * <p>
+ * The snapshot mirrors the preference store and is only valid as long as the preference store is
+ * unchanged. It is deleted when session state is saved to the preference store, and the preference
+ * store is used when there is no valid snapshot. Records of projects with a changed manifest are
+ * ignored, since the symbolic key of the project may have changed.
+ *
+ * @see StatePersistParticipant
+ */
+class SessionSnapshot {
+
+	private static final int MAGIC = 0x49505353;
+	private static final short VERSION = 2;
+	private static final String FILE_NAME = "session.state";
+	private static final Charset UTF8 = Charset.forName("UTF-8");
+
+	/**
+	 * State of a bundle project when the snapshot was written
+	 */
+	static class Record {
+
+		private final long manifestStamp;
+		private final int activationLevel;
+		private final long pendingTransitions;
+
+		Record(long manifestStamp, int activationLevel, long pendingTransitions) {
+			this.manifestStamp = manifestStamp;
+			this.activationLevel = activationLevel;
+			this.pendingTransitions = pendingTransitions;
+		}
+
+		/**
+		 * The activation level of the bundle
+		 *
+		 * @return {@code Bundle.RESOLVED} if the bundle should only be resolved, otherwise
+		 * {@code Bundle.ACTIVE}
+		 */
+		int getActivationLevel() {
+			return activationLevel;
+		}
+
+		EnumSet<Transition> getPendingTransitions() {
+			return fromMask(pendingTransitions);
+		}
+	}
+
+	private final String deactivatedTransition;
+	private final Map<String, Record> records;
+
+	/**
+	 * Create a snapshot to write
+	 *
+	 * @param deactivatedTransition the name of the transition state of deactivated bundle projects or
+	 * null if not saved
+	 */
+	SessionSnapshot(String deactivatedTransition) {
+		this(deactivatedTransition, new HashMap<String, Record>());
+	}
+
+	private SessionSnapshot(String deactivatedTransition, Map<String, Record> records) {
+		this.deactivatedTransition = deactivatedTransition;
+		this.records = records;
+	}
+
+	/**
+	 * Add the state of a bundle project
+	 *
+	 * @param project the bundle project
+	 * @param activationLevel {@code Bundle.RESOLVED} or {@code Bundle.ACTIVE}
+	 * @param pendingTransitions the persisted pending transitions of the project
+	 */
+	void add(IProject project, int activationLevel, EnumSet<Transition> pendingTransitions) {
+
+		records.put(project.getName(), new Record(getManifestStamp(project), activationLevel,
+				toMask(pendingTransitions)));
+	}
+
+	/**
+	 * The name of the transition state of deactivated bundle projects
+	 *
+	 * @return the transition name or null if no transition state was saved
+	 */
+	String getDeactivatedTransition() {
+		return deactivatedTransition;
+	}
+
+	/**
+	 * Get the state of the specified project if its manifest is unchanged since the snapshot was
+	 * written
+	 *
+	 * @param project a bundle project
+	 * @return the record of the project or null if the project is not in the snapshot or its manifest
+	 * has changed
+	 */
+	Record get(IProject project) {
+
+		Record record = records.get(project.getName());
+		if (null == record || record.manifestStamp == IResource.NULL_STAMP
+				|| record.manifestStamp != getManifestStamp(project)) {
+			return null;
+		}
+		return record;
+	}
+
+	/**
+	 * Write this snapshot to the state location. The file is replaced when the snapshot is written.
+	 *
+	 * @throws IOException if failing to write the snapshot
+	 */
+	void save() throws IOException {
+
+		File file = getFile();
+		File tmpFile = new File(file.getPath() + ".tmp");
+		DataOutputStream out = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(
+				tmpFile)));
+		try {
+			out.writeInt(MAGIC);
+			out.writeShort(VERSION);
+			writeString(out, null != deactivatedTransition ? deactivatedTransition : "");
+			out.writeInt(records.size());
+			for (Map.Entry<String, Record> entry : records.entrySet()) {
+				Record record = entry.getValue();
+				writeString(out, entry.getKey());
+				out.writeLong(record.manifestStamp);
+				out.writeInt(record.activationLevel);
+				out.writeLong(record.pendingTransitions);
+			}
+		} finally {
+			out.close();
+		}
+		if (file.exists() && !file.delete() || !tmpFile.renameTo(file)) {
+			tmpFile.delete();
+			throw new IOException(file.getPath());
+		}
+	}
+
+	/**
+	 * Read the snapshot from the state location
+	 *
+	 * @return the snapshot or null if there is no snapshot or it is of an unknown version
+	 * @throws IOException if failing to read the snapshot or the snapshot is corrupt
+	 */
+	static SessionSnapshot load() throws IOException {
+
+		File file = getFile();
+		if (!file.isFile()) {
+			return null;
+		}
+		RandomAccessFile raf = new RandomAccessFile(file, "r");
+		try {
+			// Not memory mapped. A mapped file can not be deleted on all platforms until the buffer is
+			// garbage collected
+			FileChannel channel = raf.getChannel();
+			ByteBuffer buffer = ByteBuffer.allocate((int) channel.size());
+			while (buffer.hasRemaining()) {
+				if (channel.read(buffer) < 0) {
+					break;
+				}
+			}
+			buffer.flip();
+			if (buffer.getInt() != MAGIC || buffer.getShort() != VERSION) {
+				return null;
+			}
+			String deactivatedTransition = readString(buffer);
+			int size = buffer.getInt();
+			Map<String, Record> records = new HashMap<>(Math.max(16, (int) (size / 0.75f) + 1));
+			for (int i = 0; i < size; i++) {
+				String projectName = readString(buffer);
+				long manifestStamp = buffer.getLong();
+				int activationLevel = buffer.getInt();
+				long pendingTransitions = buffer.getLong();
+				records.put(projectName,
+						new Record(manifestStamp, activationLevel, pendingTransitions));
+			}
+			return new SessionSnapshot(deactivatedTransition.isEmpty() ? null : deactivatedTransition,
+					records);
+		} catch (BufferUnderflowException | IllegalArgumentException | NegativeArraySizeException e) {
+			throw new IOException(file.getPath(), e);
+		} finally {
+			raf.close();
+		}
+	}
+
+	/**
+	 * Delete the snapshot from the state location
+	 *
+	 * @return true if there is no snapshot after returning
+	 */
+	static boolean delete() {
+
+		File file = getFile();
+		return !file.exists() || file.delete();
+	}
+
+	private static File getFile() {
+		return Activator.getDefault().getStateLocation().append(FILE_NAME).toFile();
+	}
+
+	private static long getManifestStamp(IProject project) {
+		return project.getFile(
+				new Path(BundleProjectMeta.MANIFEST_RELATIVE_PATH + BundleProjectMeta.MANIFEST_FILE_NAME))
+				.getModificationStamp();
+	}
+
+	private static long toMask(EnumSet<Transition> transitions) {
+
+		long mask = 0;
+		for (Transition transition : transitions) {
+			if (transition.ordinal() < Long.SIZE) {
+				mask |= 1L << transition.ordinal();
+			}
+		}
+		return mask;
+	}
+
+	private static EnumSet<Transition> fromMask(long mask) {
+
+		EnumSet<Transition> transitions = EnumSet.noneOf(Transition.class);
+		for (Transition transition : Transition.values()) {
+			if (transition.ordinal() < Long.SIZE && (mask & 1L << transition.ordinal()) != 0) {
+				transitions.add(transition);
+			}
+		}
+		return transitions;
+	}
+
+	private static void writeString(DataOutputStream out, String value) throws IOException {
+
+		byte[] bytes = value.getBytes(UTF8);
+		out.writeInt(bytes.length);
+		out.write(bytes);
+	}
+
+	private static String readString(ByteBuffer buffer) {
+
+		byte[] bytes = new byte[buffer.getInt()];
+		buffer.get(bytes);
+		return new String(bytes, UTF8);
+	}
+}
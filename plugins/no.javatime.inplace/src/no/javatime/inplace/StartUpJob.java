@@ -10,15 +10,19 @@
  *******************************************************************************/
 package no.javatime.inplace;
 
+import java.util.ArrayList;
 import java.util.Collection;
 
 import no.javatime.inplace.builder.AutoBuildListener;
 import no.javatime.inplace.bundlejobs.ActivateBundleJob;
 import no.javatime.inplace.extender.intface.ExtenderException;
+import no.javatime.inplace.dl.preferences.intface.DependencyOptions.Closure;
 import no.javatime.inplace.msg.Msg;
+import no.javatime.inplace.region.closure.BundleClosures;
 import no.javatime.inplace.region.closure.BundleProjectBuildError;
 import no.javatime.inplace.region.closure.CircularReferenceException;
 import no.javatime.inplace.region.intface.BundleRegion;
+import no.javatime.inplace.region.intface.BundleTransition.Transition;
 import no.javatime.inplace.region.intface.BundleTransitionListener;
 import no.javatime.inplace.region.intface.InPlaceException;
 import no.javatime.inplace.region.intface.ProjectLocationException;
@@ -53,9 +57,20 @@ import org.osgi.service.prefs.BackingStoreException;
  * <p>
  * After an abnormal termination of the workspace, states are regenerated based on activation rules
  * and states from the previous session according to rules in {@code StatePersistParticipant}.
+ * <p>
+ * If the fast start option is on, activated bundles are installed and resolved as usual, while the
+ * start of bundles with an eager activation policy is deferred to a {@link DeferredStartJob}
+ * running with a low priority after start up. Bundles with a lazy activation policy are activated on
+ * first class load. Eager bundles providing capabilities to lazy bundles are started together with
+ * the lazy bundles and are not deferred.
  */
 class StartUpJob extends ActivateBundleJob {
 
+	/**
+	 * Bundle projects with an eager activation policy to start after the start up job has finished
+	 */
+	private final Collection<IProject> deferredProjects = new ArrayList<>();
+
 	/**
 	 * Construct a startup job with a given name
 	 * 
@@ -169,10 +184,30 @@ class StartUpJob extends ActivateBundleJob {
 				String msg = WarnMessage.getInstance().formatString("failed_getting_preference_store");
 				addError(e, msg);
 			}
+			scheduleDeferredStart();
 		}
 		return getJobSatus();
 	}
 
+	/**
+	 * Schedule the start of the bundles deferred by the fast start option. Called when the start up
+	 * job has finished, so the interactive time covers the whole start up job.
+	 */
+	private void scheduleDeferredStart() {
+
+		if (deferredProjects.isEmpty()) {
+			return;
+		}
+		long interactiveTime = System.currentTimeMillis() - getStartedTime();
+		try {
+			Activator.getBundleExecutorEventService().add(
+					new DeferredStartJob(deferredProjects, getStartedTime(), interactiveTime),
+					DeferredStartJob.DELAY);
+		} catch (ExtenderException e) {
+			addError(e, e.getMessage());
+		}
+	}
+
 	/**
 	 * Deactivate workspace if the "deactivate on exit" preference is on or if there are build errors
 	 * among the specified projects or any requiring projects to the specified projects
@@ -236,6 +271,56 @@ class StartUpJob extends ActivateBundleJob {
 		return false;
 	}
 
+	/**
+	 * Start the specified activated bundles or, if the fast start option is on, defer the start of
+	 * bundles with an eager activation policy to a job scheduled to run after start up
+	 * <p>
+	 * Bundles with a lazy activation policy are started with their providing bundles, so eager
+	 * providers of lazy bundles are started before the lazy bundles in the same way as without the
+	 * fast start option. Only eager bundles not providing to a lazy bundle are deferred.
+	 * 
+	 * @param bundles activated bundles to start
+	 * @param monitor the progress monitor to use for reporting progress to the user.
+	 * @return status object describing the result of starting the bundles not deferred
+	 * @throws InterruptedException if interrupted while starting a bundle
+	 * @throws InPlaceException illegal closure for activate bundle operation
+	 */
+	@Override
+	protected IBundleStatus startActivatedBundles(Collection<Bundle> bundles,
+			IProgressMonitor monitor) throws InterruptedException, InPlaceException {
+
+		if (!commandOptions.isFastStart()) {
+			return super.startActivatedBundles(bundles, monitor);
+		}
+		Collection<Bundle> startBundles = new ArrayList<>();
+		for (Bundle bundle : bundles) {
+			// Fragments and bundles with activation level resolve are not started
+			if (Boolean.TRUE.equals(bundleProjectMeta.getCachedActivationPolicy(bundle))
+					|| bundleProjectMeta.isCachedFragment(bundle)
+					|| bundleTransition.containsPending(bundle, Transition.RESOLVE, false)) {
+				startBundles.add(bundle);
+			}
+		}
+		// Start eager providers of lazy bundles now and in providing order as the activate job does
+		if (startBundles.size() > 0) {
+			BundleClosures bc = new BundleClosures();
+			startBundles = bc.bundleActivation(Closure.PROVIDING, startBundles,
+					bundleRegion.getActivatedBundles());
+		}
+		for (Bundle bundle : bundles) {
+			if (!startBundles.contains(bundle)) {
+				deferredProjects.add(bundleRegion.getProject(bundle));
+			}
+		}
+		IBundleStatus status = start(startBundles, null, monitor);
+		if (deferredProjects.size() > 0 && messageOptions.isBundleOperations()) {
+			addLogStatus(Msg.FAST_START_DEFERRED_INFO,
+					new Object[] { bundleProjectCandidates.formatProjectList(deferredProjects) }, Activator
+							.getContext().getBundle());
+		}
+		return status;
+	}
+
 	private void startUpInit() {
 		
 		final IBundleStatus multiStatus = new BundleStatus(StatusCode.INFO, Activator.PLUGIN_ID,
@@ -10,7 +10,9 @@
  *******************************************************************************/
 package no.javatime.inplace;
 
+import java.io.IOException;
 import java.util.Collection;
+import java.util.EnumSet;
 import java.util.LinkedHashSet;
 
 import no.javatime.inplace.bundlejobs.ActivateProjectJob;
@@ -84,6 +86,13 @@ import org.osgi.service.prefs.Preferences;
  * 
  * The save participant mechanism is only used to request for workspace delta information to be
  * handled by the post build listener during start up.
+ * <li>Session snapshot</li>
+ * <p>
+ * When the workspace session ends the persisted state is also written to a binary
+ * {@link SessionSnapshot} in the state location of the plug-in. At start up the state of bundle
+ * projects with an unchanged manifest is read from the snapshot, while the preference store is used
+ * for all other bundle projects. The snapshot is deleted each time state is saved to the preference
+ * store and after it has been restored.
  */
 public class StatePersistParticipant implements ISaveParticipant {
 
@@ -169,6 +178,7 @@ public class StatePersistParticipant implements ISaveParticipant {
 			BackingStoreException, ExtenderException, InPlaceException, IllegalStateException {
 
 		IEclipsePreferences prefs = getSessionPreferences();
+		SessionSnapshot snapshot = loadSessionSnapshot();
 		BundleRegion bundleRegion = Activator.getBundleRegionService();
 		Collection<Bundle> startLevelBundles = bundleRegion.getActivatedBundles();
 		if (startLevelBundles.size() > 0) {
@@ -177,8 +187,8 @@ public class StatePersistParticipant implements ISaveParticipant {
 				// Normal mode in an activated workspace
 				// Transition states are calculated when bundles are activated and
 				// pending transitions are always added independent of activation mode and recovery mode
-				Collection<Bundle> resolveLevelBundles = restoreActivationLevel(prefs, startLevelBundles,
-						Bundle.RESOLVED);
+				Collection<Bundle> resolveLevelBundles = restoreActivationLevel(prefs, snapshot,
+						startLevelBundles, Bundle.RESOLVED);
 				if (resolveLevelBundles.size() > 0) {
 					// Save bundle state for all bundles in state resolve
 					startLevelBundles.removeAll(resolveLevelBundles);
@@ -196,13 +206,14 @@ public class StatePersistParticipant implements ISaveParticipant {
 			// Normal and recovery mode in a deactivated workspace
 			// Activation level is uninstalled 
 			// Use transition state from previous session
-			restoreTransitionState(prefs);
+			restoreTransitionState(prefs, snapshot);
 		}
 		// Always restore pending transitions independent of workspace activation mode and recovery mode
-		restorePendingBuildTransitions(prefs);
+		restorePendingBuildTransitions(prefs, snapshot);
 		// Do not retain the activation level from the previous session
 		prefs.node(bundleStateNode).clear();
 		prefs.flush();
+		invalidateSessionSnapshot();
 	}
 
 	/**
@@ -268,6 +279,7 @@ public class StatePersistParticipant implements ISaveParticipant {
 	 * requirements on bundles with {@code Bundle.RESOLVED} as the activation level.
 	 * 
 	 * @param prefs Root of the preference store
+	 * @param snapshot Snapshot of the previous session or null to only use the preference store
 	 * @param bundles Set of bundles to match the specified activation level against
 	 * @param activationLevel The state specifying which activation level to match the specified
 	 * bundles to
@@ -279,7 +291,7 @@ public class StatePersistParticipant implements ISaveParticipant {
 	 * @see #saveActivationLevel(IEclipsePreferences, boolean)
 	 */
 	private static Collection<Bundle> restoreActivationLevel(IEclipsePreferences prefs,
-			Collection<Bundle> bundles, int activationLevel) throws BackingStoreException,
+			SessionSnapshot snapshot, Collection<Bundle> bundles, int activationLevel) throws BackingStoreException,
 			ExtenderException, IllegalStateException {
 
 		Collection<Bundle> activationLevelBundles = new LinkedHashSet<>();
@@ -298,6 +310,13 @@ public class StatePersistParticipant implements ISaveParticipant {
 							activationLevelBundles.add(bundle);
 						}
 					} else {
+						SessionSnapshot.Record record = getSnapshotRecord(snapshot, bundleRegion, bundle);
+						if (null != record) {
+							if (record.getActivationLevel() == activationLevel) {
+								activationLevelBundles.add(bundle);
+							}
+							continue;
+						}
 						String symbolicKey = bundleRegion.getSymbolicKey(bundle, null);
 						if (!symbolicKey.isEmpty()) {
 							String prefsStateName = stateNode.get(symbolicKey, activeStateName);
@@ -390,6 +409,7 @@ public class StatePersistParticipant implements ISaveParticipant {
 	 * activation level of bundle projects.
 	 * 
 	 * @param prefs The preference store
+	 * @param snapshot Snapshot of the previous session or null to only use the preference store
 	 * @throws BackingStoreException Failure to access the preference store for bundle states
 	 * @throws ExtenderException General failure obtaining extender service(s)
 	 * @throws InPlaceException Failing to access an open project
@@ -397,7 +417,7 @@ public class StatePersistParticipant implements ISaveParticipant {
 	 * removed when accessing bundle state information
 	 * @see #saveTransitionState(IEclipsePreferences, boolean)
 	 */
-	private static void restoreTransitionState(IEclipsePreferences prefs)
+	private static void restoreTransitionState(IEclipsePreferences prefs, SessionSnapshot snapshot)
 			throws BackingStoreException, ExtenderException, InPlaceException, IllegalStateException {
 
 		if (prefs.nodeExists(bundleTransitionNode)) {
@@ -409,14 +429,18 @@ public class StatePersistParticipant implements ISaveParticipant {
 			String noTransitionName = bundleTransition.getTransitionName(Transition.NO_TRANSITION, false,
 					false);
 
-			String prefsTransitionName = transitionNode.get(deactivateState, noTransitionName);
+			String prefsTransitionName = null != snapshot && null != snapshot.getDeactivatedTransition()
+					? snapshot.getDeactivatedTransition()
+					: transitionNode.get(deactivateState, noTransitionName);
 
 			Collection<IProject> bundleProjects = bundleProjectCandidates.getBundleProjects();
 			for (IProject project : bundleProjects) {
 				try {
-					String symbolicKey = bundleRegion.getSymbolicKey(null, project);
-					if (symbolicKey.isEmpty()) {
-						continue;
+					if (null == snapshot || null == snapshot.get(project)) {
+						String symbolicKey = bundleRegion.getSymbolicKey(null, project);
+						if (symbolicKey.isEmpty()) {
+							continue;
+						}
 					}
 					// String prefsTransitionName = transitionNode.get(symbolicKey, noTransitionName);
 					bundleTransition.setTransition(project,
@@ -435,6 +459,7 @@ public class StatePersistParticipant implements ISaveParticipant {
 	 * Restore pending transitions and add them as pending transitions to bundle projects
 	 * 
 	 * @param prefs The preference store
+	 * @param snapshot Snapshot of the previous session or null to only use the preference store
 	 * @throws BackingStoreException Failure to access the preference store for bundle states
 	 * @throws ExtenderException General failure obtaining extender service(s)
 	 * @throws InPlaceException Failing to access an open project
@@ -442,7 +467,8 @@ public class StatePersistParticipant implements ISaveParticipant {
 	 * removed when accessing bundle state information
 	 * @see {@link #savePendingBuildTransitions(IEclipsePreferences, boolean)}
 	 */
-	private static void restorePendingBuildTransitions(IEclipsePreferences prefs)
+	private static void restorePendingBuildTransitions(IEclipsePreferences prefs,
+			SessionSnapshot snapshot)
 			throws ExtenderException, BackingStoreException, InPlaceException, IllegalStateException {
 
 		if (prefs.nodeExists(bundlePendingTransitionNode)) {
@@ -456,6 +482,13 @@ public class StatePersistParticipant implements ISaveParticipant {
 					false);
 			String noName = bundleTransition.getTransitionName(Transition.NO_TRANSITION, false, false);
 			for (IProject project : projects) {
+				SessionSnapshot.Record record = null != snapshot ? snapshot.get(project) : null;
+				if (null != record) {
+					if (record.getPendingTransitions().contains(Transition.BUILD)) {
+						bundleTransition.addPending(project, Transition.BUILD);
+					}
+					continue;
+				}
 				String symbolicKey = Activator.getBundleRegionService().getSymbolicKey(null, project);
 				if (symbolicKey.isEmpty()) {
 					continue;
@@ -499,6 +532,7 @@ public class StatePersistParticipant implements ISaveParticipant {
 	public static void saveSessionState(boolean isDeactivate) throws ExtenderException,
 			BackingStoreException, IllegalStateException {
 
+		invalidateSessionSnapshot();
 		IEclipsePreferences prefs = getSessionPreferences();
 		prefs.clear();
 		saveActivationLevel(prefs, isDeactivate);
@@ -531,6 +565,7 @@ public class StatePersistParticipant implements ISaveParticipant {
 	public static void saveActivationLevel(IEclipsePreferences prefs, boolean isDeactivate)
 			throws ExtenderException, BackingStoreException, IllegalStateException {
 
+		invalidateSessionSnapshot();
 		Preferences stateNode = prefs.node(bundleStateNode);
 		stateNode.clear();
 		if (isDeactivate) {
@@ -582,6 +617,7 @@ public class StatePersistParticipant implements ISaveParticipant {
 
 		Preferences transitionNode = prefs.node(bundleTransitionNode);
 		if (isDeactivate) {
+			invalidateSessionSnapshot();
 			// transitionNode.clear();
 			BundleRegion bundleRegion = Activator.getBundleRegionService();
 			BundleTransition bundleTransition = Activator.getBundleTransitionService();
@@ -618,6 +654,7 @@ public class StatePersistParticipant implements ISaveParticipant {
 			boolean isWorkspaceSession) throws ExtenderException, BackingStoreException,
 			IllegalStateException {
 
+		invalidateSessionSnapshot();
 		Preferences pendingPrefs = prefs.node(bundlePendingTransitionNode);
 		pendingPrefs.clear();
 		// Shutting down
@@ -643,6 +680,7 @@ public class StatePersistParticipant implements ISaveParticipant {
 			boolean isWorkspaceSession) throws ExtenderException, BackingStoreException,
 			IllegalStateException {
 
+		invalidateSessionSnapshot();
 		Preferences pendingPrefs = prefs.node(bundlePendingTransitionNode);
 		if (isWorkspaceSession) {
 			BundleTransition bundleTransition = Activator.getBundleTransitionService();
@@ -657,11 +695,117 @@ public class StatePersistParticipant implements ISaveParticipant {
 	public static void clearPendingBuildTransitions(IEclipsePreferences prefs) throws ExtenderException, BackingStoreException,
 			IllegalStateException {
 
+		invalidateSessionSnapshot();
 		Preferences pendingPrefs = prefs.node(bundlePendingTransitionNode);
 		pendingPrefs.clear();
 		pendingPrefs.flush();
 	}
 
+	/**
+	 * Write the workspace region state saved in the preference store to a binary session snapshot.
+	 * Should be called at the end of a workspace session after the session state is saved to the
+	 * preference store.
+	 * <p>
+	 * If the snapshot can not be written the state is restored from the preference store in the next
+	 * session.
+	 * 
+	 * @throws BackingStoreException Failure to access the preference store for bundle states
+	 * @throws ExtenderException General failure obtaining extender service(s)
+	 * @throws IllegalStateException if the current backing store node (or an ancestor) has been
+	 * removed when accessing bundle state information
+	 * @see #restoreSessionState()
+	 */
+	public static void saveSessionSnapshot() throws ExtenderException, BackingStoreException,
+			IllegalStateException {
+
+		IEclipsePreferences prefs = getSessionPreferences();
+		BundleRegion bundleRegion = Activator.getBundleRegionService();
+		BundleTransition bundleTransition = Activator.getBundleTransitionService();
+		BundleCommand bundleCommand = Activator.getBundleCommandService();
+		String deactivatedTransition = null;
+		if (prefs.nodeExists(bundleTransitionNode)) {
+			deactivatedTransition = prefs.node(bundleTransitionNode).get(deactivateState,
+					bundleTransition.getTransitionName(Transition.NO_TRANSITION, false, false));
+		}
+		Preferences stateNode = prefs.nodeExists(bundleStateNode) ? prefs.node(bundleStateNode) : null;
+		Preferences pendingPrefs = prefs.nodeExists(bundlePendingTransitionNode) ? prefs
+				.node(bundlePendingTransitionNode) : null;
+		String resolvedStateName = bundleCommand.getStateName(Bundle.RESOLVED);
+		String buildTransitionName = bundleTransition.getTransitionName(Transition.BUILD, false,
+				false);
+		SessionSnapshot snapshot = new SessionSnapshot(deactivatedTransition);
+		for (IProject project : Activator.getBundleProjectCandidatesService().getBundleProjects()) {
+			String symbolicKey = bundleRegion.getSymbolicKey(null, project);
+			if (symbolicKey.isEmpty()) {
+				continue;
+			}
+			int activationLevel = null != stateNode
+					&& resolvedStateName.equals(stateNode.get(symbolicKey, null)) ? Bundle.RESOLVED
+					: Bundle.ACTIVE;
+			EnumSet<Transition> pendingTransitions = EnumSet.noneOf(Transition.class);
+			if (null != pendingPrefs && buildTransitionName.equals(pendingPrefs.get(symbolicKey, null))) {
+				pendingTransitions.add(Transition.BUILD);
+			}
+			snapshot.add(project, activationLevel, pendingTransitions);
+		}
+		try {
+			snapshot.save();
+		} catch (IOException e) {
+			SessionSnapshot.delete();
+			StatusManager.getManager().handle(
+					new BundleStatus(StatusCode.WARNING, Activator.PLUGIN_ID, e.getMessage(), e),
+					StatusManager.LOG);
+		}
+	}
+
+	/**
+	 * Read the session snapshot from the previous session
+	 * 
+	 * @return the snapshot or null if there is no valid snapshot
+	 */
+	private static SessionSnapshot loadSessionSnapshot() {
+
+		try {
+			return SessionSnapshot.load();
+		} catch (IOException e) {
+			invalidateSessionSnapshot();
+			StatusManager.getManager().handle(
+					new BundleStatus(StatusCode.WARNING, Activator.PLUGIN_ID, e.getMessage(), e),
+					StatusManager.LOG);
+			return null;
+		}
+	}
+
+	/**
+	 * Get the snapshot record of the project of the specified bundle
+	 * 
+	 * @param snapshot Snapshot of the previous session or null
+	 * @param bundleRegion The bundle workspace region service
+	 * @param bundle The bundle to get the record for
+	 * @return The record or null if there is no snapshot or the project has no valid record
+	 */
+	private static SessionSnapshot.Record getSnapshotRecord(SessionSnapshot snapshot,
+			BundleRegion bundleRegion, Bundle bundle) {
+
+		if (null == snapshot) {
+			return null;
+		}
+		try {
+			IProject project = bundleRegion.getProject(bundle);
+			return null != project ? snapshot.get(project) : null;
+		} catch (ProjectLocationException e) {
+			return null;
+		}
+	}
+
+	/**
+	 * Delete the session snapshot. The snapshot is only valid as long as the state in the preference
+	 * store is unchanged.
+	 */
+	private static void invalidateSessionSnapshot() {
+		SessionSnapshot.delete();
+	}
+
 	/**
 	 * Preference store used to maintain persistent workspace region state
 	 * 
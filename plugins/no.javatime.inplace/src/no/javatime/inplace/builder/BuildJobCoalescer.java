@@ -0,0 +1,287 @@
+/*******************************************************************************
+ * Copyright (c) 2011, 2012 JavaTime project and others
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ * 	JavaTime project, Eirik Gronsund - initial implementation
+ *******************************************************************************/
+package no.javatime.inplace.builder;
+
+import java.util.Collection;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+
+import no.javatime.inplace.Activator;
+import no.javatime.inplace.bundlejobs.events.intface.BundleExecutorEventManager;
+import no.javatime.inplace.bundlejobs.intface.BundleExecutor;
+import no.javatime.inplace.extender.intface.ExtenderException;
+import no.javatime.inplace.msg.Msg;
+import no.javatime.inplace.region.status.BundleStatus;
+import no.javatime.inplace.region.status.IBundleStatus.StatusCode;
+
+import org.eclipse.core.resources.IProject;
+import org.eclipse.core.runtime.jobs.Job;
+import org.eclipse.osgi.util.NLS;
+import org.eclipse.ui.statushandlers.StatusManager;
+
+/**
+ * Merges bundle jobs scheduled by the post build listener over successive builds before they are
+ * added for execution. A rapid sequence of builds, e.g. when saving several files with auto build
+ * on, results in one job of each kind instead of one job of each kind per build.
+ * <p>
+ * Jobs are kept in slots in the order they are to be executed. The pending projects of a job are
+ * merged into the job held by the same slot, and the jobs are added for execution in slot order
+ * when no build has arrived within the quiet period. A build is not merged if a project in one of
+ * its jobs is pending in a queued job of a later slot, since the job of the build would then run
+ * before the job of the earlier build. The queued jobs are added for execution before the jobs of
+ * such a build are queued. Jobs already added for execution are only modified if they are waiting
+ * to run and no other job has been added after them. This leaves the execution order of jobs for
+ * each project unchanged.
+ * <p>
+ * The number of builds merged into a job is added to the log of the job when bundle operations are
+ * logged.
+ */
+class BuildJobCoalescer {
+
+	private final BundleExecutorEventManager bundleExecutorEventmanager;
+	// Jobs waiting for the quiet period to expire in execution order
+	private final BundleExecutor[] queued;
+	// Number of builds merged into the queued job in each slot
+	private final int[] builds;
+	// Last job in each slot added for execution
+	private final BundleExecutor[] scheduled;
+	// Last job added for execution
+	private BundleExecutor lastScheduled;
+	private ScheduledThreadPoolExecutor timer;
+	private ScheduledFuture<?> flush;
+	private boolean disposed;
+
+	/**
+	 * Create a coalescer for the specified number of job kinds
+	 *
+	 * @param bundleExecutorEventmanager receives merged jobs for execution
+	 * @param slots number of job kinds
+	 */
+	BuildJobCoalescer(BundleExecutorEventManager bundleExecutorEventmanager, int slots) {
+		this.bundleExecutorEventmanager = bundleExecutorEventmanager;
+		queued = new BundleExecutor[slots];
+		builds = new int[slots];
+		scheduled = new BundleExecutor[slots];
+	}
+
+	/**
+	 * Merge the specified jobs from a build with jobs from previous builds waiting for the quiet
+	 * period to expire. Jobs without pending projects are ignored.
+	 *
+	 * @param quietPeriod milliseconds to wait for further builds before adding the jobs for
+	 * execution. If zero the jobs are added for execution before returning
+	 * @param bundleExecutors one job for each slot in execution order. A job may be null
+	 */
+	synchronized void add(long quietPeriod, BundleExecutor... bundleExecutors) {
+
+		if (isReordered(bundleExecutors)) {
+			if (null != flush) {
+				flush.cancel(false);
+			}
+			flush();
+		}
+		for (int i = 0; i < queued.length && i < bundleExecutors.length; i++) {
+			BundleExecutor bundleExecutor = bundleExecutors[i];
+			if (null == bundleExecutor || !bundleExecutor.hasPendingProjects()) {
+				continue;
+			}
+			if (null == queued[i]) {
+				queued[i] = bundleExecutor;
+			} else {
+				queued[i].addPendingProjects(bundleExecutor.getPendingProjects());
+			}
+			builds[i]++;
+		}
+		if (null != flush) {
+			flush.cancel(false);
+			flush = null;
+		}
+		if (quietPeriod <= 0 || disposed) {
+			flush();
+			return;
+		}
+		try {
+			flush = getTimer().schedule(new Runnable() {
+				@Override
+				public void run() {
+					flush();
+				}
+			}, quietPeriod, TimeUnit.MILLISECONDS);
+		} catch (RejectedExecutionException e) {
+			flush();
+		}
+	}
+
+	/**
+	 * Check if merging the jobs of a build with the queued jobs changes the order in which jobs are
+	 * executed for a project. This is the case when a project pending in a job of the build is pending
+	 * in a queued job of a later slot.
+	 *
+	 * @param bundleExecutors one job for each slot in execution order. A job may be null
+	 * @return true if the queued jobs must be added for execution before the jobs of the build are
+	 * queued
+	 */
+	private boolean isReordered(BundleExecutor... bundleExecutors) {
+
+		for (int i = 0; i < queued.length && i < bundleExecutors.length; i++) {
+			BundleExecutor bundleExecutor = bundleExecutors[i];
+			if (null == bundleExecutor || !bundleExecutor.hasPendingProjects()) {
+				continue;
+			}
+			Collection<IProject> projects = bundleExecutor.getPendingProjects();
+			for (int j = i + 1; j < queued.length; j++) {
+				if (null == queued[j]) {
+					continue;
+				}
+				for (IProject project : projects) {
+					if (queued[j].isPendingProject(project)) {
+						return true;
+					}
+				}
+			}
+		}
+		return false;
+	}
+
+	/**
+	 * Stop the timer. Queued jobs are discarded and jobs added after this call are added for
+	 * execution immediately.
+	 */
+	synchronized void dispose() {
+
+		disposed = true;
+		if (null != flush) {
+			flush.cancel(false);
+			flush = null;
+		}
+		for (int i = 0; i < queued.length; i++) {
+			queued[i] = null;
+			builds[i] = 0;
+			scheduled[i] = null;
+		}
+		lastScheduled = null;
+		if (null != timer) {
+			timer.shutdownNow();
+			timer = null;
+		}
+	}
+
+	/**
+	 * Add queued jobs for execution in slot order. If only one job is queued and the last job added
+	 * for execution is of the same kind and still waiting to run, the pending projects are merged
+	 * into the waiting job instead.
+	 */
+	private synchronized void flush() {
+
+		flush = null;
+		int slot = -1;
+		int count = 0;
+		for (int i = 0; i < queued.length; i++) {
+			if (null != queued[i]) {
+				slot = i;
+				count++;
+			}
+		}
+		if (count == 1 && null != scheduled[slot] && scheduled[slot] == lastScheduled
+				&& merge(scheduled[slot], queued[slot], builds[slot])) {
+			queued[slot] = null;
+			builds[slot] = 0;
+			return;
+		}
+		for (int i = 0; i < queued.length; i++) {
+			BundleExecutor bundleExecutor = queued[i];
+			if (null == bundleExecutor) {
+				continue;
+			}
+			logMergedBuilds(bundleExecutor, builds[i]);
+			queued[i] = null;
+			builds[i] = 0;
+			scheduled[i] = bundleExecutor;
+			lastScheduled = bundleExecutor;
+			bundleExecutorEventmanager.add(bundleExecutor);
+		}
+	}
+
+	/**
+	 * Merge the pending projects of a queued job into a job of the same kind added for execution if
+	 * the job has not started to run. The job is put to sleep while merging.
+	 *
+	 * @param scheduledExecutor job added for execution
+	 * @param bundleExecutor queued job to merge
+	 * @param count number of builds merged into the queued job
+	 * @return true if merged and false if the scheduled job is running or has finished
+	 */
+	private boolean merge(BundleExecutor scheduledExecutor, BundleExecutor bundleExecutor, int count) {
+
+		Job job = scheduledExecutor.getJob();
+		int state = job.getState();
+		if (state != Job.WAITING && state != Job.SLEEPING) {
+			return false;
+		}
+		if (!job.sleep()) {
+			return false;
+		}
+		try {
+			if (job.getState() != Job.SLEEPING) {
+				return false;
+			}
+			scheduledExecutor.addPendingProjects(bundleExecutor.getPendingProjects());
+			logMergedBuilds(scheduledExecutor, count + 1);
+			return true;
+		} finally {
+			job.wakeUp();
+		}
+	}
+
+	/**
+	 * Add the number of builds merged into the specified job to the log of the job
+	 *
+	 * @param bundleExecutor the job builds are merged into
+	 * @param count number of merged builds
+	 */
+	private void logMergedBuilds(BundleExecutor bundleExecutor, int count) {
+
+		if (count <= 1) {
+			return;
+		}
+		try {
+			if (Activator.getMessageOptionsService().isBundleOperations()) {
+				String msg = NLS.bind(Msg.MERGED_BUILDS_TRACE, count, bundleExecutor.getName());
+				bundleExecutor.addLogStatus(new BundleStatus(StatusCode.INFO, Activator.PLUGIN_ID, msg));
+			}
+		} catch (ExtenderException e) {
+			StatusManager.getManager().handle(
+					new BundleStatus(StatusCode.EXCEPTION, Activator.PLUGIN_ID, e.getMessage(), e),
+					StatusManager.LOG);
+		}
+	}
+
+	private ScheduledThreadPoolExecutor getTimer() {
+
+		if (null == timer) {
+			timer = new ScheduledThreadPoolExecutor(1, new ThreadFactory() {
+				@Override
+				public Thread newThread(Runnable runnable) {
+					Thread thread = new Thread(runnable, "InPlace Build Job Coalescer");
+					thread.setDaemon(true);
+					return thread;
+				}
+			});
+			timer.setKeepAliveTime(60L, TimeUnit.SECONDS);
+			timer.allowCoreThreadTimeOut(true);
+			timer.setRemoveOnCancelPolicy(true);
+		}
+		return timer;
+	}
+}
@@ -26,7 +26,6 @@ import no.javatime.inplace.bundlejobs.UpdateJob;
 import no.javatime.inplace.bundlejobs.events.intface.BundleExecutorEventManager;
 import no.javatime.inplace.bundlejobs.intface.ActivateBundle;
 import no.javatime.inplace.bundlejobs.intface.ActivateProject;
-import no.javatime.inplace.bundlejobs.intface.BundleExecutor;
 import no.javatime.inplace.bundlejobs.intface.Deactivate;
 import no.javatime.inplace.bundlejobs.intface.Install;
 import no.javatime.inplace.bundlejobs.intface.ResourceState;
@@ -121,6 +120,8 @@ public class PostBuildListener implements IResourceChangeListener {
 	private CommandOptions commandOptions;
 	private ResourceState resourceState;
 	final private ActivateProject projectActivator;
+	// Merges jobs from successive builds before they are added for execution
+	final private BuildJobCoalescer coalescer;
 
 	// Reduce the number of scheduled update jobs.
 	// If true wait for the next build before scheduling update
@@ -157,6 +158,15 @@ public class PostBuildListener implements IResourceChangeListener {
 					StatusManager.LOG);
 		}
 		projectActivator = new ActivateProjectJob();
+		coalescer = new BuildJobCoalescer(bundleExecutorEventmanager, 7);
+	}
+
+	/**
+	 * Stop merging bundle jobs from successive builds. Jobs waiting for the quiet period to expire
+	 * are discarded.
+	 */
+	public void dispose() {
+		coalescer.dispose();
 	}
 
 	/**
@@ -534,6 +544,9 @@ public class PostBuildListener implements IResourceChangeListener {
 
 	/**
 	 * Wait on builder and save state before scheduling jobs with pending projects.
+	 * <p>
+	 * Jobs are merged with jobs of the same kind from previous builds and added for execution when no
+	 * new build has arrived within the build quiet period
 	 * 
 	 * @param addBundleProject New (import, open, create) and renamed projects
 	 * @param uninstall Moved projects and projects that needs to be ractivated
@@ -555,7 +568,7 @@ public class PostBuildListener implements IResourceChangeListener {
 			executor.execute(new Runnable() {
 
 				/**
-				 * Wait on builder to finish before adding jobs for execution
+				 * Wait on builder to finish before adding jobs for execution after the quiet period
 				 */
 				@Override
 				public void run() {
@@ -572,13 +585,8 @@ public class PostBuildListener implements IResourceChangeListener {
 								resourceState.saveFiles();
 							}
 						}
-						add(addBundleProject);
-						add(uninstall);
-						add(install);
-						add(deactivate);
-						add(activateBundle);
-						add(update);
-						add(postActivateBundle);
+						coalescer.add(commandOptions.getBuildQuietPeriod(), addBundleProject, uninstall,
+								install, deactivate, activateBundle, update, postActivateBundle);
 					} catch (ExtenderException e) {
 						StatusManager.getManager().handle(
 								new BundleStatus(StatusCode.EXCEPTION, Activator.PLUGIN_ID, e.getMessage(), e),
@@ -586,20 +594,6 @@ public class PostBuildListener implements IResourceChangeListener {
 					}
 
 				}
-
-				/**
-				 * Schedules the specified job for execution
-				 * 
-				 * @param bundleExecutor job to schedule and execute
-				 */
-				private boolean add(BundleExecutor bundleExecutor) {
-
-					if (null != bundleExecutor && bundleExecutor.hasPendingProjects()) {
-						bundleExecutorEventmanager.add(bundleExecutor);
-						return true;
-					}
-					return false;
-				}
 			});
 		} catch (RejectedExecutionException e) {
 			StatusManager.getManager().handle(
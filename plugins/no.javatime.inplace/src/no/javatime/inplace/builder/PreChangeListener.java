@@ -73,6 +73,8 @@ public class PreChangeListener implements IResourceChangeListener {
 				&& (resource.getType() & (IResource.PROJECT)) != 0) {
 			final IProject project = resource.getProject();
 			try {
+				// The location of a closed or deleted project is no longer valid
+				Activator.getBundleRegionService().updateProjectLocation(project);
 				if (!projectActivation.isProjectWorkspaceActivated()) {
 					BundleRegion bundleRegion = Activator.getBundleRegionService();
 					if (bundleRegion.isProjectRegistered(project)) {
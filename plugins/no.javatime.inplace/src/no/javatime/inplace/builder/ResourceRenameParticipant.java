@@ -99,7 +99,7 @@ public class ResourceRenameParticipant extends RenameParticipant {
 	}
 
 	/**
-	 * Add project to refactor as a pending transition
+	 * Add project to refactor as a pending transition and update the location index of the project
 	 */
 	@Override
 	protected boolean initialize(Object arg0) {
@@ -107,6 +107,8 @@ public class ResourceRenameParticipant extends RenameParticipant {
 			fromProject = (IProject) arg0;
 			try {
 				Activator.getBundleTransitionService().addPending(fromProject, Transition.RENAME_PROJECT);
+				// The location of the project changes when renamed
+				Activator.getBundleRegionService().updateProjectLocation(fromProject);
 				return true;
 			} catch (ExtenderException e) {
 				StatusManager.getManager().handle(
@@ -261,9 +261,25 @@ public class ActivateBundleJob extends NatureJob implements ActivateBundle {
 			throw new OperationCanceledException();
 		}
 		StatePersistParticipant.restoreSessionState();
-		start(activatedBundles, Closure.PROVIDING, new SubProgressMonitor(monitor, 1));
+		startActivatedBundles(activatedBundles, new SubProgressMonitor(monitor, 1));
 		return getLastErrorStatus();
-	}	
+	}
+
+	/**
+	 * Start the specified activated and resolved bundles including their providing bundles
+	 * 
+	 * @param bundles activated bundles to start
+	 * @param monitor the progress monitor to use for reporting progress to the user.
+	 * @return status object describing the result of starting the bundles
+	 * @throws InterruptedException if interrupted while starting a bundle
+	 * @throws InPlaceException illegal closure for activate bundle operation
+	 * @see #start(Collection, Closure, IProgressMonitor)
+	 */
+	protected IBundleStatus startActivatedBundles(Collection<Bundle> bundles,
+			IProgressMonitor monitor) throws InterruptedException, InPlaceException {
+		return start(bundles, Closure.PROVIDING, monitor);
+	}
+
 	/**
 	 * Number of ticks used by this job.
 	 * 
@@ -14,9 +14,20 @@ import java.lang.Thread.State;
 import java.util.ArrayList;
 import java.util.Collection;
 import java.util.Collections;
+import java.util.LinkedHashMap;
 import java.util.LinkedHashSet;
+import java.util.List;
 import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
 import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
 
 import no.javatime.inplace.Activator;
 import no.javatime.inplace.bundlejobs.intface.BundleExecutor;
@@ -33,6 +44,7 @@ import no.javatime.inplace.region.intface.BundleStateChangeException;
 import no.javatime.inplace.region.intface.BundleThread;
 import no.javatime.inplace.region.intface.BundleTransition.Transition;
 import no.javatime.inplace.region.intface.InPlaceException;
+import no.javatime.inplace.region.intface.RefreshResult;
 import no.javatime.inplace.region.status.BundleStatus;
 import no.javatime.inplace.region.status.IBundleStatus;
 import no.javatime.inplace.region.status.IBundleStatus.StatusCode;
@@ -79,6 +91,26 @@ public class BundleJob extends JobStatus implements BundleExecutor {
 	 */
 	private boolean isSaveWorkspaceSnaphot;
 
+	/**
+	 * Maximum number of milliseconds to wait for the framework to finish refreshing
+	 */
+	final protected static long refreshTimeout = 120000;
+
+	/**
+	 * Number of milliseconds between each check for cancellation while waiting for refresh
+	 */
+	final private static long refreshPollInterval = 200;
+
+	/**
+	 * Upper limit of threads starting and stopping bundles in parallel
+	 */
+	final private static int maxActivationThreads = 8;
+
+	/**
+	 * Shared by all bundle jobs starting and stopping bundles in parallel
+	 */
+	private static ExecutorService activationExecutor;
+
 	/**
 	 * Construct a bundle job with a bundle name. Sets job priority and scheduling rule.
 	 * 
@@ -255,7 +287,7 @@ public class BundleJob extends JobStatus implements BundleExecutor {
 			throws InterruptedException, InPlaceException {
 
 		IBundleStatus result = new BundleStatus(StatusCode.OK, Activator.PLUGIN_ID, "");
-		Collection<Bundle> exceptionBundles = null;
+		Collection<Bundle> exceptionBundles = new LinkedHashSet<Bundle>();
 
 		if (null != bundles && bundles.size() > 0) {
 			if (null != closure) {
@@ -273,95 +305,168 @@ public class BundleJob extends JobStatus implements BundleExecutor {
 			} catch (InPlaceException e) {
 				addError(new BundleStatus(StatusCode.EXCEPTION, Activator.PLUGIN_ID, e.getMessage(), e));
 			}
-			for (Bundle bundle : bundles) {
-				try {
-					if (Category.getState(Category.progressBar))
-						sleep(sleepTime);
-					localMonitor.subTask(NLS.bind(Msg.START_SUB_TASK_JOB, bundle.getSymbolicName()));
-					if (null != exceptionBundles) {
-						try {
-							// Do not start this bundle if it has requirements on bundles that are not started
-							BundleSorter bs = new BundleSorter();
-							Collection<Bundle> provBundles = bs.sortProvidingBundles(
-									Collections.<Bundle> singleton(bundle), exceptionBundles);
-							if (provBundles.size() > 1) {
-								exceptionBundles.add(bundle);
-								continue;
-							}
-						} catch (CircularReferenceException e) {
+			List<List<Bundle>> waves = getActivationWaves(bundles, true);
+			if (null == waves) {
+				for (Bundle bundle : bundles) {
+					try {
+						if (Category.getState(Category.progressBar))
+							sleep(sleepTime);
+						localMonitor.subTask(NLS.bind(Msg.START_SUB_TASK_JOB, bundle.getSymbolicName()));
+						// Do not start this bundle if it has requirements on bundles that are not started
+						if (isProviderFailed(bundle, exceptionBundles)) {
 							exceptionBundles.add(bundle);
 							continue;
 						}
+						result = start(bundle, null, timeout, timeoutVal, exceptionBundles, result, monitor);
+					} finally {
+						localMonitor.worked(1);
 					}
-					if (!bundleTransition.containsPending(bundle, Transition.RESOLVE, true)
-							&& (!bundleProjectMeta.isCachedFragment(bundle))
-							&& ((bundle.getState() & (Bundle.RESOLVED | Bundle.STOPPING)) != 0)) {
-						int startOption = Bundle.START_TRANSIENT;
-						if (bundleProjectMeta.getCachedActivationPolicy(bundle)) {
-							startOption = Bundle.START_ACTIVATION_POLICY;
-						}
-						if (timeout) {
-							bundleCommand.start(bundle, startOption, timeoutVal);
+				}
+			} else {
+				for (List<Bundle> wave : waves) {
+					Map<Bundle, Future<Void>> tasks = new LinkedHashMap<>();
+					for (Bundle bundle : wave) {
+						// Providers of the bundle are started in preceding waves
+						if (isProviderFailed(bundle, exceptionBundles)) {
+							exceptionBundles.add(bundle);
+							localMonitor.worked(1);
 						} else {
-							bundleCommand.start(bundle, startOption);
+							tasks.put(bundle,
+									getActivationExecutor().submit(new StartTask(bundle, timeout, timeoutVal)));
 						}
 					}
-				} catch (BundleActivatorException e) {
-					result = addError(e, e.getLocalizedMessage(), bundle);
-					// Only check for output folder in class path if class path is set to be updated on
-					// activation. If missing instruct the bundle and its requiring bundles to resolve, but not start.
-					IBundleStatus classPathStatus = checkClassPath(Collections.<Bundle> singletonList(bundle));
-					// Add class path messages into the activation exception
-					if (!classPathStatus.hasStatus(StatusCode.OK)) {
-						result.add(classPathStatus);
-					}
-					if (null == exceptionBundles) {
-						exceptionBundles = new LinkedHashSet<Bundle>();
-					}
-					exceptionBundles.add(bundle);
-				} catch (IllegalStateException e) {
-					result = addError(e, e.getMessage(), bundle);
-					Throwable firstCause = e.getCause();
-					if (null != firstCause.getCause() && 
-							(firstCause.getCause() instanceof ThreadDeath)) {
-						throw new OperationCanceledException();						
-					}
-					if (null == exceptionBundles) {
-						exceptionBundles = new LinkedHashSet<Bundle>();
-					}
-					exceptionBundles.add(bundle);
-				} catch (BundleStateChangeException e) {
-					if (null == exceptionBundles) {
-						exceptionBundles = new LinkedHashSet<Bundle>();
-					}
-					exceptionBundles.add(bundle);
-					addError(e, e.getMessage());
-					Throwable cause = e.getCause();
-					if (null != cause && cause instanceof TimeoutException) {
-						String msg = ExceptionMessage.getInstance().formatString("bundle_start_timeout_error",
-								Long.toString(timeoutVal), bundle);
-						IBundleStatus errStat = new BundleStatus(StatusCode.EXCEPTION, Activator.PLUGIN_ID, msg,
-								e);
-						msg = WarnMessage.getInstance().formatString("timeout_termination", bundle);
-						createMultiStatus(errStat, addWarning(null, msg, bundleRegion.getProject(bundle)));
-						stopBundleOperation(monitor);
-					} else if (null != cause && cause instanceof BundleException) {
-						stopBundleOperation(monitor);
-					}
-				} catch (InPlaceException e) {
-					result = addError(e, e.getLocalizedMessage(), bundle);
-					if (null == exceptionBundles) {
-						exceptionBundles = new LinkedHashSet<Bundle>();
+					for (Map.Entry<Bundle, Future<Void>> task : tasks.entrySet()) {
+						Bundle bundle = task.getKey();
+						try {
+							localMonitor.subTask(NLS.bind(Msg.START_SUB_TASK_JOB, bundle.getSymbolicName()));
+							result = start(bundle, task.getValue(), timeout, timeoutVal, exceptionBundles,
+									result, monitor);
+						} finally {
+							localMonitor.worked(1);
+						}
 					}
-					exceptionBundles.add(bundle);
-				} finally {
-					localMonitor.worked(1);
 				}
 			}
 		}
 		return result;
 	}
 
+	/**
+	 * Start the specified bundle or wait for the specified task starting the bundle to finish, and
+	 * handle any failure. Bundles failing to start are added to the exception bundles.
+	 * 
+	 * @param bundle the bundle to start
+	 * @param task the task starting the bundle in parallel or null to start the bundle in the current
+	 * thread
+	 * @param timeout true if the start operation is terminated after the specified timeout
+	 * @param timeoutVal timeout in ms
+	 * @param exceptionBundles bundles that failed to start
+	 * @param result the current result of the start operation
+	 * @param monitor the progress monitor to use for reporting progress to the user.
+	 * @return the current result or the status of the failure if the bundle failed to start
+	 * @throws InterruptedException if interrupted while starting or waiting on the bundle to start
+	 */
+	private IBundleStatus start(Bundle bundle, Future<Void> task, boolean timeout, long timeoutVal,
+			Collection<Bundle> exceptionBundles, IBundleStatus result, IProgressMonitor monitor)
+			throws InterruptedException {
+
+		try {
+			if (null == task) {
+				startBundle(bundle, timeout, timeoutVal);
+			} else {
+				getTaskResult(task, "bundle_start_error", bundle);
+			}
+		} catch (BundleActivatorException e) {
+			result = addError(e, e.getLocalizedMessage(), bundle);
+			// Only check for output folder in class path if class path is set to be updated on
+			// activation. If missing instruct the bundle and its requiring bundles to resolve, but not start.
+			IBundleStatus classPathStatus = checkClassPath(Collections.<Bundle> singletonList(bundle));
+			// Add class path messages into the activation exception
+			if (!classPathStatus.hasStatus(StatusCode.OK)) {
+				result.add(classPathStatus);
+			}
+			exceptionBundles.add(bundle);
+		} catch (IllegalStateException e) {
+			result = addError(e, e.getMessage(), bundle);
+			Throwable firstCause = e.getCause();
+			if (null != firstCause.getCause() && 
+					(firstCause.getCause() instanceof ThreadDeath)) {
+				throw new OperationCanceledException();						
+			}
+			exceptionBundles.add(bundle);
+		} catch (BundleStateChangeException e) {
+			exceptionBundles.add(bundle);
+			addError(e, e.getMessage());
+			Throwable cause = e.getCause();
+			if (null != cause && cause instanceof TimeoutException) {
+				String msg = ExceptionMessage.getInstance().formatString("bundle_start_timeout_error",
+						Long.toString(timeoutVal), bundle);
+				IBundleStatus errStat = new BundleStatus(StatusCode.EXCEPTION, Activator.PLUGIN_ID, msg,
+						e);
+				msg = WarnMessage.getInstance().formatString("timeout_termination", bundle);
+				createMultiStatus(errStat, addWarning(null, msg, bundleRegion.getProject(bundle)));
+				stopBundleOperation(bundle, monitor);
+			} else if (null != cause && cause instanceof BundleException) {
+				stopBundleOperation(bundle, monitor);
+			}
+		} catch (InPlaceException e) {
+			result = addError(e, e.getLocalizedMessage(), bundle);
+			exceptionBundles.add(bundle);
+		}
+		return result;
+	}
+
+	/**
+	 * Start the specified bundle if it is resolved or stopping and not a fragment. If the activation
+	 * policy for the bundle is lazy the bundle is activated according to the declared activation
+	 * policy. If the activation policy is eager, the bundle is started transient.
+	 * 
+	 * @param bundle the bundle to start
+	 * @param timeout true if the start operation is terminated after the specified timeout
+	 * @param timeoutVal timeout in ms
+	 * @throws InterruptedException if interrupted while waiting on the bundle to start
+	 */
+	private void startBundle(Bundle bundle, boolean timeout, long timeoutVal)
+			throws InterruptedException {
+
+		if (!bundleTransition.containsPending(bundle, Transition.RESOLVE, true)
+				&& (!bundleProjectMeta.isCachedFragment(bundle))
+				&& ((bundle.getState() & (Bundle.RESOLVED | Bundle.STOPPING)) != 0)) {
+			int startOption = Bundle.START_TRANSIENT;
+			if (bundleProjectMeta.getCachedActivationPolicy(bundle)) {
+				startOption = Bundle.START_ACTIVATION_POLICY;
+			}
+			if (timeout) {
+				bundleCommand.start(bundle, startOption, timeoutVal);
+			} else {
+				bundleCommand.start(bundle, startOption);
+			}
+		}
+	}
+
+	/**
+	 * Check if the specified bundle requires capabilities from bundles that failed to start
+	 * 
+	 * @param bundle the bundle to check
+	 * @param exceptionBundles bundles that failed to start
+	 * @return true if the bundle directly or indirectly requires capabilities from a failed bundle or
+	 * is part of a cycle with a failed bundle. Otherwise false.
+	 */
+	private boolean isProviderFailed(Bundle bundle, Collection<Bundle> exceptionBundles) {
+
+		if (exceptionBundles.isEmpty()) {
+			return false;
+		}
+		try {
+			BundleSorter bs = new BundleSorter();
+			Collection<Bundle> provBundles = bs.sortProvidingBundles(
+					Collections.<Bundle> singleton(bundle), exceptionBundles);
+			return provBundles.size() > 1;
+		} catch (CircularReferenceException e) {
+			return true;
+		}
+	}
+
 	/**
 	 * Stop the specified bundles. Try to stop as many bundles as possible. May cause additional
 	 * bundles to stop, due to dependencies between bundles. Only bundles in state ACTIVE and STARTING
@@ -407,49 +512,250 @@ public class BundleJob extends JobStatus implements BundleExecutor {
 			} catch (InPlaceException e) {
 				addError(new BundleStatus(StatusCode.EXCEPTION, Activator.PLUGIN_ID, e.getMessage(), e));
 			}
-			for (Bundle bundle : bundles) {
-				try {
-					if (Category.getState(Category.progressBar))
-						sleep(sleepTime);
-					localMonitor.subTask(NLS.bind(Msg.STOP_SUB_TASK_JOB, bundle.getSymbolicName()));
-					if ((bundle.getState() & (Bundle.ACTIVE | Bundle.STARTING)) != 0) {
-						if (timeout) {
-							bundleCommand.stop(bundle, false, timeoutVal);
-						} else {
-							bundleCommand.stop(bundle, false);
-						}
+			List<List<Bundle>> waves = getActivationWaves(bundles, false);
+			if (null == waves) {
+				for (Bundle bundle : bundles) {
+					try {
+						if (Category.getState(Category.progressBar))
+							sleep(sleepTime);
+						localMonitor.subTask(NLS.bind(Msg.STOP_SUB_TASK_JOB, bundle.getSymbolicName()));
+						result = stop(bundle, null, timeout, timeoutVal, result, monitor);
+					} finally {
+						localMonitor.worked(1);
 					}
-				} catch (IllegalStateException e) {
-					result = addError(e, e.getMessage(), bundle);
-					Throwable firstCause = e.getCause();
-					if (null != firstCause.getCause() && 
-							(firstCause.getCause() instanceof ThreadDeath)) {
-						throw new OperationCanceledException();						
+				}
+			} else {
+				for (List<Bundle> wave : waves) {
+					// Requirers of the bundles are stopped in preceding waves
+					Map<Bundle, Future<Void>> tasks = new LinkedHashMap<>();
+					for (Bundle bundle : wave) {
+						tasks.put(bundle,
+								getActivationExecutor().submit(new StopTask(bundle, timeout, timeoutVal)));
 					}
-				} catch (BundleStateChangeException e) {
-					addError(e, e.getMessage());
-					Throwable cause = e.getCause();
-					if (null != cause && cause instanceof TimeoutException) {
-						String msg = ExceptionMessage.getInstance().formatString("bundle_stop_timeout_error",
-								Long.toString(timeoutVal), bundle);
-						IBundleStatus errStat = new BundleStatus(StatusCode.EXCEPTION, Activator.PLUGIN_ID, msg,
-								e);
-						msg = WarnMessage.getInstance().formatString("timeout_termination", bundle);
-						createMultiStatus(errStat, addWarning(null, msg, bundleRegion.getProject(bundle)));
-						stopBundleOperation(monitor);
-					} else if (null != cause && cause instanceof BundleException) {
-						stopBundleOperation(monitor);
+					for (Map.Entry<Bundle, Future<Void>> task : tasks.entrySet()) {
+						Bundle bundle = task.getKey();
+						try {
+							localMonitor.subTask(NLS.bind(Msg.STOP_SUB_TASK_JOB, bundle.getSymbolicName()));
+							result = stop(bundle, task.getValue(), timeout, timeoutVal, result, monitor);
+						} finally {
+							localMonitor.worked(1);
+						}
 					}
-				} catch (InPlaceException e) {
-					result = addError(e, e.getLocalizedMessage(), bundle);
-				} finally {
-					localMonitor.worked(1);
 				}
 			}
 		}
 		return result;
 	}
 
+	/**
+	 * Stop the specified bundle or wait for the specified task stopping the bundle to finish, and
+	 * handle any failure.
+	 * 
+	 * @param bundle the bundle to stop
+	 * @param task the task stopping the bundle in parallel or null to stop the bundle in the current
+	 * thread
+	 * @param timeout true if the stop operation is terminated after the specified timeout
+	 * @param timeoutVal timeout in ms
+	 * @param result the current result of the stop operation
+	 * @param monitor the progress monitor to use for reporting progress to the user.
+	 * @return the current result or the status of the failure if the bundle failed to stop
+	 * @throws InterruptedException if interrupted while stopping or waiting on the bundle to stop
+	 */
+	private IBundleStatus stop(Bundle bundle, Future<Void> task, boolean timeout, long timeoutVal,
+			IBundleStatus result, IProgressMonitor monitor) throws InterruptedException {
+
+		try {
+			if (null == task) {
+				stopBundle(bundle, timeout, timeoutVal);
+			} else {
+				getTaskResult(task, "bundle_stop_error", bundle);
+			}
+		} catch (IllegalStateException e) {
+			result = addError(e, e.getMessage(), bundle);
+			Throwable firstCause = e.getCause();
+			if (null != firstCause.getCause() && 
+					(firstCause.getCause() instanceof ThreadDeath)) {
+				throw new OperationCanceledException();						
+			}
+		} catch (BundleStateChangeException e) {
+			addError(e, e.getMessage());
+			Throwable cause = e.getCause();
+			if (null != cause && cause instanceof TimeoutException) {
+				String msg = ExceptionMessage.getInstance().formatString("bundle_stop_timeout_error",
+						Long.toString(timeoutVal), bundle);
+				IBundleStatus errStat = new BundleStatus(StatusCode.EXCEPTION, Activator.PLUGIN_ID, msg,
+						e);
+				msg = WarnMessage.getInstance().formatString("timeout_termination", bundle);
+				createMultiStatus(errStat, addWarning(null, msg, bundleRegion.getProject(bundle)));
+				stopBundleOperation(bundle, monitor);
+			} else if (null != cause && cause instanceof BundleException) {
+				stopBundleOperation(bundle, monitor);
+			}
+		} catch (InPlaceException e) {
+			result = addError(e, e.getLocalizedMessage(), bundle);
+		}
+		return result;
+	}
+
+	/**
+	 * Stop the specified bundle if it is active or starting
+	 * 
+	 * @param bundle the bundle to stop
+	 * @param timeout true if the stop operation is terminated after the specified timeout
+	 * @param timeoutVal timeout in ms
+	 * @throws InterruptedException if interrupted while waiting on the bundle to stop
+	 */
+	private void stopBundle(Bundle bundle, boolean timeout, long timeoutVal)
+			throws InterruptedException {
+
+		if ((bundle.getState() & (Bundle.ACTIVE | Bundle.STARTING)) != 0) {
+			if (timeout) {
+				bundleCommand.stop(bundle, false, timeoutVal);
+			} else {
+				bundleCommand.stop(bundle, false);
+			}
+		}
+	}
+
+	/**
+	 * Starts a bundle from the activation executor
+	 */
+	private class StartTask implements Callable<Void> {
+
+		private final Bundle bundle;
+		private final boolean timeout;
+		private final long timeoutVal;
+
+		public StartTask(Bundle bundle, boolean timeout, long timeoutVal) {
+			this.bundle = bundle;
+			this.timeout = timeout;
+			this.timeoutVal = timeoutVal;
+		}
+
+		@Override
+		public Void call() throws Exception {
+			startBundle(bundle, timeout, timeoutVal);
+			return null;
+		}
+	}
+
+	/**
+	 * Stops a bundle from the activation executor
+	 */
+	private class StopTask implements Callable<Void> {
+
+		private final Bundle bundle;
+		private final boolean timeout;
+		private final long timeoutVal;
+
+		public StopTask(Bundle bundle, boolean timeout, long timeoutVal) {
+			this.bundle = bundle;
+			this.timeout = timeout;
+			this.timeoutVal = timeoutVal;
+		}
+
+		@Override
+		public Void call() throws Exception {
+			stopBundle(bundle, timeout, timeoutVal);
+			return null;
+		}
+	}
+
+	/**
+	 * Wait for the specified task to finish and throw the failure of the task if any
+	 * 
+	 * @param task a start or stop task
+	 * @param errorKey message key of the exception thrown for unexpected failures
+	 * @param bundle the bundle started or stopped by the task
+	 * @throws InterruptedException if interrupted while waiting or the task was interrupted
+	 */
+	private static void getTaskResult(Future<Void> task, String errorKey, Bundle bundle)
+			throws InterruptedException {
+
+		try {
+			task.get();
+		} catch (ExecutionException e) {
+			Throwable cause = e.getCause();
+			if (cause instanceof RuntimeException) {
+				throw (RuntimeException) cause;
+			} else if (cause instanceof Error) {
+				throw (Error) cause;
+			} else if (cause instanceof InterruptedException) {
+				throw (InterruptedException) cause;
+			}
+			throw new InPlaceException(cause, errorKey, bundle);
+		}
+	}
+
+	/**
+	 * Group the specified bundles in dependency waves if parallel activation is switched on. When
+	 * starting, providers are in waves preceding their requirers and when stopping, requirers are in
+	 * waves preceding their providers. Bundles in the same wave are independent of each other.
+	 * 
+	 * @param bundles the bundles to start or stop
+	 * @param isStart true to group the bundles for starting and false to group them for stopping
+	 * @return the specified bundles grouped in waves or null if the bundles should be started or
+	 * stopped one at a time in the specified order
+	 */
+	private List<List<Bundle>> getActivationWaves(Collection<Bundle> bundles, boolean isStart) {
+
+		try {
+			if (bundles.size() < 2 || !commandOptions.isParallelActivation()) {
+				return null;
+			}
+			BundleSorter bs = new BundleSorter();
+			// Sort all workspace bundles, to not miss dependencies through bundles not in the set
+			if (isStart) {
+				bs.sortProvidingBundles(bundles);
+			} else {
+				bs.sortRequiringBundles(bundles);
+			}
+			List<List<Bundle>> waves = new ArrayList<>();
+			for (List<Bundle> sortedWave : bs.getBundleWaves()) {
+				List<Bundle> wave = new ArrayList<>(sortedWave);
+				wave.retainAll(bundles);
+				if (!wave.isEmpty()) {
+					waves.add(wave);
+				}
+			}
+			return waves;
+		} catch (CircularReferenceException e) {
+			// Members of a cycle are not independent of each other
+			return null;
+		} catch (InPlaceException e) {
+			return null;
+		}
+	}
+
+	/**
+	 * Get the shared executor used to start and stop bundles in parallel. The number of threads is
+	 * bounded and idle threads are released.
+	 * 
+	 * @return the activation executor
+	 */
+	private static synchronized ExecutorService getActivationExecutor() {
+
+		if (null == activationExecutor) {
+			int threads = Math.max(2, Math.min(maxActivationThreads, Runtime.getRuntime()
+					.availableProcessors() * 2));
+			ThreadPoolExecutor executor = new ThreadPoolExecutor(threads, threads, 30L, TimeUnit.SECONDS,
+					new LinkedBlockingQueue<Runnable>(), new ThreadFactory() {
+						private final AtomicInteger threadNumber = new AtomicInteger(1);
+
+						@Override
+						public Thread newThread(Runnable runnable) {
+							Thread thread = new Thread(runnable, "InPlace Bundle Activation-"
+									+ threadNumber.getAndIncrement());
+							thread.setDaemon(true);
+							return thread;
+						}
+					});
+			executor.allowCoreThreadTimeOut(true);
+			activationExecutor = executor;
+		}
+		return activationExecutor;
+	}
+
 	@Override
 	public Bundle isStateChanging() throws ExtenderException {
 		
@@ -469,11 +775,26 @@ public class BundleJob extends JobStatus implements BundleExecutor {
 	 */
 	protected boolean stopBundleOperation(IProgressMonitor monitor) throws ExtenderException {
 
+		return stopBundleOperation(null, monitor);
+	}
+
+	/**
+	 * Stop the current start or stop bundle operation of the specified bundle. If the specified bundle
+	 * has no ongoing operation the current operation of any bundle is stopped. When bundles are started
+	 * or stopped in parallel more than one bundle may have an ongoing operation.
+	 * 
+	 * @param bundle the bundle with the operation to stop. May be null.
+	 * @throws ExtenderException if failing to get the bundle command, transition, region and/or the options service
+	 */
+	protected boolean stopBundleOperation(Bundle bundle, IProgressMonitor monitor) throws ExtenderException {
+
 		boolean stopped = false;
 		if (getState() != Job.RUNNING) {
 			return stopped;
 		}		
-		Bundle bundle = bundleRegion.isRegionStateChanging();
+		if (null == bundle || !bundleCommand.isStateChanging(bundleRegion.getProject(bundle))) {
+			bundle = bundleRegion.isRegionStateChanging();
+		}
 		String threadName = null;
 		boolean isTimeOut = commandOptions.isTimeOut();
 		if (null != bundle) {
@@ -582,38 +903,67 @@ public class BundleJob extends JobStatus implements BundleExecutor {
 	 * Refresh the specified collection of bundles. If the collection of specified bundles is empty
 	 * refresh is not invoked. Refresh runs in a separate thread causing this job, when calling the
 	 * framework refresh method, to wait until the framework fires an event indicating that refresh
-	 * has finished. The event handler then notifies this job to proceed.
+	 * has finished.
+	 * <p>
+	 * While waiting the progress monitor is checked for cancellation. Waiting is abandoned if the
+	 * refresh does not finish within {@link #refreshTimeout} milliseconds.
 	 * 
 	 * @param bundlesToRefresh the set of bundles to refresh
 	 * @param subMonitor monitor the progress monitor to use for reporting progress to the user.
-	 * @throws InPlaceException if this thread is interrupted, security violation, illegal argument
-	 * (not same framework) or illegal monitor (current thread not owner of monitor)
+	 * @throws InPlaceException if this thread is interrupted, the refresh timed out, security
+	 * violation or illegal argument (not same framework)
+	 * @throws OperationCanceledException if the job is cancelled while waiting for the refresh
 	 */
 	protected void refresh(final Collection<Bundle> bundlesToRefresh, IProgressMonitor subMonitor)
-			throws InPlaceException {
+			throws InPlaceException, OperationCanceledException {
 
 		SubMonitor localMonitor = SubMonitor.convert(subMonitor, bundlesToRefresh.size());
 		if (Category.getState(Category.progressBar))
 			sleep(sleepTime);
 		localMonitor.subTask(Msg.REFRESH_TASK_JOB);
-		if (Category.DEBUG && Category.getState(Category.listeners)) {
-			// Report on any additional bundles to refreshed by the framework than calculated
-			Collection<Bundle> dependencyClosure = bundleCommand.getDependencyClosure(bundlesToRefresh);
-			dependencyClosure.removeAll(bundlesToRefresh);
-			if (dependencyClosure.size() > 0) {
-				String msg = WarnMessage.getInstance().formatString("dependency_closure",
-						bundleRegion.formatBundleList(bundlesToRefresh, true));
-				addInfo(msg);
-				msg = WarnMessage.getInstance().formatString("dependency_closure_additional",
-						bundleRegion.formatBundleList(dependencyClosure, true));
-				addInfo(msg);
-			}
-		}
 		if (bundlesToRefresh.size() == 0) {
 			return;
 		}
 		try {
-			bundleCommand.refresh(bundlesToRefresh);
+			Future<RefreshResult> refresh = bundleCommand.refreshAsync(bundlesToRefresh);
+			RefreshResult result = null;
+			long waited = 0;
+			while (null == result) {
+				try {
+					result = refresh.get(refreshPollInterval, TimeUnit.MILLISECONDS);
+				} catch (TimeoutException e) {
+					waited += refreshPollInterval;
+					if (localMonitor.isCanceled()) {
+						refresh.cancel(false);
+						throw new OperationCanceledException();
+					}
+					if (waited >= refreshTimeout) {
+						refresh.cancel(false);
+						throw new InPlaceException(e, "refresh_timeout",
+								bundleRegion.formatBundleList(bundlesToRefresh, true), refreshTimeout);
+					}
+				}
+			}
+			if (Category.DEBUG && Category.getState(Category.listeners)) {
+				// Report on any additional bundles refreshed by the framework than calculated
+				Collection<Bundle> dependencyClosure = result.getAdditional();
+				if (dependencyClosure.size() > 0) {
+					String msg = WarnMessage.getInstance().formatString("dependency_closure",
+							bundleRegion.formatBundleList(bundlesToRefresh, true));
+					addInfo(msg);
+					msg = WarnMessage.getInstance().formatString("dependency_closure_additional",
+							bundleRegion.formatBundleList(dependencyClosure, true));
+					addInfo(msg);
+				}
+			}
+		} catch (InterruptedException e) {
+			throw new InPlaceException(e, "interrupt_exception_refresh", getName());
+		} catch (ExecutionException e) {
+			Throwable cause = e.getCause();
+			if (cause instanceof InPlaceException) {
+				throw (InPlaceException) cause;
+			}
+			throw new InPlaceException(cause);
 		} finally {
 			localMonitor.worked(bundlesToRefresh.size());
 		}
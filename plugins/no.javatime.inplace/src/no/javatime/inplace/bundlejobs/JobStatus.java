@@ -210,13 +210,14 @@ public class JobStatus extends WorkspaceJob implements BundleTransitionEventList
 				} else {
 					addLogStatus(
 							Msg.START_BUNDLE_OP_TRACE,
-							new Object[] { bundle, new DecimalFormat().format(bundleCommand.getExecutionTime()) },
+							new Object[] { bundle,
+									new DecimalFormat().format(bundleCommand.getExecutionTime(bundle)) },
 							bundle);
 				}
 				break;
 			case STOP:
 				addLogStatus(Msg.STOP_BUNDLE_OP_TRACE,
-						new Object[] { bundle, new DecimalFormat().format(bundleCommand.getExecutionTime()) },
+						new Object[] { bundle, new DecimalFormat().format(bundleCommand.getExecutionTime(bundle)) },
 						bundle);
 				break;
 			case UNINSTALL:
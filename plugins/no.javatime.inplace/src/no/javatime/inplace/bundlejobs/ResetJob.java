@@ -177,26 +177,14 @@ public class ResetJob extends BundleJob implements Reset {
 		BundleBuildErrorClosure be = new BundleBuildErrorClosure(uninstallClosures,
 				Transition.UNINSTALL, Closure.PROVIDING, Bundle.RESOLVED, ActivationScope.ACTIVATED);
 		if (be.hasBuildErrors(true)) {
-			// Remove legal closures that have overlapping bundles with error closures
-			Collection<IProject> errorProjects = be.getBuildErrors(true);
-			Collection<IProject> errorClosures = null;
+			// Remove projects connected to error projects from the legal closures
+			Collection<IProject> errorClosures = be.getBuildErrorComponents(true);
+			errorStatusProjects.addAll(errorClosures);
 			Collection<IProject> resolvedProjects = new LinkedHashSet<>(initialProjects);
 			resolvedProjects.removeAll(bundleRegion.getProjects(installedBundles));
-			do {
-				errorClosures = closures.projectDeactivation(Closure.PROVIDING_AND_REQUIRING,
-						errorProjects, true);
-				errorStatusProjects.addAll(errorClosures);
-				uninstallClosures = closures.projectDeactivation(Closure.PROVIDING_AND_REQUIRING,
-						resolvedProjects, true);
-				// Are there bundles who are members in both error and legal closures
-				errorClosures.retainAll(uninstallClosures);
-				if (errorClosures.size() > 0) {
-					uninstallClosures = closures.projectDeactivation(Closure.PROVIDING_AND_REQUIRING,
-							errorClosures, true);
-					resolvedProjects.removeAll(uninstallClosures);
-					errorStatusProjects.addAll(uninstallClosures);
-				}
-			} while (errorClosures.size() > 0);
+			resolvedProjects.removeAll(errorClosures);
+			uninstallClosures = new LinkedHashSet<>(closures.projectDeactivation(
+					Closure.PROVIDING_AND_REQUIRING, resolvedProjects, true));
 		}	
 		if (errorStatusProjects.size() > 0) {
 			IBundleStatus errorStatus = new BundleStatus(StatusCode.WARNING, Activator.PLUGIN_ID, "Error bundle project closure(s):");
@@ -11,6 +11,7 @@
 package no.javatime.inplace.bundlejobs;
 
 import java.io.InterruptedIOException;
+import java.text.DecimalFormat;
 import java.util.ArrayList;
 import java.util.Collection;
 import java.util.Collections;
@@ -28,10 +29,8 @@ import no.javatime.inplace.region.closure.BundleSorter;
 import no.javatime.inplace.region.closure.CircularReferenceException;
 import no.javatime.inplace.region.intface.BundleTransition.Transition;
 import no.javatime.inplace.region.intface.BundleTransitionListener;
-import no.javatime.inplace.region.intface.ExternalDuplicateException;
 import no.javatime.inplace.region.intface.InPlaceException;
 import no.javatime.inplace.region.intface.ProjectLocationException;
-import no.javatime.inplace.region.intface.WorkspaceDuplicateException;
 import no.javatime.inplace.region.status.BundleStatus;
 import no.javatime.inplace.region.status.IBundleStatus;
 import no.javatime.inplace.region.status.IBundleStatus.StatusCode;
@@ -181,20 +180,27 @@ public class UpdateJob extends BundleJob implements Update {
 				bundlesToRestart.add(bundle);
 			}
 		}
+		// Elapsed time of the stop, update, refresh, resolve and start phases
+		long[] phaseTimes = new long[5];
+		long startTime = System.currentTimeMillis();
 		// (3) Stop bundles collected in (2). Bundles in state installed are ignored
 		stop(bundlesToRestart, null, new SubProgressMonitor(monitor, 1));
+		phaseTimes[0] = System.currentTimeMillis() - startTime;
 		if (monitor.isCanceled()) {
 			throw new OperationCanceledException();
 		}
 		// (4) Update bundles
+		startTime = System.currentTimeMillis();
 		Collection<IBundleStatus> errorStatusList = updateByReference(bundlesToUpdate,
 				new SubProgressMonitor(monitor, 1));
+		phaseTimes[1] = System.currentTimeMillis() - startTime;
 		// (5) Report any update errors
 		// handleUpdateExceptions(errorStatusList, requiringClosure);
 		if (monitor.isCanceled()) {
 			throw new OperationCanceledException();
 		}
-		// (6) Refresh updated bundles and their closures or resolve updated bundles
+		// (6) Refresh updated bundles and their closures in one refresh or resolve updated bundles
+		startTime = System.currentTimeMillis();
 		if (requiringClosure.size() > 0) {
 			if (commandOptions.isRefreshOnUpdate()) {
 				try {
@@ -203,6 +209,7 @@ public class UpdateJob extends BundleJob implements Update {
 					bundlesToRestart.removeAll(requiringClosure);
 					handleRefreshException(e, requiringClosure);
 				}
+				phaseTimes[2] = System.currentTimeMillis() - startTime;
 			} else {
 				Collection<Bundle> notResolvedBundles = resolve(requiringClosure, new SubProgressMonitor(
 						monitor, 1));
@@ -210,13 +217,22 @@ public class UpdateJob extends BundleJob implements Update {
 					// This should include dependency closures, so no dependent bundles should be started
 					bundlesToRestart.removeAll(notResolvedBundles);
 				}
+				phaseTimes[3] = System.currentTimeMillis() - startTime;
 			}
 		}
 		if (monitor.isCanceled()) {
 			throw new OperationCanceledException();
 		}
 		// (7) Start bundles stopped in (3)
+		startTime = System.currentTimeMillis();
 		start(bundlesToRestart, Closure.PROVIDING, new SubProgressMonitor(monitor, 1));
+		phaseTimes[4] = System.currentTimeMillis() - startTime;
+		if (messageOptions.isBundleOperations()) {
+			DecimalFormat format = new DecimalFormat();
+			addLogStatus(NLS.bind(Msg.UPDATE_PHASES_TRACE, new Object[] { format.format(phaseTimes[0]),
+					format.format(phaseTimes[1]), format.format(phaseTimes[2]),
+					format.format(phaseTimes[3]), format.format(phaseTimes[4]) }));
+		}
 		// (8) Restore any transition errors detected by update (4)
 		restoreStatus(errorStatusList);
 		return getLastErrorStatus();
@@ -311,7 +327,9 @@ public class UpdateJob extends BundleJob implements Update {
 	}
 
 	/**
-	 * Updates the specified bundles using an input stream
+	 * Updates the specified bundles pending for update in one batch using an input stream. Input
+	 * streams and resolver hook groups are prepared for all bundles before the bundles are updated in
+	 * update order
 	 * 
 	 * @param bundles to update
 	 * @param monitor monitor the progress monitor to use for reporting progress to the user.
@@ -324,43 +342,26 @@ public class UpdateJob extends BundleJob implements Update {
 
 		Collection<IBundleStatus> statusList = null;
 		SubMonitor localMonitor = SubMonitor.convert(monitor, bundles.size());
+		Collection<Bundle> pendingBundles = new ArrayList<>();
 		for (Bundle bundle : getUpdateOrder(bundles, true)) {
 			if (bundleTransition.containsPending(bundle, Transition.UPDATE, true)) {
-				try {
-					localMonitor.subTask(Msg.UPDATE_SUB_TASK_JOB + bundle.getSymbolicName());
-					if (Category.getState(Category.progressBar))
-						sleep(sleepTime);
-					bundleCommand.update(bundle);
-				} catch (WorkspaceDuplicateException e) {
-					IBundleStatus result = addError(e, e.getMessage(), bundle);
-					if (null == statusList) {
-						statusList = new LinkedHashSet<IBundleStatus>();
-					}
-//					handleDuplicateException(bundleRegion.getProject(bundle), e, null);
-//					String msg = ErrorMessage.getInstance().formatString("duplicate_error",
-//							bundle.getSymbolicName(), bundle.getVersion().toString());
-//					IBundleStatus result = new BundleStatus(StatusCode.EXCEPTION, Activator.PLUGIN_ID,
-//							bundle.getBundleId(), msg, e);
-//					if (null == statusList) {
-//						statusList = new LinkedHashSet<IBundleStatus>();
-//					}
-					statusList.add(result);
-				} catch (ExternalDuplicateException e) {
-					IBundleStatus result = addError(e, e.getMessage(), bundle);
-					if (null == statusList) {
-						statusList = new LinkedHashSet<IBundleStatus>();
-					}
-					statusList.add(result);					
-				} catch (InPlaceException e) {
-					IBundleStatus result = addError(e, e.getMessage(), bundle);
-					if (null == statusList) {
-						statusList = new LinkedHashSet<IBundleStatus>();
-					}
-					statusList.add(result);
-				} finally {
-					localMonitor.worked(1);
+				pendingBundles.add(bundle);
+			}
+		}
+		if (pendingBundles.size() > 0) {
+			localMonitor.subTask(Msg.UPDATE_SUB_TASK_JOB + bundleRegion.formatBundleList(pendingBundles, false));
+			if (Category.getState(Category.progressBar))
+				sleep(sleepTime);
+			Map<Bundle, RuntimeException> failures = bundleCommand.update(pendingBundles);
+			for (Map.Entry<Bundle, RuntimeException> failure : failures.entrySet()) {
+				RuntimeException e = failure.getValue();
+				IBundleStatus result = addError(e, e.getMessage(), failure.getKey());
+				if (null == statusList) {
+					statusList = new LinkedHashSet<IBundleStatus>();
 				}
+				statusList.add(result);
 			}
+			localMonitor.worked(pendingBundles.size());
 		}
 		if (null == statusList) {
 			return Collections.<IBundleStatus> emptySet();
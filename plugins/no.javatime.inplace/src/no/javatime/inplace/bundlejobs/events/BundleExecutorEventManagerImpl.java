@@ -26,6 +26,24 @@ public class BundleExecutorEventManagerImpl implements BundleExecutorEventManage
 
 		return bundleJobNotifier.jobListeners();
 	}
+
+	@Override
+	public int queued() {
+
+		return bundleJobNotifier.queued();
+	}
+
+	@Override
+	public long getMaxWaitTime() {
+
+		return bundleJobNotifier.getMaxWaitTime();
+	}
+
+	@Override
+	public long getAverageWaitTime() {
+
+		return bundleJobNotifier.getAverageWaitTime();
+	}
 	
 	@Override
 	public synchronized void add(BundleExecutor bundleExecutor, long delay) {
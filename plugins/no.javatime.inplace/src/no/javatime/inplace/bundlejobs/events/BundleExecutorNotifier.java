@@ -10,29 +10,55 @@
  *******************************************************************************/
 package no.javatime.inplace.bundlejobs.events;
 
+import java.util.ArrayDeque;
 import java.util.ArrayList;
 import java.util.Collection;
 import java.util.Collections;
 import java.util.Iterator;
-import java.util.concurrent.ExecutorService;
-import java.util.concurrent.Executors;
-import java.util.concurrent.RejectedExecutionException;
+import java.util.Queue;
 
-import no.javatime.inplace.Activator;
 import no.javatime.inplace.bundlejobs.events.intface.BundleExecutorEvent;
 import no.javatime.inplace.bundlejobs.events.intface.BundleExecutorEventListener;
 import no.javatime.inplace.bundlejobs.intface.BundleExecutor;
-import no.javatime.inplace.extender.intface.ExtenderException;
-import no.javatime.inplace.region.status.BundleStatus;
-import no.javatime.inplace.region.status.IBundleStatus.StatusCode;
 
-import org.eclipse.ui.statushandlers.StatusManager;
+import org.eclipse.core.resources.ResourcesPlugin;
+import org.eclipse.core.runtime.jobs.IJobChangeEvent;
+import org.eclipse.core.runtime.jobs.IJobChangeListener;
+import org.eclipse.core.runtime.jobs.Job;
+import org.eclipse.core.runtime.jobs.JobChangeAdapter;
 
+/**
+ * Passes added bundle executors to listeners in the order they are added.
+ * <p>
+ * Bundle executors added while the builder is running are queued and released to listeners when the
+ * builder has finished. Builder completion is tracked by a job change listener which is only
+ * registered while there are queued bundle executors, so no thread is blocked waiting on the
+ * builder.
+ */
 class BundleExecutorNotifier {
 
 	protected Collection<BundleExecutorEventListener> jobListeners = Collections
 			.synchronizedList(new ArrayList<BundleExecutorEventListener>());;
 
+	// Events waiting for the builder to finish. Guards the dispatch state and the statistics
+	private final Queue<QueuedEvent> queue = new ArrayDeque<>();
+	// True while an event is passed to listeners
+	private boolean dispatching;
+	// True while the builder listener is registered
+	private boolean listening;
+	private long releasedEvents;
+	private long totalWaitTime;
+	private long maxWaitTime;
+
+	private final IJobChangeListener builderListener = new JobChangeAdapter() {
+		@Override
+		public void done(IJobChangeEvent event) {
+			if (event.getJob().belongsTo(ResourcesPlugin.FAMILY_AUTO_BUILD)) {
+				release();
+			}
+		}
+	};
+
 	public synchronized int jobListeners() {
 		return jobListeners.size();
 	}
@@ -48,53 +74,119 @@ class BundleExecutorNotifier {
 	}
 
 	protected synchronized void fireJobEvent(BundleExecutorEvent evt) {
-		// execute(evt);
 		for (Iterator<BundleExecutorEventListener> iterator = jobListeners.iterator(); iterator.hasNext();) {
 			iterator.next().bundleJobEvent(evt);
 		}
 	}
 	
 	public void addBundleJob(BundleExecutor bundleExecutor) {
-		final BundleExecutorEvent event = new BundleExecutorEventImpl(this, bundleExecutor, 0);
-		fireJobEvent(event);
+		addBundleJob(bundleExecutor, 0);
 	}
 
 	public void addBundleJob(BundleExecutor bundleExecutor, long delay) {
 		BundleExecutorEvent event = new BundleExecutorEventImpl(this, bundleExecutor, delay);
-		fireJobEvent(event);
+		synchronized (queue) {
+			queue.add(new QueuedEvent(event));
+			if (!listening) {
+				// Register before checking the builder so a finished build is not missed
+				Job.getJobManager().addJobChangeListener(builderListener);
+				listening = true;
+			}
+		}
+		release();
 	}
-	
-	private synchronized void execute(final BundleExecutorEvent event) {
-
-		ExecutorService executor = Executors.newSingleThreadExecutor();
-		// Run in a separate thread while waiting for the builder to finish
-		try {
-			executor.execute(new Runnable() {
-
-				/**
-				 * Wait on builder to finish before passing the job to listeners
-				 */
-				@Override
-				public void run() {
-					try {
-						Activator.getResourceStateService().waitOnBuilder(false);
-						for (Iterator<BundleExecutorEventListener> iterator = jobListeners.iterator(); iterator.hasNext();) {
-							iterator.next().bundleJobEvent(event);
-						}
-					} catch (ExtenderException e) {
-						StatusManager.getManager().handle(
-								new BundleStatus(StatusCode.EXCEPTION, Activator.PLUGIN_ID, e.getMessage(), e),
-								StatusManager.LOG);
+
+	/**
+	 * Number of added bundle executors waiting for the builder to finish
+	 * 
+	 * @return number of queued bundle executors
+	 */
+	public int queued() {
+		synchronized (queue) {
+			return queue.size();
+		}
+	}
+
+	/**
+	 * The longest time an added bundle executor has waited for the builder to finish
+	 * 
+	 * @return maximum wait time in milliseconds
+	 */
+	public long getMaxWaitTime() {
+		synchronized (queue) {
+			return maxWaitTime;
+		}
+	}
+
+	/**
+	 * The average time added bundle executors have waited for the builder to finish
+	 * 
+	 * @return average wait time in milliseconds of released bundle executors
+	 */
+	public long getAverageWaitTime() {
+		synchronized (queue) {
+			return releasedEvents > 0 ? totalWaitTime / releasedEvents : 0;
+		}
+	}
+
+	/**
+	 * Pass queued events to listeners in the order they were added unless the builder is running. If
+	 * another thread is passing events to listeners it also passes the events queued by this thread.
+	 */
+	private void release() {
+
+		while (true) {
+			QueuedEvent queuedEvent;
+			synchronized (queue) {
+				if (dispatching) {
+					return;
+				}
+				if (queue.isEmpty()) {
+					if (listening) {
+						Job.getJobManager().removeJobChangeListener(builderListener);
+						listening = false;
 					}
+					return;
+				}
+				if (isBuilding()) {
+					return;
+				}
+				queuedEvent = queue.poll();
+				long waitTime = System.currentTimeMillis() - queuedEvent.added;
+				releasedEvents++;
+				totalWaitTime += waitTime;
+				maxWaitTime = Math.max(maxWaitTime, waitTime);
+				dispatching = true;
+			}
+			try {
+				fireJobEvent(queuedEvent.event);
+			} finally {
+				synchronized (queue) {
+					dispatching = false;
 				}
-			});
-		} catch (RejectedExecutionException e) {
-			StatusManager.getManager().handle(
-					new BundleStatus(StatusCode.EXCEPTION, Activator.PLUGIN_ID, e.getMessage(), e),
-					StatusManager.LOG);
-		} finally {
-			executor.shutdown();
+			}
 		}
 	}
 
+	/**
+	 * Check if the builder is running or is scheduled to run
+	 * 
+	 * @return true if the auto builder is running, waiting or sleeping
+	 */
+	private boolean isBuilding() {
+		return Job.getJobManager().find(ResourcesPlugin.FAMILY_AUTO_BUILD).length > 0;
+	}
+
+	/**
+	 * An added event and the time it was added
+	 */
+	private static class QueuedEvent {
+
+		private final BundleExecutorEvent event;
+		private final long added = System.currentTimeMillis();
+
+		public QueuedEvent(BundleExecutorEvent event) {
+			this.event = event;
+		}
+	}
 }
@@ -38,6 +38,28 @@ public interface BundleExecutorEventManager {
 	 */
 	public int listeners();
 
+	/**
+	 * Number of added bundle executors waiting for the builder to finish before they are passed to
+	 * listeners
+	 * 
+	 * @return number of queued bundle executors
+	 */
+	public int queued();
+
+	/**
+	 * The longest time an added bundle executor has waited for the builder to finish
+	 * 
+	 * @return maximum wait time in milliseconds
+	 */
+	public long getMaxWaitTime();
+
+	/**
+	 * The average time added bundle executors have waited for the builder to finish
+	 * 
+	 * @return average wait time in milliseconds
+	 */
+	public long getAverageWaitTime();
+
 	/**
 	 * Adds a bundle executor operation managed by job listeners
 	 * 
@@ -32,6 +32,8 @@ public class Msg extends NLS {
 	public static String INSTALL_BUNDLE_OP_TRACE;
 	public static String BUNDLE_LOCATION_TRACE;
 	public static String UPDATE_BUNDLE_OP_TRACE;
+	public static String UPDATE_PHASES_TRACE;
+	public static String MERGED_BUILDS_TRACE;
 	public static String LAZY_ACTIVATE_BUNDLE_OP_TRACE;
 	public static String ON_DEMAND_BUNDLE_START_OP_TRACE;
 	public static String EXTERNAL_BUNDLE_OP_TRACE;
@@ -60,6 +62,7 @@ public class Msg extends NLS {
 	public static String ACTIVATE_BUNDLE_JOB;
   public static String ACTIVATE_BUNDLE_TASK_JOB;
   public static String STARTUP_ACTIVATE_BUNDLE_JOB;
+  public static String FAST_START_JOB;
 	public static String INIT_DEACTIVATED_WORKSPACE_JOB;
   public static String UPDATE_BUNDLE_CLASS_PATH_JOB; 
   public static String REMOVE_BUNDLE_PROJECT_JOB;
@@ -198,6 +201,8 @@ public class Msg extends NLS {
 	public static String RECOVERY_NO_ACTION_BUNDLE_INFO;
 	public static String STARTUP_DEACTIVATE_BUILD_ERROR_INFO;
 	public static String STARTUP_DEACTIVATE_ON_EXIT_INFO;
+	public static String FAST_START_DEFERRED_INFO;
+	public static String FAST_START_INFO;
 
 	// Dialog and View messages
 	public static String DEACTIVATE_QUESTION_DLG;